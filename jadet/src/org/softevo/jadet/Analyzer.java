@@ -13,9 +13,14 @@ import org.softevo.jadet.sca.Method;
 import org.softevo.jadet.sca.OutputVerbosity;
 import org.softevo.jadet.sca.Pattern;
 import org.softevo.jadet.sca.PatternsList;
+import org.softevo.jadet.sca.PatternsStore;
+import org.softevo.jadet.sca.SCACache;
 import org.softevo.jadet.sca.SCAAbstractor;
+import org.softevo.jadet.sca.SampledMiner;
 import org.softevo.jadet.sca.Violation;
 import org.softevo.jadet.sca.Violation.ViolationComparator;
+import org.softevo.jadet.sca.ViolationVisitor;
+import org.softevo.jadet.sca.ViolationsHeap;
 import org.softevo.jadet.sca.ViolationsList;
 import org.softevo.jutil.Pair;
 import org.softevo.jutil.tasks.Task;
@@ -27,6 +32,7 @@ import org.softevo.oumextractor.modelcreator1.model.Transition;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -36,6 +42,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
 
 
 /**
@@ -46,6 +53,13 @@ import java.util.Set;
  */
 public class Analyzer {
 
+    /**
+     * Violations with a defect indicator not greater than this are never
+     * reported.
+     */
+    private static final double MIN_DEFECT_INDICATOR = 1.25;
+
+
     /**
      * List of patterns mined, ordered by the support. If <code>null</code>,
      * mining was not performed.
@@ -112,10 +126,12 @@ public class Analyzer {
      * @param minSize       Minimum size parameter to use.
      * @param maxDevLevel   Maximum deviation level parameter to use.
      * @param minConfidence Minimum confidence parameter to use.
+     * @param top           Number of best-ranked violations to keep before
+     *                      filtering (0 to keep all).
      */
     public void mineViolations(String modelsDirName, String inputName,
                                int minSupport, int minSize, int maxDevLevel,
-                               double minConfidence) {
+                               double minConfidence, int top) {
         // create the concept analysis matrix
         CAMatrix<Method, EventPair> matrix = createCAMatrix(modelsDirName,
                 inputName);
@@ -124,6 +140,18 @@ public class Analyzer {
         Task task = new Task("Mining violations");
         Set<Anomaly<Method, EventPair>> anomalies = matrix.mineAnomalies(
                 minSupport, minSize, maxDevLevel, minConfidence, 3);
+        if (top > 0) {
+            // rank the violations right away and keep only the best ones
+            ViolationsHeap heap = new ViolationsHeap(top, MIN_DEFECT_INDICATOR);
+            for (Anomaly<Method, EventPair> anomaly : anomalies) {
+                for (org.softevo.catools.Violation<Method, EventPair> cavio : anomaly.getViolations()) {
+                    heap.offer(cavio, calculateViolationConviction(matrix, cavio));
+                }
+            }
+            anomalies = null;    // conserve memory
+            reportTopViolations(task, heap);
+            return;
+        }
         this.violations = new ViolationsList();
         for (Anomaly<Method, EventPair> anomaly : anomalies) {
             for (org.softevo.catools.Violation<Method, EventPair> cavio : anomaly.getViolations()) {
@@ -136,23 +164,432 @@ public class Analyzer {
 
         // ranking and filtering the violations
         task = new Task("Ranking and filtering violations");
-        rankViolations(matrix);
-        filterViolations();
+        rankViolations(matrix, this.violations);
+        filterViolations(this.violations);
+        task.addMessage(this.violations.size() + " violations reported");
+        task.done();
+    }
+
+
+    /**
+     * Mines violations approximately, on a random sample of the methods,
+     * from the models or given core files. Patterns of violations found in
+     * the sample are verified against all the methods, so that only exact
+     * violations are reported. Estimates made from the sample are written
+     * into the given report file.
+     *
+     * @param modelsDirName Directory with the models to analyze (optional).
+     * @param inputName     Core name of files with sca (optional).
+     * @param minSupport    Minimum support parameter to use.
+     * @param minSize       Minimum size parameter to use.
+     * @param maxDevLevel   Maximum deviation level parameter to use.
+     * @param minConfidence Minimum confidence parameter to use.
+     * @param top           Number of best-ranked violations to keep before
+     *                      filtering (0 to keep all).
+     * @param sampleSize    Number of methods to sample.
+     * @param seed          Seed of the random numbers generator.
+     * @param stratified    Indicates if the sample should be stratified by
+     *                      classes.
+     * @param reportFile    File to write the estimates to.
+     */
+    public void mineViolations(String modelsDirName, String inputName,
+                               int minSupport, int minSize, int maxDevLevel,
+                               double minConfidence, int top, int sampleSize,
+                               long seed, boolean stratified,
+                               File reportFile) {
+        // create the concept analysis matrix
+        final CAMatrix<Method, EventPair> matrix = createCAMatrix(modelsDirName,
+                inputName);
+
+        // draw the sample and mine it
+        Task task = new Task("Sampling methods");
+        SampledMiner miner = new SampledMiner(matrix, sampleSize, seed,
+                stratified);
+        int sampleMinSupport = miner.getSampleMinSupport(minSupport);
+        double sampleMinConfidence = miner.getSampleMinConfidence(
+                minConfidence, sampleMinSupport);
+        task.addMessage(miner.getSampleSize() + " of " +
+                miner.getMethodsNum() + " methods sampled");
+        task.addMessage("sample thresholds: support " + sampleMinSupport +
+                ", confidence " + sampleMinConfidence);
+        task.done();
+        task = new Task("Mining violations in the sample");
+        Set<Anomaly<Method, EventPair>> anomalies =
+                miner.getSample().mineAnomalies(sampleMinSupport, minSize,
+                        maxDevLevel, sampleMinConfidence, 3);
+        task.addMessage(anomalies.size() + " candidate anomalies found");
+        task.done();
+
+        // verify the candidates
+        task = new Task("Verifying violations");
+        final ViolationsHeap heap = top > 0 ?
+                new ViolationsHeap(top, MIN_DEFECT_INDICATOR) : null;
+        final ViolationsList violations = new ViolationsList();
+        int confirmedNum;
+        try {
+            PrintWriter report = new PrintWriter(reportFile);
+            try {
+                confirmedNum = miner.verify(anomalies, minSupport, minSize,
+                        maxDevLevel, minConfidence, new ViolationVisitor() {
+                            public void visit(org.softevo.catools.Violation<Method, EventPair> violation) {
+                                if (heap != null) {
+                                    heap.offer(violation,
+                                            calculateViolationConviction(matrix, violation));
+                                } else {
+                                    violations.add(new Violation(violation));
+                                }
+                            }
+                        }, report);
+            } finally {
+                report.close();
+            }
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            return;
+        }
+        task.addMessage(confirmedNum + " of " + anomalies.size() +
+                " candidate anomalies confirmed");
+        anomalies = null;    // conserve memory
+        if (heap != null) {
+            reportTopViolations(task, heap);
+            return;
+        }
+        this.violations = violations;
+        task.addMessage(this.violations.size() + " violations found");
+        task.done();
+
+        // ranking and filtering the violations
+        task = new Task("Ranking and filtering violations");
+        rankViolations(matrix, this.violations);
+        filterViolations(this.violations);
         task.addMessage(this.violations.size() + " violations reported");
         task.done();
     }
 
 
     /**
-     * Filters the violations.
+     * Mines patterns and violations for every combination of the given
+     * thresholds. The concept analysis matrix is created and mined only once,
+     * using the loosest thresholds; results for stricter thresholds are
+     * derived from that. Violations for each combination are written into a
+     * separate XML file in the given directory, together with a summary
+     * table of all the combinations.
+     *
+     * @param modelsDirName  Directory with the models to analyze (optional).
+     * @param inputName      Core name of files with sca (optional).
+     * @param minSupports    Minimum support parameters to use.
+     * @param minSizes       Minimum size parameters to use.
+     * @param maxDevLevel    Maximum deviation level parameter to use.
+     * @param minConfidences Minimum confidence parameters to use.
+     * @param outDir         Directory to output violations and summary to.
+     */
+    public void sweepViolations(String modelsDirName, String inputName,
+                                SortedSet<Integer> minSupports,
+                                SortedSet<Integer> minSizes, int maxDevLevel,
+                                SortedSet<Double> minConfidences, File outDir) {
+        // create the concept analysis matrix
+        CAMatrix<Method, EventPair> matrix = createCAMatrix(modelsDirName,
+                inputName);
+
+        // mine the patterns and violations using the loosest thresholds;
+        // mining with stricter thresholds yields exactly the subsets of these
+        // that satisfy the stricter thresholds
+        Task task = new Task("Mining patterns");
+        Set<org.softevo.catools.Pattern<Method, EventPair>> allPatterns =
+                matrix.minePatterns(minSupports.first(), minSizes.first(), 0);
+        task.addMessage(allPatterns.size() + " patterns found");
+        task.done();
+
+        task = new Task("Mining violations");
+        Set<Anomaly<Method, EventPair>> anomalies = matrix.mineAnomalies(
+                minSupports.first(), minSizes.first(), maxDevLevel,
+                minConfidences.first(), 3);
+        ViolationsList allViolations = new ViolationsList();
+        for (Anomaly<Method, EventPair> anomaly : anomalies) {
+            for (org.softevo.catools.Violation<Method, EventPair> cavio : anomaly.getViolations()) {
+                allViolations.add(new Violation(cavio));
+            }
+        }
+        anomalies = null;    // conserve memory
+        task.addMessage(allViolations.size() + " violations found");
+        task.done();
+
+        // the ranking does not depend on the thresholds
+        task = new Task("Ranking violations");
+        rankViolations(matrix, allViolations);
+        task.done();
+
+        // derive the results for each combination of thresholds
+        task = new Task("Filtering and outputting violations");
+        try {
+            PrintWriter summary = new PrintWriter(new File(outDir,
+                    "summary.txt"));
+            summary.println("min_support\tmin_size\tmin_confidence\t" +
+                    "patterns\tviolations_found\tviolations_reported\tout_file");
+            for (int minSupport : minSupports) {
+                for (int minSize : minSizes) {
+                    int patternsNum = 0;
+                    for (org.softevo.catools.Pattern<Method, EventPair> pattern : allPatterns) {
+                        if (pattern.getSupport() >= minSupport &&
+                                pattern.getProperties().size() >= minSize) {
+                            patternsNum++;
+                        }
+                    }
+                    for (double minConfidence : minConfidences) {
+                        ViolationsList violations = new ViolationsList();
+                        for (Violation violation : allViolations) {
+                            if (satisfiesThresholds(violation, minSupport,
+                                    minSize, minConfidence)) {
+                                violations.add(violation);
+                            }
+                        }
+                        int violationsFoundNum = violations.size();
+                        filterViolations(violations);
+                        String outFileName = "violations_" + minSupport +
+                                "_" + minSize + "_" + minConfidence + ".xml";
+                        violations.writeXML(new File(outDir, outFileName));
+                        summary.println(minSupport + "\t" + minSize + "\t" +
+                                minConfidence + "\t" + patternsNum + "\t" +
+                                violationsFoundNum + "\t" + violations.size() +
+                                "\t" + outFileName);
+                    }
+                }
+            }
+            summary.close();
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            return;
+        }
+        task.addMessage((minSupports.size() * minSizes.size() *
+                minConfidences.size()) + " combinations of thresholds");
+        task.done();
+    }
+
+
+    /**
+     * Checks if the given violation would have been mined using the given
+     * thresholds.
+     *
+     * @param violation     Violation mined using looser thresholds.
+     * @param minSupport    Minimum support parameter.
+     * @param minSize       Minimum size parameter.
+     * @param minConfidence Minimum confidence parameter.
+     * @return <code>true</code> if the violation satisfies all thresholds;
+     * <code>false</code> otherwise.
+     */
+    private static boolean satisfiesThresholds(Violation violation,
+                                               int minSupport, int minSize,
+                                               double minConfidence) {
+        org.softevo.catools.Pattern<Method, EventPair> pattern =
+                violation.getPattern();
+        // the confidence is compared with single precision, like the miner does
+        return pattern.getSupport() >= minSupport &&
+                pattern.getProperties().size() >= minSize &&
+                (float) violation.getConfidence() >= (float) minConfidence;
+    }
+
+
+    /**
+     * Mines all closed patterns with at least the given support from the
+     * models or given core files and writes them, with all their supporting
+     * methods, into a store file.
+     *
+     * @param modelsDirName Directory with the models to analyze (optional).
+     * @param inputName     Core name of files with sca (optional).
+     * @param minSupport    Minimum support parameter to use when mining.
+     * @param storeFile     File to write the store to.
+     */
+    public void storePatterns(String modelsDirName, String inputName,
+                              int minSupport, File storeFile) {
+        // create the concept analysis matrix
+        CAMatrix<Method, EventPair> matrix = createCAMatrix(modelsDirName,
+                inputName);
+
+        // mine the patterns
+        Task task = new Task("Mining patterns");
+        PatternsStore store = PatternsStore.create(matrix, minSupport);
+        task.addMessage(store.getPatternsNum() + " patterns found");
+        task.done();
+
+        task = new Task("Outputting patterns");
+        store.writeToFile(storeFile);
+        task.done();
+    }
+
+
+    /**
+     * Updates the patterns in the given store file with the methods from the
+     * models or given core files that were not analyzed when the store was
+     * created. If any of the methods analyzed before changed, all patterns
+     * are mined again.
+     *
+     * @param modelsDirName Directory with the models to analyze (optional).
+     * @param inputName     Core name of files with sca (optional).
+     * @param storeFile     File with the store to update.
      */
-    private void filterViolations() {
+    public void updatePatterns(String modelsDirName, String inputName,
+                               File storeFile) {
+        Task task = new Task("Reading patterns");
+        PatternsStore store = PatternsStore.readFromFile(storeFile);
+        task.addMessage(store.getPatternsNum() + " patterns read");
+        task.done();
+
+        // create the concept analysis matrix
+        CAMatrix<Method, EventPair> matrix = createCAMatrix(modelsDirName,
+                inputName);
+
+        // update the patterns
+        task = new Task("Updating patterns");
+        PatternsStore updatedStore = store.update(matrix);
+        if (updatedStore == null) {
+            task.addMessage("Methods analyzed before changed; mining all " +
+                    "patterns again");
+            updatedStore = PatternsStore.create(matrix, store.getMinSupport());
+        } else {
+            task.addMessage((updatedStore.getTransactionsNum() -
+                    store.getTransactionsNum()) + " methods added");
+        }
+        task.addMessage(updatedStore.getPatternsNum() + " patterns found");
+        task.done();
+
+        if (updatedStore != store) {
+            task = new Task("Outputting patterns");
+            updatedStore.writeToFile(storeFile);
+            task.done();
+        }
+    }
+
+
+    /**
+     * Finds violations of the patterns in the given store.
+     *
+     * @param store         Store of patterns.
+     * @param minSupport    Minimum support parameter to use.
+     * @param minSize       Minimum size parameter to use.
+     * @param maxDevLevel   Maximum deviation level parameter to use.
+     * @param minConfidence Minimum confidence parameter to use.
+     * @param top           Number of best-ranked violations to keep before
+     *                      filtering (0 to keep all).
+     */
+    public void mineViolations(final PatternsStore store, int minSupport,
+                               int minSize, int maxDevLevel,
+                               double minConfidence, int top) {
+        Task task = new Task("Mining violations");
+        if (top > 0) {
+            // rank the violations as they are found and keep only the best
+            final ViolationsHeap heap = new ViolationsHeap(top,
+                    MIN_DEFECT_INDICATOR);
+            store.getViolations(minSupport, minSize, maxDevLevel,
+                    minConfidence, new ViolationVisitor() {
+                        public void visit(org.softevo.catools.Violation<Method, EventPair> violation) {
+                            heap.offer(violation,
+                                    calculateViolationConviction(store, violation));
+                        }
+                    });
+            reportTopViolations(task, heap);
+            return;
+        }
+        this.violations = store.getViolations(minSupport, minSize, maxDevLevel,
+                minConfidence);
+        task.addMessage(this.violations.size() + " violations found");
+        task.done();
+
+        // ranking and filtering the violations
+        task = new Task("Ranking and filtering violations");
+        rankViolations(store, this.violations);
+        filterViolations(this.violations);
+        task.addMessage(this.violations.size() + " violations reported");
+        task.done();
+    }
+
+
+    /**
+     * Takes the best-ranked violations out of the given heap and filters
+     * them.
+     *
+     * @param task Task of mining the violations.
+     * @param heap Heap with the best-ranked violations found.
+     */
+    private void reportTopViolations(Task task, ViolationsHeap heap) {
+        this.violations = heap.toList();
+        task.addMessage(heap.getOfferedNum() + " violations found, " +
+                this.violations.size() + " best-ranked kept");
+        task.done();
+
+        // filtering the violations
+        task = new Task("Filtering violations");
+        filterViolations(this.violations);
+        task.addMessage(this.violations.size() + " violations reported");
+        task.done();
+    }
+
+
+    /**
+     * Outputs the given patterns from the given store in a human-readable
+     * format into the given file.
+     *
+     * @param store      Store of patterns.
+     * @param ids        Ids of the patterns to output.
+     * @param supporting Indicates if all supporting methods should be
+     *                   outputted.
+     * @param outFile    File to output patterns to.
+     * @param verbosity  Verbosity of the output.
+     */
+    public void outputStoredPatterns(PatternsStore store, List<Integer> ids,
+                                     boolean supporting, File outFile,
+                                     OutputVerbosity verbosity) {
+        Task task = new Task("Outputting patterns");
+        try {
+            PrintWriter out = new PrintWriter(outFile);
+            out.println("# of patterns: " + ids.size());
+            out.println();
+            for (int id : ids) {
+                Pattern pattern = store.getPattern(id);
+                List<EventPair> properties =
+                        new ArrayList<EventPair>(pattern.getProperties());
+                Collections.sort(properties);
+                out.println("==================================================");
+                out.println("    Pattern #" + id);
+                out.println("==================================================");
+                out.println("Support: " + pattern.getSupport());
+                out.println("--------------------------------------------------");
+                out.println("Properties (" + properties.size() + "):");
+                out.println("--------------------------------------------------");
+                for (EventPair pair : properties) {
+                    out.println(pair.getTextRepresentation(verbosity));
+                }
+                out.println("--------------------------------------------------");
+                if (supporting) {
+                    out.println("Supporting methods (" +
+                            pattern.getObjects().size() + "):");
+                    out.println("--------------------------------------------------");
+                    for (Method method : pattern.getObjects()) {
+                        out.println(method.getTextRepresentation(verbosity));
+                    }
+                    out.println("--------------------------------------------------");
+                }
+            }
+            out.close();
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            return;
+        }
+        task.done();
+    }
+
+
+    /**
+     * Filters the given violations.
+     *
+     * @param violations Violations to filter, ordered by the defect indicator.
+     */
+    private void filterViolations(ViolationsList violations) {
         // remove violations that have a conviction value no greater than 1.25
         ListIterator<Violation> iterator =
-                this.violations.listIterator(this.violations.size());
+                violations.listIterator(violations.size());
         while (iterator.hasPrevious()) {
             Violation violation = iterator.previous();
-            if (violation.getDefectIndicator() > 1.25) break;
+            if (violation.getDefectIndicator() > MIN_DEFECT_INDICATOR) break;
             iterator.remove();
         }
 
@@ -161,13 +598,13 @@ public class Analyzer {
         // C => B such that C is a subset of A and conviction of C => B is at
         // least as high as conviction of A => B, remove A => B)
         Set<Violation> toRemove = new HashSet<Violation>();
-        for (Violation refViolation : this.violations) {
+        for (Violation refViolation : violations) {
             if (toRemove.contains(refViolation)) continue;
             Set<EventPair> refMissing = refViolation.getMissingProperties();
             Set<EventPair> refPresent = new HashSet<EventPair>(
                     refViolation.getPattern().getProperties());
             refPresent.removeAll(refMissing);
-            for (Violation checkedViolation : this.violations) {
+            for (Violation checkedViolation : violations) {
                 if (checkedViolation == refViolation) continue;
                 if (toRemove.contains(checkedViolation)) continue;
                 Set<EventPair> checkedMissing =
@@ -181,21 +618,41 @@ public class Analyzer {
                     toRemove.add(checkedViolation);
             }
         }
-        this.violations.removeAll(toRemove);
+        violations.removeAll(toRemove);
     }
 
 
     /**
-     * Ranks the violations and orders them from the best- to worst-ranked.
+     * Ranks the given violations and orders them from the best- to
+     * worst-ranked.
      *
-     * @param matrix Concept analysis matrix used to find the violations.
+     * @param matrix     Concept analysis matrix used to find the violations.
+     * @param violations Violations to rank.
      */
-    private void rankViolations(CAMatrix<Method, EventPair> matrix) {
-        for (Violation violation : this.violations) {
+    private void rankViolations(CAMatrix<Method, EventPair> matrix,
+                                ViolationsList violations) {
+        for (Violation violation : violations) {
             double conviction = calculateViolationConviction(matrix, violation);
             violation.setDefectIndicator(conviction);
         }
-        Collections.sort(this.violations, new ViolationComparator());
+        Collections.sort(violations, new ViolationComparator());
+    }
+
+
+    /**
+     * Ranks the given violations found in the given store and orders them
+     * from the best- to worst-ranked.
+     *
+     * @param store      Store of patterns used to find the violations.
+     * @param violations Violations to rank.
+     */
+    private void rankViolations(PatternsStore store,
+                                ViolationsList violations) {
+        for (Violation violation : violations) {
+            double conviction = calculateViolationConviction(store, violation);
+            violation.setDefectIndicator(conviction);
+        }
+        Collections.sort(violations, new ViolationComparator());
     }
 
 
@@ -343,28 +800,51 @@ public class Analyzer {
      */
     private double calculateViolationConviction(CAMatrix<Method, EventPair> matrix,
                                                 org.softevo.catools.Violation<Method, EventPair> violation) {
-        // transform the violation into an association rule a->b
-        Set<EventPair> a = new HashSet<EventPair>(
-                violation.getPattern().getProperties());
-        a.removeAll(violation.getMissingProperties());
+        // get the number of transactions that contain b (for the violation
+        // transformed into an association rule a->b)
         Set<EventPair> b = violation.getMissingProperties();
+        if (!this.properties2support.containsKey(b)) {
+            this.properties2support.put(b, matrix.getSupport(b));
+        }
+        return calculateViolationConviction(matrix.getEntries().size(),
+                this.properties2support.get(b), violation.getConfidence());
+    }
 
-        // get the number of all transactions
-        double allTransactionsNum = (double) matrix.getEntries().size();
 
-        // get the number of transactions that contain b
+    /**
+     * Calculates and returns the conviction measure of the given violation.
+     *
+     * @param store     Store of patterns.
+     * @param violation Violation found in the store.
+     * @return Conviction measure of the violation.
+     */
+    private double calculateViolationConviction(PatternsStore store,
+                                                org.softevo.catools.Violation<Method, EventPair> violation) {
+        // get the number of transactions that contain b (for the violation
+        // transformed into an association rule a->b)
+        Set<EventPair> b = violation.getMissingProperties();
         if (!this.properties2support.containsKey(b)) {
-            this.properties2support.put(b, matrix.getSupport(b));
+            this.properties2support.put(b, store.getSupport(b));
         }
-        double bTransactionsNum = this.properties2support.get(b);
+        return calculateViolationConviction(store.getTransactionsNum(),
+                this.properties2support.get(b), violation.getConfidence());
+    }
 
-        // get the confidence of the violation (= association rule)
-        double confidence = violation.getConfidence();
 
-        // calculate the conviction measure
-        double conviction = ((allTransactionsNum - bTransactionsNum) / allTransactionsNum) /
+    /**
+     * Calculates and returns the conviction measure of the association rule
+     * a->b.
+     *
+     * @param allTransactionsNum Number of all transactions.
+     * @param bTransactionsNum   Number of transactions that contain b.
+     * @param confidence         Confidence of the association rule.
+     * @return Conviction measure of the association rule.
+     */
+    private static double calculateViolationConviction(double allTransactionsNum,
+                                                       double bTransactionsNum,
+                                                       double confidence) {
+        return ((allTransactionsNum - bTransactionsNum) / allTransactionsNum) /
                 (1 - confidence);
-        return conviction;
     }
 
 
@@ -433,7 +913,8 @@ public class Analyzer {
     /**
      * Calculates and returns the sequential constraints abstraction of each
      * method that has been analyzed and has models stored in the given
-     * directory.
+     * directory. Abstractions of the models are cached in the directory;
+     * only models from files that changed since the last call get analyzed.
      *
      * @param modelsDir Directory with object usage models.
      * @param filter    Indicates if filtering of constraints should be done.
@@ -441,20 +922,61 @@ public class Analyzer {
     public Map<Method, Set<EventPair>> getMethodsSCA(File modelsDir,
                                                      final boolean filter) {
         ModelAnalyzer analyzer = new ModelAnalyzer(modelsDir, false);
-        final Map<Method, Set<EventPair>> method2sca =
+        File cacheFile = SCACache.getCacheFile(modelsDir, filter);
+        SCACache cache = SCACache.readFromFile(cacheFile, filter);
+        Map<Method, Set<EventPair>> method2sca =
                 new HashMap<Method, Set<EventPair>>();
-        analyzer.analyzeModels(new ModelVisitor() {
-            public void visit(int id, Model model, ModelData modelData) {
+        Set<String> filesNames = new HashSet<String>();
+        for (File file : analyzer.getModelsFiles()) {
+            // get the abstractions of the file's models (from the cache,
+            // if the file did not change)
+            filesNames.add(file.getName());
+            Map<Integer, Set<EventPair>> id2sca = null;
+            long checksum = 0;
+            try {
+                checksum = SCACache.getChecksum(file);
+                id2sca = cache.get(file.getName(), checksum);
+            } catch (IOException e) {
+                e.printStackTrace(System.err);
+                throw new InternalError();
+            }
+            if (id2sca == null) {
+                final Map<Integer, Set<EventPair>> fileSCA =
+                        new HashMap<Integer, Set<EventPair>>();
+                analyzer.analyzeModels(file, new ModelVisitor() {
+                    public void visit(int id, Model model, ModelData modelData) {
+                        fileSCA.put(id,
+                                SCAAbstractor.getSCAAbstraction(model, filter));
+                    }
+                });
+                cache.put(file.getName(), checksum, fileSCA);
+                id2sca = fileSCA;
+            }
+
+            // merge them into the abstractions of methods
+            for (Map.Entry<Integer, Set<EventPair>> entry : id2sca.entrySet()) {
+                ModelData modelData = analyzer.getModelData(entry.getKey());
                 String fullMethodName = modelData.getClassName() + " " +
                         modelData.getMethodName();
                 Method method = Method.get(fullMethodName, true);
                 if (!method2sca.containsKey(method)) {
                     method2sca.put(method, new HashSet<EventPair>());
                 }
-                Set<EventPair> sca = method2sca.get(method);
-                sca.addAll(SCAAbstractor.getSCAAbstraction(model, filter));
+                method2sca.get(method).addAll(entry.getValue());
+            }
+        }
+
+        // update the cache
+        cache.retainFiles(filesNames);
+        if (cache.isModified()) {
+            try {
+                cache.writeToFile(cacheFile);
+            } catch (IOException e) {
+                System.err.println("Couldn't write the abstractions cache " +
+                        cacheFile + ": " + e.getMessage());
+                cacheFile.delete();
             }
-        });
+        }
         return method2sca;
     }
 
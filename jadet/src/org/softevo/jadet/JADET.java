@@ -4,7 +4,9 @@ package org.softevo.jadet;
 import org.softevo.cmdline.CommandLine;
 import org.softevo.cmdline.InputFormat;
 import org.softevo.cmdline.SwitchMultiplicity;
+import org.softevo.jadet.sca.EventPair;
 import org.softevo.jadet.sca.OutputVerbosity;
+import org.softevo.jadet.sca.PatternsStore;
 import org.softevo.jadet.sca.ViolationsList;
 import org.softevo.jadet.violations.editor.ViolationsEditor;
 import org.softevo.jutil.JavaUtil;
@@ -12,6 +14,12 @@ import org.softevo.jutil.JavaUtil;
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -106,6 +114,18 @@ public final class JADET {
                 "with models to use", SwitchMultiplicity.ZERO_OR_ONE, true);
         outputViolationsXML.addSwitch("input-name", "specifies the core name " +
                 "of the input files", SwitchMultiplicity.ZERO_OR_ONE, true);
+        outputViolationsXML.addSwitch("top", "makes JADET rank only the " +
+                        "given number of best violations before filtering",
+                SwitchMultiplicity.ZERO_OR_ONE, true);
+        outputViolationsXML.addSwitch("sample", "makes JADET mine only the " +
+                        "given number of randomly chosen methods and verify " +
+                        "the violations found against all methods",
+                SwitchMultiplicity.ZERO_OR_ONE, true);
+        outputViolationsXML.addSwitch("seed", "specifies the random seed " +
+                "to use when sampling", SwitchMultiplicity.ZERO_OR_ONE, true);
+        outputViolationsXML.addSwitch("stratified", "makes JADET sample " +
+                "methods of each class proportionally",
+                SwitchMultiplicity.ZERO_OR_ONE);
         outputViolationsXML.setDataCount(5);
         outputViolationsXML.setDataName(1, "min_support");
         outputViolationsXML.setDataName(2, "min_size");
@@ -114,6 +134,96 @@ public final class JADET {
         outputViolationsXML.setDataName(5, "out_file");
         cmdLine.addInputFormat("output-violations-xml", outputViolationsXML);
 
+        InputFormat sweep =
+                new InputFormat("to output violations for many thresholds at once");
+        sweep.addSwitch("sweep",
+                "makes JADET output ranked violations in the sequential " +
+                        "constraints abstraction in the XML format for every " +
+                        "combination of the given comma-separated thresholds",
+                SwitchMultiplicity.ONE);
+        sweep.addSwitch("models-dir", "specifies the directory " +
+                "with models to use", SwitchMultiplicity.ZERO_OR_ONE, true);
+        sweep.addSwitch("input-name", "specifies the core name " +
+                "of the input files", SwitchMultiplicity.ZERO_OR_ONE, true);
+        sweep.setDataCount(5);
+        sweep.setDataName(1, "min_supports");
+        sweep.setDataName(2, "min_sizes");
+        sweep.setDataName(3, "max_dev_level");
+        sweep.setDataName(4, "min_confidences");
+        sweep.setDataName(5, "out_dir");
+        cmdLine.addInputFormat("sweep", sweep);
+
+        InputFormat storePatterns =
+                new InputFormat("to store patterns for later queries");
+        storePatterns.addSwitch("store-patterns",
+                "makes JADET store all patterns in the sequential " +
+                        "constraints abstraction with their supporting methods " +
+                        "in a binary file", SwitchMultiplicity.ONE);
+        storePatterns.addSwitch("models-dir", "specifies the directory " +
+                "with models to use", SwitchMultiplicity.ZERO_OR_ONE, true);
+        storePatterns.addSwitch("input-name", "specifies the core name " +
+                "of the input files", SwitchMultiplicity.ZERO_OR_ONE, true);
+        storePatterns.setDataCount(2);
+        storePatterns.setDataName(1, "min_support");
+        storePatterns.setDataName(2, "store_file");
+        cmdLine.addInputFormat("store-patterns", storePatterns);
+
+        InputFormat updatePatterns =
+                new InputFormat("to update stored patterns with new methods");
+        updatePatterns.addSwitch("update-patterns",
+                "makes JADET update the patterns in the given store with " +
+                        "the methods that were not analyzed when creating it",
+                SwitchMultiplicity.ONE);
+        updatePatterns.addSwitch("models-dir", "specifies the directory " +
+                "with models to use", SwitchMultiplicity.ZERO_OR_ONE, true);
+        updatePatterns.addSwitch("input-name", "specifies the core name " +
+                "of the input files", SwitchMultiplicity.ZERO_OR_ONE, true);
+        updatePatterns.setDataCount(1);
+        updatePatterns.setDataName(1, "store_file");
+        cmdLine.addInputFormat("update-patterns", updatePatterns);
+
+        InputFormat queryViolationsXML =
+                new InputFormat("to output violations of stored patterns");
+        queryViolationsXML.addSwitch("query-violations-xml",
+                "makes JADET output ranked violations of the patterns from " +
+                        "the given store in the XML format",
+                SwitchMultiplicity.ONE);
+        queryViolationsXML.addSwitch("top", "makes JADET rank only the " +
+                        "given number of best violations before filtering",
+                SwitchMultiplicity.ZERO_OR_ONE, true);
+        queryViolationsXML.setDataCount(6);
+        queryViolationsXML.setDataName(1, "store_file");
+        queryViolationsXML.setDataName(2, "min_support");
+        queryViolationsXML.setDataName(3, "min_size");
+        queryViolationsXML.setDataName(4, "max_dev_level");
+        queryViolationsXML.setDataName(5, "min_confidence");
+        queryViolationsXML.setDataName(6, "out_file");
+        cmdLine.addInputFormat("query-violations-xml", queryViolationsXML);
+
+        InputFormat queryPatterns =
+                new InputFormat("to output stored patterns");
+        queryPatterns.addSwitch("query-patterns",
+                "makes JADET output patterns from the given store",
+                SwitchMultiplicity.ONE);
+        queryPatterns.addSwitch("containing", "makes JADET output only " +
+                        "patterns with an event pair containing the given text",
+                SwitchMultiplicity.ZERO_OR_ONE, true);
+        queryPatterns.addSwitch("pattern", "makes JADET output only the " +
+                "pattern with the given id", SwitchMultiplicity.ZERO_OR_ONE, true);
+        queryPatterns.addSwitch("supporting", "makes JADET output all " +
+                "supporting methods of the patterns",
+                SwitchMultiplicity.ZERO_OR_ONE);
+        queryPatterns.addSwitch("short", "makes JADET output short event " +
+                "representations", SwitchMultiplicity.ZERO_OR_ONE);
+        queryPatterns.addSwitch("very-short", "makes JADET output very " +
+                "short event representations", SwitchMultiplicity.ZERO_OR_ONE);
+        queryPatterns.setDataCount(4);
+        queryPatterns.setDataName(1, "store_file");
+        queryPatterns.setDataName(2, "min_support");
+        queryPatterns.setDataName(3, "min_size");
+        queryPatterns.setDataName(4, "out_file");
+        cmdLine.addInputFormat("query-patterns", queryPatterns);
+
         InputFormat editViolationsXML =
                 new InputFormat("to view and edit sca abstraction violations");
         editViolationsXML.addSwitch("edit-violations-xml",
@@ -194,8 +304,99 @@ public final class JADET {
                 String inputName = null;
                 if (cmdLine.getSwitchCount("input-name") > 0)
                     inputName = cmdLine.getSwitchValues("input-name")[0];
+                Integer top = null;
+                if (cmdLine.getSwitchCount("top") > 0)
+                    top = Integer.valueOf(cmdLine.getSwitchValues("top")[0]);
+                Integer sampleSize = null;
+                if (cmdLine.getSwitchCount("sample") > 0)
+                    sampleSize = Integer.valueOf(cmdLine.getSwitchValues("sample")[0]);
+                Long seed = null;
+                if (cmdLine.getSwitchCount("seed") > 0)
+                    seed = Long.valueOf(cmdLine.getSwitchValues("seed")[0]);
+                boolean stratifiedSwitch = cmdLine.getSwitchCount("stratified") > 0;
                 outputViolationsXML(modelsDirName, inputName, minSupport,
-                        minSize, maxDevLevel, minConfidence, outFileName);
+                        minSize, maxDevLevel, minConfidence, outFileName, top,
+                        sampleSize, seed, stratifiedSwitch);
+            } else if (cmdLine.getFormatName().equals("sweep")) {
+                SortedSet<Integer> minSupports = new TreeSet<Integer>();
+                for (String minSupportString : cmdLine.getDataValue(1).split(","))
+                    minSupports.add(Integer.valueOf(minSupportString.trim()));
+                SortedSet<Integer> minSizes = new TreeSet<Integer>();
+                for (String minSizeString : cmdLine.getDataValue(2).split(","))
+                    minSizes.add(Integer.valueOf(minSizeString.trim()));
+                String maxDevLevelString = cmdLine.getDataValue(3);
+                Integer maxDevLevel = Integer.valueOf(maxDevLevelString);
+                SortedSet<Double> minConfidences = new TreeSet<Double>();
+                for (String minConfidenceString : cmdLine.getDataValue(4).split(","))
+                    minConfidences.add(Double.valueOf(minConfidenceString.trim()));
+                String outDirName = cmdLine.getDataValue(5);
+                String modelsDirName = null;
+                if (cmdLine.getSwitchCount("models-dir") > 0)
+                    modelsDirName = cmdLine.getSwitchValues("models-dir")[0];
+                String inputName = null;
+                if (cmdLine.getSwitchCount("input-name") > 0)
+                    inputName = cmdLine.getSwitchValues("input-name")[0];
+                sweep(modelsDirName, inputName, minSupports, minSizes,
+                        maxDevLevel, minConfidences, outDirName);
+            } else if (cmdLine.getFormatName().equals("store-patterns")) {
+                String minSupportString = cmdLine.getDataValue(1);
+                Integer minSupport = Integer.valueOf(minSupportString);
+                String storeFileName = cmdLine.getDataValue(2);
+                String modelsDirName = null;
+                if (cmdLine.getSwitchCount("models-dir") > 0)
+                    modelsDirName = cmdLine.getSwitchValues("models-dir")[0];
+                String inputName = null;
+                if (cmdLine.getSwitchCount("input-name") > 0)
+                    inputName = cmdLine.getSwitchValues("input-name")[0];
+                storePatterns(modelsDirName, inputName, minSupport,
+                        storeFileName);
+            } else if (cmdLine.getFormatName().equals("update-patterns")) {
+                String storeFileName = cmdLine.getDataValue(1);
+                String modelsDirName = null;
+                if (cmdLine.getSwitchCount("models-dir") > 0)
+                    modelsDirName = cmdLine.getSwitchValues("models-dir")[0];
+                String inputName = null;
+                if (cmdLine.getSwitchCount("input-name") > 0)
+                    inputName = cmdLine.getSwitchValues("input-name")[0];
+                updatePatterns(modelsDirName, inputName, storeFileName);
+            } else if (cmdLine.getFormatName().equals("query-violations-xml")) {
+                String storeFileName = cmdLine.getDataValue(1);
+                String minSupportString = cmdLine.getDataValue(2);
+                Integer minSupport = Integer.valueOf(minSupportString);
+                String minSizeString = cmdLine.getDataValue(3);
+                Integer minSize = Integer.valueOf(minSizeString);
+                String maxDevLevelString = cmdLine.getDataValue(4);
+                Integer maxDevLevel = Integer.valueOf(maxDevLevelString);
+                String minConfidenceString = cmdLine.getDataValue(5);
+                Double minConfidence = Double.valueOf(minConfidenceString);
+                String outFileName = cmdLine.getDataValue(6);
+                Integer top = null;
+                if (cmdLine.getSwitchCount("top") > 0)
+                    top = Integer.valueOf(cmdLine.getSwitchValues("top")[0]);
+                queryViolationsXML(storeFileName, minSupport, minSize,
+                        maxDevLevel, minConfidence, outFileName, top);
+            } else if (cmdLine.getFormatName().equals("query-patterns")) {
+                String storeFileName = cmdLine.getDataValue(1);
+                String minSupportString = cmdLine.getDataValue(2);
+                Integer minSupport = Integer.valueOf(minSupportString);
+                String minSizeString = cmdLine.getDataValue(3);
+                Integer minSize = Integer.valueOf(minSizeString);
+                String outFileName = cmdLine.getDataValue(4);
+                String containing = null;
+                if (cmdLine.getSwitchCount("containing") > 0)
+                    containing = cmdLine.getSwitchValues("containing")[0];
+                Integer patternId = null;
+                if (cmdLine.getSwitchCount("pattern") > 0)
+                    patternId = Integer.valueOf(
+                            cmdLine.getSwitchValues("pattern")[0]);
+                boolean supportingSwitch =
+                        cmdLine.getSwitchCount("supporting") > 0;
+                boolean shortSwitch = cmdLine.getSwitchCount("short") > 0;
+                boolean veryShortSwitch =
+                        cmdLine.getSwitchCount("very-short") > 0;
+                queryPatterns(storeFileName, minSupport, minSize, outFileName,
+                        containing, patternId, supportingSwitch, shortSwitch,
+                        veryShortSwitch);
             } else if (cmdLine.getFormatName().equals("edit-violations-xml")) {
                 String violationsFileName = cmdLine.getDataValue(1);
                 editViolationsXML(violationsFileName);
@@ -293,10 +494,145 @@ public final class JADET {
      * @param maxDevLevel   Maximum deviation level to use.
      * @param minConfidence Minimum confidence to use.
      * @param outFileName   Filename to output patterns to.
+     * @param top           Number of best-ranked violations to keep before
+     *                      filtering (optional).
+     * @param sampleSize    Number of methods to mine (optional).
+     * @param seed          Random seed to use when sampling (optional).
+     * @param stratified    Indicates if methods of each class should be
+     *                      sampled proportionally.
      */
     private void outputViolationsXML(String modelsDirName, String inputName,
                                      int minSupport, int minSize, int maxDevLevel, double minConfidence,
-                                     String outFileName) {
+                                     String outFileName, Integer top,
+                                     Integer sampleSize, Long seed,
+                                     boolean stratified) {
+        if (modelsDirName == null && inputName == null) {
+            System.out.println("At least one of -models-dir and -input-name " +
+                    "switches must be used");
+            return;
+        }
+        if (modelsDirName != null && inputName != null) {
+            System.out.println("Only one of -models-dir and -input-name " +
+                    "switches can be used");
+            return;
+        }
+        if (minSupport < 1) {
+            System.out.println("Minimum support must be >= 1 (given: " +
+                    minSupport + ")");
+            return;
+        }
+        if (minSize < 1) {
+            System.out.println("Minimum size must be >= 1 (given: " +
+                    minSize + ")");
+            return;
+        }
+        if (maxDevLevel < 1) {
+            System.out.println("Maximum deviation level must be >= 1 (given: " +
+                    maxDevLevel + ")");
+            return;
+        }
+        if (minConfidence <= 0.0 || minConfidence >= 1.0) {
+            System.out.println("Minimum confidence must be > 0.0 and < 1.0 " +
+                    "(given: " + minConfidence + ")");
+            return;
+        }
+        if (top != null && top < 1) {
+            System.out.println("Number of top violations must be >= 1 " +
+                    "(given: " + top + ")");
+            return;
+        }
+        if (sampleSize != null && sampleSize < 1) {
+            System.out.println("Sample size must be >= 1 (given: " +
+                    sampleSize + ")");
+            return;
+        }
+        if (sampleSize == null && (seed != null || stratified)) {
+            System.out.println("The -seed and -stratified switches can be " +
+                    "used only together with the -sample switch");
+            return;
+        }
+        Analyzer analyzer = new Analyzer();
+        if (sampleSize != null) {
+            analyzer.mineViolations(modelsDirName, inputName, minSupport,
+                    minSize, maxDevLevel, minConfidence,
+                    top == null ? 0 : top, sampleSize,
+                    seed == null ? 0 : seed, stratified,
+                    new File(outFileName + ".sample.txt"));
+        } else {
+            analyzer.mineViolations(modelsDirName, inputName, minSupport,
+                    minSize, maxDevLevel, minConfidence, top == null ? 0 : top);
+        }
+        analyzer.outputViolationsXML(new File(outFileName));
+    }
+
+    /**
+     * Mines, ranks and outputs violations for sequential constraints
+     * abstraction for every combination of the given thresholds.
+     *
+     * @param modelsDirName  Directory with the models to analyze (optional).
+     * @param inputName      Core name of files with sca (optional).
+     * @param minSupports    Minimum supports to use.
+     * @param minSizes       Minimum sizes to use.
+     * @param maxDevLevel    Maximum deviation level to use.
+     * @param minConfidences Minimum confidences to use.
+     * @param outDirName     Directory to output violations to.
+     */
+    private void sweep(String modelsDirName, String inputName,
+                       SortedSet<Integer> minSupports, SortedSet<Integer> minSizes,
+                       int maxDevLevel, SortedSet<Double> minConfidences,
+                       String outDirName) {
+        if (modelsDirName == null && inputName == null) {
+            System.out.println("At least one of -models-dir and -input-name " +
+                    "switches must be used");
+            return;
+        }
+        if (modelsDirName != null && inputName != null) {
+            System.out.println("Only one of -models-dir and -input-name " +
+                    "switches can be used");
+            return;
+        }
+        if (minSupports.first() < 1) {
+            System.out.println("Minimum support must be >= 1 (given: " +
+                    minSupports.first() + ")");
+            return;
+        }
+        if (minSizes.first() < 1) {
+            System.out.println("Minimum size must be >= 1 (given: " +
+                    minSizes.first() + ")");
+            return;
+        }
+        if (maxDevLevel < 1) {
+            System.out.println("Maximum deviation level must be >= 1 (given: " +
+                    maxDevLevel + ")");
+            return;
+        }
+        if (minConfidences.first() <= 0.0 || minConfidences.last() >= 1.0) {
+            System.out.println("Minimum confidence must be > 0.0 and < 1.0 " +
+                    "(given: " + minConfidences + ")");
+            return;
+        }
+        File outDir = new File(outDirName);
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            System.out.println("Output directory could not be created: " +
+                    outDirName);
+            return;
+        }
+        Analyzer analyzer = new Analyzer();
+        analyzer.sweepViolations(modelsDirName, inputName, minSupports,
+                minSizes, maxDevLevel, minConfidences, outDir);
+    }
+
+    /**
+     * Mines all patterns for sequential constraints abstraction and stores
+     * them for later queries.
+     *
+     * @param modelsDirName Directory with the models to analyze (optional).
+     * @param inputName     Core name of files with sca (optional).
+     * @param minSupport    Minimum support to use when mining patterns.
+     * @param storeFileName Filename to store patterns to.
+     */
+    private void storePatterns(String modelsDirName, String inputName,
+                               int minSupport, String storeFileName) {
         if (modelsDirName == null && inputName == null) {
             System.out.println("At least one of -models-dir and -input-name " +
                     "switches must be used");
@@ -312,6 +648,56 @@ public final class JADET {
                     minSupport + ")");
             return;
         }
+        Analyzer analyzer = new Analyzer();
+        analyzer.storePatterns(modelsDirName, inputName, minSupport,
+                new File(storeFileName));
+    }
+
+    /**
+     * Updates stored patterns with methods analyzed after the store was
+     * created.
+     *
+     * @param modelsDirName Directory with the models to analyze (optional).
+     * @param inputName     Core name of files with sca (optional).
+     * @param storeFileName Filename of the patterns store.
+     */
+    private void updatePatterns(String modelsDirName, String inputName,
+                                String storeFileName) {
+        if (modelsDirName == null && inputName == null) {
+            System.out.println("At least one of -models-dir and -input-name " +
+                    "switches must be used");
+            return;
+        }
+        if (modelsDirName != null && inputName != null) {
+            System.out.println("Only one of -models-dir and -input-name " +
+                    "switches can be used");
+            return;
+        }
+        if (!new File(storeFileName).isFile()) {
+            System.out.println("Store file does not exist: " + storeFileName);
+            return;
+        }
+        Analyzer analyzer = new Analyzer();
+        analyzer.updatePatterns(modelsDirName, inputName,
+                new File(storeFileName));
+    }
+
+    /**
+     * Ranks and outputs violations of the stored patterns.
+     *
+     * @param storeFileName Filename of the patterns store.
+     * @param minSupport    Minimum support to use.
+     * @param minSize       Minimum size to use.
+     * @param maxDevLevel   Maximum deviation level to use.
+     * @param minConfidence Minimum confidence to use.
+     * @param outFileName   Filename to output violations to.
+     * @param top           Number of best-ranked violations to keep before
+     *                      filtering (optional).
+     */
+    private void queryViolationsXML(String storeFileName, int minSupport,
+                                    int minSize, int maxDevLevel,
+                                    double minConfidence, String outFileName,
+                                    Integer top) {
         if (minSize < 1) {
             System.out.println("Minimum size must be >= 1 (given: " +
                     minSize + ")");
@@ -327,12 +713,98 @@ public final class JADET {
                     "(given: " + minConfidence + ")");
             return;
         }
+        if (top != null && top < 1) {
+            System.out.println("Number of top violations must be >= 1 " +
+                    "(given: " + top + ")");
+            return;
+        }
+        PatternsStore store = PatternsStore.readFromFile(
+                new File(storeFileName));
+        if (minSupport < store.getMinSupport()) {
+            System.out.println("Minimum support must be >= " +
+                    store.getMinSupport() + " for this store (given: " +
+                    minSupport + ")");
+            return;
+        }
         Analyzer analyzer = new Analyzer();
-        analyzer.mineViolations(modelsDirName, inputName, minSupport, minSize,
-                maxDevLevel, minConfidence);
+        analyzer.mineViolations(store, minSupport, minSize, maxDevLevel,
+                minConfidence, top == null ? 0 : top);
         analyzer.outputViolationsXML(new File(outFileName));
     }
 
+    /**
+     * Outputs stored patterns.
+     *
+     * @param storeFileName    Filename of the patterns store.
+     * @param minSupport       Minimum support to use.
+     * @param minSize          Minimum size to use.
+     * @param outFileName      Filename to output patterns to.
+     * @param containing       Text that one of the event pairs of each
+     *                         pattern must contain (optional).
+     * @param patternId        Id of the only pattern to output (optional).
+     * @param supportingSwitch Indicates, if the "-supporting" switch was
+     *                         present.
+     * @param shortSwitch      Indicates, if the "-short" switch was present.
+     * @param veryShortSwitch  Indicates, if the "-very-short" switch was
+     *                         present.
+     */
+    private void queryPatterns(String storeFileName, int minSupport,
+                               int minSize, String outFileName,
+                               String containing, Integer patternId,
+                               boolean supportingSwitch, boolean shortSwitch,
+                               boolean veryShortSwitch) {
+        if (minSize < 0) {
+            System.out.println("Minimum size must be >= 0 (given: " +
+                    minSize + ")");
+            return;
+        }
+        if (shortSwitch && veryShortSwitch) {
+            System.out.println("Only one of -short and -very-short switches " +
+                    "can be used");
+            return;
+        }
+        PatternsStore store = PatternsStore.readFromFile(
+                new File(storeFileName));
+        if (minSupport < store.getMinSupport()) {
+            System.out.println("Minimum support must be >= " +
+                    store.getMinSupport() + " for this store (given: " +
+                    minSupport + ")");
+            return;
+        }
+        if (patternId != null &&
+                (patternId < 1 || patternId > store.getPatternsNum())) {
+            System.out.println("Pattern id must be between 1 and " +
+                    store.getPatternsNum() + " (given: " + patternId + ")");
+            return;
+        }
+        OutputVerbosity outputVerbosity = OutputVerbosity.FULL;
+        if (shortSwitch) {
+            outputVerbosity = OutputVerbosity.SHORT;
+        }
+        if (veryShortSwitch) {
+            outputVerbosity = OutputVerbosity.VERY_SHORT;
+        }
+
+        // find the patterns to output
+        List<Integer> ids = store.getPatternsIds(minSupport, minSize);
+        if (patternId != null) {
+            ids.retainAll(Collections.singleton(patternId));
+        }
+        if (containing != null) {
+            Set<Integer> containingIds = new HashSet<Integer>();
+            for (EventPair pair : store.getEventPairs()) {
+                if (pair.getTextRepresentation(OutputVerbosity.FULL).contains(
+                        containing)) {
+                    containingIds.addAll(store.getPatternsIdsContaining(pair));
+                }
+            }
+            ids.retainAll(containingIds);
+        }
+        Analyzer analyzer = new Analyzer();
+        analyzer.outputStoredPatterns(store, ids, supportingSwitch,
+                new File(outFileName), outputVerbosity);
+    }
+
     /**
      * Opens a GUI viewer/editor of violations from the given XML file.
      *
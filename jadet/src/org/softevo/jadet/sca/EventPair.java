@@ -6,13 +6,10 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.softevo.catools.CAProperty;
 import org.softevo.oumextractor.modelcreator1.model.Transition;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 
 /**
@@ -23,13 +20,6 @@ import java.util.Map;
  */
 public class EventPair implements CAProperty {
 
-    /**
-     * Mapping from event pairs to themselves (used by the factory).
-     */
-    private static final Map<EventPair, EventPair> pair2pair =
-            new HashMap<EventPair, EventPair>();
-
-
     /**
      * Event on the left-hand side.
      */
@@ -55,62 +45,47 @@ public class EventPair implements CAProperty {
 
 
     /**
-     * Returns a pair of given events.
+     * Returns a pair of given events. Pairs are shared through the current
+     * mining session.
      *
      * @param left  Event on the left-hand side.
      * @param right Event on the right-hand side.
      * @return Pair of given events.
+     * @see MiningSession#getCurrent()
      */
     public static EventPair get(Transition left, Transition right) {
-        EventPair pair = new EventPair(left, right);
-        if (pair2pair.containsKey(pair)) {
-            return pair2pair.get(pair);
-        } else {
-            pair2pair.put(pair, pair);
-            return pair;
-        }
+        return MiningSession.getCurrent().intern(new EventPair(left, right));
     }
 
     /**
-     * Returns an event pair that is represented by the given XML element.
+     * Returns an event pair that is represented by the XML element the given
+     * reader is positioned at. Afterwards the reader is positioned at the
+     * end of that element.
      *
-     * @param element Element that contains representation of the event pair
-     *                to be created.
-     * @return Event pair that is represent by the given XML element.
+     * @param reader XML stream positioned at the start of the event pair.
+     * @return Event pair that is represent by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    public static EventPair createFromXMLElement(Element element) {
-        assert element.getTagName().equals("event_pair");
+    public static EventPair createFromXMLStream(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("event_pair");
         Transition left = null;
         Transition right = null;
-        NodeList events = element.getChildNodes();
-        for (int i = 0; i < events.getLength(); i++) {
-            Node node = events.item(i);
-            if (node instanceof Element) {
-                Element eventElement = (Element) node;
-                if (eventElement.getTagName().equals("left")) {
-                    NodeList leftEvents = eventElement.getChildNodes();
-                    for (int j = 0; j < events.getLength(); j++) {
-                        Node leftNode = leftEvents.item(j);
-                        if (leftNode instanceof Element) {
-                            assert left == null;
-                            left = Transition.getFromXMLRepresentation(
-                                    (Element) leftNode);
-                        }
-                    }
-                } else if (eventElement.getTagName().equals("right")) {
-                    NodeList rightEvents = eventElement.getChildNodes();
-                    for (int j = 0; j < events.getLength(); j++) {
-                        Node rightNode = rightEvents.item(j);
-                        if (rightNode instanceof Element) {
-                            assert right == null;
-                            right = Transition.getFromXMLRepresentation(
-                                    (Element) rightNode);
-                        }
-                    }
-                } else {
-                    System.err.println("Unknown node: " +
-                            eventElement.getTagName());
+        while (XMLStreamUtil.nextChildElement(reader)) {
+            String tagName = reader.getLocalName();
+            if (tagName.equals("left")) {
+                while (XMLStreamUtil.nextChildElement(reader)) {
+                    assert left == null;
+                    left = Transition.getFromXMLRepresentation(reader);
+                }
+            } else if (tagName.equals("right")) {
+                while (XMLStreamUtil.nextChildElement(reader)) {
+                    assert right == null;
+                    right = Transition.getFromXMLRepresentation(reader);
                 }
+            } else {
+                System.err.println("Unknown node: " + tagName);
+                XMLStreamUtil.skipElement(reader);
             }
         }
         return get(left, right);
@@ -158,24 +133,25 @@ public class EventPair implements CAProperty {
     }
 
     /**
-     * Returns the XML representation of this event pair.
+     * Writes the XML representation of this event pair into the given stream.
      *
-     * @param    xml XML document to use.
-     * @return XML representation of this event pair.
+     * @param xml XML stream to write to.
+     * @throws XMLStreamException if the XML stream could not be written.
      */
-    public Element getXMLRepresentation(Document xml) {
-        Element pairXML = xml.createElement("event_pair");
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeStartElement("event_pair");
 
-        // set the needed attributes
-        Element leftXML = xml.createElement("left");
-        leftXML.appendChild(this.left.getXMLRepresentation(xml));
-        pairXML.appendChild(leftXML);
+        // write both events
+        xml.writeStartElement("left");
+        this.left.writeXMLRepresentation(xml);
+        xml.writeEndElement();
 
-        Element rightXML = xml.createElement("right");
-        rightXML.appendChild(this.right.getXMLRepresentation(xml));
-        pairXML.appendChild(rightXML);
+        xml.writeStartElement("right");
+        this.right.writeXMLRepresentation(xml);
+        xml.writeEndElement();
 
-        return pairXML;
+        xml.writeEndElement();
     }
 
     /* (non-Javadoc)
@@ -6,11 +6,10 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.softevo.catools.CAObject;
 import org.softevo.jutil.JavaUtil;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 
 /**
@@ -20,13 +19,6 @@ import java.util.Map;
  */
 public class Method implements CAObject {
 
-    /**
-     * Mapping from methods' names to their representations.
-     */
-    private static final Map<String, Method> name2method =
-            new HashMap<String, Method>();
-
-
     /**
      * Name of the represented method.
      */
@@ -53,39 +45,59 @@ public class Method implements CAObject {
 
     /**
      * Returns representation of the method with the given name.
+     * Representations are shared through the current mining session.
      *
      * @param name         Name of the method.
      * @param hasSemantics Indicates, if the name has Java semantics.
      * @return Representation of the method.
+     * @see MiningSession#getCurrent()
      */
     public static Method get(String name, boolean hasSemantics) {
-        if (name2method.containsKey(name)) {
-            Method result = name2method.get(name);
-            if (result.hasSemantics != hasSemantics)
-                throw new InternalError();
-            return result;
-        } else {
-            Method method = new Method(name, hasSemantics);
-            name2method.put(name, method);
-            return method;
-        }
+        Method result = MiningSession.getCurrent().intern(
+                new Method(name, hasSemantics));
+        if (result.hasSemantics != hasSemantics)
+            throw new InternalError();
+        return result;
     }
 
     /**
-     * Returns a method that is represented by the given XML element.
+     * Returns a method that is represented by the XML element the given
+     * reader is positioned at. Afterwards the reader is positioned at the
+     * end of that element.
      *
-     * @param element Element that contains representation of the method to
-     *                be created.
-     * @return Method that is represent by the given XML element.
+     * @param reader XML stream positioned at the start of the method.
+     * @return Method that is represent by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    public static Method createFromXMLElement(Element element) {
-        assert element.getTagName().equals("method");
-        String name = element.getAttribute("name");
-        boolean hasSemantics =
-                Boolean.valueOf(element.getAttribute("has_semantics"));
+    public static Method createFromXMLStream(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("method");
+        String name = reader.getAttributeValue(null, "name");
+        boolean hasSemantics = Boolean.valueOf(
+                reader.getAttributeValue(null, "has_semantics"));
+        XMLStreamUtil.skipElement(reader);
         return get(name, hasSemantics);
     }
 
+    /**
+     * Returns the name of this method.
+     *
+     * @return Name of this method.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Indicates, if the name of this method has Java semantics.
+     *
+     * @return <code>true</code> if the name has Java semantics;
+     * <code>false</code> otherwise.
+     */
+    public boolean hasSemantics() {
+        return this.hasSemantics;
+    }
+
     /**
      * Returns a text representation of this method. Length of the
      * representation is determined by the verbosity given.
@@ -109,20 +121,18 @@ public class Method implements CAObject {
     }
 
     /**
-     * Returns the XML representation of this method.
+     * Writes the XML representation of this method into the given stream.
      *
-     * @param    xml XML document to use.
-     * @return XML representation of this method.
+     * @param xml XML stream to write to.
+     * @throws XMLStreamException if the XML stream could not be written.
      */
-    public Element getXMLRepresentation(Document xml) {
-        Element methodXML = xml.createElement("method");
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeEmptyElement("method");
 
         // set the needed attributes
-        methodXML.setAttribute("name", this.name);
-        methodXML.setAttribute("has_semantics",
-                String.valueOf(this.hasSemantics));
-
-        return methodXML;
+        xml.writeAttribute("name", this.name);
+        xml.writeAttribute("has_semantics", String.valueOf(this.hasSemantics));
     }
 
     /* (non-Javadoc)
@@ -0,0 +1,221 @@
+package org.softevo.jadet.sca;
+
+
+import org.softevo.oumextractor.modelcreator1.model.TransitionsPool;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Instances of this class own the pools, through which equal event pairs,
+ * methods and transitions are shared. Work done inside of a session (see
+ * <code>run()</code> and <code>call()</code>) uses the pools of that session;
+ * work done outside of any session uses the pools of the global session.
+ * Pools can be used by many threads at once, so independent mining jobs can
+ * run concurrently in one process, each in its own session. Once a session
+ * is closed (or no longer referenced), the memory of its pools is released.
+ * <p>
+ * Objects taken from different sessions must not be mixed: two methods with
+ * the same name, but from different sessions, are equal, but not the same.
+ */
+public final class MiningSession {
+
+    /**
+     * Session used by threads not running inside of any session.
+     */
+    private static final MiningSession GLOBAL =
+            new MiningSession(TransitionsPool.getGlobal());
+
+
+    /**
+     * Session the current thread runs inside of (<code>null</code> for the
+     * global session).
+     */
+    private static final ThreadLocal<MiningSession> current =
+            new ThreadLocal<MiningSession>();
+
+
+    /**
+     * Mapping from event pairs to themselves.
+     */
+    private final ConcurrentMap<EventPair, EventPair> pair2pair;
+
+
+    /**
+     * Mapping from methods' names to their representations.
+     */
+    private final ConcurrentMap<String, Method> name2method;
+
+
+    /**
+     * Pool of transitions.
+     */
+    private final TransitionsPool transitions;
+
+
+    /**
+     * Creates a new session with empty pools.
+     */
+    public MiningSession() {
+        this(new TransitionsPool());
+    }
+
+
+    /**
+     * Creates a new session with empty pools of event pairs and methods.
+     *
+     * @param transitions Pool of transitions to use.
+     */
+    private MiningSession(TransitionsPool transitions) {
+        this.pair2pair = new ConcurrentHashMap<EventPair, EventPair>();
+        this.name2method = new ConcurrentHashMap<String, Method>();
+        this.transitions = transitions;
+    }
+
+
+    /**
+     * Returns the session the current thread runs inside of.
+     *
+     * @return Session of the current thread.
+     */
+    public static MiningSession getCurrent() {
+        MiningSession session = current.get();
+        return session == null ? GLOBAL : session;
+    }
+
+
+    /**
+     * Runs the given task inside of this session in the current thread.
+     *
+     * @param task Task to run.
+     */
+    public void run(Runnable task) {
+        MiningSession previousSession = current.get();
+        TransitionsPool previousPool = enter();
+        try {
+            task.run();
+        } finally {
+            exit(previousSession, previousPool);
+        }
+    }
+
+
+    /**
+     * Runs the given task inside of this session in the current thread.
+     *
+     * @param task Task to run.
+     * @return Result of the task.
+     * @throws Exception if the task throws it.
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        MiningSession previousSession = current.get();
+        TransitionsPool previousPool = enter();
+        try {
+            return task.call();
+        } finally {
+            exit(previousSession, previousPool);
+        }
+    }
+
+
+    /**
+     * Makes the current thread use this session.
+     *
+     * @return Pool of transitions used by the thread before.
+     */
+    private TransitionsPool enter() {
+        if (this == GLOBAL) {
+            current.remove();
+        } else {
+            current.set(this);
+        }
+        return TransitionsPool.setCurrent(this.transitions);
+    }
+
+
+    /**
+     * Makes the current thread use the given session and pool of
+     * transitions again.
+     *
+     * @param session Session to use (<code>null</code> for the global one).
+     * @param pool    Pool of transitions to use (<code>null</code> for the
+     *                global one).
+     */
+    private static void exit(MiningSession session, TransitionsPool pool) {
+        if (session == null) {
+            current.remove();
+        } else {
+            current.set(session);
+        }
+        TransitionsPool.setCurrent(pool);
+    }
+
+
+    /**
+     * Releases the pools of this session. Objects taken from the session
+     * stay valid, but are no longer shared with the ones created later.
+     */
+    public void close() {
+        this.pair2pair.clear();
+        this.name2method.clear();
+        this.transitions.clear();
+    }
+
+
+    /**
+     * Returns the number of event pairs in the pool of this session.
+     *
+     * @return Number of event pairs in the pool.
+     */
+    public int getEventPairsNum() {
+        return this.pair2pair.size();
+    }
+
+
+    /**
+     * Returns the number of methods in the pool of this session.
+     *
+     * @return Number of methods in the pool.
+     */
+    public int getMethodsNum() {
+        return this.name2method.size();
+    }
+
+
+    /**
+     * Returns the number of transitions in the pool of this session.
+     *
+     * @return Number of transitions in the pool.
+     */
+    public int getTransitionsNum() {
+        return this.transitions.size();
+    }
+
+
+    /**
+     * Returns the event pair from the pool equal to the given one, adding
+     * the given one if there is none.
+     *
+     * @param pair Event pair to look for.
+     * @return Event pair from the pool.
+     */
+    EventPair intern(EventPair pair) {
+        EventPair result = this.pair2pair.putIfAbsent(pair, pair);
+        return result == null ? pair : result;
+    }
+
+
+    /**
+     * Returns the method from the pool with the same name as the given one,
+     * adding the given one if there is none.
+     *
+     * @param method Method to look for.
+     * @return Method from the pool.
+     */
+    Method intern(Method method) {
+        Method result = this.name2method.putIfAbsent(method.getName(), method);
+        return result == null ? method : result;
+    }
+}
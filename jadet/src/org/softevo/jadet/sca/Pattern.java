@@ -1,10 +1,8 @@
 package org.softevo.jadet.sca;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -29,33 +27,32 @@ public class Pattern extends org.softevo.catools.Pattern<Method, EventPair> {
     }
 
     /**
-     * Creates a pattern out of the given XML element.
+     * Creates a pattern out of the XML element the given reader is positioned
+     * at. Afterwards the reader is positioned at the end of that element.
      *
-     * @param patternXML XML representation of the pattern to create.
-     * @return Pattern corresponding to the given XML representation.
+     * @param reader XML stream positioned at the start of the pattern.
+     * @return Pattern corresponding to the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    public static Pattern createFromXMLElement(Element patternXML) {
+    public static Pattern createFromXMLStream(XMLStreamReader reader)
+            throws XMLStreamException {
         // get the needed attributes
-        int support = Integer.valueOf(patternXML.getAttribute("support"));
+        int support = Integer.valueOf(reader.getAttributeValue(null, "support"));
 
         // get all subelements
         Set<Method> supportingMethods = null;
         Set<EventPair> properties = null;
-        NodeList patternChildren = patternXML.getChildNodes();
-        for (int i = 0; i < patternChildren.getLength(); i++) {
-            Node node = patternChildren.item(i);
-            if (node instanceof Element) {
-                Element element = (Element) node;
-                if (element.getTagName().equals("supporting_methods")) {
-                    assert supportingMethods == null;
-                    supportingMethods = getMethodsFromXMLs(element.getChildNodes());
-                } else if (element.getTagName().equals("properties")) {
-                    assert properties == null;
-                    properties = getEventPairsFromXMLs(element.getChildNodes());
-                } else {
-                    System.err.println("Unknown tag name: " + element.getTagName());
-                    throw new InternalError();
-                }
+        while (XMLStreamUtil.nextChildElement(reader)) {
+            String tagName = reader.getLocalName();
+            if (tagName.equals("supporting_methods")) {
+                assert supportingMethods == null;
+                supportingMethods = readMethods(reader);
+            } else if (tagName.equals("properties")) {
+                assert properties == null;
+                properties = readEventPairs(reader);
+            } else {
+                System.err.println("Unknown tag name: " + tagName);
+                throw new InternalError();
             }
         }
 
@@ -68,76 +65,76 @@ public class Pattern extends org.softevo.catools.Pattern<Method, EventPair> {
     }
 
     /**
-     * Returns the set of event pairs that occur as top level elements in the
-     * given node list.
+     * Reads the set of event pairs that occur as child elements of the
+     * element the given reader is positioned at.
      *
-     * @param nodes List to search through.
-     * @return Event pairs that occur as top level elements in the node list.
+     * @param reader XML stream positioned at the start of the parent element.
+     * @return Event pairs that occur as child elements.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    private static Set<EventPair> getEventPairsFromXMLs(NodeList nodes) {
+    private static Set<EventPair> readEventPairs(XMLStreamReader reader)
+            throws XMLStreamException {
         Set<EventPair> pairs = new HashSet<EventPair>();
-        for (int i = 0; i < nodes.getLength(); i++) {
-            Node node = nodes.item(i);
-            if (node instanceof Element) {
-                Element element = (Element) node;
-                if (element.getTagName().equals("event_pair")) {
-                    EventPair pair = EventPair.createFromXMLElement(element);
-                    pairs.add(pair);
-                }
+        while (XMLStreamUtil.nextChildElement(reader)) {
+            if (reader.getLocalName().equals("event_pair")) {
+                EventPair pair = EventPair.createFromXMLStream(reader);
+                pairs.add(pair);
+            } else {
+                XMLStreamUtil.skipElement(reader);
             }
         }
         return pairs;
     }
 
     /**
-     * Returns the set of methods that occur as top level elements in the
-     * given node list.
+     * Reads the set of methods that occur as child elements of the element
+     * the given reader is positioned at.
      *
-     * @param nodes List to search through.
-     * @return Methods that occur as top level elements in the node list.
+     * @param reader XML stream positioned at the start of the parent element.
+     * @return Methods that occur as child elements.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    private static Set<Method> getMethodsFromXMLs(NodeList nodes) {
+    private static Set<Method> readMethods(XMLStreamReader reader)
+            throws XMLStreamException {
         Set<Method> methods = new HashSet<Method>();
-        for (int i = 0; i < nodes.getLength(); i++) {
-            Node node = nodes.item(i);
-            if (node instanceof Element) {
-                Element element = (Element) node;
-                if (element.getTagName().equals("method")) {
-                    Method method = Method.createFromXMLElement(element);
-                    methods.add(method);
-                }
+        while (XMLStreamUtil.nextChildElement(reader)) {
+            if (reader.getLocalName().equals("method")) {
+                Method method = Method.createFromXMLStream(reader);
+                methods.add(method);
+            } else {
+                XMLStreamUtil.skipElement(reader);
             }
         }
         return methods;
     }
 
     /**
-     * Returns the XML representation of this pattern.
+     * Writes the XML representation of this pattern into the given stream.
      *
-     * @param xml XML document to use.
-     * @return XML representation of this pattern.
+     * @param xml XML stream to write to.
+     * @throws XMLStreamException if the XML stream could not be written.
      */
-    public Element getXMLRepresentation(Document xml) {
-        Element patternXML = xml.createElement("pattern");
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeStartElement("pattern");
 
         // set the needed attributes
-        patternXML.setAttribute("support",
-                String.valueOf(getSupport()));
+        xml.writeAttribute("support", String.valueOf(getSupport()));
 
         // add the supporting objects
-        Element supportingExamples = xml.createElement("supporting_methods");
-        patternXML.appendChild(supportingExamples);
+        xml.writeStartElement("supporting_methods");
         for (Method method : getObjects()) {
-            supportingExamples.appendChild(method.getXMLRepresentation(xml));
+            method.writeXMLRepresentation(xml);
         }
+        xml.writeEndElement();
 
         // add the properties
-        Element propertiesXML = xml.createElement("properties");
-        patternXML.appendChild(propertiesXML);
+        xml.writeStartElement("properties");
         for (EventPair pair : getProperties()) {
-            propertiesXML.appendChild(pair.getXMLRepresentation(xml));
+            pair.writeXMLRepresentation(xml);
         }
+        xml.writeEndElement();
 
-        return patternXML;
+        xml.writeEndElement();
     }
 }
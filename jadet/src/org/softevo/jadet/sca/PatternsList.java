@@ -1,26 +1,17 @@
 package org.softevo.jadet.sca;
 
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 
 
@@ -45,24 +36,23 @@ public class PatternsList extends ArrayList<Pattern> {
     public static PatternsList readFromXML(File patternsFile) {
         try {
             PatternsList patterns = new PatternsList();
-            DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = builderFactory.newDocumentBuilder();
-            Document xml = builder.parse(patternsFile);
-            Element patternsElement = xml.getDocumentElement();
+            InputStream in = new BufferedInputStream(
+                    new FileInputStream(patternsFile));
+            XMLStreamReader reader = XMLStreamUtil.createReader(in);
 
             // read patterns
-            NodeList patternsList = patternsElement.getElementsByTagName("pattern");
-            for (int i = 0; i < patternsList.getLength(); i++) {
-                Element patternElement = (Element) patternsList.item(i);
-                Pattern pattern = Pattern.createFromXMLElement(patternElement);
-                patterns.add(pattern);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamReader.START_ELEMENT &&
+                        reader.getLocalName().equals("pattern")) {
+                    Pattern pattern = Pattern.createFromXMLStream(reader);
+                    patterns.add(pattern);
+                }
             }
+            reader.close();
+            in.close();
 
             return patterns;
-        } catch (ParserConfigurationException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        } catch (SAXException e) {
+        } catch (XMLStreamException e) {
             e.printStackTrace(System.err);
             throw new InternalError();
         } catch (IOException e) {
@@ -78,37 +68,27 @@ public class PatternsList extends ArrayList<Pattern> {
      */
     public void writeXML(File outFile) {
         try {
-            // create the XML document
-            DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
-            Document xml = docBuilder.newDocument();
-            xml.setXmlStandalone(true);
-            Element patternsXML = xml.createElement("patterns");
-            xml.appendChild(patternsXML);
+            // start the XML document
+            OutputStream out = new BufferedOutputStream(
+                    new FileOutputStream(outFile));
+            XMLStreamWriter xml = XMLStreamUtil.createWriter(out);
+            xml.writeStartDocument(XMLStreamUtil.ENCODING, "1.0");
+            xml.writeStartElement("patterns");
 
-            // create XML subtree for each pattern
+            // output each pattern
             for (Pattern pattern : this) {
-                Element patternXML = pattern.getXMLRepresentation(xml);
-                patternsXML.appendChild(patternXML);
+                pattern.writeXMLRepresentation(xml);
             }
 
-            // output the XML data to the file
-            PrintWriter writer = new PrintWriter(outFile);
-            TransformerFactory tranFactory = TransformerFactory.newInstance();
-            tranFactory.setAttribute("indent-number", Integer.valueOf(4));
-            Transformer transformer = tranFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            Source src = new DOMSource(xml);
-            Result dest = new StreamResult(writer);
-            transformer.transform(src, dest);
-            writer.close();
-        } catch (ParserConfigurationException e) {
+            // finish the XML document
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+            out.close();
+        } catch (XMLStreamException e) {
             e.printStackTrace(System.err);
             return;
-        } catch (TransformerException e) {
-            e.printStackTrace(System.err);
-            return;
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace(System.err);
             return;
         }
@@ -0,0 +1,1427 @@
+package org.softevo.jadet.sca;
+
+
+import org.softevo.catools.CAMatrix;
+import org.softevo.catools.CAMatrixEntry;
+import org.softevo.oumextractor.modelcreator1.model.Transition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Instances of this class hold all closed patterns mined from a concept
+ * analysis matrix, together with the full lists of their supporting methods
+ * and the edges of the concept lattice they form. Patterns and violations
+ * for any thresholds at least as strict as those used for building the store
+ * can be queried without mining again. The store also keeps the event pairs
+ * of each method, so that it can be updated with methods analyzed later
+ * without mining all the patterns again. The store can be saved into and
+ * read from a compact binary file.
+ * <p>
+ * Patterns are identified by their position in the store (starting with 1);
+ * they are ordered by the support and size, just like mined patterns.
+ */
+public class PatternsStore {
+
+    /**
+     * Magic number starting each store file.
+     */
+    private static final int MAGIC = 0x4A505354;
+
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 2;
+
+
+    /**
+     * Number of supporting methods given as a sample in violations' patterns
+     * (the same as used when mining violations).
+     */
+    private static final int SAMPLE_SIZE = 3;
+
+
+    /**
+     * Minimum support used when building this store.
+     */
+    private final int minSupport;
+
+
+    /**
+     * Number of all methods in the matrix.
+     */
+    private final int transactionsNum;
+
+
+    /**
+     * Mapping from tids to methods (ordered like the methods).
+     */
+    private final Method[] methods;
+
+
+    /**
+     * Mapping from ids to event pairs (ordered like the event pairs).
+     */
+    private final EventPair[] eventPairs;
+
+
+    /**
+     * For each method, sorted ids of its event pairs. If <code>null</code>,
+     * the store was read from a file that does not contain them.
+     */
+    private final int[][] tid2properties;
+
+
+    /**
+     * For each pattern, sorted ids of its event pairs.
+     */
+    private final int[][] pattern2properties;
+
+
+    /**
+     * For each pattern, sorted tids of its supporting methods.
+     */
+    private final int[][] pattern2tids;
+
+
+    /**
+     * For each pattern, indices of patterns directly above it in the lattice
+     * (i.e., with fewer properties and a higher support).
+     */
+    private final int[][] pattern2uppers;
+
+
+    /**
+     * For each event pair, indices of the patterns that contain it.
+     */
+    private final int[][] property2patterns;
+
+
+    /**
+     * Mapping from event pairs to their ids.
+     */
+    private final Map<EventPair, Integer> eventPair2id;
+
+
+    /**
+     * Creates a new store out of the given data.
+     *
+     * @param minSupport         Minimum support used when building the store.
+     * @param transactionsNum    Number of all methods in the matrix.
+     * @param methods            Mapping from tids to methods.
+     * @param eventPairs         Mapping from ids to event pairs.
+     * @param tid2properties     For each method, sorted ids of its event
+     *                           pairs (optional).
+     * @param pattern2properties For each pattern, sorted ids of its event
+     *                           pairs.
+     * @param pattern2tids       For each pattern, sorted tids of its
+     *                           supporting methods.
+     * @param pattern2uppers     For each pattern, indices of patterns
+     *                           directly above it in the lattice.
+     */
+    private PatternsStore(int minSupport, int transactionsNum,
+                          Method[] methods, EventPair[] eventPairs,
+                          int[][] tid2properties, int[][] pattern2properties,
+                          int[][] pattern2tids, int[][] pattern2uppers) {
+        this.minSupport = minSupport;
+        this.transactionsNum = transactionsNum;
+        this.methods = methods;
+        this.eventPairs = eventPairs;
+        this.tid2properties = tid2properties;
+        this.pattern2properties = pattern2properties;
+        this.pattern2tids = pattern2tids;
+        this.pattern2uppers = pattern2uppers;
+
+        // index the patterns by their event pairs
+        this.eventPair2id = new HashMap<EventPair, Integer>();
+        for (int id = 0; id < eventPairs.length; id++) {
+            this.eventPair2id.put(eventPairs[id], id);
+        }
+        int[] patternsNum = new int[eventPairs.length];
+        for (int[] properties : pattern2properties) {
+            for (int pid : properties) {
+                patternsNum[pid]++;
+            }
+        }
+        this.property2patterns = new int[eventPairs.length][];
+        for (int pid = 0; pid < eventPairs.length; pid++) {
+            this.property2patterns[pid] = new int[patternsNum[pid]];
+            patternsNum[pid] = 0;
+        }
+        for (int index = 0; index < pattern2properties.length; index++) {
+            for (int pid : pattern2properties[index]) {
+                this.property2patterns[pid][patternsNum[pid]++] = index;
+            }
+        }
+    }
+
+
+    /**
+     * Mines all closed patterns with at least the given support from the
+     * given matrix and creates a store out of them.
+     *
+     * @param matrix     Concept analysis matrix to mine.
+     * @param minSupport Minimum support of the patterns to store.
+     * @return Store with the patterns mined.
+     */
+    public static PatternsStore create(CAMatrix<Method, EventPair> matrix,
+                                       int minSupport) {
+        // number the methods and event pairs in their natural order
+        Set<CAMatrixEntry<Method, EventPair>> entries = matrix.getEntries();
+        List<Method> methodsList = new ArrayList<Method>();
+        Set<EventPair> eventPairsSet = new HashSet<EventPair>();
+        for (CAMatrixEntry<Method, EventPair> entry : entries) {
+            methodsList.add(entry.getObject());
+            eventPairsSet.addAll(entry.getProperties());
+        }
+        Collections.sort(methodsList);
+        List<EventPair> eventPairsList = new ArrayList<EventPair>(eventPairsSet);
+        Collections.sort(eventPairsList);
+        Method[] methods = methodsList.toArray(new Method[methodsList.size()]);
+        EventPair[] eventPairs =
+                eventPairsList.toArray(new EventPair[eventPairsList.size()]);
+        Map<Method, Integer> method2tid = new HashMap<Method, Integer>();
+        for (int tid = 0; tid < methods.length; tid++) {
+            method2tid.put(methods[tid], tid);
+        }
+        Map<EventPair, Integer> eventPair2id = new HashMap<EventPair, Integer>();
+        for (int id = 0; id < eventPairs.length; id++) {
+            eventPair2id.put(eventPairs[id], id);
+        }
+
+        // get the event pairs of each method and the supporting methods of
+        // each event pair; methods without frequent event pairs do not take
+        // part in the mining
+        int[][] tid2properties = new int[methods.length][];
+        for (CAMatrixEntry<Method, EventPair> entry : entries) {
+            tid2properties[method2tid.get(entry.getObject())] =
+                    getIds(entry.getProperties(), eventPair2id);
+        }
+        BitSet[] property2tids = getSupportingTids(tid2properties,
+                eventPairs.length);
+        BitSet minedTids = getMinedTids(property2tids, minSupport,
+                methods.length);
+
+        // mine the patterns (including the one without properties) and
+        // get their supporting methods
+        Set<org.softevo.catools.Pattern<Method, EventPair>> patterns =
+                matrix.minePatterns(minSupport, 0, 0);
+        List<int[]> pattern2properties = new ArrayList<int[]>();
+        List<BitSet> pattern2tids = new ArrayList<BitSet>();
+        for (org.softevo.catools.Pattern<Method, EventPair> pattern : patterns) {
+            int[] properties = getIds(pattern.getProperties(), eventPair2id);
+            BitSet tids = getTids(properties, property2tids, minedTids);
+            assert tids.cardinality() == pattern.getSupport();
+            pattern2properties.add(properties);
+            pattern2tids.add(tids);
+        }
+        return create(minSupport, methods, eventPairs, tid2properties,
+                pattern2properties, pattern2tids, new int[0][]);
+    }
+
+
+    /**
+     * Creates a store out of the given patterns. The patterns get ordered
+     * by the support and size, like the mined ones, and the edges of the
+     * lattice they form are computed (unless they are known already).
+     *
+     * @param minSupport         Minimum support used when mining the
+     *                           patterns.
+     * @param methods            Mapping from tids to methods.
+     * @param eventPairs         Mapping from ids to event pairs.
+     * @param tid2properties     For each method, sorted ids of its event
+     *                           pairs.
+     * @param pattern2properties For each pattern, sorted ids of its event
+     *                           pairs.
+     * @param pattern2tids       For each pattern, tids of its supporting
+     *                           methods.
+     * @param pattern2uppers     For each of the first patterns, indices of
+     *                           patterns directly above it in the lattice
+     *                           formed by the first patterns only, or
+     *                           <code>null</code>, if not known.
+     * @return Store with the given patterns.
+     */
+    private static PatternsStore create(int minSupport, Method[] methods,
+                                        EventPair[] eventPairs,
+                                        int[][] tid2properties,
+                                        List<int[]> pattern2properties,
+                                        List<BitSet> pattern2tids,
+                                        int[][] pattern2uppers) {
+        // order the patterns by support and size, like the mined ones
+        int patternsNum = pattern2properties.size();
+        Integer[] order = new Integer[patternsNum];
+        for (int index = 0; index < patternsNum; index++) {
+            order[index] = index;
+        }
+        final int[][] unorderedProperties = pattern2properties.toArray(
+                new int[patternsNum][]);
+        final int[] unorderedSupports = new int[patternsNum];
+        for (int index = 0; index < patternsNum; index++) {
+            unorderedSupports[index] = pattern2tids.get(index).cardinality();
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer p1, Integer p2) {
+                int support1 = unorderedSupports[p1];
+                int support2 = unorderedSupports[p2];
+                if (support1 != support2) {
+                    return support1 > support2 ? -1 : 1;
+                }
+                int[] properties1 = unorderedProperties[p1];
+                int[] properties2 = unorderedProperties[p2];
+                if (properties1.length != properties2.length) {
+                    return properties1.length > properties2.length ? -1 : 1;
+                }
+                for (int i = 0; i < properties1.length; i++) {
+                    if (properties1[i] != properties2[i]) {
+                        return properties1[i] < properties2[i] ? -1 : 1;
+                    }
+                }
+                return 0;
+            }
+        });
+        int[] position = new int[patternsNum];
+        for (int index = 0; index < patternsNum; index++) {
+            position[order[index]] = index;
+        }
+        int[][] orderedProperties = new int[patternsNum][];
+        int[][] orderedTids = new int[patternsNum][];
+        int[][] orderedUppers = new int[patternsNum][];
+        for (int index = 0; index < patternsNum; index++) {
+            int unordered = order[index];
+            orderedProperties[index] = unorderedProperties[unordered];
+            orderedTids[index] = toArray(pattern2tids.get(unordered));
+            if (unordered < pattern2uppers.length &&
+                    pattern2uppers[unordered] != null) {
+                int[] uppers = new int[pattern2uppers[unordered].length];
+                for (int i = 0; i < uppers.length; i++) {
+                    uppers[i] = position[pattern2uppers[unordered][i]];
+                }
+                Arrays.sort(uppers);
+                orderedUppers[index] = uppers;
+            }
+        }
+
+        computeUppers(orderedProperties, eventPairs.length, orderedUppers);
+        return new PatternsStore(minSupport, methods.length, methods,
+                eventPairs, tid2properties, orderedProperties, orderedTids,
+                orderedUppers);
+    }
+
+
+    /**
+     * Updates this store with the methods of the given matrix that it does
+     * not contain yet. Only patterns these methods take part in are mined;
+     * the support of the stored patterns is updated and the lattice is
+     * recomputed only around the patterns found. The result is the same as
+     * that of creating a store out of the given matrix.
+     *
+     * @param matrix Concept analysis matrix with all methods of this store
+     *               and the methods to add.
+     * @return Updated store or <code>null</code>, if the store can not be
+     * updated (because it does not contain event pairs of its methods or
+     * some of its methods are missing from the matrix or have different
+     * event pairs there).
+     */
+    public PatternsStore update(CAMatrix<Method, EventPair> matrix) {
+        if (this.tid2properties == null) {
+            return null;
+        }
+
+        // find the methods to add; the stored ones must not have changed
+        Map<Method, Set<EventPair>> addedMethod2properties =
+                new HashMap<Method, Set<EventPair>>();
+        for (CAMatrixEntry<Method, EventPair> entry : matrix.getEntries()) {
+            addedMethod2properties.put(entry.getObject(),
+                    entry.getProperties());
+        }
+        for (int tid = 0; tid < this.methods.length; tid++) {
+            Set<EventPair> properties =
+                    addedMethod2properties.remove(this.methods[tid]);
+            if (properties == null || !properties.equals(
+                    getEventPairs(this.tid2properties[tid]))) {
+                return null;
+            }
+        }
+        if (addedMethod2properties.isEmpty()) {
+            return this;
+        }
+
+        // number all the methods and event pairs in their natural order
+        List<Method> methodsList =
+                new ArrayList<Method>(Arrays.asList(this.methods));
+        methodsList.addAll(addedMethod2properties.keySet());
+        Collections.sort(methodsList);
+        Set<EventPair> eventPairsSet =
+                new HashSet<EventPair>(Arrays.asList(this.eventPairs));
+        for (Set<EventPair> properties : addedMethod2properties.values()) {
+            eventPairsSet.addAll(properties);
+        }
+        List<EventPair> eventPairsList = new ArrayList<EventPair>(eventPairsSet);
+        Collections.sort(eventPairsList);
+        Method[] methods = methodsList.toArray(new Method[methodsList.size()]);
+        EventPair[] eventPairs =
+                eventPairsList.toArray(new EventPair[eventPairsList.size()]);
+        Map<Method, Integer> method2tid = new HashMap<Method, Integer>();
+        for (int tid = 0; tid < methods.length; tid++) {
+            method2tid.put(methods[tid], tid);
+        }
+        Map<EventPair, Integer> eventPair2id = new HashMap<EventPair, Integer>();
+        for (int id = 0; id < eventPairs.length; id++) {
+            eventPair2id.put(eventPairs[id], id);
+        }
+        int[] oldTid2tid = new int[this.methods.length];
+        for (int tid = 0; tid < this.methods.length; tid++) {
+            oldTid2tid[tid] = method2tid.get(this.methods[tid]);
+        }
+        int[] oldId2id = new int[this.eventPairs.length];
+        for (int id = 0; id < this.eventPairs.length; id++) {
+            oldId2id[id] = eventPair2id.get(this.eventPairs[id]);
+        }
+
+        // get the event pairs of each method and the supporting methods of
+        // each event pair
+        int[][] tid2properties = new int[methods.length][];
+        for (int tid = 0; tid < this.methods.length; tid++) {
+            tid2properties[oldTid2tid[tid]] =
+                    map(this.tid2properties[tid], oldId2id);
+        }
+        BitSet addedTids = new BitSet(methods.length);
+        for (Map.Entry<Method, Set<EventPair>> entry :
+                addedMethod2properties.entrySet()) {
+            int tid = method2tid.get(entry.getKey());
+            tid2properties[tid] = getIds(entry.getValue(), eventPair2id);
+            addedTids.set(tid);
+        }
+        BitSet[] property2tids = getSupportingTids(tid2properties,
+                eventPairs.length);
+        BitSet minedTids = getMinedTids(property2tids, this.minSupport,
+                methods.length);
+
+        // the stored patterns stay closed; only the added methods can
+        // support them in addition to the stored ones
+        boolean hasEmptyPattern = hasEmptyPattern(property2tids, minedTids,
+                this.minSupport);
+        List<int[]> pattern2properties = new ArrayList<int[]>();
+        List<BitSet> pattern2tids = new ArrayList<BitSet>();
+        Set<List<Integer>> known = new HashSet<List<Integer>>();
+        boolean emptyPatternChanged = hasEmptyPattern;
+        for (int index = 0; index < this.pattern2properties.length; index++) {
+            int[] properties = map(this.pattern2properties[index], oldId2id);
+            BitSet tids;
+            if (properties.length == 0) {
+                emptyPatternChanged = !hasEmptyPattern;
+                tids = (BitSet) minedTids.clone();
+            } else {
+                tids = getTids(properties, property2tids, addedTids);
+                for (int tid : this.pattern2tids[index]) {
+                    tids.set(oldTid2tid[tid]);
+                }
+            }
+            pattern2properties.add(properties);
+            pattern2tids.add(tids);
+            known.add(asList(properties));
+        }
+        int[][] pattern2uppers = this.pattern2uppers;
+        if (emptyPatternChanged) {
+            // all the edges to the pattern without properties change
+            pattern2uppers = new int[0][];
+            if (hasEmptyPattern) {
+                int[] properties = new int[0];
+                pattern2properties.add(properties);
+                pattern2tids.add((BitSet) minedTids.clone());
+                known.add(asList(properties));
+            } else {
+                int emptyIndex = 0;
+                while (pattern2properties.get(emptyIndex).length != 0) {
+                    emptyIndex++;
+                }
+                pattern2properties.remove(emptyIndex);
+                pattern2tids.remove(emptyIndex);
+            }
+        }
+
+        // any other pattern has to be supported by an added method, so it
+        // consists only of frequent event pairs of that method; enumerate
+        // the closed sets of these event pairs for each added method
+        for (int tid = addedTids.nextSetBit(0); tid >= 0;
+             tid = addedTids.nextSetBit(tid + 1)) {
+            int[] properties = new int[tid2properties[tid].length];
+            int length = 0;
+            for (int id : tid2properties[tid]) {
+                if (property2tids[id].cardinality() >= this.minSupport) {
+                    properties[length++] = id;
+                }
+            }
+            if (length == 0) {
+                continue;
+            }
+            properties = Arrays.copyOf(properties, length);
+            int[] closure = getClosure(properties, minedTids, property2tids);
+            if (closure.length > 0 && known.add(asList(closure))) {
+                pattern2properties.add(closure);
+                pattern2tids.add((BitSet) minedTids.clone());
+            }
+            addClosedSets(properties, closure, minedTids, 0, property2tids,
+                    known, pattern2properties, pattern2tids);
+        }
+
+        return create(this.minSupport, methods, eventPairs, tid2properties,
+                pattern2properties, pattern2tids, pattern2uppers);
+    }
+
+
+    /**
+     * Computes the edges of the lattice formed by the given patterns. The
+     * patterns directly above a pattern are the maximal ones among those
+     * whose properties are a proper subset of its properties. Edges already
+     * known for a pattern are kept, unless the pattern has a proper subset
+     * among the patterns whose edges are not known.
+     *
+     * @param pattern2properties For each pattern, sorted ids of its
+     *                           properties.
+     * @param propertiesNum      Number of all properties.
+     * @param pattern2uppers     For each pattern, indices of patterns
+     *                           directly above it or <code>null</code>, if
+     *                           they are to be computed.
+     */
+    private static void computeUppers(int[][] pattern2properties,
+                                      int propertiesNum,
+                                      int[][] pattern2uppers) {
+        int patternsNum = pattern2properties.length;
+        List<List<Integer>> property2patterns = new ArrayList<List<Integer>>();
+        for (int pid = 0; pid < propertiesNum; pid++) {
+            property2patterns.add(new ArrayList<Integer>());
+        }
+        List<Integer> emptyPatterns = new ArrayList<Integer>();
+        BitSet[] pattern2propertiesSet = new BitSet[patternsNum];
+        BitSet unknown = new BitSet(patternsNum);
+        for (int index = 0; index < patternsNum; index++) {
+            pattern2propertiesSet[index] = new BitSet(propertiesNum);
+            for (int pid : pattern2properties[index]) {
+                property2patterns.get(pid).add(index);
+                pattern2propertiesSet[index].set(pid);
+            }
+            if (pattern2properties[index].length == 0) {
+                emptyPatterns.add(index);
+            }
+            if (pattern2uppers[index] == null) {
+                unknown.set(index);
+            }
+        }
+
+        int[] sharedNum = new int[patternsNum];
+        for (int index = 0; index < patternsNum; index++) {
+            // find all patterns with a proper subset of the properties
+            int[] properties = pattern2properties[index];
+            List<Integer> touched = new ArrayList<Integer>();
+            for (int pid : properties) {
+                for (int other : property2patterns.get(pid)) {
+                    if (sharedNum[other]++ == 0) {
+                        touched.add(other);
+                    }
+                }
+            }
+            List<Integer> candidates = new ArrayList<Integer>();
+            boolean changed = unknown.get(index);
+            for (int other : touched) {
+                int otherSize = pattern2properties[other].length;
+                if (sharedNum[other] == otherSize &&
+                        otherSize < properties.length) {
+                    candidates.add(other);
+                    changed |= unknown.get(other);
+                }
+                sharedNum[other] = 0;
+            }
+            if (properties.length > 0) {
+                candidates.addAll(emptyPatterns);
+            }
+            if (!changed) {
+                continue;
+            }
+
+            // keep only the maximal ones
+            final int[][] sizes = pattern2properties;
+            Collections.sort(candidates, new Comparator<Integer>() {
+                public int compare(Integer p1, Integer p2) {
+                    return sizes[p2].length - sizes[p1].length;
+                }
+            });
+            List<Integer> uppers = new ArrayList<Integer>();
+            for (int candidate : candidates) {
+                BitSet candidateProperties = pattern2propertiesSet[candidate];
+                boolean maximal = true;
+                for (int upper : uppers) {
+                    BitSet difference = (BitSet) candidateProperties.clone();
+                    difference.andNot(pattern2propertiesSet[upper]);
+                    if (difference.isEmpty()) {
+                        maximal = false;
+                        break;
+                    }
+                }
+                if (maximal) {
+                    uppers.add(candidate);
+                }
+            }
+            pattern2uppers[index] = toArray(uppers);
+        }
+    }
+
+
+    /**
+     * Returns the sorted ids of the given event pairs.
+     *
+     * @param properties   Event pairs.
+     * @param eventPair2id Mapping from event pairs to their ids.
+     * @return Sorted ids of the event pairs.
+     */
+    private static int[] getIds(Set<EventPair> properties,
+                                Map<EventPair, Integer> eventPair2id) {
+        int[] ids = new int[properties.size()];
+        int index = 0;
+        for (EventPair pair : properties) {
+            ids[index++] = eventPair2id.get(pair);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+
+    /**
+     * Returns the supporting methods of each event pair.
+     *
+     * @param tid2properties For each method, ids of its event pairs.
+     * @param propertiesNum  Number of all event pairs.
+     * @return For each event pair, tids of the methods that have it.
+     */
+    private static BitSet[] getSupportingTids(int[][] tid2properties,
+                                              int propertiesNum) {
+        BitSet[] property2tids = new BitSet[propertiesNum];
+        for (int id = 0; id < propertiesNum; id++) {
+            property2tids[id] = new BitSet(tid2properties.length);
+        }
+        for (int tid = 0; tid < tid2properties.length; tid++) {
+            for (int id : tid2properties[tid]) {
+                property2tids[id].set(tid);
+            }
+        }
+        return property2tids;
+    }
+
+
+    /**
+     * Returns the methods that take part in the mining, i.e. the ones with
+     * at least one frequent event pair.
+     *
+     * @param property2tids   For each event pair, tids of the methods that
+     *                        have it.
+     * @param minSupport      Minimum support of frequent event pairs.
+     * @param transactionsNum Number of all methods.
+     * @return Tids of the methods taking part in the mining.
+     */
+    private static BitSet getMinedTids(BitSet[] property2tids, int minSupport,
+                                       int transactionsNum) {
+        BitSet minedTids = new BitSet(transactionsNum);
+        for (BitSet tids : property2tids) {
+            if (tids.cardinality() >= minSupport) {
+                minedTids.or(tids);
+            }
+        }
+        return minedTids;
+    }
+
+
+    /**
+     * Returns the given methods that have all the given event pairs.
+     *
+     * @param properties    Ids of event pairs.
+     * @param property2tids For each event pair, tids of the methods that
+     *                      have it.
+     * @param tids          Tids of methods to consider.
+     * @return Tids of the methods that have all the event pairs.
+     */
+    private static BitSet getTids(int[] properties, BitSet[] property2tids,
+                                  BitSet tids) {
+        BitSet result = (BitSet) tids.clone();
+        for (int id : properties) {
+            result.and(property2tids[id]);
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the given event pairs that all the given methods have.
+     *
+     * @param properties    Sorted ids of event pairs.
+     * @param tids          Tids of methods.
+     * @param property2tids For each event pair, tids of the methods that
+     *                      have it.
+     * @return Sorted ids of the event pairs all the methods have.
+     */
+    private static int[] getClosure(int[] properties, BitSet tids,
+                                    BitSet[] property2tids) {
+        int[] closure = new int[properties.length];
+        int length = 0;
+        for (int id : properties) {
+            BitSet missing = (BitSet) tids.clone();
+            missing.andNot(property2tids[id]);
+            if (missing.isEmpty()) {
+                closure[length++] = id;
+            }
+        }
+        return Arrays.copyOf(closure, length);
+    }
+
+
+    /**
+     * Finds all frequent closed sets of the given event pairs that extend
+     * the given closed set, using prefix-preserving closure extensions (so
+     * that each closed set is reached only once), and adds the ones not
+     * known yet to the given patterns.
+     *
+     * @param properties         Sorted ids of event pairs to consider.
+     * @param closure            Closed set to extend.
+     * @param tids               Tids of the methods supporting the closed
+     *                           set.
+     * @param first              Index of the first event pair that may be
+     *                           used to extend the closed set.
+     * @param property2tids      For each event pair, tids of the methods
+     *                           that have it.
+     * @param known              Closed sets known already.
+     * @param pattern2properties Patterns to add the closed sets found to.
+     * @param pattern2tids       Supporting methods of the patterns.
+     */
+    private void addClosedSets(int[] properties, int[] closure, BitSet tids,
+                               int first, BitSet[] property2tids,
+                               Set<List<Integer>> known,
+                               List<int[]> pattern2properties,
+                               List<BitSet> pattern2tids) {
+        for (int index = first; index < properties.length; index++) {
+            int id = properties[index];
+            if (Arrays.binarySearch(closure, id) >= 0) {
+                continue;
+            }
+            BitSet extensionTids = (BitSet) tids.clone();
+            extensionTids.and(property2tids[id]);
+            if (extensionTids.cardinality() < this.minSupport) {
+                continue;
+            }
+            int[] extension = getClosure(properties, extensionTids,
+                    property2tids);
+
+            // the extension must not add event pairs preceding the one used
+            boolean preserving = true;
+            for (int other : extension) {
+                if (other >= id) {
+                    break;
+                }
+                if (Arrays.binarySearch(closure, other) < 0) {
+                    preserving = false;
+                    break;
+                }
+            }
+            if (!preserving) {
+                continue;
+            }
+            if (known.add(asList(extension))) {
+                pattern2properties.add(extension);
+                pattern2tids.add(extensionTids);
+            }
+            addClosedSets(properties, extension, extensionTids, index + 1,
+                    property2tids, known, pattern2properties, pattern2tids);
+        }
+    }
+
+
+    /**
+     * Checks if the pattern without properties is among the mined ones,
+     * i.e. if it is frequent and no event pair is common to all methods
+     * taking part in the mining.
+     *
+     * @param property2tids For each event pair, tids of the methods that
+     *                      have it.
+     * @param minedTids     Tids of the methods taking part in the mining.
+     * @param minSupport    Minimum support of the patterns.
+     * @return <code>true</code> if the pattern without properties is mined;
+     * <code>false</code> otherwise.
+     */
+    private static boolean hasEmptyPattern(BitSet[] property2tids,
+                                           BitSet minedTids, int minSupport) {
+        if (minedTids.cardinality() < minSupport) {
+            return false;
+        }
+        for (BitSet tids : property2tids) {
+            BitSet missing = (BitSet) minedTids.clone();
+            missing.andNot(tids);
+            if (missing.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Reads the store from the given file.
+     *
+     * @param storeFile File to read the store from.
+     * @return Store read from the given file.
+     */
+    public static PatternsStore readFromFile(File storeFile) {
+        try {
+            ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(storeFile)));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a patterns store: " + storeFile);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported patterns store version: " +
+                        version);
+            }
+            int minSupport = in.readInt();
+            int transactionsNum = in.readInt();
+
+            // read the methods and event pairs
+            Method[] methods = new Method[in.readInt()];
+            for (int tid = 0; tid < methods.length; tid++) {
+                String name = in.readUTF();
+                boolean hasSemantics = in.readBoolean();
+                methods[tid] = Method.get(name, hasSemantics);
+            }
+            EventPair[] eventPairs = new EventPair[in.readInt()];
+            for (int id = 0; id < eventPairs.length; id++) {
+                Transition left = (Transition) in.readObject();
+                Transition right = (Transition) in.readObject();
+                eventPairs[id] = EventPair.get(left, right);
+            }
+
+            // read the patterns
+            int patternsNum = in.readInt();
+            int[][] pattern2properties = new int[patternsNum][];
+            int[][] pattern2tids = new int[patternsNum][];
+            int[][] pattern2uppers = new int[patternsNum][];
+            for (int index = 0; index < patternsNum; index++) {
+                pattern2properties[index] = readSortedInts(in);
+                pattern2tids[index] = readSortedInts(in);
+                pattern2uppers[index] = readSortedInts(in);
+            }
+
+            // read the event pairs of the methods (missing in version 1)
+            int[][] tid2properties = null;
+            if (version > 1) {
+                tid2properties = new int[methods.length][];
+                for (int tid = 0; tid < methods.length; tid++) {
+                    tid2properties[tid] = readSortedInts(in);
+                }
+            }
+            in.close();
+
+            return new PatternsStore(minSupport, transactionsNum, methods,
+                    eventPairs, tid2properties, pattern2properties,
+                    pattern2tids, pattern2uppers);
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace(System.err);
+            throw new InternalError();
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            throw new InternalError();
+        }
+    }
+
+
+    /**
+     * Writes the store into the given file.
+     *
+     * @param storeFile File to write the store to.
+     */
+    public void writeToFile(File storeFile) {
+        try {
+            ObjectOutputStream out = new CanonicalObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(storeFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(this.tid2properties == null ? 1 : VERSION);
+            out.writeInt(this.minSupport);
+            out.writeInt(this.transactionsNum);
+
+            // write the methods and event pairs; equal transitions (and
+            // equal objects they consist of) are written only once
+            out.writeInt(this.methods.length);
+            for (Method method : this.methods) {
+                out.writeUTF(method.getName());
+                out.writeBoolean(method.hasSemantics());
+            }
+            out.writeInt(this.eventPairs.length);
+            for (EventPair pair : this.eventPairs) {
+                out.writeObject(pair.getLeft());
+                out.writeObject(pair.getRight());
+            }
+
+            // write the patterns
+            out.writeInt(this.pattern2properties.length);
+            for (int index = 0; index < this.pattern2properties.length; index++) {
+                writeSortedInts(out, this.pattern2properties[index]);
+                writeSortedInts(out, this.pattern2tids[index]);
+                writeSortedInts(out, this.pattern2uppers[index]);
+            }
+
+            // write the event pairs of the methods (if known)
+            if (this.tid2properties != null) {
+                for (int[] properties : this.tid2properties) {
+                    writeSortedInts(out, properties);
+                }
+            }
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            throw new InternalError();
+        }
+    }
+
+
+    /**
+     * Returns the minimum support used when building this store. Queries
+     * must not use lower minimum supports.
+     *
+     * @return Minimum support used when building this store.
+     */
+    public int getMinSupport() {
+        return this.minSupport;
+    }
+
+
+    /**
+     * Returns the number of all methods in the matrix the store was built
+     * from.
+     *
+     * @return Number of all methods.
+     */
+    public int getTransactionsNum() {
+        return this.transactionsNum;
+    }
+
+
+    /**
+     * Returns the number of patterns in this store.
+     *
+     * @return Number of patterns in this store.
+     */
+    public int getPatternsNum() {
+        return this.pattern2properties.length;
+    }
+
+
+    /**
+     * Returns ids of patterns that satisfy the given thresholds, ordered
+     * by the support and size.
+     *
+     * @param minSupport Minimum support of the patterns.
+     * @param minSize    Minimum size of the patterns.
+     * @return Ids of patterns satisfying the thresholds.
+     */
+    public List<Integer> getPatternsIds(int minSupport, int minSize) {
+        checkMinSupport(minSupport);
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int index = 0; index < this.pattern2properties.length; index++) {
+            if (this.pattern2tids[index].length < minSupport) {
+                break;
+            }
+            if (this.pattern2properties[index].length >= minSize) {
+                ids.add(index + 1);
+            }
+        }
+        return ids;
+    }
+
+
+    /**
+     * Returns ids of patterns that contain the given event pair, ordered by
+     * the support and size.
+     *
+     * @param pair Event pair to look for.
+     * @return Ids of patterns containing the given event pair.
+     */
+    public List<Integer> getPatternsIdsContaining(EventPair pair) {
+        List<Integer> ids = new ArrayList<Integer>();
+        Integer pid = this.eventPair2id.get(pair);
+        if (pid != null) {
+            for (int index : this.property2patterns[pid]) {
+                ids.add(index + 1);
+            }
+        }
+        return ids;
+    }
+
+
+    /**
+     * Returns all event pairs that occur in the matrix the store was built
+     * from, in their natural order.
+     *
+     * @return List of all event pairs.
+     */
+    public List<EventPair> getEventPairs() {
+        return Collections.unmodifiableList(Arrays.asList(this.eventPairs));
+    }
+
+
+    /**
+     * Returns the pattern with the given id. The pattern contains all its
+     * supporting methods.
+     *
+     * @param id Id of the pattern.
+     * @return Pattern with the given id.
+     */
+    public Pattern getPattern(int id) {
+        int index = id - 1;
+        return createPattern(index, getMethods(this.pattern2tids[index]));
+    }
+
+
+    /**
+     * Returns all methods that support the pattern with the given id, in
+     * their natural order.
+     *
+     * @param id Id of the pattern.
+     * @return Methods supporting the pattern.
+     */
+    public List<Method> getSupportingMethods(int id) {
+        return new ArrayList<Method>(getMethods(this.pattern2tids[id - 1]));
+    }
+
+
+    /**
+     * Returns the number of methods that have all the given event pairs.
+     * The event pairs must all be part of one of the stored patterns.
+     *
+     * @param properties Event pairs to count the support of.
+     * @return Support of the given event pairs.
+     */
+    public int getSupport(Set<EventPair> properties) {
+        // the support is the support of the closure of the properties,
+        // which is the pattern with the highest support containing them all
+        if (properties.isEmpty()) {
+            return this.transactionsNum;
+        }
+        int[] pids = new int[properties.size()];
+        int pindex = 0;
+        for (EventPair pair : properties) {
+            Integer pid = this.eventPair2id.get(pair);
+            if (pid == null) {
+                return 0;
+            }
+            pids[pindex++] = pid;
+        }
+        int[] candidates = this.property2patterns[pids[0]];
+        for (int index : candidates) {
+            if (containsAll(this.pattern2properties[index], pids)) {
+                return this.pattern2tids[index].length;
+            }
+        }
+        System.err.println("Support of infrequent properties requested: " +
+                properties);
+        throw new InternalError();
+    }
+
+
+    /**
+     * Returns violations of the stored patterns that satisfy the given
+     * thresholds. These are the same violations that mining the matrix
+     * with the same thresholds finds; they are neither ranked nor filtered.
+     * Unlike the mined ones, the violations of each pattern are ordered by
+     * the violating methods, so filtering equally ranked violations may keep
+     * a different one of them.
+     *
+     * @param minSupport    Minimum support parameter to use.
+     * @param minSize       Minimum size parameter to use.
+     * @param maxDevLevel   Maximum deviation level parameter to use.
+     * @param minConfidence Minimum confidence parameter to use.
+     * @return List of violations satisfying the thresholds.
+     */
+    public ViolationsList getViolations(int minSupport, int minSize,
+                                        int maxDevLevel, double minConfidence) {
+        final ViolationsList violations = new ViolationsList();
+        getViolations(minSupport, minSize, maxDevLevel, minConfidence,
+                new ViolationVisitor() {
+                    public void visit(org.softevo.catools.Violation<Method, EventPair> violation) {
+                        violations.add(new Violation(violation));
+                    }
+                });
+        return violations;
+    }
+
+
+    /**
+     * Finds violations of the stored patterns that satisfy the given
+     * thresholds and passes them one by one to the given visitor, without
+     * keeping them.
+     *
+     * @param minSupport    Minimum support parameter to use.
+     * @param minSize       Minimum size parameter to use.
+     * @param maxDevLevel   Maximum deviation level parameter to use.
+     * @param minConfidence Minimum confidence parameter to use.
+     * @param visitor       Visitor to pass the violations to.
+     */
+    public void getViolations(int minSupport, int minSize, int maxDevLevel,
+                              double minConfidence, ViolationVisitor visitor) {
+        checkMinSupport(minSupport);
+        for (int index = 0; index < this.pattern2properties.length; index++) {
+            int support = this.pattern2tids[index].length;
+            if (support < minSupport) {
+                break;
+            }
+            int[] properties = this.pattern2properties[index];
+            if (properties.length < minSize) {
+                continue;
+            }
+            Pattern pattern = null;
+            for (int upper : this.pattern2uppers[index]) {
+                int[] upperProperties = this.pattern2properties[upper];
+                int[] upperTids = this.pattern2tids[upper];
+                if (properties.length - upperProperties.length > maxDevLevel) {
+                    continue;
+                }
+                // the confidence is compared with single precision, like the
+                // miner does
+                if ((float) support / (float) upperTids.length <
+                        (float) minConfidence) {
+                    continue;
+                }
+                if (pattern == null) {
+                    pattern = createPattern(index, getSample(index));
+                }
+                Set<EventPair> missingProperties =
+                        getEventPairs(difference(properties, upperProperties));
+                int[] violatingTids =
+                        difference(upperTids, this.pattern2tids[index]);
+                double confidence = (double) support /
+                        (double) (support + violatingTids.length);
+                for (int tid : violatingTids) {
+                    org.softevo.catools.Violation<Method, EventPair> violation =
+                            new org.softevo.catools.Violation<Method, EventPair>(
+                                    pattern, this.methods[tid],
+                                    missingProperties, confidence);
+                    visitor.visit(violation);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Makes sure that the given minimum support can be used for queries.
+     *
+     * @param minSupport Minimum support to check.
+     */
+    private void checkMinSupport(int minSupport) {
+        if (minSupport < this.minSupport) {
+            throw new IllegalArgumentException("Minimum support " + minSupport +
+                    " is lower than the one used for the store (" +
+                    this.minSupport + ")");
+        }
+    }
+
+
+    /**
+     * Creates the pattern with the given index and supporting methods.
+     *
+     * @param index   Index of the pattern.
+     * @param objects Supporting methods to put into the pattern.
+     * @return Pattern with the given index.
+     */
+    private Pattern createPattern(int index, Set<Method> objects) {
+        return new Pattern(new org.softevo.catools.Pattern<Method, EventPair>(
+                objects, getEventPairs(this.pattern2properties[index]),
+                this.pattern2tids[index].length));
+    }
+
+
+    /**
+     * Returns a small sample of methods supporting the pattern with the given
+     * index.
+     *
+     * @param index Index of the pattern.
+     * @return Sample of supporting methods.
+     */
+    private Set<Method> getSample(int index) {
+        int[] tids = this.pattern2tids[index];
+        return getMethods(Arrays.copyOf(tids, Math.min(tids.length,
+                SAMPLE_SIZE)));
+    }
+
+
+    /**
+     * Returns the methods with the given tids.
+     *
+     * @param tids Tids of methods.
+     * @return Methods with the given tids.
+     */
+    private Set<Method> getMethods(int[] tids) {
+        Set<Method> methods = new LinkedHashSet<Method>();
+        for (int tid : tids) {
+            methods.add(this.methods[tid]);
+        }
+        return methods;
+    }
+
+
+    /**
+     * Returns the event pairs with the given ids.
+     *
+     * @param ids Ids of event pairs.
+     * @return Event pairs with the given ids.
+     */
+    private Set<EventPair> getEventPairs(int[] ids) {
+        Set<EventPair> pairs = new HashSet<EventPair>();
+        for (int id : ids) {
+            pairs.add(this.eventPairs[id]);
+        }
+        return pairs;
+    }
+
+
+    /**
+     * Checks if the given sorted array contains all the given values.
+     *
+     * @param sorted Sorted array.
+     * @param values Values to look for.
+     * @return <code>true</code> if all values are in the array;
+     * <code>false</code> otherwise.
+     */
+    private static boolean containsAll(int[] sorted, int[] values) {
+        for (int value : values) {
+            if (Arrays.binarySearch(sorted, value) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the values of the first sorted array that are not in the
+     * second sorted array.
+     *
+     * @param sorted1 First sorted array.
+     * @param sorted2 Second sorted array.
+     * @return Sorted difference of the arrays.
+     */
+    private static int[] difference(int[] sorted1, int[] sorted2) {
+        int[] result = new int[sorted1.length];
+        int length = 0;
+        int index2 = 0;
+        for (int value : sorted1) {
+            while (index2 < sorted2.length && sorted2[index2] < value) {
+                index2++;
+            }
+            if (index2 == sorted2.length || sorted2[index2] != value) {
+                result[length++] = value;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+
+    /**
+     * Maps the given values using the given mapping.
+     *
+     * @param values  Values to map.
+     * @param mapping Mapping from old to new values.
+     * @return Sorted array of the new values.
+     */
+    private static int[] map(int[] values, int[] mapping) {
+        int[] result = new int[values.length];
+        for (int index = 0; index < values.length; index++) {
+            result[index] = mapping[values[index]];
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+
+    /**
+     * Returns the given array as a list, which can be used as a key.
+     *
+     * @param values Array to convert.
+     * @return List with the values.
+     */
+    private static List<Integer> asList(int[] values) {
+        List<Integer> result = new ArrayList<Integer>(values.length);
+        for (int value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the set bits of the given bit set as a sorted array.
+     *
+     * @param bits Bit set to convert.
+     * @return Sorted array of set bits.
+     */
+    private static int[] toArray(BitSet bits) {
+        int[] result = new int[bits.cardinality()];
+        int index = 0;
+        for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+            result[index++] = bit;
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the given list of values as an array.
+     *
+     * @param values List of values to convert.
+     * @return Array with the values.
+     */
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = values.get(index);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+
+    /**
+     * Writes the given sorted array as a number of values followed by
+     * variable-length deltas between consecutive values.
+     *
+     * @param out    Stream to write to.
+     * @param sorted Sorted array of non-negative values.
+     * @throws IOException if writing fails.
+     */
+    static void writeSortedInts(DataOutput out, int[] sorted)
+            throws IOException {
+        writeVarInt(out, sorted.length);
+        int previous = 0;
+        for (int value : sorted) {
+            writeVarInt(out, value - previous);
+            previous = value;
+        }
+    }
+
+
+    /**
+     * Reads a sorted array written by
+     * {@link #writeSortedInts(DataOutput, int[])}.
+     *
+     * @param in Stream to read from.
+     * @return Sorted array read.
+     * @throws IOException if reading fails.
+     */
+    static int[] readSortedInts(DataInput in) throws IOException {
+        int[] sorted = new int[readVarInt(in)];
+        int previous = 0;
+        for (int index = 0; index < sorted.length; index++) {
+            previous += readVarInt(in);
+            sorted[index] = previous;
+        }
+        return sorted;
+    }
+
+
+    /**
+     * Writes the given non-negative value using seven bits per byte.
+     *
+     * @param out   Stream to write to.
+     * @param value Non-negative value to write.
+     * @throws IOException if writing fails.
+     */
+    private static void writeVarInt(DataOutput out, int value)
+            throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+
+    /**
+     * Reads a value written by {@link #writeVarInt(DataOutput, int)}.
+     *
+     * @param in Stream to read from.
+     * @return Value read.
+     * @throws IOException if reading fails.
+     */
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+
+    /**
+     * Object output stream writing equal objects as one shared object, like
+     * it writes the same object. Which objects are equal does not depend on
+     * where they come from, so a store is written the same way whether it
+     * was mined from scratch or updated.
+     */
+    private static final class CanonicalObjectOutputStream
+            extends ObjectOutputStream {
+
+        /**
+         * Mapping object => the first object equal to it that was written.
+         */
+        private final Map<Object, Object> canonicalObjects;
+
+
+        /**
+         * Creates new stream writing to the given stream.
+         *
+         * @param out Stream to write to.
+         * @throws IOException if writing the stream header fails.
+         */
+        private CanonicalObjectOutputStream(OutputStream out)
+                throws IOException {
+            super(out);
+            this.canonicalObjects = new HashMap<Object, Object>();
+            enableReplaceObject(true);
+        }
+
+
+        /* (non-Javadoc)
+         * @see java.io.ObjectOutputStream#replaceObject(java.lang.Object)
+         */
+        @Override
+        protected Object replaceObject(Object object) {
+            Object canonicalObject = this.canonicalObjects.get(object);
+            if (canonicalObject == null) {
+                this.canonicalObjects.put(object, object);
+                canonicalObject = object;
+            }
+            return canonicalObject;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package org.softevo.jadet.sca;
+
+
+import org.softevo.oumextractor.modelcreator1.model.Transition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+
+/**
+ * Instances of this class cache the sequential constraints abstractions of
+ * the models of a models directory. The abstractions are kept per models'
+ * file, together with the checksum of that file, so that a changed file
+ * invalidates only the abstractions of its own models. A cache holds
+ * abstractions computed either with or without filtering of constraints;
+ * both kinds are stored in different files in the models directory.
+ */
+public class SCACache {
+
+    /**
+     * Name of the cache file holding filtered abstractions.
+     */
+    public static final String FILTERED_FILE_NAME = "sca.filtered.cache";
+
+
+    /**
+     * Name of the cache file holding unfiltered abstractions.
+     */
+    public static final String UNFILTERED_FILE_NAME = "sca.unfiltered.cache";
+
+
+    /**
+     * Magic number starting each cache file.
+     */
+    private static final int MAGIC = 0x4A534341;
+
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+
+
+    /**
+     * Indicates if the abstractions were computed with filtering.
+     */
+    private final boolean filter;
+
+
+    /**
+     * Mapping models' file name => cached abstractions of its models.
+     */
+    private final Map<String, FileEntry> name2entry;
+
+
+    /**
+     * Event pairs referenced by the cached abstractions, by their ids.
+     */
+    private final List<EventPair> eventPairs;
+
+
+    /**
+     * Mapping event pair => its id.
+     */
+    private final Map<EventPair, Integer> pair2id;
+
+
+    /**
+     * Indicates if the cache was modified since it was read.
+     */
+    private boolean modified;
+
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param filter Indicates if the abstractions are computed with
+     *               filtering.
+     */
+    private SCACache(boolean filter) {
+        this.filter = filter;
+        this.name2entry = new HashMap<String, FileEntry>();
+        this.eventPairs = new ArrayList<EventPair>();
+        this.pair2id = new HashMap<EventPair, Integer>();
+        this.modified = false;
+    }
+
+
+    /**
+     * Returns the cache file of the given models directory.
+     *
+     * @param modelsDir Directory with object usage models.
+     * @param filter    Indicates if the abstractions are computed with
+     *                  filtering.
+     * @return Cache file of the given models directory.
+     */
+    public static File getCacheFile(File modelsDir, boolean filter) {
+        return new File(modelsDir,
+                filter ? FILTERED_FILE_NAME : UNFILTERED_FILE_NAME);
+    }
+
+
+    /**
+     * Reads the cache from the given file. If the file does not exist or
+     * can not be used, an empty cache is returned.
+     *
+     * @param cacheFile File to read the cache from.
+     * @param filter    Indicates if the abstractions are computed with
+     *                  filtering.
+     * @return Cache read from the given file.
+     */
+    public static SCACache readFromFile(File cacheFile, boolean filter) {
+        SCACache cache = new SCACache(filter);
+        if (!cacheFile.isFile()) {
+            return cache;
+        }
+        try {
+            ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION ||
+                        in.readBoolean() != filter) {
+                    return cache;
+                }
+
+                // read the event pairs
+                int eventPairsNum = in.readInt();
+                for (int id = 0; id < eventPairsNum; id++) {
+                    Transition left = (Transition) in.readObject();
+                    Transition right = (Transition) in.readObject();
+                    cache.getEventPairId(EventPair.get(left, right));
+                }
+
+                // read the abstractions of models' files
+                int filesNum = in.readInt();
+                for (int i = 0; i < filesNum; i++) {
+                    String fileName = in.readUTF();
+                    FileEntry entry = new FileEntry(in.readLong());
+                    int modelsNum = in.readInt();
+                    for (int j = 0; j < modelsNum; j++) {
+                        int id = in.readInt();
+                        int[] sca = PatternsStore.readSortedInts(in);
+                        for (int pairId : sca) {
+                            if (pairId >= eventPairsNum) {
+                                throw new IOException("Invalid event pair " +
+                                        "id: " + pairId);
+                            }
+                        }
+                        entry.id2sca.put(id, sca);
+                    }
+                    cache.name2entry.put(fileName, entry);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (ClassNotFoundException e) {
+            return new SCACache(filter);
+        } catch (IOException e) {
+            return new SCACache(filter);
+        }
+        return cache;
+    }
+
+
+    /**
+     * Writes the cache into the given file. Event pairs no longer referenced
+     * by any abstraction are dropped.
+     *
+     * @param cacheFile File to write the cache to.
+     * @throws IOException if writing fails.
+     */
+    public void writeToFile(File cacheFile) throws IOException {
+        // renumber the event pairs still in use
+        Map<Integer, Integer> oldId2newId = new HashMap<Integer, Integer>();
+        List<EventPair> usedPairs = new ArrayList<EventPair>();
+        for (FileEntry entry : this.name2entry.values()) {
+            for (int[] sca : entry.id2sca.values()) {
+                for (int pairId : sca) {
+                    if (!oldId2newId.containsKey(pairId)) {
+                        oldId2newId.put(pairId, usedPairs.size());
+                        usedPairs.add(this.eventPairs.get(pairId));
+                    }
+                }
+            }
+        }
+
+        ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(cacheFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(this.filter);
+
+            // write the event pairs; transitions shared between event pairs
+            // are written only once
+            out.writeInt(usedPairs.size());
+            for (EventPair pair : usedPairs) {
+                out.writeObject(pair.getLeft());
+                out.writeObject(pair.getRight());
+            }
+
+            // write the abstractions of models' files
+            out.writeInt(this.name2entry.size());
+            for (Map.Entry<String, FileEntry> nameEntry :
+                    this.name2entry.entrySet()) {
+                FileEntry entry = nameEntry.getValue();
+                out.writeUTF(nameEntry.getKey());
+                out.writeLong(entry.checksum);
+                out.writeInt(entry.id2sca.size());
+                for (Map.Entry<Integer, int[]> idEntry :
+                        entry.id2sca.entrySet()) {
+                    int[] sca = new int[idEntry.getValue().length];
+                    for (int index = 0; index < sca.length; index++) {
+                        sca[index] = oldId2newId.get(idEntry.getValue()[index]);
+                    }
+                    Arrays.sort(sca);
+                    out.writeInt(idEntry.getKey());
+                    PatternsStore.writeSortedInts(out, sca);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        this.modified = false;
+    }
+
+
+    /**
+     * Returns the cached abstractions of the models stored in the given
+     * models' file, provided the file has not changed since they were cached.
+     *
+     * @param fileName Name of the models' file.
+     * @param checksum Current checksum of the models' file.
+     * @return Mapping model id => abstraction of the model or
+     * <code>null</code>, if there are no valid abstractions cached.
+     */
+    public Map<Integer, Set<EventPair>> get(String fileName, long checksum) {
+        FileEntry entry = this.name2entry.get(fileName);
+        if (entry == null || entry.checksum != checksum) {
+            return null;
+        }
+        Map<Integer, Set<EventPair>> id2sca =
+                new HashMap<Integer, Set<EventPair>>();
+        for (Map.Entry<Integer, int[]> idEntry : entry.id2sca.entrySet()) {
+            Set<EventPair> sca = new HashSet<EventPair>();
+            for (int pairId : idEntry.getValue()) {
+                sca.add(this.eventPairs.get(pairId));
+            }
+            id2sca.put(idEntry.getKey(), sca);
+        }
+        return id2sca;
+    }
+
+
+    /**
+     * Caches the abstractions of the models stored in the given models' file,
+     * replacing the ones cached before.
+     *
+     * @param fileName Name of the models' file.
+     * @param checksum Current checksum of the models' file.
+     * @param id2sca   Mapping model id => abstraction of the model.
+     */
+    public void put(String fileName, long checksum,
+                    Map<Integer, Set<EventPair>> id2sca) {
+        FileEntry entry = new FileEntry(checksum);
+        for (Map.Entry<Integer, Set<EventPair>> idEntry : id2sca.entrySet()) {
+            int[] sca = new int[idEntry.getValue().size()];
+            int index = 0;
+            for (EventPair pair : idEntry.getValue()) {
+                sca[index++] = getEventPairId(pair);
+            }
+            entry.id2sca.put(idEntry.getKey(), sca);
+        }
+        this.name2entry.put(fileName, entry);
+        this.modified = true;
+    }
+
+
+    /**
+     * Removes abstractions of all models' files other than the given ones.
+     *
+     * @param fileNames Names of the models' files to keep.
+     */
+    public void retainFiles(Set<String> fileNames) {
+        Iterator<String> iterator = this.name2entry.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!fileNames.contains(iterator.next())) {
+                iterator.remove();
+                this.modified = true;
+            }
+        }
+    }
+
+
+    /**
+     * Indicates if the cache was modified since it was read or written.
+     *
+     * @return <code>true</code> if the cache was modified;
+     * <code>false</code> otherwise.
+     */
+    public boolean isModified() {
+        return this.modified;
+    }
+
+
+    /**
+     * Computes the checksum of the given file.
+     *
+     * @param file File to compute the checksum of.
+     * @return Checksum of the file (its length and CRC-32).
+     * @throws IOException if the file could not be read.
+     */
+    public static long getChecksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return (file.length() << 32) ^ crc.getValue();
+    }
+
+
+    /**
+     * Returns the id of the given event pair, assigning a new one if
+     * necessary.
+     *
+     * @param pair Event pair.
+     * @return Id of the event pair.
+     */
+    private int getEventPairId(EventPair pair) {
+        Integer id = this.pair2id.get(pair);
+        if (id == null) {
+            id = this.eventPairs.size();
+            this.eventPairs.add(pair);
+            this.pair2id.put(pair, id);
+        }
+        return id;
+    }
+
+
+    /**
+     * Instances of this class hold the cached abstractions of the models of
+     * one models' file.
+     */
+    private static final class FileEntry {
+
+        /**
+         * Checksum of the models' file.
+         */
+        private final long checksum;
+
+
+        /**
+         * Mapping model id => ids of the event pairs of its abstraction.
+         */
+        private final Map<Integer, int[]> id2sca;
+
+
+        /**
+         * Creates a new entry with no abstractions.
+         *
+         * @param checksum Checksum of the models' file.
+         */
+        FileEntry(long checksum) {
+            this.checksum = checksum;
+            this.id2sca = new HashMap<Integer, int[]>();
+        }
+    }
+}
@@ -0,0 +1,756 @@
+package org.softevo.jadet.sca;
+
+
+import org.softevo.catools.Anomaly;
+import org.softevo.catools.CAMatrix;
+import org.softevo.catools.CAMatrixEntry;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/**
+ * Instances of this class are used to mine violations approximately, on a
+ * random sample of the methods of a concept analysis matrix. Violations
+ * mined from the sample (using thresholds relaxed to account for the
+ * sampling error) serve only as candidates: the violations of their
+ * patterns are then computed exactly on the whole matrix, so every violation
+ * reported is one that mining the whole matrix would report as well.
+ * <p>
+ * A pattern closed in the sample is closed in the whole matrix too (it is
+ * the intersection of some methods' event pairs), so a pattern found in the
+ * sample is a pattern of the whole matrix, provided its support is high
+ * enough. Violations can be missed only if their pattern does not show up
+ * in the sample at all.
+ */
+public class SampledMiner {
+
+    /**
+     * Quantile of the standard normal distribution used for 95% confidence
+     * intervals.
+     */
+    private static final double Z = 1.96;
+
+
+    /**
+     * Number of supporting methods given as a sample in violations' patterns
+     * (the same as used when mining violations).
+     */
+    private static final int SAMPLE_SIZE = 3;
+
+
+    /**
+     * Mapping from tids to methods (ordered like the methods).
+     */
+    private final Method[] methods;
+
+
+    /**
+     * For each method, its event pairs.
+     */
+    private final List<Set<EventPair>> tid2properties;
+
+
+    /**
+     * For each event pair, sorted tids of methods that have it.
+     */
+    private final Map<EventPair, int[]> property2tids;
+
+
+    /**
+     * Tids of the methods in the sample, sorted.
+     */
+    private final int[] sampleTids;
+
+
+    /**
+     * Creates a new miner drawing a sample of the given size from the given
+     * matrix. The sample depends only on the matrix, its size and the seed.
+     *
+     * @param matrix     Concept analysis matrix to sample.
+     * @param sampleSize Number of methods to draw.
+     * @param seed       Seed of the random numbers generator.
+     * @param stratified Indicates if the sample should be stratified by the
+     *                   class (i.e., the first word of the name) of methods.
+     */
+    public SampledMiner(CAMatrix<Method, EventPair> matrix, int sampleSize,
+                        long seed, boolean stratified) {
+        // number the methods in their natural order
+        Map<Method, Set<EventPair>> method2properties =
+                new HashMap<Method, Set<EventPair>>();
+        for (CAMatrixEntry<Method, EventPair> entry : matrix.getEntries()) {
+            method2properties.put(entry.getObject(), entry.getProperties());
+        }
+        List<Method> methodsList = new ArrayList<Method>(
+                method2properties.keySet());
+        Collections.sort(methodsList);
+        this.methods = methodsList.toArray(new Method[methodsList.size()]);
+        this.tid2properties = new ArrayList<Set<EventPair>>();
+        Map<EventPair, List<Integer>> property2tidsList =
+                new HashMap<EventPair, List<Integer>>();
+        for (int tid = 0; tid < this.methods.length; tid++) {
+            Set<EventPair> properties = method2properties.get(this.methods[tid]);
+            this.tid2properties.add(properties);
+            for (EventPair pair : properties) {
+                if (!property2tidsList.containsKey(pair)) {
+                    property2tidsList.put(pair, new ArrayList<Integer>());
+                }
+                property2tidsList.get(pair).add(tid);
+            }
+        }
+        this.property2tids = new HashMap<EventPair, int[]>();
+        for (Map.Entry<EventPair, List<Integer>> entry :
+                property2tidsList.entrySet()) {
+            int[] tids = new int[entry.getValue().size()];
+            for (int index = 0; index < tids.length; index++) {
+                tids[index] = entry.getValue().get(index);
+            }
+            this.property2tids.put(entry.getKey(), tids);
+        }
+
+        // draw the sample
+        Random random = new Random(seed);
+        sampleSize = Math.min(sampleSize, this.methods.length);
+        List<Integer> sample = new ArrayList<Integer>();
+        if (stratified) {
+            Map<String, List<Integer>> stratum2tids =
+                    new TreeMap<String, List<Integer>>();
+            for (int tid = 0; tid < this.methods.length; tid++) {
+                String stratum = getStratum(this.methods[tid]);
+                if (!stratum2tids.containsKey(stratum)) {
+                    stratum2tids.put(stratum, new ArrayList<Integer>());
+                }
+                stratum2tids.get(stratum).add(tid);
+            }
+            List<List<Integer>> strata =
+                    new ArrayList<List<Integer>>(stratum2tids.values());
+            int[] sizes = allocate(strata, sampleSize, this.methods.length);
+            for (int index = 0; index < strata.size(); index++) {
+                sample.addAll(draw(strata.get(index), sizes[index], random));
+            }
+        } else {
+            List<Integer> tids = new ArrayList<Integer>();
+            for (int tid = 0; tid < this.methods.length; tid++) {
+                tids.add(tid);
+            }
+            sample.addAll(draw(tids, sampleSize, random));
+        }
+        this.sampleTids = new int[sample.size()];
+        for (int index = 0; index < this.sampleTids.length; index++) {
+            this.sampleTids[index] = sample.get(index);
+        }
+        Arrays.sort(this.sampleTids);
+    }
+
+
+    /**
+     * Returns the stratum of the given method, i.e. the first word of its
+     * name.
+     *
+     * @param method Method to get the stratum of.
+     * @return Stratum of the method.
+     */
+    private static String getStratum(Method method) {
+        String name = method.getName();
+        int index = name.indexOf(' ');
+        return index == -1 ? name : name.substring(0, index);
+    }
+
+
+    /**
+     * Allocates the given number of draws to the given strata
+     * proportionally to their size, using the largest remainders.
+     *
+     * @param strata     Strata of the methods.
+     * @param sampleSize Number of methods to draw.
+     * @param methodsNum Number of all methods.
+     * @return For each stratum, the number of methods to draw from it.
+     */
+    private static int[] allocate(List<List<Integer>> strata, int sampleSize,
+                                  int methodsNum) {
+        int[] sizes = new int[strata.size()];
+        final double[] remainders = new double[strata.size()];
+        int allocated = 0;
+        for (int index = 0; index < sizes.length; index++) {
+            double share = (double) sampleSize * strata.get(index).size() /
+                    methodsNum;
+            sizes[index] = (int) share;
+            remainders[index] = share - sizes[index];
+            allocated += sizes[index];
+        }
+        Integer[] order = new Integer[sizes.length];
+        for (int index = 0; index < order.length; index++) {
+            order[index] = index;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer s1, Integer s2) {
+                return Double.compare(remainders[s2], remainders[s1]);
+            }
+        });
+        for (int index = 0; allocated < sampleSize; index++) {
+            sizes[order[index]]++;
+            allocated++;
+        }
+        return sizes;
+    }
+
+
+    /**
+     * Draws the given number of elements from the given list without
+     * replacement.
+     *
+     * @param tids   List to draw from.
+     * @param size   Number of elements to draw.
+     * @param random Random numbers generator to use.
+     * @return Elements drawn.
+     */
+    private static List<Integer> draw(List<Integer> tids, int size,
+                                      Random random) {
+        List<Integer> pool = new ArrayList<Integer>(tids);
+        for (int index = 0; index < size; index++) {
+            Collections.swap(pool, index,
+                    index + random.nextInt(pool.size() - index));
+        }
+        return pool.subList(0, size);
+    }
+
+
+    /**
+     * Returns the number of all methods.
+     *
+     * @return Number of all methods.
+     */
+    public int getMethodsNum() {
+        return this.methods.length;
+    }
+
+
+    /**
+     * Returns the number of methods in the sample.
+     *
+     * @return Number of methods in the sample.
+     */
+    public int getSampleSize() {
+        return this.sampleTids.length;
+    }
+
+
+    /**
+     * Returns the concept analysis matrix consisting of the methods in the
+     * sample.
+     *
+     * @return Concept analysis matrix of the sample.
+     */
+    public CAMatrix<Method, EventPair> getSample() {
+        Set<CAMatrixEntry<Method, EventPair>> entries =
+                new HashSet<CAMatrixEntry<Method, EventPair>>();
+        for (int tid : this.sampleTids) {
+            entries.add(new CAMatrixEntry<Method, EventPair>(this.methods[tid],
+                    this.tid2properties.get(tid)));
+        }
+        return new CAMatrix<Method, EventPair>(entries);
+    }
+
+
+    /**
+     * Returns the finite population correction of the sampling error. The
+     * sample is drawn without replacement, so the larger part of the matrix
+     * it covers, the smaller the error; a sample of all methods has none.
+     *
+     * @return Factor to multiply the standard error of estimates with.
+     */
+    private double getCorrection() {
+        int methodsNum = this.methods.length;
+        if (methodsNum <= 1) {
+            return 0.0;
+        }
+        return Math.sqrt((double) (methodsNum - getSampleSize()) /
+                (methodsNum - 1));
+    }
+
+
+    /**
+     * Returns the minimum support to use when mining the sample, so that
+     * patterns with the given support in the whole matrix are likely to
+     * be found. It is the lower bound of the 95% confidence interval of the
+     * support such patterns have in the sample.
+     *
+     * @param minSupport Minimum support in the whole matrix.
+     * @return Minimum support to use in the sample.
+     */
+    public int getSampleMinSupport(int minSupport) {
+        if (getSampleSize() == this.methods.length) {
+            // exactly, without rounding errors
+            return minSupport;
+        }
+        double p = Math.min(1.0, (double) minSupport / this.methods.length);
+        double mean = getSampleSize() * p;
+        double bound = mean - Z * getCorrection() * Math.sqrt(mean * (1 - p));
+        return Math.max(1, (int) Math.floor(bound));
+    }
+
+
+    /**
+     * Returns the minimum confidence to use when mining the sample, so that
+     * violations with the given confidence in the whole matrix are likely
+     * to be found. It is the lower bound of the 95% confidence interval of
+     * the confidence such violations have in the sample, for the smallest
+     * support considered.
+     *
+     * @param minConfidence    Minimum confidence in the whole matrix.
+     * @param sampleMinSupport Minimum support used in the sample.
+     * @return Minimum confidence to use in the sample.
+     */
+    public double getSampleMinConfidence(double minConfidence,
+                                         int sampleMinSupport) {
+        double bound = minConfidence - Z * getCorrection() * Math.sqrt(
+                minConfidence * (1 - minConfidence) / sampleMinSupport);
+        return Math.max(0.01, Math.min(minConfidence, bound));
+    }
+
+
+    /**
+     * Computes exactly, on the whole matrix, the violations of the patterns
+     * of the given anomalies mined from the sample and passes those
+     * satisfying the given thresholds to the given visitor. For each anomaly
+     * its estimated support and confidence (with 95% confidence intervals)
+     * are written into the given report, together with the exact values.
+     *
+     * @param anomalies     Anomalies mined from the sample.
+     * @param minSupport    Minimum support parameter to use.
+     * @param minSize       Minimum size parameter to use.
+     * @param maxDevLevel   Maximum deviation level parameter to use.
+     * @param minConfidence Minimum confidence parameter to use.
+     * @param visitor       Visitor to pass the violations to.
+     * @param report        Stream to write the report to.
+     * @return Number of anomalies whose violations were confirmed.
+     */
+    public int verify(Set<Anomaly<Method, EventPair>> anomalies,
+                      int minSupport, int minSize, int maxDevLevel,
+                      double minConfidence, ViolationVisitor visitor,
+                      PrintWriter report) {
+        // compute the violations of each pattern in the whole matrix
+        int[] minedTids = getMinedTids(minSupport);
+        Map<Set<EventPair>, Map<Set<EventPair>, int[]>> pattern2uppers =
+                new HashMap<Set<EventPair>, Map<Set<EventPair>, int[]>>();
+        for (Anomaly<Method, EventPair> anomaly : anomalies) {
+            Set<EventPair> properties = anomaly.getPattern().getProperties();
+            if (pattern2uppers.containsKey(properties)) {
+                continue;
+            }
+            Map<Set<EventPair>, int[]> upper2violators =
+                    getViolators(properties, minedTids, minSupport, minSize,
+                            maxDevLevel, minConfidence);
+            pattern2uppers.put(properties, upper2violators);
+            int[] tids = getTids(properties, minedTids);
+            org.softevo.catools.Pattern<Method, EventPair> pattern =
+                    new org.softevo.catools.Pattern<Method, EventPair>(
+                            getMethods(Arrays.copyOf(tids,
+                                    Math.min(tids.length, SAMPLE_SIZE))),
+                            properties, tids.length);
+            for (Map.Entry<Set<EventPair>, int[]> entry :
+                    upper2violators.entrySet()) {
+                Set<EventPair> missingProperties =
+                        new HashSet<EventPair>(properties);
+                missingProperties.removeAll(entry.getKey());
+                int[] violators = entry.getValue();
+                double confidence = (double) tids.length /
+                        (double) (tids.length + violators.length);
+                for (int tid : violators) {
+                    visitor.visit(new org.softevo.catools.Violation<Method, EventPair>(
+                            pattern, this.methods[tid], missingProperties,
+                            confidence));
+                }
+            }
+        }
+
+        // report the estimates of the anomalies and their exact values
+        report.println("est_support\tsupport_low\tsupport_high\t" +
+                "est_confidence\tconfidence_low\tconfidence_high\t" +
+                "support\tconfidence\tconfirmed\tmissing_properties");
+        List<String> lines = new ArrayList<String>();
+        final Map<String, Integer> line2support = new HashMap<String, Integer>();
+        int confirmedNum = 0;
+        double scale = (double) this.methods.length / getSampleSize();
+        for (Anomaly<Method, EventPair> anomaly : anomalies) {
+            Set<EventPair> properties = anomaly.getPattern().getProperties();
+            int sampleSupport = anomaly.getPattern().getSupport();
+            int sampleUpperSupport = sampleSupport + anomaly.getObjects().size();
+            double[] supportInterval = getInterval(sampleSupport,
+                    getSampleSize(), getCorrection());
+            double[] confidenceInterval = getInterval(sampleSupport,
+                    sampleUpperSupport, getCorrection());
+            Set<EventPair> upper = new HashSet<EventPair>(properties);
+            upper.removeAll(anomaly.getMissingProperties());
+            int support = getTids(properties, minedTids).length;
+            int[] violators = pattern2uppers.get(properties).get(upper);
+            boolean confirmed = violators != null;
+            if (confirmed) {
+                confirmedNum++;
+            }
+            List<String> missing = new ArrayList<String>();
+            for (EventPair pair : anomaly.getMissingProperties()) {
+                missing.add(pair.getTextRepresentation(
+                        OutputVerbosity.VERY_SHORT));
+            }
+            Collections.sort(missing);
+            String line = Math.round(sampleSupport * scale) + "\t" +
+                    Math.round(supportInterval[0] * this.methods.length) +
+                    "\t" +
+                    Math.round(supportInterval[1] * this.methods.length) +
+                    "\t" + format((double) sampleSupport / sampleUpperSupport) +
+                    "\t" + format(confidenceInterval[0]) + "\t" +
+                    format(confidenceInterval[1]) + "\t" + support + "\t" +
+                    (confirmed ? format((double) support /
+                            (support + violators.length)) : "-") + "\t" +
+                    confirmed + "\t" + missing;
+            lines.add(line);
+            line2support.put(line, sampleSupport);
+        }
+        Collections.sort(lines, new Comparator<String>() {
+            public int compare(String l1, String l2) {
+                int cmp = line2support.get(l2) - line2support.get(l1);
+                return cmp != 0 ? cmp : l1.compareTo(l2);
+            }
+        });
+        for (String line : lines) {
+            report.println(line);
+        }
+        return confirmedNum;
+    }
+
+
+    /**
+     * Finds all violations of the given pattern in the whole matrix. The
+     * violations come from the patterns directly above the given one in the
+     * lattice; the methods violating the pattern through one of them are
+     * those that have all the event pairs of the upper pattern, but not all
+     * the event pairs of the given pattern.
+     *
+     * @param properties    Event pairs of the pattern.
+     * @param minedTids     Tids of the methods taking part in the mining.
+     * @param minSupport    Minimum support parameter to use.
+     * @param minSize       Minimum size parameter to use.
+     * @param maxDevLevel   Maximum deviation level parameter to use.
+     * @param minConfidence Minimum confidence parameter to use.
+     * @return Mapping upper pattern => sorted tids of violating methods.
+     */
+    private Map<Set<EventPair>, int[]> getViolators(Set<EventPair> properties,
+                                                    int[] minedTids,
+                                                    int minSupport,
+                                                    int minSize,
+                                                    int maxDevLevel,
+                                                    double minConfidence) {
+        Map<Set<EventPair>, int[]> upper2violators =
+                new LinkedHashMap<Set<EventPair>, int[]>();
+        int[] tids = getTids(properties, minedTids);
+        if (tids.length < minSupport || properties.size() < minSize ||
+                !getClosure(properties, tids).equals(properties)) {
+            return upper2violators;
+        }
+
+        // group the methods having only some of the event pairs of the
+        // pattern by the closure of the event pairs they have
+        Map<Set<EventPair>, Set<EventPair>> common2closure =
+                new HashMap<Set<EventPair>, Set<EventPair>>();
+        Map<Set<EventPair>, List<Integer>> closure2tids =
+                new LinkedHashMap<Set<EventPair>, List<Integer>>();
+        Set<Integer> seen = new HashSet<Integer>();
+        for (EventPair pair : properties) {
+            for (int tid : this.property2tids.get(pair)) {
+                if (Arrays.binarySearch(tids, tid) >= 0 || !seen.add(tid)) {
+                    continue;
+                }
+                Set<EventPair> common = new HashSet<EventPair>(properties);
+                common.retainAll(this.tid2properties.get(tid));
+                addToClosureGroup(common, tid, properties, minedTids,
+                        common2closure, closure2tids);
+            }
+        }
+        if (getClosure(Collections.<EventPair>emptySet(), minedTids).isEmpty()) {
+            // methods without any event pair of the pattern violate it
+            // through the pattern without properties
+            for (int tid : minedTids) {
+                if (Arrays.binarySearch(tids, tid) < 0 && !seen.contains(tid)) {
+                    addToClosureGroup(Collections.<EventPair>emptySet(), tid,
+                            properties, minedTids, common2closure,
+                            closure2tids);
+                }
+            }
+        }
+
+        // keep the groups of the patterns directly above the given one that
+        // satisfy the thresholds
+        for (Map.Entry<Set<EventPair>, List<Integer>> entry :
+                closure2tids.entrySet()) {
+            Set<EventPair> upper = entry.getKey();
+            List<Integer> violators = entry.getValue();
+            if (properties.size() - upper.size() > maxDevLevel) {
+                continue;
+            }
+            // the confidence is compared with single precision, like the
+            // miner does
+            if ((float) tids.length / (float) (tids.length + violators.size()) <
+                    (float) minConfidence) {
+                continue;
+            }
+            boolean direct = true;
+            for (EventPair pair : properties) {
+                if (upper.contains(pair)) {
+                    continue;
+                }
+                Set<EventPair> between = new HashSet<EventPair>(upper);
+                between.add(pair);
+                if (getTids(between, minedTids).length != tids.length) {
+                    direct = false;
+                    break;
+                }
+            }
+            if (direct) {
+                int[] violatorsTids = new int[violators.size()];
+                for (int index = 0; index < violatorsTids.length; index++) {
+                    violatorsTids[index] = violators.get(index);
+                }
+                Arrays.sort(violatorsTids);
+                upper2violators.put(upper, violatorsTids);
+            }
+        }
+        return upper2violators;
+    }
+
+
+    /**
+     * Adds the given method to the group of the closure of the given event
+     * pairs it has in common with a pattern.
+     *
+     * @param common         Event pairs the method has in common with the
+     *                       pattern.
+     * @param tid            Tid of the method.
+     * @param properties     Event pairs of the pattern.
+     * @param minedTids      Tids of the methods taking part in the mining.
+     * @param common2closure Cache of closures already computed.
+     * @param closure2tids   Groups of methods by closure.
+     */
+    private void addToClosureGroup(Set<EventPair> common, int tid,
+                                   Set<EventPair> properties, int[] minedTids,
+                                   Map<Set<EventPair>, Set<EventPair>> common2closure,
+                                   Map<Set<EventPair>, List<Integer>> closure2tids) {
+        Set<EventPair> closure = common2closure.get(common);
+        if (closure == null) {
+            // the closure is a subset of the (closed) pattern
+            int[] commonTids = getTids(common, minedTids);
+            closure = new HashSet<EventPair>();
+            for (EventPair pair : properties) {
+                if (common.contains(pair) || containsAll(
+                        this.property2tids.get(pair), commonTids)) {
+                    closure.add(pair);
+                }
+            }
+            common2closure.put(common, closure);
+        }
+        if (!closure2tids.containsKey(closure)) {
+            closure2tids.put(closure, new ArrayList<Integer>());
+        }
+        closure2tids.get(closure).add(tid);
+    }
+
+
+    /**
+     * Returns the event pairs all the given methods have.
+     *
+     * @param properties Event pairs the methods are known to have.
+     * @param tids       Sorted tids of methods.
+     * @return Event pairs all the methods have.
+     */
+    private Set<EventPair> getClosure(Set<EventPair> properties, int[] tids) {
+        Set<EventPair> closure = new HashSet<EventPair>(properties);
+        if (tids.length == 0) {
+            return closure;
+        }
+        for (EventPair pair : this.tid2properties.get(tids[0])) {
+            if (!closure.contains(pair) &&
+                    containsAll(this.property2tids.get(pair), tids)) {
+                closure.add(pair);
+            }
+        }
+        return closure;
+    }
+
+
+    /**
+     * Returns the tids of the methods taking part in the mining, i.e. the
+     * ones with at least one frequent event pair.
+     *
+     * @param minSupport Minimum support of frequent event pairs.
+     * @return Sorted tids of the methods taking part in the mining.
+     */
+    private int[] getMinedTids(int minSupport) {
+        boolean[] mined = new boolean[this.methods.length];
+        int minedNum = 0;
+        for (int[] tids : this.property2tids.values()) {
+            if (tids.length >= minSupport) {
+                for (int tid : tids) {
+                    if (!mined[tid]) {
+                        mined[tid] = true;
+                        minedNum++;
+                    }
+                }
+            }
+        }
+        int[] minedTids = new int[minedNum];
+        int index = 0;
+        for (int tid = 0; tid < mined.length; tid++) {
+            if (mined[tid]) {
+                minedTids[index++] = tid;
+            }
+        }
+        return minedTids;
+    }
+
+
+    /**
+     * Returns the tids of the methods that have all the given event pairs.
+     *
+     * @param properties Event pairs.
+     * @param minedTids  Tids of the methods taking part in the mining.
+     * @return Sorted tids of the methods with all the event pairs.
+     */
+    private int[] getTids(Set<EventPair> properties, int[] minedTids) {
+        if (properties.isEmpty()) {
+            return minedTids;
+        }
+        List<int[]> lists = new ArrayList<int[]>();
+        for (EventPair pair : properties) {
+            int[] tids = this.property2tids.get(pair);
+            if (tids == null) {
+                return new int[0];
+            }
+            lists.add(tids);
+        }
+        Collections.sort(lists, new Comparator<int[]>() {
+            public int compare(int[] l1, int[] l2) {
+                return l1.length - l2.length;
+            }
+        });
+        int[] result = lists.get(0);
+        for (int index = 1; index < lists.size(); index++) {
+            result = intersection(result, lists.get(index));
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the methods with the given tids.
+     *
+     * @param tids Tids of methods.
+     * @return Methods with the given tids.
+     */
+    private Set<Method> getMethods(int[] tids) {
+        Set<Method> methods = new LinkedHashSet<Method>();
+        for (int tid : tids) {
+            methods.add(this.methods[tid]);
+        }
+        return methods;
+    }
+
+
+    /**
+     * Returns the Wilson score interval (95%) of a proportion.
+     *
+     * @param successes  Number of successes.
+     * @param trials     Number of trials.
+     * @param correction Finite population correction of the error.
+     * @return Lower and upper bound of the interval.
+     */
+    static double[] getInterval(int successes, int trials, double correction) {
+        if (trials == 0) {
+            return new double[]{0.0, 1.0};
+        }
+        double p = (double) successes / trials;
+        double z = Z * correction;
+        double z2 = z * z;
+        double denominator = 1 + z2 / trials;
+        double center = (p + z2 / (2 * trials)) / denominator;
+        double margin = z * Math.sqrt(p * (1 - p) / trials +
+                z2 / (4.0 * trials * trials)) / denominator;
+        return new double[]{Math.max(0.0, center - margin),
+                Math.min(1.0, center + margin)};
+    }
+
+
+    /**
+     * Formats the given proportion for the report.
+     *
+     * @param value Proportion to format.
+     * @return Formatted proportion.
+     */
+    private static String format(double value) {
+        return String.valueOf(Math.round(value * 10000) / 10000.0);
+    }
+
+
+    /**
+     * Checks if the first sorted array contains all values of the second
+     * sorted array.
+     *
+     * @param sorted Sorted array.
+     * @param values Sorted values to look for.
+     * @return <code>true</code> if all values are in the array;
+     * <code>false</code> otherwise.
+     */
+    private static boolean containsAll(int[] sorted, int[] values) {
+        if (values.length > sorted.length) {
+            return false;
+        }
+        int index = 0;
+        for (int value : values) {
+            while (index < sorted.length && sorted[index] < value) {
+                index++;
+            }
+            if (index == sorted.length || sorted[index] != value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the values common to both sorted arrays.
+     *
+     * @param sorted1 First sorted array.
+     * @param sorted2 Second sorted array.
+     * @return Sorted intersection of the arrays.
+     */
+    private static int[] intersection(int[] sorted1, int[] sorted2) {
+        int[] result = new int[Math.min(sorted1.length, sorted2.length)];
+        int length = 0;
+        int index1 = 0;
+        int index2 = 0;
+        while (index1 < sorted1.length && index2 < sorted2.length) {
+            if (sorted1[index1] < sorted2[index2]) {
+                index1++;
+            } else if (sorted1[index1] > sorted2[index2]) {
+                index2++;
+            } else {
+                result[length++] = sorted1[index1];
+                index1++;
+                index2++;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+}
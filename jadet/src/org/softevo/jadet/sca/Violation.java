@@ -3,11 +3,10 @@ package org.softevo.jadet.sca;
 
 import org.softevo.catools.Pattern;
 import org.softevo.catools.Pattern.PatternComparator;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
@@ -53,20 +52,24 @@ public class Violation extends org.softevo.catools.Violation<Method, EventPair>
     }
 
     /**
-     * Creates a violation out of the given XML element.
+     * Creates a violation out of the XML element the given reader is
+     * positioned at. Afterwards the reader is positioned at the end of that
+     * element.
      *
-     * @param violationXML XML representation of the violation to create.
-     * @return Violation corresponding to the given XML representation.
+     * @param reader XML stream positioned at the start of the violation.
+     * @return Violation corresponding to the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    public static Violation createFromXMLElement(Element violationXML) {
+    public static Violation createFromXMLStream(XMLStreamReader reader)
+            throws XMLStreamException {
         // get the needed attributes
-        int support = Integer.valueOf(violationXML.getAttribute("support"));
+        int support = Integer.valueOf(reader.getAttributeValue(null, "support"));
         double confidence =
-                Double.valueOf(violationXML.getAttribute("confidence"));
-        double defectIndicator =
-                Double.valueOf(violationXML.getAttribute("defect_indicator"));
+                Double.valueOf(reader.getAttributeValue(null, "confidence"));
+        double defectIndicator = Double.valueOf(
+                reader.getAttributeValue(null, "defect_indicator"));
         ViolationType type =
-                ViolationType.valueOf(violationXML.getAttribute("type"));
+                ViolationType.valueOf(reader.getAttributeValue(null, "type"));
 
         // get all subelements
         String description = null;
@@ -74,30 +77,27 @@ public class Violation extends org.softevo.catools.Violation<Method, EventPair>
         Set<Method> supportingMethods = null;
         Set<EventPair> presentProperties = null;
         Set<EventPair> missingProperties = null;
-        NodeList violationChildren = violationXML.getChildNodes();
-        for (int i = 0; i < violationChildren.getLength(); i++) {
-            Node node = violationChildren.item(i);
-            if (node instanceof Element) {
-                Element element = (Element) node;
-                if (element.getTagName().equals("method")) {
-                    assert violatingObject == null;
-                    violatingObject = Method.createFromXMLElement(element);
-                } else if (element.getTagName().equals("supporting_methods")) {
-                    assert supportingMethods == null;
-                    supportingMethods = getMethodsFromXMLs(element.getChildNodes());
-                } else if (element.getTagName().equals("present_properties")) {
-                    assert presentProperties == null;
-                    presentProperties = getEventPairsFromXMLs(element.getChildNodes());
-                } else if (element.getTagName().equals("missing_properties")) {
-                    assert missingProperties == null;
-                    missingProperties = getEventPairsFromXMLs(element.getChildNodes());
-                } else if (element.getTagName().equals("description")) {
-                    assert description == null;
-                    description = element.getAttribute("value");
-                } else {
-                    System.err.println("Unknown tag name: " + element.getTagName());
-                    throw new InternalError();
-                }
+        while (XMLStreamUtil.nextChildElement(reader)) {
+            String tagName = reader.getLocalName();
+            if (tagName.equals("method")) {
+                assert violatingObject == null;
+                violatingObject = Method.createFromXMLStream(reader);
+            } else if (tagName.equals("supporting_methods")) {
+                assert supportingMethods == null;
+                supportingMethods = readMethods(reader);
+            } else if (tagName.equals("present_properties")) {
+                assert presentProperties == null;
+                presentProperties = readEventPairs(reader);
+            } else if (tagName.equals("missing_properties")) {
+                assert missingProperties == null;
+                missingProperties = readEventPairs(reader);
+            } else if (tagName.equals("description")) {
+                assert description == null;
+                description = reader.getAttributeValue(null, "value");
+                XMLStreamUtil.skipElement(reader);
+            } else {
+                System.err.println("Unknown tag name: " + tagName);
+                throw new InternalError();
             }
         }
 
@@ -118,44 +118,44 @@ public class Violation extends org.softevo.catools.Violation<Method, EventPair>
     }
 
     /**
-     * Returns the set of event pairs that occur as top level elements in the
-     * given node list.
+     * Reads the set of event pairs that occur as child elements of the
+     * element the given reader is positioned at.
      *
-     * @param nodes List to search through.
-     * @return Event pairs that occur as top level elements in the node list.
+     * @param reader XML stream positioned at the start of the parent element.
+     * @return Event pairs that occur as child elements.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    private static Set<EventPair> getEventPairsFromXMLs(NodeList nodes) {
+    private static Set<EventPair> readEventPairs(XMLStreamReader reader)
+            throws XMLStreamException {
         Set<EventPair> pairs = new HashSet<EventPair>();
-        for (int i = 0; i < nodes.getLength(); i++) {
-            Node node = nodes.item(i);
-            if (node instanceof Element) {
-                Element element = (Element) node;
-                if (element.getTagName().equals("event_pair")) {
-                    EventPair pair = EventPair.createFromXMLElement(element);
-                    pairs.add(pair);
-                }
+        while (XMLStreamUtil.nextChildElement(reader)) {
+            if (reader.getLocalName().equals("event_pair")) {
+                EventPair pair = EventPair.createFromXMLStream(reader);
+                pairs.add(pair);
+            } else {
+                XMLStreamUtil.skipElement(reader);
             }
         }
         return pairs;
     }
 
     /**
-     * Returns the set of methods that occur as top level elements in the
-     * given node list.
+     * Reads the set of methods that occur as child elements of the element
+     * the given reader is positioned at.
      *
-     * @param nodes List to search through.
-     * @return Methods that occur as top level elements in the node list.
+     * @param reader XML stream positioned at the start of the parent element.
+     * @return Methods that occur as child elements.
+     * @throws XMLStreamException if the XML stream could not be read.
      */
-    private static Set<Method> getMethodsFromXMLs(NodeList nodes) {
+    private static Set<Method> readMethods(XMLStreamReader reader)
+            throws XMLStreamException {
         Set<Method> methods = new HashSet<Method>();
-        for (int i = 0; i < nodes.getLength(); i++) {
-            Node node = nodes.item(i);
-            if (node instanceof Element) {
-                Element element = (Element) node;
-                if (element.getTagName().equals("method")) {
-                    Method method = Method.createFromXMLElement(element);
-                    methods.add(method);
-                }
+        while (XMLStreamUtil.nextChildElement(reader)) {
+            if (reader.getLocalName().equals("method")) {
+                Method method = Method.createFromXMLStream(reader);
+                methods.add(method);
+            } else {
+                XMLStreamUtil.skipElement(reader);
             }
         }
         return methods;
@@ -216,53 +216,52 @@ public class Violation extends org.softevo.catools.Violation<Method, EventPair>
     }
 
     /**
-     * Returns the XML representation of this violation.
+     * Writes the XML representation of this violation into the given stream.
      *
-     * @param xml XML document to use.
-     * @return XML representation of this violation.
+     * @param xml XML stream to write to.
+     * @throws XMLStreamException if the XML stream could not be written.
      */
-    public Element getXMLRepresentation(Document xml) {
-        Element violationXML = xml.createElement("violation");
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeStartElement("violation");
 
         // set the needed attributes
-        violationXML.setAttribute("support",
+        xml.writeAttribute("support",
                 String.valueOf(this.getPattern().getSupport()));
-        violationXML.setAttribute("confidence",
-                String.valueOf(this.getConfidence()));
-        violationXML.setAttribute("defect_indicator",
+        xml.writeAttribute("confidence", String.valueOf(this.getConfidence()));
+        xml.writeAttribute("defect_indicator",
                 String.valueOf(this.defectIndicator));
-        violationXML.setAttribute("type", String.valueOf(this.type));
-        Element descriptionXML = xml.createElement("description");
-        descriptionXML.setAttribute("value", this.description);
-        violationXML.appendChild(descriptionXML);
+        xml.writeAttribute("type", String.valueOf(this.type));
+        xml.writeEmptyElement("description");
+        xml.writeAttribute("value", this.description);
 
         // add the violating object
-        violationXML.appendChild(this.getObject().getXMLRepresentation(xml));
+        this.getObject().writeXMLRepresentation(xml);
 
         // add the supporting objects
-        Element supportingExamples = xml.createElement("supporting_methods");
-        violationXML.appendChild(supportingExamples);
+        xml.writeStartElement("supporting_methods");
         for (Method method : this.getPattern().getObjects()) {
-            supportingExamples.appendChild(method.getXMLRepresentation(xml));
+            method.writeXMLRepresentation(xml);
         }
+        xml.writeEndElement();
 
         // add the present properties
-        Element presentPropertiesXML = xml.createElement("present_properties");
-        violationXML.appendChild(presentPropertiesXML);
+        xml.writeStartElement("present_properties");
         for (EventPair pair : this.getPattern().getProperties()) {
             if (!this.getMissingProperties().contains(pair)) {
-                presentPropertiesXML.appendChild(pair.getXMLRepresentation(xml));
+                pair.writeXMLRepresentation(xml);
             }
         }
+        xml.writeEndElement();
 
         // add the missing properties
-        Element missingPropertiesXML = xml.createElement("missing_properties");
-        violationXML.appendChild(missingPropertiesXML);
+        xml.writeStartElement("missing_properties");
         for (EventPair pair : this.getMissingProperties()) {
-            missingPropertiesXML.appendChild(pair.getXMLRepresentation(xml));
+            pair.writeXMLRepresentation(xml);
         }
+        xml.writeEndElement();
 
-        return violationXML;
+        xml.writeEndElement();
     }
 
     /**
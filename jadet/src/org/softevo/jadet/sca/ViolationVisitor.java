@@ -0,0 +1,18 @@
+package org.softevo.jadet.sca;
+
+
+/**
+ * This is the interface to use for visitors of violations found in a
+ * <code>PatternsStore</code>.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public interface ViolationVisitor {
+
+    /**
+     * This method gets called for each violation found.
+     *
+     * @param violation Violation found.
+     */
+    public void visit(org.softevo.catools.Violation<Method, EventPair> violation);
+}
@@ -0,0 +1,179 @@
+package org.softevo.jadet.sca;
+
+
+import org.softevo.jadet.sca.Violation.ViolationComparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+
+/**
+ * Instances of this class keep the best-ranked violations out of all the
+ * violations offered to them. Violations are offered together with their
+ * defect indicator; only the ones that can be among the best-ranked get
+ * represented as a <code>Violation</code> and kept, so the memory needed
+ * depends only on the number of violations to keep. Violations ranked the
+ * same are ordered like they were offered, so the violations kept are
+ * exactly the first ones of the list of all violations offered, ordered
+ * from the best- to worst-ranked using a stable sort.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public class ViolationsHeap {
+
+    /**
+     * Maximum number of violations to keep.
+     */
+    private final int capacity;
+
+
+    /**
+     * Minimum defect indicator of violations to keep (exclusive).
+     */
+    private final double minDefectIndicator;
+
+
+    /**
+     * Comparator ordering entries from the best- to worst-ranked.
+     */
+    private final Comparator<Entry> comparator;
+
+
+    /**
+     * Entries of the violations kept, with the worst-ranked one at the head.
+     */
+    private final PriorityQueue<Entry> heap;
+
+
+    /**
+     * Number of violations offered so far.
+     */
+    private int offeredNum;
+
+
+    /**
+     * Creates a new, empty heap.
+     *
+     * @param capacity           Maximum number of violations to keep.
+     * @param minDefectIndicator Violations with a defect indicator not
+     *                           greater than this are never kept.
+     */
+    public ViolationsHeap(int capacity, double minDefectIndicator) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be >= 1");
+        }
+        this.capacity = capacity;
+        this.minDefectIndicator = minDefectIndicator;
+        final ViolationComparator violationComparator =
+                new ViolationComparator();
+        this.comparator = new Comparator<Entry>() {
+            public int compare(Entry e1, Entry e2) {
+                int cmp = violationComparator.compare(e1.violation,
+                        e2.violation);
+                if (cmp != 0) {
+                    return cmp;
+                }
+                return e1.index < e2.index ? -1 :
+                        (e1.index == e2.index ? 0 : 1);
+            }
+        };
+        this.heap = new PriorityQueue<Entry>(capacity,
+                Collections.reverseOrder(this.comparator));
+        this.offeredNum = 0;
+    }
+
+
+    /**
+     * Offers the given violation to the heap.
+     *
+     * @param violation       Violation to offer.
+     * @param defectIndicator Defect indicator of the violation.
+     * @return <code>true</code> if the violation is kept; <code>false</code>
+     * otherwise.
+     */
+    public boolean offer(org.softevo.catools.Violation<Method, EventPair> violation,
+                         double defectIndicator) {
+        int index = this.offeredNum++;
+        if (defectIndicator <= this.minDefectIndicator) {
+            return false;
+        }
+        if (this.heap.size() == this.capacity && defectIndicator <
+                this.heap.peek().violation.getDefectIndicator()) {
+            return false;
+        }
+        Violation ranked = new Violation(violation);
+        ranked.setDefectIndicator(defectIndicator);
+        Entry entry = new Entry(ranked, index);
+        if (this.heap.size() < this.capacity) {
+            this.heap.add(entry);
+            return true;
+        }
+        if (this.comparator.compare(entry, this.heap.peek()) < 0) {
+            this.heap.poll();
+            this.heap.add(entry);
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Returns the number of violations offered so far.
+     *
+     * @return Number of violations offered.
+     */
+    public int getOfferedNum() {
+        return this.offeredNum;
+    }
+
+
+    /**
+     * Returns the violations kept, ordered from the best- to worst-ranked.
+     *
+     * @return List of the violations kept.
+     */
+    public ViolationsList toList() {
+        List<Entry> entries = new ArrayList<Entry>(this.heap);
+        Collections.sort(entries, this.comparator);
+        ViolationsList violations = new ViolationsList();
+        for (Entry entry : entries) {
+            violations.add(entry.violation);
+        }
+        return violations;
+    }
+
+
+    /**
+     * Instances of this class hold a violation kept together with its
+     * position among all the violations offered.
+     */
+    private static final class Entry {
+
+        /**
+         * Violation kept.
+         */
+        private final Violation violation;
+
+
+        /**
+         * Position of the violation among all the violations offered.
+         */
+        private final int index;
+
+
+        /**
+         * Creates a new entry.
+         *
+         * @param violation Violation kept.
+         * @param index     Position of the violation among all the
+         *                  violations offered.
+         */
+        Entry(Violation violation, int index) {
+            this.violation = violation;
+            this.index = index;
+        }
+    }
+}
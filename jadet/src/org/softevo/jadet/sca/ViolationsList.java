@@ -1,33 +1,27 @@
 package org.softevo.jadet.sca;
 
 
-import org.softevo.jutil.UnionFind;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import org.softevo.jutil.Triple;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 
 /**
@@ -44,9 +38,26 @@ public class ViolationsList extends ArrayList<Violation> {
 
 
     /**
-     * Disjoint sets of equivalent (i.e., mutually duplicate) violations ids.
+     * Mapping from violations ids to disjoint sets of ids of equivalent (i.e.,
+     * mutually duplicate) violations. All ids in one set share the same set
+     * instance; violations without any duplicates are not mapped.
+     */
+    private final Map<Integer, SortedSet<Integer>> id2equivalents =
+            new HashMap<Integer, SortedSet<Integer>>();
+
+
+    /**
+     * Mapping from violating objects to sorted ids of violations with that
+     * object, or <code>null</code> if it has not been created yet.
      */
-    private UnionFind<Integer> equivalents = new UnionFind<Integer>();
+    private transient Map<Method, List<Integer>> object2ids = null;
+
+
+    /**
+     * Modification count of this list at the time the mapping from violating
+     * objects to ids was created.
+     */
+    private transient int object2idsModCount = 0;
 
     /**
      * Reads the violations list from the given XML file.
@@ -57,40 +68,38 @@ public class ViolationsList extends ArrayList<Violation> {
     public static ViolationsList readFromXML(File violationsFile) {
         try {
             ViolationsList violations = new ViolationsList();
-            DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = builderFactory.newDocumentBuilder();
-            Document xml = builder.parse(violationsFile);
-            Element violationsElement = xml.getDocumentElement();
-
-            // read violations
-            NodeList violationsList = violationsElement.getElementsByTagName("violation");
-            for (int i = 0; i < violationsList.getLength(); i++) {
-                Element violationElement = (Element) violationsList.item(i);
-                Violation violation = Violation.createFromXMLElement(violationElement);
-                violations.add(violation);
-            }
+            InputStream in = new BufferedInputStream(
+                    new FileInputStream(violationsFile));
+            XMLStreamReader reader = XMLStreamUtil.createReader(in);
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamReader.START_ELEMENT)
+                    continue;
 
-            // read equivalents
-            NodeList equivalentsList = violationsElement.getElementsByTagName("equivalents");
-            for (int i = 0; i < equivalentsList.getLength(); i++) {
-                Element equivalentsElement = (Element) equivalentsList.item(i);
-                Set<Integer> ids = new HashSet<Integer>();
-                NodeList idsList = equivalentsElement.getElementsByTagName("equivalent");
-                for (int j = 0; j < idsList.getLength(); j++) {
-                    Element idElement = (Element) idsList.item(j);
-                    ids.add(Integer.valueOf(idElement.getAttribute("id")));
-                }
-                Integer repr = ids.iterator().next();
-                for (Integer id : ids) {
-                    violations.equivalents.union(repr, id);
+                if (reader.getLocalName().equals("violation")) {
+                    // read violation
+                    Violation violation = Violation.createFromXMLStream(reader);
+                    violations.add(violation);
+                } else if (reader.getLocalName().equals("equivalents")) {
+                    // read equivalents
+                    Set<Integer> ids = new HashSet<Integer>();
+                    while (XMLStreamUtil.nextChildElement(reader)) {
+                        if (reader.getLocalName().equals("equivalent")) {
+                            ids.add(Integer.valueOf(
+                                    reader.getAttributeValue(null, "id")));
+                        }
+                        XMLStreamUtil.skipElement(reader);
+                    }
+                    Integer repr = ids.iterator().next();
+                    for (Integer id : ids) {
+                        violations.union(repr, id);
+                    }
                 }
             }
+            reader.close();
+            in.close();
 
             return violations;
-        } catch (ParserConfigurationException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        } catch (SAXException e) {
+        } catch (XMLStreamException e) {
             e.printStackTrace(System.err);
             throw new InternalError();
         } catch (IOException e) {
@@ -108,21 +117,32 @@ public class ViolationsList extends ArrayList<Violation> {
      */
     public void copyDetailsFrom(ViolationsList reference,
                                 String referenceFileName) {
+        // index the reference violations by their canonical key and object
+        Map<Triple<Method, Set<EventPair>, Set<EventPair>>, Integer> key2refid =
+                new HashMap<Triple<Method, Set<EventPair>, Set<EventPair>>, Integer>();
+        Map<Method, Set<Integer>> object2refids =
+                new HashMap<Method, Set<Integer>>();
+        for (int refid = 1; refid <= reference.size(); refid++) {
+            Violation refv = reference.get(refid - 1);
+            Triple<Method, Set<EventPair>, Set<EventPair>> key = getKey(refv);
+            if (!key2refid.containsKey(key)) {
+                key2refid.put(key, refid);
+            }
+            if (!object2refids.containsKey(refv.getObject())) {
+                object2refids.put(refv.getObject(), new TreeSet<Integer>());
+            }
+            object2refids.get(refv.getObject()).add(refid);
+        }
+
         // first, find mappings id => id
         Map<Integer, Integer> id2refid = new HashMap<Integer, Integer>();
         Map<Integer, Integer> refid2id = new HashMap<Integer, Integer>();
-        main_loop:
         for (int id = 1; id <= this.size(); id++) {
             Violation v = this.get(id - 1);
-            for (int refid = 1; refid <= reference.size(); refid++) {
-                Violation refv = reference.get(refid - 1);
-                if (refv.getObject().equals(v.getObject()) &&
-                        refv.getMissingProperties().equals(v.getMissingProperties()) &&
-                        refv.getPattern().getProperties().equals(v.getPattern().getProperties())) {
-                    id2refid.put(id, refid);
-                    refid2id.put(refid, id);
-                    continue main_loop;
-                }
+            Integer refid = key2refid.get(getKey(v));
+            if (refid != null) {
+                id2refid.put(id, refid);
+                refid2id.put(refid, id);
             }
         }
 
@@ -132,14 +152,9 @@ public class ViolationsList extends ArrayList<Violation> {
             if (id2refid.containsKey(id))
                 continue;
             Violation v = this.get(id - 1);
-            for (int refid = 1; refid <= reference.size(); refid++) {
-                Violation refv = reference.get(refid - 1);
-                if (refv.getObject().equals(v.getObject())) {
-                    if (!p_id2refid.containsKey(id)) {
-                        p_id2refid.put(id, new HashSet<Integer>());
-                    }
-                    p_id2refid.get(id).add(refid);
-                }
+            Set<Integer> refids = object2refids.get(v.getObject());
+            if (refids != null) {
+                p_id2refid.put(id, refids);
             }
         }
 
@@ -164,18 +179,33 @@ public class ViolationsList extends ArrayList<Violation> {
             v.setDescription(str.toString());
         }
 
-        // update the duplicates info for all identical violations
-        for (int id1 : id2refid.keySet()) {
-            int refid1 = id2refid.get(id1);
-            for (int id2 : id2refid.keySet()) {
-                int refid2 = id2refid.get(id2);
-                if (reference.equivalents.find(refid1) == reference.equivalents.find(refid2)) {
-                    this.equivalents.union(id1, id2);
-                }
+        // update the duplicates info for all identical violations (all ids
+        // mapped into one reference equivalence class become one class)
+        Map<Integer, Integer> refrepr2id = new HashMap<Integer, Integer>();
+        for (Map.Entry<Integer, Integer> entry : id2refid.entrySet()) {
+            int refrepr = reference.getEquivalents(entry.getValue()).first();
+            if (refrepr2id.containsKey(refrepr)) {
+                union(refrepr2id.get(refrepr), entry.getKey());
+            } else {
+                refrepr2id.put(refrepr, entry.getKey());
             }
         }
     }
 
+    /**
+     * Returns the key identifying the given violation across lists, i.e., its
+     * violating object, its missing properties and its pattern's properties.
+     *
+     * @param v Violation to get the key of.
+     * @return Key identifying the given violation.
+     */
+    private static Triple<Method, Set<EventPair>, Set<EventPair>> getKey(
+            Violation v) {
+        return new Triple<Method, Set<EventPair>, Set<EventPair>>(
+                v.getObject(), v.getMissingProperties(),
+                v.getPattern().getProperties());
+    }
+
     /**
      * Finds ids of violations that are potentially duplicates of the given
      * violation (i.e., have the same violating object).
@@ -184,15 +214,10 @@ public class ViolationsList extends ArrayList<Violation> {
      * @return Sorted list of indices of potential duplicates.
      */
     public List<Integer> getPotentialDuplicatesIds(int vid) {
-        List<Integer> ids = new ArrayList<Integer>();
         Violation v = this.get(vid - 1);
-        for (int id = 1; id <= this.size(); id++) {
-            if (id == vid)
-                continue;
-            Violation pd = this.get(id - 1);
-            if (pd.getObject().equals(v.getObject()))
-                ids.add(id);
-        }
+        List<Integer> ids = new ArrayList<Integer>(
+                getObject2Ids().get(v.getObject()));
+        ids.remove(Integer.valueOf(vid));
         return ids;
     }
 
@@ -203,14 +228,24 @@ public class ViolationsList extends ArrayList<Violation> {
      * @return Sorted list of ids of duplicates.
      */
     public List<Integer> getDuplicates(int vid) {
-        List<Integer> duplicates = new ArrayList<Integer>();
-        for (int id = 1; id <= this.size(); id++) {
-            if (id != vid && this.equivalents.find(vid) == this.equivalents.find(id))
-                duplicates.add(id);
-        }
+        List<Integer> duplicates = new ArrayList<Integer>(getEquivalents(vid));
+        duplicates.remove(Integer.valueOf(vid));
         return duplicates;
     }
 
+    /**
+     * Checks if the given violation is the first (i.e., the one with the
+     * lowest id) among its duplicates. This holds for all violations that
+     * have no duplicates.
+     *
+     * @param vid Id of the violation to check.
+     * @return <code>true</code> if the violation has no duplicates with lower
+     * ids, <code>false</code> otherwise.
+     */
+    public boolean isFirstDuplicate(int vid) {
+        return getEquivalents(vid).first() == vid;
+    }
+
     /**
      * Returns disjoint lists of quivalents od potential duplicates of the given
      * violation (including the list containing the violation itself).
@@ -224,22 +259,16 @@ public class ViolationsList extends ArrayList<Violation> {
         potentialDuplicatesIds.add(vid);
         Map<Integer, List<Integer>> repr2equivalents =
                 new HashMap<Integer, List<Integer>>();
+        List<List<Integer>> result = new ArrayList<List<Integer>>();
         for (int id : potentialDuplicatesIds) {
-            int repr = this.equivalents.find(id);
+            int repr = getEquivalents(id).first();
             if (!repr2equivalents.containsKey(repr)) {
-                repr2equivalents.put(repr, new ArrayList<Integer>());
+                List<Integer> equivalents = new ArrayList<Integer>();
+                repr2equivalents.put(repr, equivalents);
+                result.add(equivalents);
             }
             repr2equivalents.get(repr).add(id);
         }
-        List<List<Integer>> result = new ArrayList<List<Integer>>();
-        Set<Integer> usedReprs = new HashSet<Integer>();
-        for (Integer id : potentialDuplicatesIds) {
-            int repr = this.equivalents.find(id);
-            if (usedReprs.contains(repr))
-                continue;
-            result.add(repr2equivalents.get(repr));
-            usedReprs.add(repr);
-        }
         return result;
     }
 
@@ -251,7 +280,7 @@ public class ViolationsList extends ArrayList<Violation> {
      * @param idOther        Id of the other (reference) violation.
      */
     public void setDuplicate(int idNewDuplicate, int idOther) {
-        this.equivalents.union(idNewDuplicate, idOther);
+        union(idNewDuplicate, idOther);
         Violation newDuplicate = this.get(idNewDuplicate - 1);
         Violation other = this.get(idOther - 1);
         newDuplicate.setType(other.getType());
@@ -264,7 +293,75 @@ public class ViolationsList extends ArrayList<Violation> {
      * @param vid Id of the violation to mark as a non-duplicate.
      */
     public void detachDuplicate(int vid) {
-        this.equivalents.makeSingleton(vid);
+        SortedSet<Integer> equivalents = this.id2equivalents.remove(vid);
+        if (equivalents != null) {
+            equivalents.remove(vid);
+            if (equivalents.size() == 1) {
+                this.id2equivalents.remove(equivalents.first());
+            }
+        }
+    }
+
+    /**
+     * Returns the sorted set of ids of violations equivalent to the given one
+     * (including the violation itself).
+     *
+     * @param vid Id of the violation to get equivalents of.
+     * @return Sorted set of ids of equivalent violations.
+     */
+    private SortedSet<Integer> getEquivalents(int vid) {
+        SortedSet<Integer> equivalents = this.id2equivalents.get(vid);
+        if (equivalents == null) {
+            equivalents = new TreeSet<Integer>();
+            equivalents.add(vid);
+        }
+        return equivalents;
+    }
+
+    /**
+     * Merges the sets of equivalent violations of the two given violations.
+     *
+     * @param id1 Id of the first violation.
+     * @param id2 Id of the second violation.
+     */
+    private void union(int id1, int id2) {
+        SortedSet<Integer> larger = getEquivalents(id1);
+        SortedSet<Integer> smaller = getEquivalents(id2);
+        if (larger.contains(id2))
+            return;
+        if (larger.size() < smaller.size()) {
+            SortedSet<Integer> tmp = larger;
+            larger = smaller;
+            smaller = tmp;
+        }
+        if (larger.size() == 1) {
+            this.id2equivalents.put(larger.first(), larger);
+        }
+        larger.addAll(smaller);
+        for (int id : smaller) {
+            this.id2equivalents.put(id, larger);
+        }
+    }
+
+    /**
+     * Returns the mapping from violating objects to sorted ids of violations
+     * with that object, creating it anew if this list has been modified.
+     *
+     * @return Mapping from violating objects to sorted ids of violations.
+     */
+    private Map<Method, List<Integer>> getObject2Ids() {
+        if (this.object2ids == null || this.object2idsModCount != this.modCount) {
+            this.object2ids = new HashMap<Method, List<Integer>>();
+            for (int id = 1; id <= this.size(); id++) {
+                Method object = this.get(id - 1).getObject();
+                if (!this.object2ids.containsKey(object)) {
+                    this.object2ids.put(object, new ArrayList<Integer>());
+                }
+                this.object2ids.get(object).add(id);
+            }
+            this.object2idsModCount = this.modCount;
+        }
+        return this.object2ids;
     }
 
     /**
@@ -274,62 +371,40 @@ public class ViolationsList extends ArrayList<Violation> {
      */
     public void writeXML(File outFile) {
         try {
-            // create the XML document
-            DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
-            Document xml = docBuilder.newDocument();
-            xml.setXmlStandalone(true);
-            Element violationsXML = xml.createElement("violations");
-            xml.appendChild(violationsXML);
-
-            // create XML subtree for each violation
+            // start the XML document
+            OutputStream out = new BufferedOutputStream(
+                    new FileOutputStream(outFile));
+            XMLStreamWriter xml = XMLStreamUtil.createWriter(out);
+            xml.writeStartDocument(XMLStreamUtil.ENCODING, "1.0");
+            xml.writeStartElement("violations");
+
+            // output each violation
             for (Violation violation : this) {
-                Element violationXML = violation.getXMLRepresentation(xml);
-                violationsXML.appendChild(violationXML);
+                violation.writeXMLRepresentation(xml);
             }
 
-            // find sets of equivalent violations
-            Map<Integer, Set<Integer>> id2equivalent =
-                    new HashMap<Integer, Set<Integer>>();
+            // output each set of equivalent violations (once, at its first id)
             for (int id = 1; id <= this.size(); id++) {
-                int repr = this.equivalents.find(id);
-                if (!id2equivalent.containsKey(repr))
-                    id2equivalent.put(repr, new HashSet<Integer>());
-                Set<Integer> eqs = id2equivalent.get(repr);
-                eqs.add(id);
-            }
-
-            // create XML subtree for each set of equivalent violations
-            for (Map.Entry<Integer, Set<Integer>> entry : id2equivalent.entrySet()) {
-                Set<Integer> eqs = entry.getValue();
-                if (eqs.size() == 1)
+                SortedSet<Integer> eqs = this.id2equivalents.get(id);
+                if (eqs == null || eqs.first() != id)
                     continue;
-                Element equivalentsXML = xml.createElement("equivalents");
-                violationsXML.appendChild(equivalentsXML);
-                for (int id : eqs) {
-                    Element idXML = xml.createElement("equivalent");
-                    equivalentsXML.appendChild(idXML);
-                    idXML.setAttribute("id", String.valueOf(id));
+                xml.writeStartElement("equivalents");
+                for (int eqid : eqs) {
+                    xml.writeEmptyElement("equivalent");
+                    xml.writeAttribute("id", String.valueOf(eqid));
                 }
+                xml.writeEndElement();
             }
 
-            // output the XML data to the file
-            PrintWriter writer = new PrintWriter(outFile);
-            TransformerFactory tranFactory = TransformerFactory.newInstance();
-            tranFactory.setAttribute("indent-number", Integer.valueOf(4));
-            Transformer transformer = tranFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            Source src = new DOMSource(xml);
-            Result dest = new StreamResult(writer);
-            transformer.transform(src, dest);
-            writer.close();
-        } catch (ParserConfigurationException e) {
-            e.printStackTrace(System.err);
-            return;
-        } catch (TransformerException e) {
+            // finish the XML document
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+            out.close();
+        } catch (XMLStreamException e) {
             e.printStackTrace(System.err);
             return;
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace(System.err);
             return;
         }
@@ -0,0 +1,333 @@
+package org.softevo.jadet.sca;
+
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+
+/**
+ * This class provides helper methods for reading and writing the XML files
+ * of violations and patterns in a streaming (StAX) fashion.
+ */
+final class XMLStreamUtil {
+
+    /**
+     * Encoding used for all XML files written.
+     */
+    static final String ENCODING = "UTF-8";
+
+
+    /**
+     * Number of spaces used to indent one level of nesting.
+     */
+    private static final int INDENT_NUMBER = 4;
+
+
+    /**
+     * This class is not to be instantiated.
+     */
+    private XMLStreamUtil() {
+    }
+
+
+    /**
+     * Creates an XML reader of the given stream.
+     *
+     * @param in Stream to read XML data from.
+     * @return XML reader of the given stream.
+     * @throws XMLStreamException if the reader could not be created.
+     */
+    static XMLStreamReader createReader(InputStream in)
+            throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory.createXMLStreamReader(in);
+    }
+
+
+    /**
+     * Creates an XML writer into the given stream. The writer indents nested
+     * elements the same way the DOM transformer used to.
+     *
+     * @param out Stream to write XML data into.
+     * @return XML writer into the given stream.
+     * @throws XMLStreamException if the writer could not be created.
+     */
+    static XMLStreamWriter createWriter(OutputStream out)
+            throws XMLStreamException {
+        XMLOutputFactory factory = XMLOutputFactory.newInstance();
+        return new IndentingXMLStreamWriter(
+                factory.createXMLStreamWriter(out, ENCODING));
+    }
+
+
+    /**
+     * Advances the given reader to the start of the next child element of the
+     * element it is currently in. Text and comments are skipped.
+     *
+     * @param reader XML stream to advance.
+     * @return <code>true</code>, if the reader is positioned at the start of
+     * a child element, <code>false</code> if it is positioned at the end of
+     * the enclosing element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    static boolean nextChildElement(XMLStreamReader reader)
+            throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                return false;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of the XML stream");
+    }
+
+
+    /**
+     * Skips the element the given reader is positioned at, including all of
+     * its children. Afterwards the reader is positioned at the end of that
+     * element.
+     *
+     * @param reader XML stream positioned at the start of an element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    static void skipElement(XMLStreamReader reader)
+            throws XMLStreamException {
+        while (nextChildElement(reader)) {
+            skipElement(reader);
+        }
+    }
+
+
+    /**
+     * Instances of this class wrap XML writers and insert line breaks and
+     * indentation between elements.
+     */
+    private static final class IndentingXMLStreamWriter
+            implements XMLStreamWriter {
+
+        /**
+         * Writer to delegate all the writing to.
+         */
+        private final XMLStreamWriter delegate;
+
+
+        /**
+         * For each element currently open, indicates if it has child
+         * elements.
+         */
+        private final Deque<Boolean> hasChildren = new ArrayDeque<Boolean>();
+
+
+        /**
+         * Creates a new indenting writer wrapping the given one.
+         *
+         * @param delegate Writer to delegate all the writing to.
+         */
+        IndentingXMLStreamWriter(XMLStreamWriter delegate) {
+            this.delegate = delegate;
+        }
+
+
+        /**
+         * Starts a new line indented to the current nesting level and marks
+         * the enclosing element as having children.
+         *
+         * @throws XMLStreamException if writing fails.
+         */
+        private void beforeChild() throws XMLStreamException {
+            if (!this.hasChildren.isEmpty()) {
+                this.hasChildren.pop();
+                this.hasChildren.push(Boolean.TRUE);
+            }
+            indent(this.hasChildren.size());
+        }
+
+
+        /**
+         * Writes a line break followed by indentation of the given level.
+         *
+         * @param level Nesting level to indent to.
+         * @throws XMLStreamException if writing fails.
+         */
+        private void indent(int level) throws XMLStreamException {
+            StringBuilder str = new StringBuilder("\n");
+            for (int i = 0; i < level * INDENT_NUMBER; i++) {
+                str.append(' ');
+            }
+            this.delegate.writeCharacters(str.toString());
+        }
+
+        public void writeStartElement(String localName)
+                throws XMLStreamException {
+            beforeChild();
+            this.hasChildren.push(Boolean.FALSE);
+            this.delegate.writeStartElement(localName);
+        }
+
+        public void writeStartElement(String namespaceURI, String localName)
+                throws XMLStreamException {
+            beforeChild();
+            this.hasChildren.push(Boolean.FALSE);
+            this.delegate.writeStartElement(namespaceURI, localName);
+        }
+
+        public void writeStartElement(String prefix, String localName,
+                                      String namespaceURI)
+                throws XMLStreamException {
+            beforeChild();
+            this.hasChildren.push(Boolean.FALSE);
+            this.delegate.writeStartElement(prefix, localName, namespaceURI);
+        }
+
+        public void writeEmptyElement(String localName)
+                throws XMLStreamException {
+            beforeChild();
+            this.delegate.writeEmptyElement(localName);
+        }
+
+        public void writeEmptyElement(String namespaceURI, String localName)
+                throws XMLStreamException {
+            beforeChild();
+            this.delegate.writeEmptyElement(namespaceURI, localName);
+        }
+
+        public void writeEmptyElement(String prefix, String localName,
+                                      String namespaceURI)
+                throws XMLStreamException {
+            beforeChild();
+            this.delegate.writeEmptyElement(prefix, localName, namespaceURI);
+        }
+
+        public void writeEndElement() throws XMLStreamException {
+            if (this.hasChildren.pop()) {
+                indent(this.hasChildren.size());
+            }
+            this.delegate.writeEndElement();
+        }
+
+        public void writeEndDocument() throws XMLStreamException {
+            this.delegate.writeEndDocument();
+        }
+
+        public void close() throws XMLStreamException {
+            this.delegate.close();
+        }
+
+        public void flush() throws XMLStreamException {
+            this.delegate.flush();
+        }
+
+        public void writeAttribute(String localName, String value)
+                throws XMLStreamException {
+            this.delegate.writeAttribute(localName, value);
+        }
+
+        public void writeAttribute(String prefix, String namespaceURI,
+                                   String localName, String value)
+                throws XMLStreamException {
+            this.delegate.writeAttribute(prefix, namespaceURI, localName,
+                    value);
+        }
+
+        public void writeAttribute(String namespaceURI, String localName,
+                                   String value) throws XMLStreamException {
+            this.delegate.writeAttribute(namespaceURI, localName, value);
+        }
+
+        public void writeNamespace(String prefix, String namespaceURI)
+                throws XMLStreamException {
+            this.delegate.writeNamespace(prefix, namespaceURI);
+        }
+
+        public void writeDefaultNamespace(String namespaceURI)
+                throws XMLStreamException {
+            this.delegate.writeDefaultNamespace(namespaceURI);
+        }
+
+        public void writeComment(String data) throws XMLStreamException {
+            this.delegate.writeComment(data);
+        }
+
+        public void writeProcessingInstruction(String target)
+                throws XMLStreamException {
+            this.delegate.writeProcessingInstruction(target);
+        }
+
+        public void writeProcessingInstruction(String target, String data)
+                throws XMLStreamException {
+            this.delegate.writeProcessingInstruction(target, data);
+        }
+
+        public void writeCData(String data) throws XMLStreamException {
+            this.delegate.writeCData(data);
+        }
+
+        public void writeDTD(String dtd) throws XMLStreamException {
+            this.delegate.writeDTD(dtd);
+        }
+
+        public void writeEntityRef(String name) throws XMLStreamException {
+            this.delegate.writeEntityRef(name);
+        }
+
+        public void writeStartDocument() throws XMLStreamException {
+            this.delegate.writeStartDocument();
+        }
+
+        public void writeStartDocument(String version)
+                throws XMLStreamException {
+            this.delegate.writeStartDocument(version);
+        }
+
+        public void writeStartDocument(String encoding, String version)
+                throws XMLStreamException {
+            this.delegate.writeStartDocument(encoding, version);
+        }
+
+        public void writeCharacters(String text) throws XMLStreamException {
+            this.delegate.writeCharacters(text);
+        }
+
+        public void writeCharacters(char[] text, int start, int len)
+                throws XMLStreamException {
+            this.delegate.writeCharacters(text, start, len);
+        }
+
+        public String getPrefix(String uri) throws XMLStreamException {
+            return this.delegate.getPrefix(uri);
+        }
+
+        public void setPrefix(String prefix, String uri)
+                throws XMLStreamException {
+            this.delegate.setPrefix(prefix, uri);
+        }
+
+        public void setDefaultNamespace(String uri) throws XMLStreamException {
+            this.delegate.setDefaultNamespace(uri);
+        }
+
+        public void setNamespaceContext(NamespaceContext context)
+                throws XMLStreamException {
+            this.delegate.setNamespaceContext(context);
+        }
+
+        public NamespaceContext getNamespaceContext() {
+            return this.delegate.getNamespaceContext();
+        }
+
+        public Object getProperty(String name) {
+            return this.delegate.getProperty(name);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.softevo.jadet.violations.editor;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+
+/**
+ * Classes implementing this interface are used to lay out and render graphs
+ * given in the "dot" language. Implementations must be safe to use from
+ * multiple threads at once.
+ */
+public interface GraphRenderer {
+
+    /**
+     * Renders the given graph into an image.
+     *
+     * @param graph Graph in the "dot" language.
+     * @return Image of the graph.
+     * @throws IOException if the graph could not be rendered.
+     */
+    BufferedImage render(String graph) throws IOException;
+
+
+    /**
+     * Computes the transitive reduction of the given graph.
+     *
+     * @param graph        Graph in the "dot" language.
+     * @param reducedGraph Output parameter, to which the transitive reduction
+     *                     of the graph is appended (in the "dot" language).
+     * @return <code>true</code> if there were no cycles; <code>false</code>
+     * otherwise.
+     * @throws IOException if the reduction could not be computed.
+     */
+    boolean transitivelyReduce(String graph, StringBuffer reducedGraph)
+            throws IOException;
+}
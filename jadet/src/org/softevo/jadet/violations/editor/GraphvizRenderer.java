@@ -0,0 +1,103 @@
+package org.softevo.jadet.violations.editor;
+
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+
+
+/**
+ * This class renders graphs using the Graphviz tools: <code>./dot2gif</code>
+ * for the layout and <code>tred</code> for transitive reductions.
+ */
+public class GraphvizRenderer implements GraphRenderer {
+
+    /* (non-Javadoc)
+     * @see org.softevo.jadet.violations.editor.GraphRenderer#render(java.lang.String)
+     */
+    public BufferedImage render(String graph) throws IOException {
+        File graphFile = writeGraphFile(graph);
+        File outputFile = File.createTempFile("JADET", ".gif");
+        try {
+            String cmdarray[] = {"./dot2gif", graphFile.getAbsolutePath(),
+                    outputFile.getAbsolutePath()};
+            Process process = Runtime.getRuntime().exec(cmdarray);
+            waitFor(process);
+            BufferedImage image = ImageIO.read(outputFile);
+            if (image == null) {
+                throw new IOException("Graph could not be rendered: " +
+                        graphFile.getAbsolutePath());
+            }
+            return image;
+        } finally {
+            graphFile.delete();
+            outputFile.delete();
+        }
+    }
+
+
+    /* (non-Javadoc)
+     * @see org.softevo.jadet.violations.editor.GraphRenderer#transitivelyReduce(java.lang.String, java.lang.StringBuffer)
+     */
+    public boolean transitivelyReduce(String graph, StringBuffer reducedGraph)
+            throws IOException {
+        File graphFile = writeGraphFile(graph);
+        try {
+            String cmdarray[] = {"tred", graphFile.getAbsolutePath()};
+            Process process = Runtime.getRuntime().exec(cmdarray);
+            process.getOutputStream().close();
+
+            // read the whole output before waiting for the process to finish
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream()));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                reducedGraph.append(line).append('\n');
+            }
+            reader.close();
+            boolean noCycles = process.getErrorStream().read() == -1;
+            waitFor(process);
+            return noCycles;
+        } finally {
+            graphFile.delete();
+        }
+    }
+
+
+    /**
+     * Writes the given graph into a temporary file.
+     *
+     * @param graph Graph in the "dot" language.
+     * @return Temporary file with the graph.
+     * @throws IOException if the file could not be written.
+     */
+    private static File writeGraphFile(String graph) throws IOException {
+        File graphFile = File.createTempFile("JADET", ".dot");
+        BufferedOutputStream out = new BufferedOutputStream(
+                new FileOutputStream(graphFile));
+        try {
+            out.write(graph.getBytes());
+        } finally {
+            out.close();
+        }
+        return graphFile;
+    }
+
+
+    /**
+     * Waits for the given process to finish.
+     *
+     * @param process Process to wait for.
+     * @throws IOException if the waiting thread was interrupted.
+     */
+    private static void waitFor(Process process) throws IOException {
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " +
+                    "the graph to be processed");
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.jfree.chart.renderer.xy.StandardXYBarPainter;
 import org.jfree.chart.renderer.xy.XYBarRenderer;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
+import org.softevo.jadet.sca.Violation;
 import org.softevo.jadet.sca.ViolationType;
 import org.softevo.jadet.sca.ViolationsList;
 
@@ -19,9 +20,7 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 
@@ -86,6 +85,13 @@ public class StatisticsTab extends JPanel implements ChangeListener {
     private Map<ViolationType, JLabel> violationType2Value;
 
 
+    /**
+     * Worker computing the most recently requested statistics, or
+     * <code>null</code> if none was requested yet.
+     */
+    private StatisticsWorker statisticsWorker;
+
+
     /**
      * Creates a new statistics tab.
      *
@@ -133,7 +139,7 @@ public class StatisticsTab extends JPanel implements ChangeListener {
         this.add(this.infoPanel);
 
         // add the chart with the true positive rate plot
-        this.truePositiveRateChart = createTruePositiveRatePlot();
+        this.truePositiveRateChart = createTruePositiveRatePanel(null);
         this.truePositiveRateChart.setBackground(Color.WHITE);
         this.truePositiveRateChart.setForeground(Color.WHITE);
         truePositiveRateChart.setAlignmentX(LEFT_ALIGNMENT);
@@ -144,55 +150,58 @@ public class StatisticsTab extends JPanel implements ChangeListener {
 
 
     /**
-     * Updates the GUI to reflect the currently selected top percent.
+     * Updates the GUI to reflect the currently selected top percent. The
+     * statistics are computed in the background and shown once they are
+     * ready; any computation still running for an earlier update is
+     * cancelled.
      */
     public void updateTheGUI() {
-        // get the violations list
+        // take a snapshot of the violations data (this has to be done here,
+        // as the violations may be changed while the statistics are computed)
         ViolationsList violations = this.editor.getViolations();
-
-        // update the total number of violations in the top percentage
-        int violationsNum = this.topPercent * violations.size() / 100;
-        if (violationsNum > 0) {
-            while (violationsNum < violations.size() &&
-                    violations.get(violationsNum).getDefectIndicator().equals(
-                            violations.get(violationsNum - 1).getDefectIndicator())) {
-                violationsNum++;
-            }
+        int violationsNum = violations.size();
+        double[] defectIndicators = new double[violationsNum];
+        ViolationType[] types = new ViolationType[violationsNum];
+        boolean[] included = new boolean[violationsNum];
+        for (int id = 1; id <= violationsNum; id++) {
+            Violation violation = violations.get(id - 1);
+            defectIndicators[id - 1] = violation.getDefectIndicator();
+            types[id - 1] = violation.getType();
+            included[id - 1] = this.includeDuplicates ||
+                    violations.isFirstDuplicate(id);
         }
-        List<Integer> allViolationsIds = new ArrayList<Integer>();
-        for (int id = 1; id <= violations.size(); id++) {
-            if (includeDuplicates) {
-                allViolationsIds.add(id);
-            } else {
-                List<Integer> duplicates = violations.getDuplicates(id);
-                if (duplicates.isEmpty())
-                    allViolationsIds.add(id);
-                else if (!allViolationsIds.contains(duplicates.get(0)))
-                    allViolationsIds.add(id);
-            }
-        }
-        int allViolationsNum = allViolationsIds.size();
-        List<Integer> violationsIds = new ArrayList<Integer>();
-        for (int id : allViolationsIds) {
-            if (id <= violationsNum)
-                violationsIds.add(id);
+
+        // compute the statistics in the background
+        if (this.statisticsWorker != null) {
+            this.statisticsWorker.cancel(false);
         }
-        violationsNum = violationsIds.size();
+        this.statisticsWorker = new StatisticsWorker(this.topPercent,
+                defectIndicators, types, included);
+        this.statisticsWorker.execute();
+    }
+
 
-        int realPercentage = (100 * violationsNum) / allViolationsNum;
-        if ((100 * violationsNum) % allViolationsNum != 0) {
-            realPercentage++;
+    /**
+     * Updates the GUI to show the statistics computed by the given worker.
+     *
+     * @param worker Worker that has computed the statistics.
+     */
+    private void showStatistics(StatisticsWorker worker) {
+        // update the total number of violations in the top percentage
+        int violationsNum = worker.violationsNum;
+        int allViolationsNum = worker.allViolationsNum;
+        int realPercentage = 0;
+        if (allViolationsNum > 0) {
+            realPercentage = (100 * violationsNum) / allViolationsNum;
+            if ((100 * violationsNum) % allViolationsNum != 0) {
+                realPercentage++;
+            }
         }
         this.totalValue.setText(violationsNum + " / " + allViolationsNum +
                 " (" + realPercentage + "%)");
 
         // update the true positive rate
-        int truePositives = 0;
-        for (int id : violationsIds) {
-            if (violations.get(id - 1).getType().isTruePositive()) {
-                truePositives++;
-            }
-        }
+        int truePositives = worker.truePositives;
         int truePositiveRate = 0;
         if (violationsNum > 0) {
             truePositiveRate = 100 * truePositives / violationsNum;
@@ -200,16 +209,8 @@ public class StatisticsTab extends JPanel implements ChangeListener {
         this.rateValue.setText(truePositives + " (" + truePositiveRate + "%)");
 
         // update the numbers of different violation types
-        Map<ViolationType, Integer> type2number = new HashMap<ViolationType, Integer>();
-        for (ViolationType type : ViolationType.values()) {
-            type2number.put(type, 0);
-        }
-        for (int id : violationsIds) {
-            ViolationType type = violations.get(id - 1).getType();
-            type2number.put(type, type2number.get(type) + 1);
-        }
         for (ViolationType type : this.violationType2Value.keySet()) {
-            int number = type2number.get(type);
+            int number = worker.type2number.get(type);
             int rate = 0;
             if (violationsNum > 0) {
                 rate = 100 * number / violationsNum;
@@ -220,7 +221,8 @@ public class StatisticsTab extends JPanel implements ChangeListener {
 
         // update the true positive rate chart
         this.remove(this.truePositiveRateChart);
-        this.truePositiveRateChart = createTruePositiveRatePlot();
+        this.truePositiveRateChart =
+                createTruePositiveRatePanel(worker.truePositiveRateImage);
         this.truePositiveRateChart.setAlignmentX(LEFT_ALIGNMENT);
         this.add(this.truePositiveRateChart);
 
@@ -231,6 +233,32 @@ public class StatisticsTab extends JPanel implements ChangeListener {
     }
 
 
+    /**
+     * Returns the number of top violations that make up the given percentage
+     * of all violations. Violations with the same defect indicator as the
+     * last one taken are taken as well.
+     *
+     * @param defectIndicators Defect indicators of all violations, in order.
+     * @param percentage       Percentage of violations to take.
+     * @param minimum          Number of violations that must be exceeded for
+     *                         the violations with the same defect indicator
+     *                         to be taken as well.
+     * @return Number of top violations.
+     */
+    private static int getTopViolationsNum(double[] defectIndicators,
+                                           int percentage, int minimum) {
+        int violationsNum = percentage * defectIndicators.length / 100;
+        if (violationsNum > minimum) {
+            while (violationsNum < defectIndicators.length &&
+                    defectIndicators[violationsNum] ==
+                            defectIndicators[violationsNum - 1]) {
+                violationsNum++;
+            }
+        }
+        return violationsNum;
+    }
+
+
     /**
      * Creates the info panel with the details about top violations.
      *
@@ -317,57 +345,15 @@ public class StatisticsTab extends JPanel implements ChangeListener {
 
 
     /**
-     * Creates a plot that shows the true positive rate vs. number of violations
-     * investigated.
+     * Creates an image of the plot that shows the true positive rate vs.
+     * number of violations investigated.
      *
-     * @return True positive rate plot.
+     * @param topViolations Number of violations for each top percentage.
+     * @param truePositives Number of true positives for each top percentage.
+     * @return True positive rate plot image.
      */
-    private JPanel createTruePositiveRatePlot() {
-        // prepare the data
-        ViolationsList violations = this.editor.getViolations();
-        List<Integer> allViolationsIds = new ArrayList<Integer>();
-        for (int id = 1; id <= violations.size(); id++) {
-            if (includeDuplicates) {
-                allViolationsIds.add(id);
-            } else {
-                List<Integer> duplicates = violations.getDuplicates(id);
-                if (duplicates.isEmpty())
-                    allViolationsIds.add(id);
-                else if (!allViolationsIds.contains(duplicates.get(0)))
-                    allViolationsIds.add(id);
-            }
-        }
-
-        int[] topViolations = new int[101];
-        int[] truePositives = new int[101];
-        int lastViolationsNum = 0;
-        for (int percentage = 0; percentage <= 100; percentage++) {
-            int violationsNum = percentage * violations.size() / 100;
-            if (violationsNum > lastViolationsNum) {
-                while (violationsNum < violations.size() &&
-                        violations.get(violationsNum).getDefectIndicator().equals(
-                                violations.get(violationsNum - 1).getDefectIndicator())) {
-                    violationsNum++;
-                }
-            } else {
-                violationsNum = lastViolationsNum;
-            }
-            List<Integer> violationsIds = new ArrayList<Integer>();
-            for (int id : allViolationsIds) {
-                if (id <= violationsNum)
-                    violationsIds.add(id);
-            }
-            violationsNum = violationsIds.size();
-            topViolations[percentage] = violationsNum;
-            truePositives[percentage] = 0;
-            for (int id : violationsIds) {
-                if (violations.get(id - 1).getType().isTruePositive()) {
-                    truePositives[percentage]++;
-                }
-            }
-            lastViolationsNum = violationsNum;
-        }
-
+    private static BufferedImage createTruePositiveRateImage(
+            int[] topViolations, int[] truePositives) {
         // create the bar chart
         XYSeries series = new XYSeries("True positive rate");
         double maximumRate = 0.0;
@@ -397,12 +383,22 @@ public class StatisticsTab extends JPanel implements ChangeListener {
         renderer.setSeriesPaint(0, Color.RED);
         renderer.setShadowVisible(false);
         renderer.setMargin(0.6);
+        return chart.createBufferedImage(1200, 400);
+    }
 
-        // create the panel
-        BufferedImage image = chart.createBufferedImage(1200, 400);
-        ImageIcon icon = new ImageIcon(image);
+
+    /**
+     * Creates the panel showing the true positive rate plot.
+     *
+     * @param image Image of the plot, or <code>null</code> if it is not
+     *              available yet.
+     * @return Panel showing the true positive rate plot.
+     */
+    private JPanel createTruePositiveRatePanel(BufferedImage image) {
         JLabel imageLabel = new JLabel();
-        imageLabel.setIcon(icon);
+        if (image != null) {
+            imageLabel.setIcon(new ImageIcon(image));
+        }
         JPanel panel = new JPanel();
         panel.setForeground(Color.WHITE);
         panel.setBackground(Color.WHITE);
@@ -412,4 +408,154 @@ public class StatisticsTab extends JPanel implements ChangeListener {
         panel.setMaximumSize(panel.getPreferredSize());
         return panel;
     }
+
+
+    /**
+     * This class is responsible for computing the statistics off the event
+     * dispatch thread, based on a snapshot of the violations data.
+     */
+    private class StatisticsWorker extends SwingWorker<Void, Void> {
+
+        /**
+         * Top percentage to take into account.
+         */
+        private final int topPercent;
+
+
+        /**
+         * Defect indicators of all violations, in order.
+         */
+        private final double[] defectIndicators;
+
+
+        /**
+         * Types of all violations, in order.
+         */
+        private final ViolationType[] types;
+
+
+        /**
+         * Indicates for each violation, if it is to be counted.
+         */
+        private final boolean[] included;
+
+
+        /**
+         * Number of counted violations in the top percentage.
+         */
+        private int violationsNum;
+
+
+        /**
+         * Number of all counted violations.
+         */
+        private int allViolationsNum;
+
+
+        /**
+         * Number of true positives in the top percentage.
+         */
+        private int truePositives;
+
+
+        /**
+         * Mapping from violation types to their number in the top percentage.
+         */
+        private Map<ViolationType, Integer> type2number;
+
+
+        /**
+         * Image of the true positive rate plot.
+         */
+        private BufferedImage truePositiveRateImage;
+
+
+        /**
+         * Creates a new worker computing statistics of the given data.
+         *
+         * @param topPercent       Top percentage to take into account.
+         * @param defectIndicators Defect indicators of all violations.
+         * @param types            Types of all violations.
+         * @param included         Indicates which violations are counted.
+         */
+        StatisticsWorker(int topPercent, double[] defectIndicators,
+                         ViolationType[] types, boolean[] included) {
+            this.topPercent = topPercent;
+            this.defectIndicators = defectIndicators;
+            this.types = types;
+            this.included = included;
+        }
+
+
+        /* (non-Javadoc)
+         * @see javax.swing.SwingWorker#doInBackground()
+         */
+        @Override
+        protected Void doInBackground() {
+            // count the included violations and true positives up to each id
+            int size = this.types.length;
+            int[] includedUpTo = new int[size + 1];
+            int[] truePositivesUpTo = new int[size + 1];
+            for (int id = 1; id <= size; id++) {
+                includedUpTo[id] = includedUpTo[id - 1];
+                truePositivesUpTo[id] = truePositivesUpTo[id - 1];
+                if (this.included[id - 1]) {
+                    includedUpTo[id]++;
+                    if (this.types[id - 1].isTruePositive()) {
+                        truePositivesUpTo[id]++;
+                    }
+                }
+            }
+
+            // compute the summary of the top percentage
+            int topNum = getTopViolationsNum(this.defectIndicators,
+                    this.topPercent, 0);
+            this.allViolationsNum = includedUpTo[size];
+            this.violationsNum = includedUpTo[topNum];
+            this.truePositives = truePositivesUpTo[topNum];
+            this.type2number = new HashMap<ViolationType, Integer>();
+            for (ViolationType type : ViolationType.values()) {
+                this.type2number.put(type, 0);
+            }
+            for (int id = 1; id <= topNum; id++) {
+                if (this.included[id - 1]) {
+                    ViolationType type = this.types[id - 1];
+                    this.type2number.put(type, this.type2number.get(type) + 1);
+                }
+            }
+            if (isCancelled()) {
+                return null;
+            }
+
+            // compute the true positive rate for all percentages
+            int[] topViolations = new int[101];
+            int[] truePositives = new int[101];
+            int lastViolationsNum = 0;
+            for (int percentage = 0; percentage <= 100; percentage++) {
+                int violationsNum = getTopViolationsNum(this.defectIndicators,
+                        percentage, lastViolationsNum);
+                if (violationsNum <= lastViolationsNum) {
+                    violationsNum = lastViolationsNum;
+                }
+                topViolations[percentage] = includedUpTo[violationsNum];
+                truePositives[percentage] = truePositivesUpTo[violationsNum];
+                lastViolationsNum = topViolations[percentage];
+            }
+            this.truePositiveRateImage =
+                    createTruePositiveRateImage(topViolations, truePositives);
+            return null;
+        }
+
+
+        /* (non-Javadoc)
+         * @see javax.swing.SwingWorker#done()
+         */
+        @Override
+        protected void done() {
+            if (isCancelled() || this != statisticsWorker) {
+                return;
+            }
+            showStatistics(this);
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package org.softevo.jadet.violations.editor;
 
 import org.softevo.jadet.sca.*;
-import org.softevo.oumextractor.modelcreator1.model.Transition;
+import org.softevo.jadet.violations.editor.ViolationGraphCache.GraphListener;
+import org.softevo.jadet.violations.editor.ViolationGraphCache.GraphMode;
+import org.softevo.jadet.violations.editor.ViolationGraphCache.RenderedGraph;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
@@ -14,13 +16,12 @@ import javax.swing.text.Document;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is used to represent the details of the chosen violation.
@@ -61,6 +62,17 @@ public class ViolationDetailsPanel extends JPanel
      */
     private OutputVerbosity outputVerbosity;
 
+    /**
+     * Cache of the rendered graphs of violations.
+     */
+    private final ViolationGraphCache graphs;
+
+    /**
+     * Number of violations following the selected one, whose graphs are
+     * rendered in advance.
+     */
+    private static final int PREFETCHED_VIOLATIONS_NUM = 3;
+
     /**
      * Creates new violation details panel.
      *
@@ -69,12 +81,27 @@ public class ViolationDetailsPanel extends JPanel
      */
     public ViolationDetailsPanel(ViolationsEditor editor,
                                  StatisticsTab statistics) {
+        this(editor, statistics, new GraphvizRenderer());
+    }
+
+    /**
+     * Creates new violation details panel rendering graphs of violations
+     * with the given renderer.
+     *
+     * @param editor     Editor, in which the panel is created.
+     * @param statistics Statistics tab.
+     * @param renderer   Renderer to be used for graphs of violations.
+     */
+    public ViolationDetailsPanel(ViolationsEditor editor,
+                                 StatisticsTab statistics,
+                                 GraphRenderer renderer) {
         this.setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
         this.setBackground(Color.WHITE);
         this.editor = editor;
         this.statistics = statistics;
         this.violations = editor.getViolations();
         this.violation2rank = new HashMap<Violation, Integer>();
+        this.graphs = new ViolationGraphCache(renderer);
         int currentRank = 0;
         int lastRank = 0;
         double lastDefectIndicator = -1.0;
@@ -117,9 +144,10 @@ public class ViolationDetailsPanel extends JPanel
             setNoCurrentViolation();
             return;
         } else {
-            Violation violation = this.violations.get(
-                    model.getMinSelectionIndex());
+            int index = model.getMinSelectionIndex();
+            Violation violation = this.violations.get(index);
             setCurrentViolation(violation);
+            prefetchGraphs(index);
         }
     }
 
@@ -276,6 +304,7 @@ public class ViolationDetailsPanel extends JPanel
             }
             if (this.violation != null) {
                 this.setCurrentViolation(this.violation);
+                prefetchGraphs(this.violations.indexOf(this.violation));
             }
         } else if (e.getSource() instanceof JButton) {
             if (e.getActionCommand().equals("show_full_graphical_violation")) {
@@ -715,327 +744,116 @@ public class ViolationDetailsPanel extends JPanel
      * Creates a full graph of violation and shows it in a separate window.
      */
     private void showGraphicalViolation() {
-        try {
-            // get a set of missing transitions
-            Set<EventPair> patternProperties =
-                    this.violation.getPattern().getProperties();
-            Set<EventPair> missingProperties =
-                    this.violation.getMissingProperties();
-            Set<Transition> missingTransitions =
-                    getMissingTransitions(patternProperties, missingProperties);
-
-            // get a graph representation of the violation
-            String graph = getDotRepresentation(patternProperties,
-                    missingProperties, missingTransitions);
-            File graphFile = File.createTempFile("JADET", ".dot");
-            BufferedOutputStream out = new BufferedOutputStream(
-                    new FileOutputStream(graphFile));
-            out.write(graph.getBytes());
-            out.close();
-
-            // show a graph as an image
-            String title = "Violation id = " +
-                    (this.violations.indexOf(this.violation) + 1);
-            displayViolationFromFile(title, graphFile);
-        } catch (IOException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        }
+        final String title = "Violation id = " +
+                (this.violations.indexOf(this.violation) + 1);
+        this.graphs.requestGraph(this.violation, GraphMode.FULL,
+                this.outputVerbosity, new GraphListener() {
+                    public void graphRendered(RenderedGraph graph) {
+                        displayViolationImage(title, graph.getImage());
+                    }
+
+                    public void graphFailed(IOException e) {
+                        showRenderingError(e);
+                    }
+                });
     }
 
     /**
      * Creates a reduced graph of violation and shows it in a separate window.
      */
     private void showGraphicalViolationApproximation() {
-        try {
-            // get reduced constraints based on the pattern and the violation
-            // get a set of missing transitions
-            Set<EventPair> patternProperties =
-                    this.violation.getPattern().getProperties();
-            Set<EventPair> missingProperties =
-                    this.violation.getMissingProperties();
-            Set<Transition> missingTransitions =
-                    getMissingTransitions(patternProperties, missingProperties);
-
-            Set<EventPair> reducedPattern = new HashSet<EventPair>();
-            Set<EventPair> reducedViolation = new HashSet<EventPair>();
-            boolean noCycles = transitivelyReduceConstraints(
-                    patternProperties, reducedPattern);
-            noCycles &= transitivelyReduceConstraints(missingProperties,
-                    reducedViolation);
-            if (!noCycles) {
-                Object options[] = {"Yes, show the approximation",
-                        "No, show the full representation"};
-                int option = JOptionPane.showOptionDialog(this,
-                        "Graphical representation of the violation contains cycles.\n" +
-                                "Its approximation can be incomplete. You should use the full\n" +
-                                "representation instead. Are you sure you want to continue?",
-                        "Cycles in the representation",
-                        JOptionPane.YES_NO_OPTION,
-                        JOptionPane.WARNING_MESSAGE,
-                        null,
-                        options,
-                        options[1]);
-                if (option == 0) {
-                    // do nothing; the user wants to see the approximation
-                } else if (option == 1) {
-                    reducedPattern.addAll(patternProperties);
-                    reducedViolation.addAll(missingProperties);
-                } else {
-                    // the user closed the dialog without choosing an option
-                    return;
-                }
-            }
-
-            // get a graph representation of the violation
-            String graph = getDotRepresentation(reducedPattern,
-                    reducedViolation, missingTransitions);
-            File graphFile = File.createTempFile("JADET", ".dot");
-            BufferedOutputStream out = new BufferedOutputStream(
-                    new FileOutputStream(graphFile));
-            out.write(graph.getBytes());
-            out.close();
-
-            // show a graph as an image
-            String title = "Approximate violation id = " +
-                    (this.violations.indexOf(this.violation) + 1);
-            displayViolationFromFile(title, graphFile);
-        } catch (IOException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        }
-    }
-
-    /**
-     * Displays a violation from the given "dot" file.
-     *
-     * @param title   Title of the window.
-     * @param dotFile "dot" file containing the violation.
-     */
-    private void displayViolationFromFile(String title, File dotFile) {
-        try {
-            // convert the dot file into an image
-            File outputFile = File.createTempFile("JADET", ".gif");
-            String cmdarray[] = {"./dot2gif", dotFile.getAbsolutePath(),
-                    outputFile.getAbsolutePath()};
-            Runtime runtime = Runtime.getRuntime();
-            Process process = runtime.exec(cmdarray);
-            process.waitFor();
-
-            // show the image in a new window
-            ImageIcon image = new ImageIcon(outputFile.getAbsolutePath());
-            JFrame frame = new JFrame(title);
-            frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-            JLabel imageLabel = new JLabel();
-            imageLabel.setIcon(image);
-            JScrollPane scroller = new JScrollPane(imageLabel);
-            frame.add(scroller);
-            frame.pack();
-            frame.setVisible(true);
-        } catch (IOException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        } catch (InterruptedException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        }
-    }
+        final Violation violation = this.violation;
+        final OutputVerbosity outputVerbosity = this.outputVerbosity;
+        final String title = "Approximate violation id = " +
+                (this.violations.indexOf(violation) + 1);
+        this.graphs.requestGraph(violation, GraphMode.APPROXIMATE,
+                outputVerbosity, new GraphListener() {
+                    public void graphRendered(RenderedGraph graph) {
+                        if (graph.hasNoCycles()) {
+                            displayViolationImage(title, graph.getImage());
+                            return;
+                        }
+                        Object options[] = {"Yes, show the approximation",
+                                "No, show the full representation"};
+                        int option = JOptionPane.showOptionDialog(
+                                ViolationDetailsPanel.this,
+                                "Graphical representation of the violation contains cycles.\n" +
+                                        "Its approximation can be incomplete. You should use the full\n" +
+                                        "representation instead. Are you sure you want to continue?",
+                                "Cycles in the representation",
+                                JOptionPane.YES_NO_OPTION,
+                                JOptionPane.WARNING_MESSAGE,
+                                null,
+                                options,
+                                options[1]);
+                        if (option == 0) {
+                            // the user wants to see the approximation
+                            displayViolationImage(title, graph.getImage());
+                        } else if (option == 1) {
+                            graphs.requestGraph(violation, GraphMode.FULL,
+                                    outputVerbosity, new GraphListener() {
+                                        public void graphRendered(RenderedGraph graph) {
+                                            displayViolationImage(title, graph.getImage());
+                                        }
+
+                                        public void graphFailed(IOException e) {
+                                            showRenderingError(e);
+                                        }
+                                    });
+                        } else {
+                            // the user closed the dialog without choosing an option
+                        }
+                    }
 
-    /**
-     * Returns a "dot" representation of the given violation.
-     *
-     * @param pattern            Pattern that is being violated.
-     * @param missingProperties  Properties that are missing in the violation.
-     * @param missingTransitions Transitions that are only in the violation.
-     * @return "dot" representation of the given violation.
-     */
-    private String getDotRepresentation(Set<EventPair> pattern,
-                                        Set<EventPair> missingProperties, Set<Transition> missingTransitions) {
-        // assign unique ids to constraints
-        Map<Transition, Integer> transition2id = assignIdsToTransitions(pattern);
-
-        // create the "dot" representation
-        StringBuffer repr = new StringBuffer("digraph {\n");
-        repr.append("bgcolor=\"white\";\n");
-        repr.append("node [shape=\"plaintext\"];\n");
-        for (Transition transition : transition2id.keySet()) {
-            repr.append("\"").append(transition2id.get(transition)).append("\"");
-            repr.append(" [label=\"");
-            switch (this.outputVerbosity) {
-                case FULL:
-                    repr.append(transition.getLongEventString());
-                    break;
-                case SHORT:
-                    repr.append(transition.getShortEventString());
-                    break;
-                case VERY_SHORT:
-                    repr.append(transition.getVeryShortEventString());
-                    break;
-            }
-            repr.append("\"");
-            if (missingTransitions.contains(transition)) {
-                repr.append(",fontcolor=red");
-            } else {
-                repr.append(",fontcolor=blue");
-            }
-            repr.append("];\n");
-        }
-        for (EventPair pair : pattern) {
-            if (missingProperties.contains(pair)) {
-                continue;
-            }
-            int left = transition2id.get(pair.getLeft());
-            int right = transition2id.get(pair.getRight());
-            repr.append("\"").append(left).append("\"");
-            repr.append("->");
-            repr.append("\"").append(right).append("\"");
-            repr.append(" [color=blue, style=bold]");
-            repr.append(";\n");
-        }
-        for (EventPair pair : missingProperties) {
-            int left = transition2id.get(pair.getLeft());
-            int right = transition2id.get(pair.getRight());
-            repr.append("\"").append(left).append("\"");
-            repr.append("->");
-            repr.append("\"").append(right).append("\"");
-            if (!missingTransitions.contains(pair.getLeft()) &&
-                    !missingTransitions.contains(pair.getRight())) {
-                repr.append(" [color=red]");
-            } else {
-                repr.append(" [color=pink]");
-            }
-            repr.append(";\n");
-        }
-        repr.append("}");
-        return repr.toString();
+                    public void graphFailed(IOException e) {
+                        showRenderingError(e);
+                    }
+                });
     }
 
     /**
-     * Finds a set of missing transitions (i.e., those that occur only in
-     * the missing properties).
+     * Starts rendering graphs of the violation with the given index and of
+     * the few violations following it in the table.
      *
-     * @param patternProperties Properties that occur in the pattern.
-     * @param missingProperties Properties that are missing in the violation.
-     * @return Set of missing transitions.
+     * @param index Index of the first violation to prefetch.
      */
-    private Set<Transition> getMissingTransitions(
-            Set<EventPair> patternProperties,
-            Set<EventPair> missingProperties) {
-        Set<EventPair> presentProperties =
-                new HashSet<EventPair>(patternProperties);
-        presentProperties.removeAll(missingProperties);
-        Set<Transition> missingTransitions = new HashSet<Transition>();
-        for (EventPair property : missingProperties) {
-            missingTransitions.add(property.getLeft());
-            missingTransitions.add(property.getRight());
-        }
-        for (EventPair property : presentProperties) {
-            missingTransitions.remove(property.getLeft());
-            missingTransitions.remove(property.getRight());
-        }
-        return missingTransitions;
+    private void prefetchGraphs(int index) {
+        int end = Math.min(index + 1 + PREFETCHED_VIOLATIONS_NUM,
+                this.violations.size());
+        List<Violation> prefetched = new ArrayList<Violation>(
+                this.violations.subList(index, end));
+        this.graphs.prefetchGraphs(prefetched, GraphMode.FULL,
+                this.outputVerbosity);
     }
 
     /**
-     * Does a transitive reduction on the given set of constraints.
+     * Displays the given image of a violation in a new window.
      *
-     * @param constraints        Set of constraints to reduce.
-     * @param reducedConstraints Output parameter with transitive reduction
-     *                           of the set of constraints given as the first
-     *                           parameter.
-     * @return <code>true</code> if there were no cycles; <code>false</code>
-     * otherwise.
+     * @param title Title of the window.
+     * @param image Image of the violation.
      */
-    private boolean transitivelyReduceConstraints(Set<EventPair> constraints,
-                                                  Set<EventPair> reducedConstraints) {
-        try {
-            boolean noCycles = true;
-
-            // map transitions to ids and vice versa
-            Map<Transition, Integer> transition2id = assignIdsToTransitions(constraints);
-            Map<Integer, Transition> id2transition = new HashMap<Integer, Transition>();
-            for (Transition transition : transition2id.keySet()) {
-                Integer id = transition2id.get(transition);
-                id2transition.put(id, transition);
-            }
-
-            // create the graph file with constraints
-            StringBuffer graph = new StringBuffer();
-            graph.append("digraph {\n");
-            for (EventPair pair : constraints) {
-                int left = transition2id.get(pair.getLeft());
-                int right = transition2id.get(pair.getRight());
-                if (left == right) {
-                    return false;
-                }
-                graph.append(left).append("->").append(right).append(";\n");
-            }
-            graph.append("}\n");
-
-            // write the graph file
-            File inputFile = File.createTempFile("JADET", ".dot");
-            BufferedOutputStream out = new BufferedOutputStream(
-                    new FileOutputStream(inputFile));
-            out.write(graph.toString().getBytes());
-            out.close();
-
-            // use tred to compute the transitive reduction
-            String cmdarray[] = {"tred", inputFile.getAbsolutePath()};
-            Runtime runtime = Runtime.getRuntime();
-            Process process = runtime.exec(cmdarray);
-            process.waitFor();
-            if (process.getErrorStream().available() > 0) {
-                noCycles = false;
-            }
-
-            // read the constraints from the output graph
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()));
-            String line;
-            Pattern edgePattern = Pattern.compile("\\s*\"?+(\\d+)\"?+\\s*->\\s*\"?+(\\d+)\"?+.*");
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = edgePattern.matcher(line);
-                if (matcher.matches()) {
-                    int left = Integer.valueOf(matcher.group(1));
-                    int right = Integer.valueOf(matcher.group(2));
-                    Transition transitionLeft = id2transition.get(left);
-                    Transition transitionRight = id2transition.get(right);
-                    EventPair pair = EventPair.get(transitionLeft,
-                            transitionRight);
-                    reducedConstraints.add(pair);
-                }
-            }
-            reader.close();
-            return noCycles;
-        } catch (IOException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        } catch (InterruptedException e) {
-            e.printStackTrace(System.err);
-            throw new InternalError();
-        }
+    private void displayViolationImage(String title, BufferedImage image) {
+        JFrame frame = new JFrame(title);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        JLabel imageLabel = new JLabel();
+        imageLabel.setIcon(new ImageIcon(image));
+        JScrollPane scroller = new JScrollPane(imageLabel);
+        frame.add(scroller);
+        frame.pack();
+        frame.setVisible(true);
     }
 
     /**
-     * Assigns unique id to each transition from the given set of events.
+     * Informs the user that a graph of a violation could not be rendered.
      *
-     * @param events Events to consider.
-     * @return Mapping from transition to id.
+     * @param e Cause of the failure.
      */
-    private Map<Transition, Integer> assignIdsToTransitions(Set<EventPair> events) {
-        Map<Transition, Integer> transition2id = new HashMap<Transition, Integer>();
-        for (EventPair pair : events) {
-            Transition left = pair.getLeft();
-            Transition right = pair.getRight();
-            if (!transition2id.containsKey(left)) {
-                int id = transition2id.size() + 1;
-                transition2id.put(left, id);
-            }
-            if (!transition2id.containsKey(right)) {
-                int id = transition2id.size() + 1;
-                transition2id.put(right, id);
-            }
-        }
-        return transition2id;
+    private void showRenderingError(IOException e) {
+        e.printStackTrace(System.err);
+        JOptionPane.showMessageDialog(this,
+                "Graphical representation of the violation could not be created:\n" +
+                        e.getMessage(),
+                "Rendering failed",
+                JOptionPane.ERROR_MESSAGE);
     }
 }
@@ -0,0 +1,729 @@
+package org.softevo.jadet.violations.editor;
+
+
+import org.softevo.catools.Pattern;
+import org.softevo.jadet.sca.EventPair;
+import org.softevo.jadet.sca.Method;
+import org.softevo.jadet.sca.OutputVerbosity;
+import org.softevo.jadet.sca.Violation;
+import org.softevo.jutil.Pair;
+import org.softevo.oumextractor.modelcreator1.model.Transition;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+
+
+/**
+ * This class renders graphical representations of violations in the
+ * background and caches the rendered images. The images are kept in the
+ * least-recently-used order and evicted once their total size exceeds a
+ * limit. Rendering itself is delegated to a graph renderer.
+ */
+class ViolationGraphCache {
+
+    /**
+     * Kinds of graphical representations of a violation.
+     */
+    enum GraphMode {
+        /**
+         * Full graph of the violation.
+         */
+        FULL,
+        /**
+         * Graph of the transitive reduction of the violation.
+         */
+        APPROXIMATE
+    }
+
+
+    /**
+     * Classes implementing this interface are notified (in the event dispatch
+     * thread) about the results of rendering.
+     */
+    interface GraphListener {
+
+        /**
+         * Called when the requested graph has been rendered.
+         *
+         * @param graph Rendered graph.
+         */
+        void graphRendered(RenderedGraph graph);
+
+
+        /**
+         * Called when the requested graph could not be rendered.
+         *
+         * @param e Cause of the failure.
+         */
+        void graphFailed(IOException e);
+    }
+
+
+    /**
+     * Maximal total size (in bytes) of the images kept in the cache.
+     */
+    private static final long MAX_CACHED_BYTES = 64L * 1024 * 1024;
+
+
+    /**
+     * Number of threads used for rendering.
+     */
+    private static final int THREADS_NUM = 2;
+
+
+    /**
+     * Pattern of edges in the output of the transitive reduction.
+     */
+    private static final java.util.regex.Pattern EDGE_PATTERN =
+            java.util.regex.Pattern.compile(
+                    "\\s*\"?+(\\d+)\"?+\\s*->\\s*\"?+(\\d+)\"?+.*");
+
+
+    /**
+     * Renderer used to lay out and render the graphs.
+     */
+    private final GraphRenderer renderer;
+
+
+    /**
+     * Executor running the rendering tasks; the requested graphs are
+     * rendered before the prefetched ones.
+     */
+    private final ThreadPoolExecutor executor;
+
+
+    /**
+     * Mapping from graphs' keys to rendering tasks, in the access order.
+     */
+    private final LinkedHashMap<GraphKey, RenderTask> key2task;
+
+
+    /**
+     * Total size (in bytes) of the rendered images in the cache.
+     */
+    private long cachedBytes;
+
+
+    /**
+     * Sequence number of the next task created.
+     */
+    private long nextSequenceNumber;
+
+
+    /**
+     * Creates a new cache rendering graphs with the given renderer.
+     *
+     * @param renderer Renderer to be used to lay out and render the graphs.
+     */
+    ViolationGraphCache(GraphRenderer renderer) {
+        this.renderer = renderer;
+        this.key2task = new LinkedHashMap<GraphKey, RenderTask>(16, 0.75f, true);
+        this.cachedBytes = 0;
+        this.nextSequenceNumber = 0;
+        this.executor = new ThreadPoolExecutor(THREADS_NUM, THREADS_NUM,
+                0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "JADET graph renderer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+
+    /**
+     * Requests the given graph of the given violation. The listener is
+     * notified in the event dispatch thread, immediately if the graph has
+     * already been rendered.
+     *
+     * @param violation Violation to render.
+     * @param mode      Kind of the graph to render.
+     * @param verbosity Verbosity of the labels in the graph.
+     * @param listener  Listener to be notified about the result.
+     */
+    void requestGraph(Violation violation, GraphMode mode,
+                      OutputVerbosity verbosity, GraphListener listener) {
+        RenderTask task;
+        synchronized (this) {
+            task = getTask(new GraphKey(violation, mode, verbosity), true);
+            if (!task.isDone()) {
+                task.listeners.add(listener);
+                return;
+            }
+        }
+        notifyListener(task, listener);
+    }
+
+
+    /**
+     * Schedules rendering of the given graphs of the given violations in the
+     * background. Graphs scheduled by a previous call and not yet being
+     * rendered are dropped, unless they are scheduled again.
+     *
+     * @param violations Violations to render, most important first.
+     * @param mode       Kind of the graphs to render.
+     * @param verbosity  Verbosity of the labels in the graphs.
+     */
+    synchronized void prefetchGraphs(List<Violation> violations,
+                                     GraphMode mode, OutputVerbosity verbosity) {
+        Set<GraphKey> keys = new LinkedHashSet<GraphKey>();
+        for (Violation violation : violations) {
+            keys.add(new GraphKey(violation, mode, verbosity));
+        }
+
+        // drop the stale prefetches that have not started yet
+        Iterator<RenderTask> iter = this.key2task.values().iterator();
+        while (iter.hasNext()) {
+            RenderTask task = iter.next();
+            if (!task.requested && !keys.contains(task.key) &&
+                    this.executor.remove(task)) {
+                iter.remove();
+            }
+        }
+
+        for (GraphKey key : keys) {
+            getTask(key, false);
+        }
+    }
+
+
+    /**
+     * Returns the task rendering the graph with the given key, creating and
+     * scheduling it if necessary.
+     *
+     * @param key       Key of the graph.
+     * @param requested <code>true</code> if the graph is explicitly requested,
+     *                  <code>false</code> if it is only prefetched.
+     * @return Task rendering the graph.
+     */
+    private RenderTask getTask(GraphKey key, boolean requested) {
+        RenderTask task = this.key2task.get(key);
+        if (task == null) {
+            task = new RenderTask(key, this.nextSequenceNumber++, requested);
+            this.key2task.put(key, task);
+            this.executor.execute(task);
+        } else if (requested && !task.requested) {
+            // move the task ahead of the prefetched ones, if still waiting
+            if (this.executor.remove(task)) {
+                task.requested = true;
+                this.executor.execute(task);
+            } else {
+                task.requested = true;
+            }
+        }
+        return task;
+    }
+
+
+    /**
+     * Updates the cache after the given task has finished and evicts the
+     * least recently used images, if the cache got too big.
+     *
+     * @param task Task that has finished.
+     * @return Listeners of the task to be notified.
+     */
+    private synchronized List<GraphListener> taskFinished(RenderTask task) {
+        List<GraphListener> listeners =
+                new ArrayList<GraphListener>(task.listeners);
+        task.listeners.clear();
+        if (this.key2task.get(task.key) != task) {
+            return listeners;
+        }
+        if (task.image == null) {
+            // failed; let the next request try again
+            this.key2task.remove(task.key);
+            return listeners;
+        }
+
+        this.cachedBytes += task.bytes;
+        Iterator<RenderTask> iter = this.key2task.values().iterator();
+        while (this.cachedBytes > MAX_CACHED_BYTES && iter.hasNext()) {
+            RenderTask eldest = iter.next();
+            if (eldest != task && eldest.isDone()) {
+                iter.remove();
+                this.cachedBytes -= eldest.bytes;
+            }
+        }
+        return listeners;
+    }
+
+
+    /**
+     * Notifies the given listener (in the event dispatch thread) about the
+     * result of the given finished task.
+     *
+     * @param task     Finished task.
+     * @param listener Listener to be notified.
+     */
+    private static void notifyListener(final RenderTask task,
+                                       final GraphListener listener) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                try {
+                    listener.graphRendered(task.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        listener.graphFailed((IOException) e.getCause());
+                    } else {
+                        throw new RuntimeException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    throw new InternalError();
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Renders the graph with the given key.
+     *
+     * @param key Key of the graph to render.
+     * @return Rendered graph.
+     * @throws IOException if the graph could not be rendered.
+     */
+    private RenderedGraph render(GraphKey key) throws IOException {
+        // get a set of missing transitions
+        Set<EventPair> patternProperties =
+                key.violation.getPattern().getProperties();
+        Set<EventPair> missingProperties = key.violation.getMissingProperties();
+        Set<Transition> missingTransitions =
+                getMissingTransitions(patternProperties, missingProperties);
+
+        // get a graph representation of the violation
+        boolean noCycles = true;
+        String graph;
+        if (key.mode == GraphMode.FULL) {
+            graph = getDotRepresentation(patternProperties,
+                    missingProperties, missingTransitions, key.verbosity);
+        } else {
+            Set<EventPair> reducedPattern = new HashSet<EventPair>();
+            Set<EventPair> reducedViolation = new HashSet<EventPair>();
+            noCycles = transitivelyReduceConstraints(patternProperties,
+                    reducedPattern);
+            noCycles &= transitivelyReduceConstraints(missingProperties,
+                    reducedViolation);
+            graph = getDotRepresentation(reducedPattern, reducedViolation,
+                    missingTransitions, key.verbosity);
+        }
+        return new RenderedGraph(this.renderer.render(graph), noCycles);
+    }
+
+
+    /**
+     * Returns a "dot" representation of the given violation.
+     *
+     * @param pattern            Pattern that is being violated.
+     * @param missingProperties  Properties that are missing in the violation.
+     * @param missingTransitions Transitions that are only in the violation.
+     * @param verbosity          Verbosity of the labels.
+     * @return "dot" representation of the given violation.
+     */
+    private static String getDotRepresentation(Set<EventPair> pattern,
+                                               Set<EventPair> missingProperties,
+                                               Set<Transition> missingTransitions,
+                                               OutputVerbosity verbosity) {
+        // assign unique ids to constraints
+        Map<Transition, Integer> transition2id = assignIdsToTransitions(pattern);
+
+        // create the "dot" representation
+        StringBuffer repr = new StringBuffer("digraph {\n");
+        repr.append("bgcolor=\"white\";\n");
+        repr.append("node [shape=\"plaintext\"];\n");
+        for (Transition transition : transition2id.keySet()) {
+            repr.append("\"").append(transition2id.get(transition)).append("\"");
+            repr.append(" [label=\"");
+            switch (verbosity) {
+                case FULL:
+                    repr.append(transition.getLongEventString());
+                    break;
+                case SHORT:
+                    repr.append(transition.getShortEventString());
+                    break;
+                case VERY_SHORT:
+                    repr.append(transition.getVeryShortEventString());
+                    break;
+            }
+            repr.append("\"");
+            if (missingTransitions.contains(transition)) {
+                repr.append(",fontcolor=red");
+            } else {
+                repr.append(",fontcolor=blue");
+            }
+            repr.append("];\n");
+        }
+        for (EventPair pair : pattern) {
+            if (missingProperties.contains(pair)) {
+                continue;
+            }
+            int left = transition2id.get(pair.getLeft());
+            int right = transition2id.get(pair.getRight());
+            repr.append("\"").append(left).append("\"");
+            repr.append("->");
+            repr.append("\"").append(right).append("\"");
+            repr.append(" [color=blue, style=bold]");
+            repr.append(";\n");
+        }
+        for (EventPair pair : missingProperties) {
+            int left = transition2id.get(pair.getLeft());
+            int right = transition2id.get(pair.getRight());
+            repr.append("\"").append(left).append("\"");
+            repr.append("->");
+            repr.append("\"").append(right).append("\"");
+            if (!missingTransitions.contains(pair.getLeft()) &&
+                    !missingTransitions.contains(pair.getRight())) {
+                repr.append(" [color=red]");
+            } else {
+                repr.append(" [color=pink]");
+            }
+            repr.append(";\n");
+        }
+        repr.append("}");
+        return repr.toString();
+    }
+
+
+    /**
+     * Finds a set of missing transitions (i.e., those that occur only in
+     * the missing properties).
+     *
+     * @param patternProperties Properties that occur in the pattern.
+     * @param missingProperties Properties that are missing in the violation.
+     * @return Set of missing transitions.
+     */
+    private static Set<Transition> getMissingTransitions(
+            Set<EventPair> patternProperties,
+            Set<EventPair> missingProperties) {
+        Set<EventPair> presentProperties =
+                new HashSet<EventPair>(patternProperties);
+        presentProperties.removeAll(missingProperties);
+        Set<Transition> missingTransitions = new HashSet<Transition>();
+        for (EventPair property : missingProperties) {
+            missingTransitions.add(property.getLeft());
+            missingTransitions.add(property.getRight());
+        }
+        for (EventPair property : presentProperties) {
+            missingTransitions.remove(property.getLeft());
+            missingTransitions.remove(property.getRight());
+        }
+        return missingTransitions;
+    }
+
+
+    /**
+     * Does a transitive reduction on the given set of constraints.
+     *
+     * @param constraints        Set of constraints to reduce.
+     * @param reducedConstraints Output parameter with transitive reduction
+     *                           of the set of constraints given as the first
+     *                           parameter.
+     * @return <code>true</code> if there were no cycles; <code>false</code>
+     * otherwise.
+     * @throws IOException if the reduction could not be computed.
+     */
+    private boolean transitivelyReduceConstraints(Set<EventPair> constraints,
+                                                  Set<EventPair> reducedConstraints)
+            throws IOException {
+        // map transitions to ids and edges to constraints
+        Map<Transition, Integer> transition2id = assignIdsToTransitions(constraints);
+        Map<Pair<Integer, Integer>, EventPair> edge2constraint =
+                new HashMap<Pair<Integer, Integer>, EventPair>();
+
+        // create the graph with constraints
+        StringBuffer graph = new StringBuffer();
+        graph.append("digraph {\n");
+        for (EventPair pair : constraints) {
+            int left = transition2id.get(pair.getLeft());
+            int right = transition2id.get(pair.getRight());
+            if (left == right) {
+                return false;
+            }
+            edge2constraint.put(new Pair<Integer, Integer>(left, right), pair);
+            graph.append(left).append("->").append(right).append(";\n");
+        }
+        graph.append("}\n");
+
+        // compute the transitive reduction
+        StringBuffer reducedGraph = new StringBuffer();
+        boolean noCycles = this.renderer.transitivelyReduce(graph.toString(),
+                reducedGraph);
+
+        // read the constraints from the output graph
+        for (String line : reducedGraph.toString().split("\n")) {
+            Matcher matcher = EDGE_PATTERN.matcher(line);
+            if (matcher.matches()) {
+                int left = Integer.valueOf(matcher.group(1));
+                int right = Integer.valueOf(matcher.group(2));
+                EventPair pair = edge2constraint.get(
+                        new Pair<Integer, Integer>(left, right));
+                if (pair != null) {
+                    reducedConstraints.add(pair);
+                }
+            }
+        }
+        return noCycles;
+    }
+
+
+    /**
+     * Assigns unique id to each transition from the given set of events.
+     *
+     * @param events Events to consider.
+     * @return Mapping from transition to id.
+     */
+    private static Map<Transition, Integer> assignIdsToTransitions(
+            Set<EventPair> events) {
+        Map<Transition, Integer> transition2id = new HashMap<Transition, Integer>();
+        for (EventPair pair : events) {
+            Transition left = pair.getLeft();
+            Transition right = pair.getRight();
+            if (!transition2id.containsKey(left)) {
+                int id = transition2id.size() + 1;
+                transition2id.put(left, id);
+            }
+            if (!transition2id.containsKey(right)) {
+                int id = transition2id.size() + 1;
+                transition2id.put(right, id);
+            }
+        }
+        return transition2id;
+    }
+
+
+    /**
+     * Instances of this class represent rendered graphs of violations.
+     */
+    static final class RenderedGraph {
+
+        /**
+         * Image of the graph.
+         */
+        private final BufferedImage image;
+
+
+        /**
+         * Indicates if the graph had no cycles.
+         */
+        private final boolean noCycles;
+
+
+        /**
+         * Creates a new rendered graph.
+         *
+         * @param image    Image of the graph.
+         * @param noCycles Indicates if the graph had no cycles.
+         */
+        RenderedGraph(BufferedImage image, boolean noCycles) {
+            this.image = image;
+            this.noCycles = noCycles;
+        }
+
+
+        /**
+         * Returns the image of the graph.
+         *
+         * @return Image of the graph.
+         */
+        BufferedImage getImage() {
+            return this.image;
+        }
+
+
+        /**
+         * Indicates if the graph had no cycles. Approximate graphs with
+         * cycles can be incomplete.
+         *
+         * @return <code>true</code> if there were no cycles;
+         * <code>false</code> otherwise.
+         */
+        boolean hasNoCycles() {
+            return this.noCycles;
+        }
+    }
+
+
+    /**
+     * Instances of this class identify graphs of violations. Violations and
+     * their patterns are compared by identity.
+     */
+    private static final class GraphKey {
+
+        /**
+         * Violation to be rendered.
+         */
+        private final Violation violation;
+
+
+        /**
+         * Pattern violated by the violation.
+         */
+        private final Pattern<Method, EventPair> pattern;
+
+
+        /**
+         * Kind of the graph.
+         */
+        private final GraphMode mode;
+
+
+        /**
+         * Verbosity of the labels in the graph.
+         */
+        private final OutputVerbosity verbosity;
+
+
+        /**
+         * Creates a new key of the given graph.
+         *
+         * @param violation Violation to be rendered.
+         * @param mode      Kind of the graph.
+         * @param verbosity Verbosity of the labels in the graph.
+         */
+        GraphKey(Violation violation, GraphMode mode,
+                 OutputVerbosity verbosity) {
+            this.violation = violation;
+            this.pattern = violation.getPattern();
+            this.mode = mode;
+            this.verbosity = verbosity;
+        }
+
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GraphKey)) {
+                return false;
+            }
+            GraphKey other = (GraphKey) o;
+            return this.violation == other.violation &&
+                    this.pattern == other.pattern &&
+                    this.mode == other.mode &&
+                    this.verbosity == other.verbosity;
+        }
+
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(this.violation);
+            result = 31 * result + System.identityHashCode(this.pattern);
+            result = 31 * result + this.mode.hashCode();
+            result = 31 * result + this.verbosity.hashCode();
+            return result;
+        }
+    }
+
+
+    /**
+     * Instances of this class render single graphs. Requested tasks are
+     * ordered before prefetched ones, otherwise tasks are ordered by their
+     * creation.
+     */
+    private final class RenderTask extends FutureTask<RenderedGraph>
+            implements Comparable<RenderTask> {
+
+        /**
+         * Key of the graph rendered.
+         */
+        private final GraphKey key;
+
+
+        /**
+         * Sequence number of this task.
+         */
+        private final long sequenceNumber;
+
+
+        /**
+         * Indicates if the graph was explicitly requested.
+         */
+        private volatile boolean requested;
+
+
+        /**
+         * Listeners waiting for the graph (guarded by the cache).
+         */
+        private final List<GraphListener> listeners;
+
+
+        /**
+         * Rendered image or <code>null</code>, if not (successfully)
+         * rendered yet.
+         */
+        private volatile BufferedImage image;
+
+
+        /**
+         * Approximate size of the rendered image in bytes.
+         */
+        private long bytes;
+
+
+        /**
+         * Creates a new task rendering the graph with the given key.
+         *
+         * @param key            Key of the graph to render.
+         * @param sequenceNumber Sequence number of the task.
+         * @param requested      Indicates if the graph was explicitly
+         *                       requested.
+         */
+        RenderTask(final GraphKey key, long sequenceNumber,
+                   boolean requested) {
+            super(new Callable<RenderedGraph>() {
+                public RenderedGraph call() throws IOException {
+                    return render(key);
+                }
+            });
+            this.key = key;
+            this.sequenceNumber = sequenceNumber;
+            this.requested = requested;
+            this.listeners = new ArrayList<GraphListener>();
+            this.image = null;
+            this.bytes = 0;
+        }
+
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.FutureTask#set(java.lang.Object)
+         */
+        @Override
+        protected void set(RenderedGraph graph) {
+            BufferedImage image = graph.getImage();
+            this.bytes = 4L * image.getWidth() * image.getHeight();
+            this.image = image;
+            super.set(graph);
+        }
+
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.FutureTask#done()
+         */
+        @Override
+        protected void done() {
+            for (GraphListener listener : taskFinished(this)) {
+                notifyListener(this, listener);
+            }
+        }
+
+
+        /* (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(RenderTask other) {
+            if (this.requested != other.requested) {
+                return this.requested ? -1 : 1;
+            }
+            return Long.compare(this.sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
@@ -21,10 +21,15 @@ package de.uni_passau.fim.se2.litterbox;
 import com.google.common.io.Files;
 import de.uni_passau.fim.se2.litterbox.analytics.*;
 import de.uni_passau.fim.se2.litterbox.ast.ParsingException;
+import de.uni_passau.fim.se2.litterbox.utils.Downloader;
 import de.uni_passau.fim.se2.litterbox.utils.IssueTranslator;
+import de.uni_passau.fim.se2.litterbox.utils.ProjectPack;
+import de.uni_passau.fim.se2.litterbox.utils.ProjectPackWriter;
 import org.apache.commons.cli.*;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import static de.uni_passau.fim.se2.litterbox.utils.GroupConstants.*;
 
@@ -38,6 +43,10 @@ public class Main {
     private static final String NONDET_SHORT = "n";
     private static final String STATS = "stats";
     private static final String STATS_SHORT = "s";
+    private static final String DAEMON = "daemon";
+    private static final String DAEMON_SHORT = "m";
+    private static final String PACK = "pack";
+    private static final String PACK_SHORT = "b";
     private static final String HELP = "help";
     private static final String HELP_SHORT = "h";
 
@@ -49,6 +58,10 @@ public class Main {
     private static final String PROJECTLIST_SHORT = "t";
     private static final String DELETE_PROJECT_AFTERWARDS = "delete";
     private static final String DELETE_PROJECT_AFTERWARDS_SHORT = "del";
+    private static final String DOWNLOAD_URL = "downloadurl";
+    private static final String DOWNLOAD_URL_SHORT = "u";
+    private static final String WATCH = "watch";
+    private static final String WATCH_SHORT = "w";
 
     private static final String OUTPUT_LANG = "lang";
     private static final String OUTPUT_LANG_SHORT = "k";
@@ -60,6 +73,10 @@ public class Main {
     private static final String DETECTORS_SHORT = "d";
     private static final String IGNORE_LOOSE_BLOCKS = "ignoreloose";
     private static final String IGNORE_LOOSE_BLOCKS_SHORT = "g";
+    private static final String PORT = "port";
+    private static final String PORT_SHORT = "r";
+    private static final String COMPRESS = "compress";
+    private static final String COMPRESS_SHORT = "z";
 
     private Main() {
     }
@@ -71,6 +88,10 @@ public class Main {
         mainMode.addOption(new Option(CHECK_SHORT, CHECK, false, "Check specified Scratch projects for issues"));
         mainMode.addOption(new Option(LEILA_SHORT, LEILA, false, "Translate specified Scratch projects to Leila"));
         mainMode.addOption(new Option(STATS_SHORT, STATS, false, "Extract metrics for Scratch projects"));
+        mainMode.addOption(new Option(DAEMON_SHORT, DAEMON, false,
+                "Keep running and check Scratch projects on request (JSON lines on stdin, or on --port)"));
+        mainMode.addOption(new Option(PACK_SHORT, PACK, false,
+                "Add Scratch projects to a pack (" + ProjectPack.EXTENSION + " file) that can be analysed instead"));
         mainMode.addOption(new Option(HELP_SHORT, HELP, false, "print this message"));
 
         Options options = new Options();
@@ -89,6 +110,10 @@ public class Main {
         options.addOption(new Option(PROJECTPATH_SHORT, PROJECTPATH, true,
                 "path to folder or file that should be analyzed, or path in which to store downloaded projects"));
         options.addOption(new Option(DELETE_PROJECT_AFTERWARDS_SHORT, DELETE_PROJECT_AFTERWARDS, false, "indicates if project files should be deleted after analysing them"));
+        options.addOption(new Option(DOWNLOAD_URL_SHORT, DOWNLOAD_URL, true,
+                "URL of the server to download projects from (default: " + Downloader.DEFAULT_BASE_URL + ")"));
+        options.addOption(new Option(WATCH_SHORT, WATCH, false,
+                "keep watching the folder given by path and analyse projects as soon as they are added or changed"));
 
         // Output options
         options.addOption(OUTPUT_SHORT, OUTPUT, true,
@@ -109,6 +134,9 @@ public class Main {
         options.addOption(OUTPUT_LANG_SHORT, OUTPUT_LANG, true, "language of hints in the output");
 
         options.addOption(IGNORE_LOOSE_BLOCKS_SHORT, IGNORE_LOOSE_BLOCKS, false, "ignore loose blocks when checking bug patterns");
+        options.addOption(PORT_SHORT, PORT, true, "usage with --daemon: port on the local host to accept requests on, "
+                + "instead of reading them from stdin");
+        options.addOption(COMPRESS_SHORT, COMPRESS, false, "usage with --pack: compress the projects added");
 
         return options;
     }
@@ -158,6 +186,44 @@ public class Main {
         runAnalysis(cmd, analyzer);
     }
 
+    static void runDaemon(CommandLine cmd) throws ParseException, IOException {
+        String detectors = cmd.getOptionValue(DETECTORS, DEFAULT);
+        boolean ignoreLooseBlocks = cmd.hasOption(IGNORE_LOOSE_BLOCKS);
+        int threads = Runtime.getRuntime().availableProcessors();
+        try (AnalysisDaemon daemon = new AnalysisDaemon(detectors, ignoreLooseBlocks, threads)) {
+            if (cmd.hasOption(PORT)) {
+                int port;
+                try {
+                    port = Integer.parseInt(cmd.getOptionValue(PORT));
+                } catch (NumberFormatException e) {
+                    throw new ParseException("Invalid port: " + cmd.getOptionValue(PORT));
+                }
+                daemon.listen(port);
+            } else {
+                daemon.serve(System.in, System.out);
+            }
+        }
+    }
+
+    static void packPrograms(CommandLine cmd) throws ParseException, IOException {
+        if (!cmd.hasOption(OUTPUT)) {
+            throw new ParseException("Output path option '" + OUTPUT + "' required");
+        }
+
+        if (!cmd.hasOption(PROJECTPATH)) {
+            throw new ParseException("Input path option '" + PROJECTPATH + "' required");
+        }
+
+        Path packPath = Paths.get(cmd.getOptionValue(OUTPUT));
+        if (!ProjectPack.isPack(packPath)) {
+            throw new ParseException("Output path of a pack must end with " + ProjectPack.EXTENSION);
+        }
+        try (ProjectPackWriter writer = new ProjectPackWriter(packPath, cmd.hasOption(COMPRESS))) {
+            int count = writer.addProjects(Paths.get(cmd.getOptionValue(PROJECTPATH)));
+            System.out.println("Added " + count + " projects to " + packPath);
+        }
+    }
+
     static void translatePrograms(CommandLine cmd) throws ParseException, IOException {
         if (!cmd.hasOption(OUTPUT)) {
             throw new ParseException("Output path option '" + OUTPUT + "' required");
@@ -191,12 +257,17 @@ public class Main {
     }
 
     static void runAnalysis(CommandLine cmd, Analyzer analyzer) {
+        if (cmd.hasOption(DOWNLOAD_URL)) {
+            analyzer.setDownloadUrl(cmd.getOptionValue(DOWNLOAD_URL));
+        }
         if (cmd.hasOption(PROJECTID)) {
             String projectId = cmd.getOptionValue(PROJECTID);
             analyzer.analyzeSingle(projectId);
         } else if (cmd.hasOption(PROJECTLIST)) {
             String projectList = cmd.getOptionValue(PROJECTLIST);
             analyzer.analyzeMultiple(projectList);
+        } else if (cmd.hasOption(WATCH)) {
+            analyzer.watch();
         } else {
             analyzer.analyzeFile();
         }
@@ -217,6 +288,10 @@ public class Main {
                 statsPrograms(cmd);
             } else if (cmd.hasOption(LEILA)) {
                 translatePrograms(cmd);
+            } else if (cmd.hasOption(DAEMON)) {
+                runDaemon(cmd);
+            } else if (cmd.hasOption(PACK)) {
+                packPrograms(cmd);
             } else {
                 printHelp();
             }
@@ -46,6 +46,9 @@ public abstract class AbstractIssueFinder implements IssueFinder, ScratchVisitor
     public Set<Issue> check(Program program) {
         Preconditions.checkNotNull(program);
         this.program = program;
+        currentActor = null;
+        currentScript = null;
+        currentProcedure = null;
         issues = new LinkedHashSet<>();
         program.accept(this);
         return Collections.unmodifiableSet(issues);
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.uni_passau.fim.se2.litterbox.ast.ParsingException;
+import de.uni_passau.fim.se2.litterbox.ast.model.Program;
+import de.uni_passau.fim.se2.litterbox.ast.parser.Scratch3Parser;
+import de.uni_passau.fim.se2.litterbox.report.JSONReportGenerator;
+import de.uni_passau.fim.se2.litterbox.utils.Preconditions;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Keeps LitterBox running and checks projects on request.
+ *
+ * <p>Requests are JSON objects, one per line. A request names the project to check either by the path of its
+ * {@code .json} or {@code .sb3} file ({@code "path"}) or by including the project JSON itself ({@code "project"},
+ * optionally named by {@code "name"}). An optional {@code "id"} is copied into the response.</p>
+ *
+ * <p>Each request is answered by a single line holding the JSON report of the project, or an object with the field
+ * {@code "error"} if the project could not be checked. Requests are checked concurrently, so responses may come in
+ * a different order than the requests.</p>
+ */
+public class AnalysisDaemon implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(AnalysisDaemon.class.getName());
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ThreadLocal<List<IssueFinder>> issueFinders;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a daemon checking projects with the given detectors.
+     *
+     * @param detectors         detectors to run, as given on the command line
+     * @param ignoreLooseBlocks whether loose blocks should be ignored when checking
+     * @param threads           maximum number of projects checked at once
+     */
+    public AnalysisDaemon(String detectors, boolean ignoreLooseBlocks, int threads) {
+        Preconditions.checkArgument(threads > 0, "Number of threads must be positive");
+        // Finders keep state while visiting a program, hence each thread needs its own
+        this.issueFinders = ThreadLocal.withInitial(() -> {
+            List<IssueFinder> finders = IssueTool.getFinders(detectors);
+            finders.forEach(finder -> finder.setIgnoreLooseBlocks(ignoreLooseBlocks));
+            return finders;
+        });
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Answers the requests read from the given stream until it ends.
+     *
+     * @param in  stream to read requests from
+     * @param out stream to write responses to
+     * @throws IOException if reading requests fails
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        List<Future<?>> pending = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String request = line;
+            pending.removeIf(Future::isDone);
+            pending.add(executor.submit(() -> respond(writer, handleRequest(request))));
+        }
+        for (Future<?> response : pending) {
+            try {
+                response.get();
+            } catch (ExecutionException e) {
+                log.warning("Could not answer request: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of all clients connecting to the given port on the local host.
+     *
+     * <p>This method only returns if the server socket cannot be created.</p>
+     *
+     * @param port port to listen on
+     * @throws IOException if the server socket cannot be created
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            log.info("Listening on port " + serverSocket.getLocalPort());
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                Thread connection = new Thread(() -> {
+                    try (socket) {
+                        serve(socket.getInputStream(), socket.getOutputStream());
+                    } catch (IOException e) {
+                        log.warning("Connection failed: " + e.getMessage());
+                    }
+                }, "analysis-daemon-connection");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    private void respond(Writer writer, String response) {
+        synchronized (writer) {
+            try {
+                writer.write(response);
+                writer.write(System.lineSeparator());
+                writer.flush();
+            } catch (IOException e) {
+                log.warning("Could not send response: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks the project named by the given request.
+     *
+     * @param request the request as a line of JSON
+     * @return the response as a line of JSON
+     */
+    String handleRequest(String request) {
+        ObjectNode response = mapper.createObjectNode();
+        try {
+            JsonNode requestNode = mapper.readTree(request);
+            if (requestNode.has("id")) {
+                response.set("id", requestNode.get("id"));
+            }
+            Program program = parseProgram(requestNode);
+            response.setAll(JSONReportGenerator.createReport(program, runFinders(program)));
+        } catch (JsonProcessingException e) {
+            response.put("error", "Invalid request: " + e.getOriginalMessage());
+        } catch (IOException | ParsingException | RuntimeException e) {
+            response.put("error", "Could not check project: " + e.getMessage());
+        }
+        try {
+            return mapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Program parseProgram(JsonNode request) throws IOException, ParsingException {
+        Scratch3Parser parser = new Scratch3Parser();
+        if (request.hasNonNull("path")) {
+            return parser.parseFile(request.get("path").asText());
+        } else if (request.hasNonNull("project")) {
+            String name = request.hasNonNull("name") ? request.get("name").asText() : "project";
+            JsonNode project = request.get("project");
+            if (project.isTextual()) {
+                project = mapper.readTree(project.asText());
+            }
+            return parser.parseJsonNode(name, project);
+        } else {
+            throw new IllegalArgumentException("Request has neither a path nor a project");
+        }
+    }
+
+    private Set<Issue> runFinders(Program program) {
+        Set<Issue> issues = new LinkedHashSet<>();
+        for (IssueFinder finder : issueFinders.get()) {
+            issues.addAll(finder.check(program));
+        }
+        return issues;
+    }
+
+    /**
+     * Stops checking projects, waiting for requests being checked to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -18,20 +18,26 @@
  */
 package de.uni_passau.fim.se2.litterbox.analytics;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.uni_passau.fim.se2.litterbox.ast.ParsingException;
 import de.uni_passau.fim.se2.litterbox.ast.model.Program;
 import de.uni_passau.fim.se2.litterbox.ast.parser.Scratch3Parser;
 import de.uni_passau.fim.se2.litterbox.utils.Downloader;
+import de.uni_passau.fim.se2.litterbox.utils.ProjectPack;
+import de.uni_passau.fim.se2.litterbox.utils.ProjectPrefetcher;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public abstract class Analyzer {
 
@@ -40,6 +46,8 @@ public abstract class Analyzer {
     Path input;
     String output;
     boolean delete;
+    String downloadUrl = Downloader.DEFAULT_BASE_URL;
+    private ProjectPack pack;
 
     public Analyzer(String input, String output, boolean delete) {
         this.input = Paths.get(input);
@@ -51,7 +59,8 @@ public abstract class Analyzer {
      * Analyzes the file or directory this analyzer was initialized with.
      *
      * <p>If the input is a file it will be directly analyzed, if it is a director all files in the
-     * directory will be analyzed one after another.</p>
+     * directory will be analyzed one after another. If the input is a pack, all projects in the pack will be
+     * analyzed one after another.</p>
      */
     public void analyzeFile() {
         File file = input.toFile();
@@ -63,6 +72,9 @@ public abstract class Analyzer {
                     deleteFile(fileEntry);
                 }
             }
+            logSummary();
+        } else if (file.exists() && ProjectPack.isPack(input)) {
+            analyzePack();
         } else if (file.exists() && !file.isDirectory()) {
             check(file, output);
             deleteFile(file);
@@ -71,7 +83,22 @@ public abstract class Analyzer {
         }
     }
 
-    private void deleteFile(File file) {
+    private void analyzePack() {
+        try (ProjectPack projectPack = new ProjectPack(input)) {
+            pack = projectPack;
+            // Projects in the pack are named like files in a folder named like the pack
+            for (String name : projectPack.getNames()) {
+                check(input.resolve(name).toFile(), output);
+            }
+            logSummary();
+        } catch (IOException e) {
+            log.warning("Could not read pack " + input + ": " + e.getMessage());
+        } finally {
+            pack = null;
+        }
+    }
+
+    void deleteFile(File file) {
         if (delete && (file.getName().endsWith(".json") || file.getName().endsWith(".sb3"))) {
             boolean success = file.delete();
             if (!success) {
@@ -80,22 +107,75 @@ public abstract class Analyzer {
         }
     }
 
+    /**
+     * Analyzes the projects added to or changed in the directory this analyzer was initialized with.
+     *
+     * <p>Each project is analyzed as soon as it has been written completely. This method only returns once the
+     * thread is interrupted.</p>
+     */
+    public void watch() {
+        if (!Files.isDirectory(input)) {
+            log.info("Folder '" + input + "' does not exist");
+            return;
+        }
+        try (ProjectWatcher watcher = new ProjectWatcher(this, input, ProjectWatcher.DEFAULT_QUIET_MILLIS)) {
+            log.info("Watching folder '" + input + "' for new projects");
+            watcher.run();
+        } catch (IOException e) {
+            log.warning("Could not watch folder '" + input + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the URL of the server projects are downloaded from.
+     *
+     * @param downloadUrl base URL of the projects server
+     */
+    public void setDownloadUrl(String downloadUrl) {
+        this.downloadUrl = downloadUrl;
+    }
+
     /**
      * Analzed multiple files based on a list of projectids in the given file.
      *
+     * <p>Projects not found in the path with which this analyzer was initialized are downloaded there in the
+     * background, a few at a time, while the projects before them in the list are being analyzed.</p>
+     *
      * @param listPath is the path to a file containing all the ids of projects that should be analyzed.
      */
     public void analyzeMultiple(String listPath) {
         Path projectList = Paths.get(listPath);
-
+        List<String> pids;
         try {
-            List<String> pids = Files.lines(projectList).collect(Collectors.toList());
-            for (String pid : pids) {
-                analyzeSingle(pid);
-            }
+            pids = Files.readAllLines(projectList);
         } catch (IOException e) {
             log.warning("Could not read project list at " + projectList.toString());
+            return;
         }
+
+        int concurrency = ProjectPrefetcher.DEFAULT_CONCURRENCY;
+        try (ProjectPrefetcher prefetcher = new ProjectPrefetcher(downloadUrl, input, concurrency)) {
+            Deque<Future<Path>> downloads = new ArrayDeque<>();
+            int nextDownload = 0;
+            for (String pid : pids) {
+                while (nextDownload < pids.size() && downloads.size() < 2 * concurrency) {
+                    downloads.add(prefetcher.prefetch(pids.get(nextDownload++)));
+                }
+                File projectFile;
+                try {
+                    projectFile = downloads.remove().get().toFile();
+                } catch (ExecutionException e) {
+                    log.warning("[Error] Could not download project with PID: " + pid);
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                check(projectFile, output);
+                deleteFile(projectFile);
+            }
+        }
+        logSummary();
     }
 
     /**
@@ -111,7 +191,7 @@ public abstract class Analyzer {
         File projectFile = path.toFile();
         if (!projectFile.exists()) {
             try {
-                Downloader.downloadAndSaveProject(pid, input.toString());
+                Downloader.downloadProject(downloadUrl, pid, path);
             } catch (IOException e) {
                 log.warning("[Error] Could not download project with PID: " + pid);
                 return;
@@ -124,6 +204,12 @@ public abstract class Analyzer {
 
     abstract void check(File fileEntry, String csv);
 
+    /**
+     * Logs a summary of the projects checked so far, after checking multiple projects.
+     */
+    void logSummary() {
+    }
+
     /**
      * Extracts a Scratch Program from a Json or sb3 file.
      *
@@ -131,16 +217,47 @@ public abstract class Analyzer {
      * @return the parsed program or null in case the program could not be loaded or parsed
      */
     protected Program extractProgram(File fileEntry) {
+        JsonNode project = readProject(fileEntry);
+        if (project == null) {
+            return null;
+        }
+        return parseProject(fileEntry, project);
+    }
+
+    /**
+     * Reads the project JSON from a Json or sb3 file, or from the pack being analyzed.
+     *
+     * @param fileEntry of the json or sb3 file
+     * @return root node of the project JSON or null in case the project could not be loaded
+     */
+    protected JsonNode readProject(File fileEntry) {
         Scratch3Parser parser = new Scratch3Parser();
-        Program program = null;
         try {
-            program = parser.parseFile(fileEntry);
+            if (pack != null && pack.getPath().equals(fileEntry.toPath().getParent())) {
+                return parser.readPackEntry(pack, fileEntry.getName());
+            }
+            return parser.readProject(fileEntry);
         } catch (IOException e) {
             log.info("[Error] could not load program from file " + fileEntry.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Parses the project JSON read from a Json or sb3 file.
+     *
+     * @param fileEntry of the json or sb3 file
+     * @param project   root node of the project JSON
+     * @return the parsed program or null in case the program could not be parsed
+     */
+    protected Program parseProject(File fileEntry, JsonNode project) {
+        Scratch3Parser parser = new Scratch3Parser();
+        try {
+            return parser.parseProject(fileEntry.getName(), project);
         } catch (ParsingException | RuntimeException e) {
             // TODO: Proper error handling
             log.info("[Error] could not parse program for file " + fileEntry.getName());
+            return null;
         }
-        return program;
     }
 }
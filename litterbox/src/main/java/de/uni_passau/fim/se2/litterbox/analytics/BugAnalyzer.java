@@ -18,13 +18,16 @@
  */
 package de.uni_passau.fim.se2.litterbox.analytics;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.uni_passau.fim.se2.litterbox.ast.model.Program;
+import de.uni_passau.fim.se2.litterbox.ast.model.identifier.StrId;
 import de.uni_passau.fim.se2.litterbox.jsonCreation.JSONFileCreator;
 import de.uni_passau.fim.se2.litterbox.report.CSVReportGenerator;
 import de.uni_passau.fim.se2.litterbox.report.CommentGenerator;
 import de.uni_passau.fim.se2.litterbox.report.ConsoleReportGenerator;
 import de.uni_passau.fim.se2.litterbox.report.JSONReportGenerator;
 import de.uni_passau.fim.se2.litterbox.utils.Preconditions;
+import de.uni_passau.fim.se2.litterbox.utils.ProjectFingerprint;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
@@ -36,11 +39,29 @@ import java.util.stream.Collectors;
 public class BugAnalyzer extends Analyzer {
 
     private static final Logger log = Logger.getLogger(BugAnalyzer.class.getName());
+
+    /**
+     * Maximum number of analyses kept for reporting on duplicates of projects checked before.
+     */
+    private static final int MAX_CACHED_ANALYSES = 256;
+
     private List<String> detectorNames;
     private List<IssueFinder> issueFinders;
     private String annotationOutput;
     private boolean ignoreLooseBlocks;
 
+    /**
+     * Analyses of the projects checked recently, by fingerprint of the projects.
+     */
+    private final Map<String, Analysis> analyses = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Analysis> eldest) {
+            return size() > MAX_CACHED_ANALYSES;
+        }
+    };
+    private int checkedCount = 0;
+    private int duplicateCount = 0;
+
     public BugAnalyzer(String input, String output, String detectors, boolean ignoreLooseBlocks, boolean delete) {
         super(input, output, delete);
         issueFinders = IssueTool.getFinders(detectors);
@@ -59,17 +80,53 @@ public class BugAnalyzer extends Analyzer {
      * @param reportFileName the file in which to write the results
      */
     void check(File fileEntry, String reportFileName) {
-        Program program = extractProgram(fileEntry);
-        if (program == null) {
+        JsonNode project = readProject(fileEntry);
+        if (project == null) {
             // Todo error message
             return;
         }
 
-        Set<Issue> issues = runFinders(program);
+        // Annotating changes the program, hence annotated projects are not shared with their duplicates
+        boolean deduplicate = annotationOutput == null || annotationOutput.isEmpty();
+        String fingerprint = deduplicate ? ProjectFingerprint.of(project) : null;
+        Analysis analysis = deduplicate ? analyses.get(fingerprint) : null;
+        Program program;
+        Set<Issue> issues;
+        if (analysis != null) {
+            duplicateCount++;
+            program = analysis.program;
+            String name = FilenameUtils.getBaseName(fileEntry.getName());
+            if (!program.getIdent().getName().equals(name)) {
+                program = new Program(new StrId(name), program.getActorDefinitionList(), program.getSymbolTable(),
+                        program.getProcedureMapping(), program.getProgramMetadata());
+            }
+            issues = analysis.issues;
+        } else {
+            program = parseProject(fileEntry, project);
+            if (program == null) {
+                return;
+            }
+            issues = runFinders(program);
+            if (deduplicate) {
+                analyses.put(fingerprint, new Analysis(program, issues));
+            }
+        }
+        checkedCount++;
+
         generateOutput(program, issues, reportFileName);
         createAnnotatedFile(fileEntry, program, issues, annotationOutput);
     }
 
+    int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    @Override
+    void logSummary() {
+        log.info("Checked " + checkedCount + " projects, " + duplicateCount
+                + " of which were duplicates of projects checked before and not analysed again");
+    }
+
     private Set<Issue> runFinders(Program program) {
         Preconditions.checkNotNull(program);
         Set<Issue> issues = new LinkedHashSet<>();
@@ -101,6 +158,19 @@ public class BugAnalyzer extends Analyzer {
 
     }
 
+    /**
+     * Program and issues found when checking a project.
+     */
+    private static class Analysis {
+        private final Program program;
+        private final Set<Issue> issues;
+
+        Analysis(Program program, Set<Issue> issues) {
+            this.program = program;
+            this.issues = issues;
+        }
+    }
+
     private void createAnnotatedFile(File fileEntry, Program program, Set<Issue> issues, String annotatePath)  {
         if (annotationOutput != null && !annotationOutput.isEmpty()) {
             try {
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.analytics;
+
+import de.uni_passau.fim.se2.litterbox.utils.Preconditions;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Analyzes projects as soon as they are added to or changed in a directory.
+ *
+ * <p>A project is analyzed once its file has not changed for a while, so that files still being written are not
+ * analyzed prematurely. For each project analyzed, the time from its first change until its analysis is finished is
+ * logged and kept.</p>
+ */
+public class ProjectWatcher implements AutoCloseable {
+
+    /**
+     * Time a file has to remain unchanged before it is analyzed, unless specified otherwise.
+     */
+    public static final long DEFAULT_QUIET_MILLIS = 500;
+
+    private static final Logger log = Logger.getLogger(ProjectWatcher.class.getName());
+
+    private final Analyzer analyzer;
+    private final Path directory;
+    private final long quietNanos;
+    private final WatchService watchService;
+    private final Map<Path, Change> changes = new HashMap<>();
+    private final Map<Path, Long> latencies = new ConcurrentHashMap<>();
+    private long analyzedCount = 0;
+    private long totalLatencyMillis = 0;
+
+    /**
+     * Creates a watcher analyzing the projects changing in the given directory.
+     *
+     * @param analyzer    analyzer to analyze the projects with
+     * @param directory   directory to watch
+     * @param quietMillis time a file has to remain unchanged before it is analyzed
+     * @throws IOException if the directory cannot be watched
+     */
+    public ProjectWatcher(Analyzer analyzer, Path directory, long quietMillis) throws IOException {
+        Preconditions.checkArgument(quietMillis >= 0, "Quiet time must not be negative");
+        this.analyzer = analyzer;
+        this.directory = directory;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+    }
+
+    /**
+     * Analyzes changed projects until this watcher is closed or the thread is interrupted.
+     */
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key;
+                if (changes.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    key = watchService.poll(getWaitingNanos(), TimeUnit.NANOSECONDS);
+                }
+                if (key != null) {
+                    collectChanges(key);
+                    if (!key.reset()) {
+                        log.warning("Folder '" + directory + "' cannot be watched anymore");
+                        return;
+                    }
+                }
+                analyzeUnchangedFiles();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Watcher was closed
+        }
+    }
+
+    /**
+     * Returns the latencies of the projects analyzed so far.
+     *
+     * @return mapping from project file to the milliseconds from its first change until its latest analysis finished
+     */
+    public Map<Path, Long> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    private long getWaitingNanos() {
+        long now = System.nanoTime();
+        long waiting = quietNanos;
+        for (Change change : changes.values()) {
+            waiting = Math.min(waiting, change.lastChange + quietNanos - now);
+        }
+        return Math.max(waiting, 1);
+    }
+
+    private void collectChanges(WatchKey key) {
+        long now = System.nanoTime();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                log.warning("Missed changes in folder '" + directory + "'");
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (isProject(file)) {
+                Change change = changes.computeIfAbsent(file, f -> new Change(now));
+                change.lastChange = now;
+                change.attributes = readAttributes(file);
+            }
+        }
+    }
+
+    private boolean isProject(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (!name.endsWith(".json") && !name.endsWith(".sb3")) {
+            return false;
+        }
+        // Do not analyze the report written into the watched folder
+        return analyzer.output == null || !file.toAbsolutePath().equals(Paths.get(analyzer.output).toAbsolutePath());
+    }
+
+    private void analyzeUnchangedFiles() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Change>> iterator = changes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Change> entry = iterator.next();
+            Path file = entry.getKey();
+            Change change = entry.getValue();
+            if (now - change.lastChange < quietNanos) {
+                continue;
+            }
+            if (!Files.isRegularFile(file)) {
+                iterator.remove();
+                continue;
+            }
+            // Writes may not be reported right away, hence check that the file really remained unchanged
+            Attributes attributes = readAttributes(file);
+            if (!attributes.equals(change.attributes)) {
+                change.lastChange = now;
+                change.attributes = attributes;
+                continue;
+            }
+            iterator.remove();
+            analyze(file, change);
+        }
+    }
+
+    private void analyze(Path file, Change change) {
+        long start = System.nanoTime();
+        analyzer.check(file.toFile(), analyzer.output);
+        analyzer.deleteFile(file.toFile());
+        long end = System.nanoTime();
+
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(end - change.firstChange);
+        latencies.put(file, latencyMillis);
+        analyzedCount++;
+        totalLatencyMillis += latencyMillis;
+        log.info(String.format("Analyzed %s in %d ms, %d ms after it changed (mean latency: %d ms over %d projects)",
+                file.getFileName(), TimeUnit.NANOSECONDS.toMillis(end - start), latencyMillis,
+                totalLatencyMillis / analyzedCount, analyzedCount));
+    }
+
+    private static Attributes readAttributes(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new Attributes(attributes.size(), attributes.lastModifiedTime());
+        } catch (IOException e) {
+            return new Attributes(-1, null);
+        }
+    }
+
+    /**
+     * Stops watching the directory.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private static class Change {
+        private final long firstChange;
+        private long lastChange;
+        private Attributes attributes;
+
+        Change(long firstChange) {
+            this.firstChange = firstChange;
+            this.lastChange = firstChange;
+        }
+    }
+
+    private static class Attributes {
+        private final long size;
+        private final FileTime lastModified;
+
+        Attributes(long size, FileTime lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Attributes)) {
+                return false;
+            }
+            Attributes that = (Attributes) o;
+            return size == that.size && Objects.equals(lastModified, that.lastModified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
@@ -24,16 +24,22 @@ import de.uni_passau.fim.se2.litterbox.ast.ParsingException;
 import de.uni_passau.fim.se2.litterbox.ast.model.Program;
 import de.uni_passau.fim.se2.litterbox.ast.visitor.ParentVisitor;
 import de.uni_passau.fim.se2.litterbox.utils.JsonParser;
+import de.uni_passau.fim.se2.litterbox.utils.ProjectPack;
 import de.uni_passau.fim.se2.litterbox.utils.ZipReader;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 public class Scratch3Parser {
 
     public Program parseJsonNode(String programName, JsonNode node) throws ParsingException, RuntimeException {
-        Program program = ProgramParser.parseProgram(programName, node);
+        Program program;
+        // ProgramParser keeps the symbol table of the program being parsed in static fields
+        synchronized (ProgramParser.class) {
+            program = ProgramParser.parseProgram(programName, node);
+        }
         program.accept(new ParentVisitor());
         return program;
     }
@@ -68,6 +74,65 @@ public class Scratch3Parser {
         return parseString(programName, jsonString);
     }
 
+    /**
+     * Reads the project JSON from the given {@code .json} or {@code .sb3} file.
+     *
+     * @param fileEntry the project file
+     * @return root node of the project JSON
+     * @throws IOException if the file cannot be read or holds no project JSON
+     */
+    public JsonNode readProject(File fileEntry) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        if ((FilenameUtils.getExtension(fileEntry.getName())).toLowerCase().equals("json")) {
+            return mapper.readTree(fileEntry);
+        }
+        String jsonString = ZipReader.getJsonString(fileEntry.getPath());
+        if (jsonString == null) {
+            throw new IOException("No project.json in " + fileEntry.getName());
+        }
+        return mapper.readTree(jsonString);
+    }
+
+    /**
+     * Reads the project JSON of the project with the given name from the given pack.
+     *
+     * @param pack the pack holding the project
+     * @param name name of the project in the pack
+     * @return root node of the project JSON
+     * @throws IOException if the project cannot be read from the pack
+     */
+    public JsonNode readPackEntry(ProjectPack pack, String name) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        try (InputStream in = pack.openProject(name)) {
+            return mapper.readTree(in);
+        }
+    }
+
+    /**
+     * Parses the project with the given name from the given pack.
+     *
+     * @param pack the pack holding the project
+     * @param name name of the project in the pack
+     * @return the parsed program
+     * @throws IOException      if the project cannot be read from the pack
+     * @throws ParsingException if the project cannot be parsed
+     */
+    public Program parsePackEntry(ProjectPack pack, String name) throws IOException, ParsingException {
+        return parseProject(name, readPackEntry(pack, name));
+    }
+
+    /**
+     * Parses the given project JSON read from the file with the given name.
+     *
+     * @param fileName name of the file the project was read from, giving the name of the program
+     * @param project  root node of the project JSON
+     * @return the parsed program
+     * @throws ParsingException if the project cannot be parsed
+     */
+    public Program parseProject(String fileName, JsonNode project) throws ParsingException {
+        return parseJsonNode(getProgramName(fileName), project);
+    }
+
     public Program parseString(String programName, String json) throws ParsingException {
         JsonNode rootNode = JsonParser.getTargetsNodeFromJSONString(json);
         return parseJsonNode(programName, rootNode);
@@ -54,6 +54,25 @@ public class JSONReportGenerator implements ReportGenerator {
 
     @Override
     public void generateReport(Program program, Collection<Issue> issues) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode rootNode = createReport(program, issues);
+
+        String jsonString = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(rootNode);
+        final PrintStream printStream = new PrintStream(outputStream);
+        printStream.print(jsonString);
+        if (closeStream) {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Creates the report on the given issues as a JSON tree.
+     *
+     * @param program the program the issues were found in
+     * @param issues  the issues to report
+     * @return root node of the report, with the fields {@code metrics} and {@code issues}
+     */
+    public static ObjectNode createReport(Program program, Collection<Issue> issues) {
         ObjectMapper mapper = new ObjectMapper();
         ObjectNode rootNode = mapper.createObjectNode();
         ArrayNode issueNode = mapper.createArrayNode();
@@ -93,16 +112,10 @@ public class JSONReportGenerator implements ReportGenerator {
             issueNode.add(childNode);
         }
         rootNode.set("issues", issueNode);
-
-        String jsonString = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(rootNode);
-        final PrintStream printStream = new PrintStream(outputStream);
-        printStream.print(jsonString);
-        if (closeStream) {
-            outputStream.close();
-        }
+        return rootNode;
     }
 
-    private void addMetrics(ObjectNode metricsNode, Program program) {
+    private static void addMetrics(ObjectNode metricsNode, Program program) {
         MetricTool tool = new MetricTool();
 
         for (MetricExtractor metric : tool.getAnalyzers()) {
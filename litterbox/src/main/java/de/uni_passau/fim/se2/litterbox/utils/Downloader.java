@@ -25,13 +25,27 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.*;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Logger;
 
 public class Downloader {
 
+    /**
+     * Base URL of the Scratch projects server.
+     */
+    public static final String DEFAULT_BASE_URL = "https://projects.scratch.mit.edu/";
+
+    private static final Logger log = Logger.getLogger(Downloader.class.getName());
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final int TIMEOUT_MILLIS = 30000;
+
     public static String downloadAndSaveProject(String projectid, String projectout) throws IOException {
         if (!isAlreadyDownloaded(projectid, projectout)) {
             String json = downloadProjectJSON(projectid);
@@ -44,19 +58,69 @@ public class Downloader {
     }
 
     public static String downloadProjectJSON(String projectid) throws IOException {
-        String url = "https://projects.scratch.mit.edu/" + projectid + "/all";
+        String url = getProjectUrl(DEFAULT_BASE_URL, projectid);
 
         try (InputStream is = new URL(url).openStream()) {
-            BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            int cp;
-            cp = br.read();
-            while (cp != -1) {
-                sb.append(((char) cp));
-                cp = br.read();
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Downloads the project with the given id and stores it unchanged in the given file.
+     *
+     * <p>The bytes received are streamed straight to the disk. The file only appears once the download is complete,
+     * so an interrupted download never leaves a truncated project behind. Failed downloads are retried with an
+     * exponentially growing delay, unless the server reports that the project does not exist.</p>
+     *
+     * @param baseUrl   URL of the projects server, a project is downloaded from {@code baseUrl + projectid + "/all"}
+     * @param projectid id of the project to download
+     * @param target    file to store the project in
+     * @throws IOException if the project could not be downloaded
+     */
+    public static void downloadProject(String baseUrl, String projectid, Path target) throws IOException {
+        URL url = new URL(getProjectUrl(baseUrl, projectid));
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                streamToFile(url, target);
+                return;
+            } catch (FileNotFoundException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("Download of project " + projectid + " failed (" + e.getMessage() + "), retrying in "
+                        + backoff + " ms");
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while downloading project " + projectid);
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    private static String getProjectUrl(String baseUrl, String projectid) {
+        return (baseUrl.endsWith("/") ? baseUrl : baseUrl + "/") + projectid + "/all";
+    }
+
+    private static void streamToFile(URL url, Path target) throws IOException {
+        Path folder = target.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        Path temp = Files.createTempFile(folder, target.getFileName().toString(), ".part");
+        try {
+            URLConnection connection = url.openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            try (InputStream is = connection.getInputStream()) {
+                Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
             }
-            br.close();
-            return sb.toString();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Computes fingerprints identifying the content of projects.
+ *
+ * <p>A fingerprint covers only the targets of a project, i.e., its stage and sprites. It does not depend on how the
+ * project JSON is formatted, on the order of the fields of its objects, or on the metadata of the project. Projects
+ * with the same fingerprint thus lead to the same analysis results.</p>
+ */
+public class ProjectFingerprint {
+
+    private ProjectFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of the given project.
+     *
+     * @param project root node of the project JSON
+     * @return the fingerprint as a hexadecimal string
+     */
+    public static String of(JsonNode project) {
+        Preconditions.checkNotNull(project);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        JsonNode targets = project.get("targets");
+        if (targets != null) {
+            update(digest, targets);
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(String.format("%02x", b));
+        }
+        return fingerprint.toString();
+    }
+
+    private static void update(MessageDigest digest, JsonNode node) {
+        if (node.isObject()) {
+            List<String> fieldNames = new ArrayList<>();
+            node.fieldNames().forEachRemaining(fieldNames::add);
+            Collections.sort(fieldNames);
+            digest.update((byte) '{');
+            for (String fieldName : fieldNames) {
+                updateString(digest, fieldName);
+                update(digest, node.get(fieldName));
+            }
+            digest.update((byte) '}');
+        } else if (node.isArray()) {
+            digest.update((byte) '[');
+            for (Iterator<JsonNode> elements = node.elements(); elements.hasNext(); ) {
+                update(digest, elements.next());
+            }
+            digest.update((byte) ']');
+        } else {
+            // The JSON text tells strings apart from numbers, booleans and null
+            updateString(digest, node.toString());
+        }
+    }
+
+    private static void updateString(MessageDigest digest, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+}
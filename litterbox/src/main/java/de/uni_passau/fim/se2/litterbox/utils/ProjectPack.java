@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads projects from a pack, a single file holding the project JSON of many projects.
+ *
+ * <p>A pack starts with a header, followed by its entries. Each entry consists of the name of the project, a flag
+ * telling whether the project JSON is compressed, the length of the (compressed) JSON, and the JSON itself. Entries
+ * are only ever appended; an entry with the same name as an earlier one replaces it.</p>
+ *
+ * <p>Next to the pack, an index file maps the names of the projects to the offsets of their entries, so that the
+ * pack need not be scanned when it is opened. Entries appended after the last one in the index are found by
+ * scanning. The pack is memory-mapped, so reading a project neither opens a file nor copies the project.</p>
+ */
+public class ProjectPack implements Closeable {
+
+    /**
+     * Extension of pack files.
+     */
+    public static final String EXTENSION = ".pack";
+
+    /**
+     * Extension appended to the name of a pack to get the name of its index file.
+     */
+    public static final String INDEX_EXTENSION = ".index";
+
+    static final int MAGIC = 0x4C42504B; // "LBPK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final byte STORED = 0;
+    static final byte DEFLATED = 1;
+
+    private static final Logger log = Logger.getLogger(ProjectPack.class.getName());
+    private static final int MAX_ENTRY_HEADER_SIZE = 2 + 65535 + 1 + 4;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final MappedByteBuffer mapped;
+    private final Map<String, Long> offsets = new LinkedHashMap<>();
+    private long end;
+
+    /**
+     * Opens the given pack for reading.
+     *
+     * @param path the pack file
+     * @throws IOException if the pack cannot be read or is not a pack
+     */
+    public ProjectPack(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            // Packs too large to be mapped at once are mapped entry by entry
+            this.mapped = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+            DataInputStream header = new DataInputStream(new ByteBufferInputStream(getBuffer(0, HEADER_SIZE)));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException("Not a pack: " + path);
+            }
+            scanEntries(readIndex());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the given file is a pack, judging by its name.
+     *
+     * @param path the file
+     * @return true if the name of the file has the extension of packs
+     */
+    public static boolean isPack(Path path) {
+        return path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Returns the index file of the given pack.
+     *
+     * @param pack the pack file
+     * @return the file holding the index of the pack
+     */
+    public static Path getIndexPath(Path pack) {
+        return pack.resolveSibling(pack.getFileName() + INDEX_EXTENSION);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the names of the projects in this pack, in the order they were first added.
+     *
+     * @return names of the projects
+     */
+    public Collection<String> getNames() {
+        return Collections.unmodifiableSet(offsets.keySet());
+    }
+
+    public boolean contains(String name) {
+        return offsets.containsKey(name);
+    }
+
+    long getOffset(String name) {
+        return offsets.get(name);
+    }
+
+    /**
+     * Returns the offset just behind the last intact entry. Bytes from there on are the damaged end of the pack, if
+     * any, and are overwritten when projects are appended.
+     *
+     * @return the end of the last intact entry
+     */
+    long getEnd() {
+        return end;
+    }
+
+    /**
+     * Opens the JSON of the project with the given name.
+     *
+     * @param name name of the project
+     * @return stream reading the project JSON, decompressed if necessary
+     * @throws IOException if the pack holds no project with the given name or its entry is damaged
+     */
+    public InputStream openProject(String name) throws IOException {
+        Long offset = offsets.get(name);
+        if (offset == null) {
+            throw new FileNotFoundException("No project " + name + " in pack " + path);
+        }
+        Entry entry = readEntry(offset);
+        InputStream in = new ByteBufferInputStream(getBuffer(entry.dataOffset, entry.length));
+        return entry.compressed ? new InflaterInputStream(in) : in;
+    }
+
+    private long readIndex() throws IOException {
+        Path indexPath = getIndexPath(path);
+        if (!Files.isRegularFile(indexPath)) {
+            return HEADER_SIZE;
+        }
+        long lastOffset = -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a pack index");
+            }
+            while (true) {
+                String name;
+                try {
+                    name = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                long offset = in.readLong();
+                if (offset < HEADER_SIZE || offset >= size) {
+                    throw new IOException("Offset out of bounds");
+                }
+                offsets.put(name, offset);
+                lastOffset = Math.max(lastOffset, offset);
+            }
+        } catch (IOException e) {
+            log.warning("Ignoring index " + indexPath + ": " + e.getMessage());
+            offsets.clear();
+            return HEADER_SIZE;
+        }
+        while (lastOffset >= 0) {
+            try {
+                Entry last = readEntry(lastOffset);
+                return last.dataOffset + last.length;
+            } catch (IOException e) {
+                // Entries from the damaged one on are dropped; the rest of the pack is scanned
+                log.warning("Ignoring damaged entries of index " + indexPath + ": " + e.getMessage());
+                long damagedOffset = lastOffset;
+                offsets.values().removeIf(offset -> offset >= damagedOffset);
+                lastOffset = offsets.values().stream().mapToLong(Long::longValue).max().orElse(-1);
+            }
+        }
+        return HEADER_SIZE;
+    }
+
+    private void scanEntries(long offset) {
+        end = offset;
+        while (offset < size) {
+            Entry entry;
+            try {
+                entry = readEntry(offset);
+            } catch (IOException e) {
+                log.warning("Ignoring damaged end of pack " + path + ": " + e.getMessage());
+                return;
+            }
+            offsets.put(entry.name, offset);
+            offset = entry.dataOffset + entry.length;
+            end = offset;
+        }
+    }
+
+    private Entry readEntry(long offset) throws IOException {
+        ByteBuffer buffer = getBuffer(offset, (int) Math.min(MAX_ENTRY_HEADER_SIZE, size - offset));
+        ByteBufferInputStream bufferStream = new ByteBufferInputStream(buffer);
+        DataInputStream in = new DataInputStream(bufferStream);
+        Entry entry = new Entry();
+        entry.name = in.readUTF();
+        entry.compressed = in.readByte() == DEFLATED;
+        entry.length = in.readInt();
+        entry.dataOffset = offset + buffer.position();
+        if (entry.length < 0 || entry.dataOffset + entry.length > size) {
+            throw new EOFException("Truncated entry of project " + entry.name);
+        }
+        return entry;
+    }
+
+    private ByteBuffer getBuffer(long offset, int length) throws IOException {
+        if (offset + length > size) {
+            throw new EOFException("Unexpected end of pack " + path);
+        }
+        if (mapped == null) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position((int) offset);
+        buffer.limit((int) offset + length);
+        return buffer.slice();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static class Entry {
+        private String name;
+        private boolean compressed;
+        private int length;
+        private long dataOffset;
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
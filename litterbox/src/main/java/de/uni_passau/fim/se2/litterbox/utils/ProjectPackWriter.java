@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.utils;
+
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Appends projects to a pack, creating the pack if it does not exist yet.
+ *
+ * @see ProjectPack
+ */
+public class ProjectPackWriter implements Closeable {
+
+    private static final Logger log = Logger.getLogger(ProjectPackWriter.class.getName());
+
+    private final DataOutputStream pack;
+    private final Path indexPath;
+    private final boolean appendIndex;
+    private final ByteArrayOutputStream indexRecords = new ByteArrayOutputStream();
+    private final DataOutputStream index = new DataOutputStream(indexRecords);
+    private final boolean compress;
+    private long offset;
+
+    /**
+     * Opens the given pack for appending projects.
+     *
+     * @param path     the pack file
+     * @param compress whether the projects added should be compressed
+     * @throws IOException if the pack cannot be written or an existing file is not a pack
+     */
+    public ProjectPackWriter(Path path, boolean compress) throws IOException {
+        this.compress = compress;
+        this.indexPath = ProjectPack.getIndexPath(path);
+        boolean exists = Files.isRegularFile(path) && Files.size(path) > 0;
+        if (exists) {
+            // Opening the pack checks it and ensures the index covers all its entries
+            try (ProjectPack existing = new ProjectPack(path)) {
+                writeIndex(indexPath, existing);
+                offset = existing.getEnd();
+            }
+            if (offset < Files.size(path)) {
+                // New entries must follow the last intact one, or scanning the pack would misread them
+                log.warning("Cutting off damaged end of pack " + path);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(offset);
+                }
+            }
+        }
+        this.appendIndex = exists;
+        this.pack = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (!exists) {
+            pack.writeInt(ProjectPack.MAGIC);
+            pack.writeInt(ProjectPack.VERSION);
+            offset = ProjectPack.HEADER_SIZE;
+            writeIndexHeader(index);
+        }
+    }
+
+    private static void writeIndexHeader(DataOutputStream index) throws IOException {
+        index.writeInt(ProjectPack.MAGIC);
+        index.writeInt(ProjectPack.VERSION);
+    }
+
+    private static void writeIndex(Path indexPath, ProjectPack pack) throws IOException {
+        // The index is rewritten from the pack, which may hold entries the index misses
+        try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indexPath)))) {
+            writeIndexHeader(index);
+            for (String name : pack.getNames()) {
+                index.writeUTF(name);
+                index.writeLong(pack.getOffset(name));
+            }
+        }
+    }
+
+    /**
+     * Appends the given project JSON to the pack.
+     *
+     * @param name name of the project
+     * @param json the project JSON
+     * @throws IOException if writing fails
+     */
+    public void addProject(String name, byte[] json) throws IOException {
+        byte[] data = json;
+        if (compress) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+                out.write(json);
+            }
+            data = compressed.toByteArray();
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeUTF(name);
+        headerOut.writeByte(compress ? ProjectPack.DEFLATED : ProjectPack.STORED);
+        headerOut.writeInt(data.length);
+
+        header.writeTo(pack);
+        pack.write(data);
+        index.writeUTF(name);
+        index.writeLong(offset);
+        offset += header.size() + data.length;
+    }
+
+    /**
+     * Appends the project in the given file, or all projects in the given folder, to the pack.
+     *
+     * <p>Projects are named by their file names, with the extension {@code .json}. Of {@code .sb3} files, the
+     * contained project JSON is added.</p>
+     *
+     * @param path a project file or a folder holding project files
+     * @return the number of projects added
+     * @throws IOException if the folder cannot be listed or writing fails
+     */
+    public int addProjects(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return addProjectFile(path) ? 1 : 0;
+        }
+        int count = 0;
+        try (Stream<Path> files = Files.list(path)) {
+            for (Path file : files.sorted().collect(Collectors.toList())) {
+                if (Files.isRegularFile(file) && addProjectFile(file)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean addProjectFile(Path file) throws IOException {
+        String extension = FilenameUtils.getExtension(file.toString()).toLowerCase();
+        byte[] json;
+        try {
+            if (extension.equals("json")) {
+                json = Files.readAllBytes(file);
+            } else if (extension.equals("sb3")) {
+                String jsonString = ZipReader.getJsonString(file.toString());
+                if (jsonString == null) {
+                    log.warning("No project.json in " + file);
+                    return false;
+                }
+                json = jsonString.getBytes(StandardCharsets.UTF_8);
+            } else {
+                return false;
+            }
+        } catch (IOException e) {
+            log.warning("Could not read project " + file + ": " + e.getMessage());
+            return false;
+        }
+        addProject(FilenameUtils.getBaseName(file.toString()) + ".json", json);
+        return true;
+    }
+
+    /**
+     * Finishes writing the pack and its index.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        // The index records are kept until the pack is written, so that the index never refers to missing entries
+        pack.close();
+        StandardOpenOption mode = appendIndex ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (OutputStream out = Files.newOutputStream(indexPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                mode)) {
+            indexRecords.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.utils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads projects into a mirror folder in the background.
+ *
+ * <p>This allows analysing projects while the next ones are still being downloaded. At most a fixed number of
+ * downloads run at once. Projects already present in the mirror folder are not downloaded again.</p>
+ */
+public class ProjectPrefetcher implements AutoCloseable {
+
+    /**
+     * Number of downloads running at once, unless specified otherwise.
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private final String baseUrl;
+    private final Path mirror;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a prefetcher downloading projects from the given server into the given folder.
+     *
+     * @param baseUrl     URL of the projects server
+     * @param mirror      folder to store the downloaded projects in
+     * @param concurrency maximum number of downloads running at once
+     */
+    public ProjectPrefetcher(String baseUrl, Path mirror, int concurrency) {
+        Preconditions.checkArgument(concurrency > 0, "Concurrency must be positive");
+        this.baseUrl = baseUrl;
+        this.mirror = mirror;
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "project-prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the file the project with the given id is stored in.
+     *
+     * @param projectid id of the project
+     * @return file in the mirror folder holding the project
+     */
+    public Path getProjectPath(String projectid) {
+        return mirror.resolve(projectid + ".json");
+    }
+
+    /**
+     * Starts downloading the project with the given id, unless it is in the mirror folder already.
+     *
+     * @param projectid id of the project
+     * @return future completed with the file holding the project once it has been downloaded, or failing with the
+     *         {@link java.io.IOException} that made the download fail
+     */
+    public Future<Path> prefetch(String projectid) {
+        Path path = getProjectPath(projectid);
+        if (Files.exists(path)) {
+            return CompletableFuture.completedFuture(path);
+        }
+        return executor.submit(() -> {
+            Downloader.downloadProject(baseUrl, projectid, path);
+            return path;
+        });
+    }
+
+    /**
+     * Cancels all downloads that are still running or waiting.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
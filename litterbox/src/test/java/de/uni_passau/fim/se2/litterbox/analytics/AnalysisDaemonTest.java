@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.analytics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.uni_passau.fim.se2.litterbox.analytics.bugpattern.PositionEqualsCheck;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisDaemonTest {
+
+    private static final String PROJECT = "src/test/fixtures/bugpattern/xPosEqual.json";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private AnalysisDaemon daemon;
+
+    @BeforeEach
+    public void startDaemon() {
+        daemon = new AnalysisDaemon(PositionEqualsCheck.NAME, false, 4);
+    }
+
+    @AfterEach
+    public void stopDaemon() {
+        daemon.close();
+    }
+
+    @Test
+    public void testPathRequest() throws IOException {
+        JsonNode response = mapper.readTree(daemon.handleRequest("{\"id\":\"a\",\"path\":\"" + PROJECT + "\"}"));
+        assertEquals("a", response.get("id").asText());
+        assertTrue(response.has("metrics"));
+        assertEquals(1, response.get("issues").size());
+        assertEquals(PositionEqualsCheck.NAME, response.get("issues").get(0).get("finder").asText());
+    }
+
+    @Test
+    public void testProjectRequest() throws IOException {
+        String project = Files.readString(Paths.get(PROJECT)).replace("\n", "");
+        JsonNode response = mapper.readTree(daemon.handleRequest("{\"id\":7,\"project\":" + project + "}"));
+        assertEquals(7, response.get("id").asInt());
+        assertEquals(1, response.get("issues").size());
+    }
+
+    @Test
+    public void testInvalidRequests() throws IOException {
+        JsonNode response = mapper.readTree(daemon.handleRequest("not json"));
+        assertTrue(response.get("error").asText().startsWith("Invalid request"));
+
+        response = mapper.readTree(daemon.handleRequest("{\"id\":1}"));
+        assertEquals(1, response.get("id").asInt());
+        assertTrue(response.has("error"));
+
+        response = mapper.readTree(daemon.handleRequest("{\"id\":2,\"path\":\"doesnotexist.json\"}"));
+        assertEquals(2, response.get("id").asInt());
+        assertTrue(response.has("error"));
+    }
+
+    @Test
+    public void testServeAnswersAllRequests() throws IOException {
+        StringBuilder requests = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            requests.append("{\"id\":").append(i).append(",\"path\":\"").append(PROJECT).append("\"}\n");
+        }
+        requests.append('\n');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        daemon.serve(new ByteArrayInputStream(requests.toString().getBytes(StandardCharsets.UTF_8)), out);
+
+        Map<Integer, JsonNode> responses = new HashMap<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split(System.lineSeparator())) {
+            JsonNode response = mapper.readTree(line);
+            responses.put(response.get("id").asInt(), response);
+        }
+        assertEquals(20, responses.size());
+        for (JsonNode response : responses.values()) {
+            assertEquals(responses.get(0).get("issues"), response.get("issues"));
+        }
+    }
+}
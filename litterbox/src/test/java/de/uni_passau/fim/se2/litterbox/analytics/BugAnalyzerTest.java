@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.analytics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.uni_passau.fim.se2.litterbox.analytics.bugpattern.PositionEqualsCheck;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BugAnalyzerTest {
+
+    private static final Path PROJECT = Paths.get("src/test/fixtures/bugpattern/xPosEqual.json");
+
+    @TempDir
+    Path folder;
+
+    private JsonNode checkAndReadReport(BugAnalyzer analyzer, Path report, Path project) throws IOException {
+        analyzer.check(project.toFile(), report.toString());
+        return new ObjectMapper().readTree(report.toFile());
+    }
+
+    @Test
+    public void testDuplicatesAreReportedWithoutAnalysingThemAgain() throws IOException {
+        Path copy = folder.resolve("copy.json");
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(copy.toFile(), mapper.readTree(PROJECT.toFile()));
+        Path report = folder.resolve("report.json");
+
+        BugAnalyzer analyzer = new BugAnalyzer(folder.toString(), report.toString(), PositionEqualsCheck.NAME,
+                false, false);
+        JsonNode original = checkAndReadReport(analyzer, report, PROJECT);
+        assertEquals(0, analyzer.getDuplicateCount());
+        JsonNode duplicate = checkAndReadReport(analyzer, report, copy);
+        assertEquals(1, analyzer.getDuplicateCount());
+
+        assertEquals(1, duplicate.get("issues").size());
+        assertEquals(original, duplicate);
+    }
+
+    @Test
+    public void testDifferentProjectsAreAnalysed() throws IOException {
+        Path other = folder.resolve("other.json");
+        Files.copy(Paths.get("src/test/fixtures/bugpattern/positionEqualsCheck.json"), other);
+        Path report = folder.resolve("report.json");
+
+        BugAnalyzer analyzer = new BugAnalyzer(folder.toString(), report.toString(), PositionEqualsCheck.NAME,
+                false, false);
+        checkAndReadReport(analyzer, report, PROJECT);
+        JsonNode otherReport = checkAndReadReport(analyzer, report, other);
+
+        assertEquals(0, analyzer.getDuplicateCount());
+        assertEquals(4, otherReport.get("issues").size());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectWatcherTest {
+
+    private static final long QUIET_MILLIS = 300;
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @TempDir
+    Path folder;
+
+    private ProjectWatcher watcher;
+    private Thread watcherThread;
+
+    /**
+     * Records the contents of the files it is asked to check.
+     */
+    private static class RecordingAnalyzer extends Analyzer {
+        private final List<String> checked = new CopyOnWriteArrayList<>();
+
+        RecordingAnalyzer(Path input, String output) {
+            super(input.toString(), output, false);
+        }
+
+        @Override
+        void check(File fileEntry, String csv) {
+            try {
+                checked.add(fileEntry.getName() + ":" + Files.readString(fileEntry.toPath()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private ProjectWatcher startWatcher(Analyzer analyzer) throws IOException {
+        watcher = new ProjectWatcher(analyzer, folder, QUIET_MILLIS);
+        watcherThread = new Thread(watcher::run);
+        watcherThread.start();
+        return watcher;
+    }
+
+    private void awaitAnalysis(ProjectWatcher watcher, Path file) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!watcher.getLatencies().containsKey(file) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(watcher.getLatencies().containsKey(file), "Project was not analyzed: " + file);
+    }
+
+    @AfterEach
+    public void stopWatcher() throws Exception {
+        watcher.close();
+        watcherThread.join(TIMEOUT_MILLIS);
+        assertFalse(watcherThread.isAlive());
+    }
+
+    @Test
+    public void testProjectIsAnalyzedOnceWrittenCompletely() throws Exception {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer(folder, null);
+        startWatcher(analyzer);
+
+        Path project = folder.resolve("project.json");
+        try (OutputStream out = Files.newOutputStream(project)) {
+            out.write("{\"targets\":".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Thread.sleep(QUIET_MILLIS / 3);
+            out.write("[]}".getBytes(StandardCharsets.UTF_8));
+        }
+        awaitAnalysis(watcher, project);
+
+        assertEquals(List.of("project.json:{\"targets\":[]}"), analyzer.checked);
+        assertTrue(watcher.getLatencies().get(project) >= QUIET_MILLIS);
+    }
+
+    @Test
+    public void testChangedProjectIsAnalyzedAgain() throws Exception {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer(folder, null);
+        startWatcher(analyzer);
+
+        Path project = folder.resolve("project.sb3");
+        Files.writeString(project, "first");
+        awaitAnalysis(watcher, project);
+        Files.writeString(project, "second version");
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (analyzer.checked.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(List.of("project.sb3:first", "project.sb3:second version"), analyzer.checked);
+    }
+
+    @Test
+    public void testOtherFilesAreIgnored() throws Exception {
+        Path report = folder.resolve("report.json");
+        RecordingAnalyzer analyzer = new RecordingAnalyzer(folder, report.toString());
+        startWatcher(analyzer);
+
+        Files.writeString(folder.resolve("notes.txt"), "not a project");
+        Files.writeString(report, "{}");
+        Path project = folder.resolve("project.json");
+        Files.writeString(project, "{}");
+        awaitAnalysis(watcher, project);
+
+        assertEquals(List.of("project.json:{}"), analyzer.checked);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectFingerprintTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private String fingerprint(String json) throws IOException {
+        JsonNode project = mapper.readTree(json);
+        return ProjectFingerprint.of(project);
+    }
+
+    @Test
+    public void testFormattingAndFieldOrderAreIgnored() throws IOException {
+        String project = "{\"targets\":[{\"isStage\":true,\"name\":\"Stage\",\"blocks\":{}}]}";
+        String reformatted = "{\n  \"targets\" : [ {\n    \"name\" : \"Stage\",\n    \"blocks\" : { },\n"
+                + "    \"isStage\" : true\n  } ]\n}";
+        assertEquals(fingerprint(project), fingerprint(reformatted));
+    }
+
+    @Test
+    public void testMetadataIsIgnored() throws IOException {
+        String project = "{\"targets\":[{\"name\":\"Stage\"}],\"meta\":{\"semver\":\"3.0.0\",\"agent\":\"a\"}}";
+        String copy = "{\"meta\":{\"semver\":\"3.0.0\",\"agent\":\"b\"},\"targets\":[{\"name\":\"Stage\"}]}";
+        assertEquals(fingerprint(project), fingerprint(copy));
+    }
+
+    @Test
+    public void testTargetsAreDistinguished() throws IOException {
+        String project = "{\"targets\":[{\"name\":\"Stage\"},{\"name\":\"Sprite1\"}]}";
+        assertNotEquals(fingerprint(project), fingerprint("{\"targets\":[{\"name\":\"Stage\"}]}"));
+        assertNotEquals(fingerprint(project), fingerprint("{\"targets\":[{\"name\":\"Sprite1\"},{\"name\":\"Stage\"}]}"));
+        assertNotEquals(fingerprint("{\"targets\":[{\"x\":1}]}"), fingerprint("{\"targets\":[{\"x\":\"1\"}]}"));
+        assertNotEquals(fingerprint("{\"targets\":[\"ab\",\"c\"]}"), fingerprint("{\"targets\":[\"a\",\"bc\"]}"));
+    }
+}
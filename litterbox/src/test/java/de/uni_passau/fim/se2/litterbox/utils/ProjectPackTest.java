@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.utils;
+
+import de.uni_passau.fim.se2.litterbox.analytics.bugpattern.PositionEqualsCheck;
+import de.uni_passau.fim.se2.litterbox.ast.model.Program;
+import de.uni_passau.fim.se2.litterbox.ast.parser.Scratch3Parser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectPackTest {
+
+    private static final String FIRST = "{\"targets\":[1]}";
+    private static final String SECOND = "{\"targets\":[2]}";
+
+    @TempDir
+    Path folder;
+
+    private static String read(ProjectPack pack, String name) throws IOException {
+        try (InputStream in = pack.openProject(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void writePack(Path path, boolean compress, String... namesAndProjects) throws IOException {
+        try (ProjectPackWriter writer = new ProjectPackWriter(path, compress)) {
+            for (int i = 0; i < namesAndProjects.length; i += 2) {
+                writer.addProject(namesAndProjects[i], namesAndProjects[i + 1].getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testReadStoredProjects() throws IOException {
+        Path path = folder.resolve("corpus.pack");
+        writePack(path, false, "1.json", FIRST, "2.json", SECOND);
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(List.of("1.json", "2.json"), List.copyOf(pack.getNames()));
+            assertEquals(FIRST, read(pack, "1.json"));
+            assertEquals(SECOND, read(pack, "2.json"));
+            assertThrows(IOException.class, () -> pack.openProject("3.json"));
+        }
+    }
+
+    @Test
+    public void testReadCompressedProjects() throws IOException {
+        Path path = folder.resolve("corpus.pack");
+        String large = "{\"targets\":[" + "{}, ".repeat(1000) + "{}]}";
+        writePack(path, true, "1.json", FIRST, "large.json", large);
+        assertTrue(Files.size(path) < large.length());
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(FIRST, read(pack, "1.json"));
+            assertEquals(large, read(pack, "large.json"));
+        }
+    }
+
+    @Test
+    public void testAppendToPack() throws IOException {
+        Path path = folder.resolve("corpus.pack");
+        writePack(path, false, "1.json", FIRST, "2.json", FIRST);
+        writePack(path, true, "2.json", SECOND, "3.json", SECOND);
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(List.of("1.json", "2.json", "3.json"), List.copyOf(pack.getNames()));
+            assertEquals(FIRST, read(pack, "1.json"));
+            assertEquals(SECOND, read(pack, "2.json"));
+            assertEquals(SECOND, read(pack, "3.json"));
+        }
+    }
+
+    @Test
+    public void testEntriesMissingFromIndexAreFound() throws IOException {
+        Path path = folder.resolve("corpus.pack");
+        writePack(path, false, "1.json", FIRST);
+        Path index = ProjectPack.getIndexPath(path);
+        byte[] firstIndex = Files.readAllBytes(index);
+        writePack(path, false, "2.json", SECOND);
+        Files.write(index, firstIndex);
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(SECOND, read(pack, "2.json"));
+        }
+
+        Files.delete(index);
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(List.of("1.json", "2.json"), List.copyOf(pack.getNames()));
+            assertEquals(FIRST, read(pack, "1.json"));
+        }
+    }
+
+    @Test
+    public void testTruncatedPack() throws IOException {
+        Path path = folder.resolve("corpus.pack");
+        writePack(path, false, "1.json", FIRST, "2.json", SECOND);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(List.of("1.json"), List.copyOf(pack.getNames()));
+            assertEquals(FIRST, read(pack, "1.json"));
+        }
+
+        writePack(path, false, "3.json", SECOND);
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(List.of("1.json", "3.json"), List.copyOf(pack.getNames()));
+            assertEquals(FIRST, read(pack, "1.json"));
+            assertEquals(SECOND, read(pack, "3.json"));
+        }
+
+        Files.delete(ProjectPack.getIndexPath(path));
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(List.of("1.json", "3.json"), List.copyOf(pack.getNames()));
+            assertEquals(FIRST, read(pack, "1.json"));
+            assertEquals(SECOND, read(pack, "3.json"));
+        }
+    }
+
+    @Test
+    public void testNoPack() throws IOException {
+        Path path = folder.resolve("corpus.pack");
+        Files.writeString(path, FIRST);
+        assertThrows(IOException.class, () -> new ProjectPack(path));
+        assertThrows(IOException.class, () -> new ProjectPackWriter(path, false));
+    }
+
+    @Test
+    public void testAddProjectsFromFolder() throws IOException {
+        Path projects = Files.createDirectory(folder.resolve("projects"));
+        Files.writeString(projects.resolve("a.json"), FIRST);
+        Files.writeString(projects.resolve("notes.txt"), "no project");
+        try (OutputStream out = Files.newOutputStream(projects.resolve("b.sb3"));
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("project.json"));
+            zip.write(SECOND.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        Path path = folder.resolve("corpus.pack");
+        try (ProjectPackWriter writer = new ProjectPackWriter(path, false)) {
+            assertEquals(2, writer.addProjects(projects));
+        }
+        try (ProjectPack pack = new ProjectPack(path)) {
+            assertEquals(List.of("a.json", "b.json"), List.copyOf(pack.getNames()));
+            assertEquals(FIRST, read(pack, "a.json"));
+            assertEquals(SECOND, read(pack, "b.json"));
+        }
+    }
+
+    @Test
+    public void testParseProjectFromPack() throws Exception {
+        Path projectFile = Paths.get("src/test/fixtures/bugpattern/xPosEqual.json");
+        Path path = folder.resolve("corpus.pack");
+        try (ProjectPackWriter writer = new ProjectPackWriter(path, true)) {
+            writer.addProjects(projectFile);
+        }
+
+        Scratch3Parser parser = new Scratch3Parser();
+        try (ProjectPack pack = new ProjectPack(path)) {
+            Program program = parser.parsePackEntry(pack, "xPosEqual.json");
+            assertEquals("xPosEqual", program.getIdent().getName());
+            assertEquals(1, new PositionEqualsCheck().check(program).size());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2020 LitterBox contributors
+ *
+ * This file is part of LitterBox.
+ *
+ * LitterBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * LitterBox is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LitterBox. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uni_passau.fim.se2.litterbox.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectPrefetcherTest {
+
+    private static final String PROJECT = "{\"targets\":[],\"meta\":{\"semver\":\"3.0.0\"}}";
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @TempDir
+    Path mirror;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            if (!exchange.getRequestURI().getPath().equals("/42/all")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (failuresLeft.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                byte[] body = PROJECT.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testDownloadIsStoredUnchanged() throws Exception {
+        try (ProjectPrefetcher prefetcher = new ProjectPrefetcher(baseUrl, mirror, 2)) {
+            Path path = prefetcher.prefetch("42").get();
+            assertEquals(mirror.resolve("42.json"), path);
+            assertEquals(PROJECT, Files.readString(path));
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testFailedDownloadIsRetried() throws Exception {
+        failuresLeft.set(1);
+        try (ProjectPrefetcher prefetcher = new ProjectPrefetcher(baseUrl, mirror, 2)) {
+            Path path = prefetcher.prefetch("42").get();
+            assertEquals(PROJECT, Files.readString(path));
+        }
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testMissingProjectIsNotRetried() throws Exception {
+        try (ProjectPrefetcher prefetcher = new ProjectPrefetcher(baseUrl, mirror, 2)) {
+            Future<Path> download = prefetcher.prefetch("7");
+            assertThrows(ExecutionException.class, download::get);
+            assertFalse(Files.exists(prefetcher.getProjectPath("7")));
+        }
+        assertEquals(1, requests.get());
+        try (var files = Files.list(mirror)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testMirroredProjectIsNotDownloaded() throws Exception {
+        Files.writeString(mirror.resolve("42.json"), "{}");
+        try (ProjectPrefetcher prefetcher = new ProjectPrefetcher(baseUrl, mirror, 2)) {
+            Path path = prefetcher.prefetch("42").get();
+            assertEquals("{}", Files.readString(path));
+        }
+        assertEquals(0, requests.get());
+    }
+}
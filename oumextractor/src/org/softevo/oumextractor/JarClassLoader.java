@@ -22,6 +22,12 @@ public class JarClassLoader extends ClassLoader {
      */
     private File file;
 
+    /**
+     * The jar file opened for reading classes (<code>null</code> if it was
+     * not opened yet).
+     */
+    private JarFile jarFile;
+
     /**
      * Creates a new jar class loader that can be later used to read
      * representations of classes stored in the given (jar) file.
@@ -31,6 +37,7 @@ public class JarClassLoader extends ClassLoader {
     public JarClassLoader(File file) {
         assert file.getName().endsWith(".jar");
         this.file = file;
+        this.jarFile = null;
     }
 
     /**
@@ -74,7 +81,7 @@ public class JarClassLoader extends ClassLoader {
     public InputStream getClassStream(String name)
             throws ClassNotFoundException {
         try {
-            JarFile jarFile = new JarFile(this.file);
+            JarFile jarFile = getJarFile();
             String entryName = name.replace('.', '/') + ".class";
             JarEntry entry = jarFile.getJarEntry(entryName);
             if (entry == null) {
@@ -88,6 +95,20 @@ public class JarClassLoader extends ClassLoader {
         }
     }
 
+    /**
+     * Returns the jar file opened for reading classes.  The file is opened
+     * once and kept open, so that its directory is read only once.
+     *
+     * @return The jar file opened for reading classes.
+     * @throws IOException if the jar file can not be opened.
+     */
+    private synchronized JarFile getJarFile() throws IOException {
+        if (this.jarFile == null) {
+            this.jarFile = new JarFile(this.file);
+        }
+        return this.jarFile;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
      */
@@ -4,6 +4,7 @@ import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -11,19 +12,34 @@ import java.util.*;
 
 /**
  * This class is used to represent a pool of analyzed Java types.  It follows
- * a singleton design pattern.
+ * a singleton design pattern.  The pool can be used by many threads at once:
+ * looking up a type locks the pool only briefly, creating it is done by one
+ * thread at a time.
+ * <p>
+ * Types are created on demand and only a limited number of them (the most
+ * recently used ones) is kept in memory.  This number is given by the
+ * <code>org.softevo.oumextractor.typescachesize</code> property.  Types
+ * dropped from the pool are created anew when they are needed again.  The
+ * hierarchy of types (which types derive from which) is kept for all types
+ * ever needed; it is created from the headers of class files only.
  *
  * @author Andrzej Wasylkowski
  */
 public final class JavaClassPool {
 
+    /**
+     * Default maximum number of types kept in memory.
+     */
+    private final static int DEFAULT_TYPES_CACHE_SIZE = 2000;
+
     /**
      * This is the only instance of the pool.
      */
     private final static JavaClassPool pool = new JavaClassPool();
 
     /**
-     * Mapping fully qualified type name => its representation.
+     * Mapping fully qualified type name => its representation, for the most
+     * recently used types only.
      */
     private final Map<String, JavaType> types;
 
@@ -52,7 +68,7 @@ public final class JavaClassPool {
      */
     private JavaClassPool() {
         System.err.println("initialising");
-        this.types = new HashMap<String, JavaType>();
+        this.types = new TypesCache(getTypesCacheSize());
         this.derivedClasses = new HashMap<String, Set<String>>();
         this.supertypes = new HashMap<String, Set<String>>();
         this.missingTypes = new HashSet<String>();
@@ -80,14 +96,39 @@ public final class JavaClassPool {
      */
     public JavaType getType(String name, boolean getMethodsBodies)
             throws ClassNotFoundException {
-        if (!this.types.containsKey(name)) {
-            createTypeRepresentation(name, getMethodsBodies);
+        JavaType type;
+        synchronized (this.types) {
+            type = this.types.get(name);
+        }
+        if (type != null && (!getMethodsBodies || type.hasMethodsBodies())) {
+            return type;
         }
-        JavaType type = this.types.get(name);
-        if (getMethodsBodies && !type.hasMethodsBodies()) {
-            createTypeRepresentation(name, getMethodsBodies);
+        return createType(name, getMethodsBodies);
+    }
+
+    /**
+     * Returns representation of the type of a given fully qualified name,
+     * creating it if necessary.
+     *
+     * @param name             Fully qualified name of the type.
+     * @param getMethodsBodies If <code>true</code> methods bodies will be
+     *                         stored; otherwise not.
+     * @return Representation of the type wanted.
+     * @throws ClassNotFoundException if a type can not be found
+     */
+    private synchronized JavaType createType(String name,
+                                             boolean getMethodsBodies)
+            throws ClassNotFoundException {
+        JavaType type;
+        synchronized (this.types) {
             type = this.types.get(name);
         }
+        if (type == null || (getMethodsBodies && !type.hasMethodsBodies())) {
+            type = createTypeRepresentation(name, getMethodsBodies);
+            synchronized (this.types) {
+                this.types.put(name, type);
+            }
+        }
         return type;
     }
 
@@ -98,7 +139,7 @@ public final class JavaClassPool {
      *
      * @param loader Loader to use by the pool.
      */
-    public void addClassLoader(ClassLoader loader) {
+    public synchronized void addClassLoader(ClassLoader loader) {
         for (String className : loader.getClassesNames()) {
             if (this.className2loader.containsKey(className)) {
                 ClassLoader oldLoader = this.className2loader.get(className);
@@ -128,7 +169,7 @@ public final class JavaClassPool {
     /**
      * Outputs names of all classes that were requested but not found.
      */
-    public void outputMissingTypes() {
+    public synchronized void outputMissingTypes() {
         System.out.println("Missing types:");
         List<String> missingTypesNames =
                 new ArrayList<String>(this.missingTypes);
@@ -145,7 +186,7 @@ public final class JavaClassPool {
      * @param name Name of the type to get base types of.
      * @return Names of base types of type of given name.
      */
-    public Set<String> getBaseTypesNames(String name) {
+    public synchronized Set<String> getBaseTypesNames(String name) {
         if (!this.supertypes.containsKey(name)) {
             return Collections.emptySet();
         }
@@ -168,7 +209,8 @@ public final class JavaClassPool {
      * @return Set of classes derived from class of given name.
      * @throws ClassNotFoundException if some class can not be found
      */
-    Set<JavaClass> getDerivedClasses(String name, boolean getMethodsBodies)
+    synchronized Set<JavaClass> getDerivedClasses(String name,
+                                                  boolean getMethodsBodies)
             throws ClassNotFoundException {
         // make sure this is called for a class and not an interface
         JavaType type = getType(name, getMethodsBodies);
@@ -266,79 +308,165 @@ public final class JavaClassPool {
 
     /**
      * Creates representation of the type with given fully qualified name.  The
-     * representation is stored in the pool and available for retrieval.
+     * hierarchy of types is adjusted to contain the type.
      *
      * @param name             Fully qualified name of the type.
      * @param getMethodsBodies If <code>true</code> methods' bodies will be
      *                         stored; otherwise not.
+     * @return Representation of the type.
      * @throws ClassNotFoundException if a type can not be found
      */
-    private void createTypeRepresentation(String name, boolean getMethodsBodies)
+    private JavaType createTypeRepresentation(String name,
+                                              boolean getMethodsBodies)
             throws ClassNotFoundException {
+        // get the type
+        ClassReader reader = new ClassReader(getClassBytes(name));
+        ClassNode classNode = new ClassNode();
+        reader.accept(classNode, 0);
+        adjustHierarchy(name, reader);
+        if ((classNode.access & Opcodes.ACC_INTERFACE) != 0) {
+            return new JavaInterface(classNode, getMethodsBodies);
+        } else {
+            return new JavaClass(classNode, getMethodsBodies);
+        }
+    }
+
+    /**
+     * Adjusts the hierarchy of types to contain the type of given fully
+     * qualified name and all its supertypes.  Only the header of the class
+     * file is read for this.
+     *
+     * @param name Fully qualified name of the type.
+     * @return <code>true</code> if the type was found; <code>false</code>
+     * otherwise.
+     */
+    private boolean adjustHierarchy(String name) {
+        if (this.supertypes.containsKey(name)) {
+            return true;
+        }
         try {
-            // get the type stream
-            if (!this.className2loader.containsKey(name)) {
-                missingTypes.add(name);
-                throw new ClassNotFoundException(name);
-            }
-            ClassLoader loader = this.className2loader.get(name);
-            InputStream typeStream = loader.getClassStream(name);
-
-            // get the type
-            ClassNode classNode = new ClassNode();
-            ClassReader reader = new ClassReader(typeStream);
-            reader.accept(classNode, 0);
-            if ((classNode.access & Opcodes.ACC_INTERFACE) != 0) {
-                JavaInterface interfac = new JavaInterface(classNode, getMethodsBodies);
-                this.types.put(name, interfac);
-            } else {
-                JavaClass clas = new JavaClass(classNode, getMethodsBodies);
-                this.types.put(name, clas);
-            }
-            typeStream.close();
+            adjustHierarchy(name, new ClassReader(getClassBytes(name)));
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
 
-            // adjust the derived classes hierarchy (for classes only)
-            JavaType type = this.types.get(name);
-            if (type instanceof JavaClass) {
-                if (!this.derivedClasses.containsKey(name)) {
-                    this.derivedClasses.put(name, new HashSet<String>());
-                }
+    /**
+     * Adjusts the hierarchy of types to contain the type of given fully
+     * qualified name and all its supertypes.
+     *
+     * @param name   Fully qualified name of the type.
+     * @param reader Reader of the class file of the type.
+     */
+    private void adjustHierarchy(String name, ClassReader reader) {
+        if (this.supertypes.containsKey(name)) {
+            return;
+        }
+        Set<String> typeSupertypes = new HashSet<String>();
+        this.supertypes.put(name, typeSupertypes);
 
-                if (classNode.superName != null) {
-                    String superName = classNode.superName.replace('/', '.');
-                    try {
-                        getType(superName, getMethodsBodies);
-                        this.derivedClasses.get(superName).add(name);
-                    } catch (ClassNotFoundException e) {
-                    }
-                }
+        // adjust the derived classes hierarchy (for classes only)
+        boolean isClass = (reader.getAccess() & Opcodes.ACC_INTERFACE) == 0;
+        if (isClass && !this.derivedClasses.containsKey(name)) {
+            this.derivedClasses.put(name, new HashSet<String>());
+        }
+
+        // adjust the base classes hierarchy
+        if (reader.getSuperName() != null) {
+            String superName = reader.getSuperName().replace('/', '.');
+            typeSupertypes.add(superName);
+            if (adjustHierarchy(superName) && isClass) {
+                this.derivedClasses.get(superName).add(name);
+            }
+            for (String interfaceName : reader.getInterfaces()) {
+                String interfac = interfaceName.replace('/', '.');
+                typeSupertypes.add(interfac);
+                adjustHierarchy(interfac);
             }
+        }
+    }
 
-            // adjust the base classes hierarchy
-            Set<String> typeSupertypes = new HashSet<String>();
-            this.supertypes.put(name, typeSupertypes);
-            if (classNode.superName != null) {
-                String superName = classNode.superName.replace('/', '.');
-                typeSupertypes.add(superName);
-                try {
-                    getType(superName, getMethodsBodies);
-                } catch (ClassNotFoundException e) {
-                }
-                for (Object interfaceObject : classNode.interfaces) {
-                    String interfac =
-                            ((String) interfaceObject).replace('/', '.');
-                    typeSupertypes.add(interfac);
-                    try {
-                        getType(interfac, getMethodsBodies);
-                    } catch (ClassNotFoundException e) {
-                    }
-                }
+    /**
+     * Reads the class file of the type with given fully qualified name.
+     *
+     * @param name Fully qualified name of the type.
+     * @return Contents of the class file.
+     * @throws ClassNotFoundException if a type can not be found
+     */
+    public synchronized byte[] getClassBytes(String name)
+            throws ClassNotFoundException {
+        if (!this.className2loader.containsKey(name)) {
+            this.missingTypes.add(name);
+            throw new ClassNotFoundException(name);
+        }
+        try {
+            InputStream typeStream =
+                    this.className2loader.get(name).getClassStream(name);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int size;
+            while ((size = typeStream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, size);
             }
+            typeStream.close();
+            return bytes.toByteArray();
         } catch (IOException e) {
             e.printStackTrace(System.err);
             throw new InternalError();
-//			missingTypes.add (name);
-//			throw new ClassNotFoundException (name);
+        }
+    }
+
+    /**
+     * Returns the maximum number of types kept in memory, as given by the
+     * <code>org.softevo.oumextractor.typescachesize</code> property.
+     *
+     * @return Maximum number of types kept in memory.
+     */
+    private static int getTypesCacheSize() {
+        String typesCacheSizeProperty =
+                System.getProperty("org.softevo.oumextractor.typescachesize");
+        if (typesCacheSizeProperty == null) {
+            return DEFAULT_TYPES_CACHE_SIZE;
+        }
+        int typesCacheSize = Integer.parseInt(typesCacheSizeProperty);
+        if (typesCacheSize < 1) {
+            System.err.println("[ERROR] org.softevo.oumextractor.typescachesize property must be >= 1");
+            System.exit(1);
+        }
+        return typesCacheSize;
+    }
+
+    /**
+     * This class is used to represent the types kept in memory.  When there
+     * are too many of them, the least recently used one is dropped.
+     */
+    private static final class TypesCache
+            extends LinkedHashMap<String, JavaType> {
+
+        private static final long serialVersionUID = 2285301953160367146L;
+
+        /**
+         * Maximum number of types kept.
+         */
+        private final int maxSize;
+
+        /**
+         * Creates new, empty cache of types.
+         *
+         * @param maxSize Maximum number of types kept.
+         */
+        TypesCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JavaType> eldest) {
+            return size() > this.maxSize;
         }
     }
 }
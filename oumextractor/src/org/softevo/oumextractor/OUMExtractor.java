@@ -8,10 +8,15 @@ import org.softevo.oumextractor.modelcreator1.Analyzer;
 import org.softevo.oumextractor.modelcreator1.ModelAnalyzer;
 import org.softevo.oumextractor.modelcreator1.ModelData;
 import org.softevo.oumextractor.modelcreator1.ModelVisitor;
+import org.softevo.oumextractor.modelcreator1.ModelsManifest;
+import org.softevo.oumextractor.modelcreator1.ModelsWriter;
 import org.softevo.oumextractor.modelcreator1.model.Model;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.*;
@@ -33,17 +38,17 @@ public final class OUMExtractor {
     /**
      * Number of classes present in the analyzed jar files.
      */
-    private static int classesPresent = 0;
+    private static final AtomicInteger classesPresent = new AtomicInteger();
 
     /**
      * Number of methods present in the analyzed jar files.
      */
-    private static int methodsPresent = 0;
+    private static final AtomicInteger methodsPresent = new AtomicInteger();
 
     /**
      * Number of analyzed methods.
      */
-    private static int methodsAnalyzed = 0;
+    private static final AtomicInteger methodsAnalyzed = new AtomicInteger();
 
     static {
         try {
@@ -56,11 +61,17 @@ public final class OUMExtractor {
         }
     }
 
+    /**
+     * Number of types to analyze at once.
+     */
+    private int threads;
+
     /**
      * Creates new instance of this class.  It is to be used only internally, in
      * order to hold values extracted from the command-line.
      */
     private OUMExtractor() {
+        this.threads = 1;
     }
 
     /**
@@ -68,7 +79,7 @@ public final class OUMExtractor {
      * starting.  This ensures that the number of classes present is correct.
      */
     public static void newClassPresent() {
-        classesPresent++;
+        classesPresent.incrementAndGet();
     }
 
     /**
@@ -76,7 +87,7 @@ public final class OUMExtractor {
      * starting.  This ensures that the number of methods present is correct.
      */
     public static void newMethodPresent() {
-        methodsPresent++;
+        methodsPresent.incrementAndGet();
     }
 
     /**
@@ -85,7 +96,7 @@ public final class OUMExtractor {
      * analyzed is correct.
      */
     public static void newMethodAnalyzed() {
-        methodsAnalyzed++;
+        methodsAnalyzed.incrementAndGet();
     }
 
     /**
@@ -118,6 +129,8 @@ public final class OUMExtractor {
                 "separated with colons", SwitchMultiplicity.ZERO_OR_ONE, true);
         create.addSwitch("libs", "jar libraries, separated with colons",
                 SwitchMultiplicity.ZERO_OR_ONE, true);
+        create.addSwitch("threads", "number of classes to analyze at once",
+                SwitchMultiplicity.ZERO_OR_ONE, true);
         create.setDataCount(2);
         create.setDataName(1, "jar_file");
         create.setDataName(2, "models_dir");
@@ -132,6 +145,8 @@ public final class OUMExtractor {
                 "separated with colons", SwitchMultiplicity.ZERO_OR_ONE, true);
         createDir.addSwitch("libs", "jar libraries, separated with colons",
                 SwitchMultiplicity.ZERO_OR_ONE, true);
+        createDir.addSwitch("threads", "number of classes to analyze at once",
+                SwitchMultiplicity.ZERO_OR_ONE, true);
         createDir.setDataCount(2);
         createDir.setDataName(1, "jars_dir");
         createDir.setDataName(2, "models_dir");
@@ -146,6 +161,8 @@ public final class OUMExtractor {
                 "separated with colons", SwitchMultiplicity.ZERO_OR_ONE, true);
         createFiles.addSwitch("libs", "jar libraries, separated with colons",
                 SwitchMultiplicity.ZERO_OR_ONE, true);
+        createFiles.addSwitch("threads", "number of classes to analyze at once",
+                SwitchMultiplicity.ZERO_OR_ONE, true);
         createFiles.setDataCount(2);
         createFiles.setDataName(1, "class_files");
         createFiles.setDataName(2, "models_dir");
@@ -164,11 +181,34 @@ public final class OUMExtractor {
         output.setDataName(3, "models_file");
         cmdLine.addInputFormat("output", output);
 
+        InputFormat convert = new InputFormat("to convert serialized " +
+                "object usage models into the binary models format");
+        convert.addSwitch("convert",
+                "makes OUMExtractor convert all .models.ser files in the " +
+                        "models directory into .models.bin files",
+                SwitchMultiplicity.ONE);
+        convert.setDataCount(1);
+        convert.setDataName(1, "models_dir");
+        cmdLine.addInputFormat("convert", convert);
+
+        InputFormat pack = new InputFormat("to create the model pack " +
+                "of a models directory");
+        pack.addSwitch("pack",
+                "makes OUMExtractor create a single indexed file with all " +
+                        "object usage models of the models directory",
+                SwitchMultiplicity.ONE);
+        pack.setDataCount(1);
+        pack.setDataName(1, "models_dir");
+        cmdLine.addInputFormat("pack", pack);
+
         cmdLine.addHelpFormat();
 
         // parse command line
         if (cmdLine.parseCommandLine(args)) {
             if (cmdLine.getFormatName().equals("create")) {
+                if (!readThreads(cmdLine)) {
+                    return;
+                }
                 String jarName = cmdLine.getDataValue(1);
                 String modelsDirName = cmdLine.getDataValue(2);
                 List<String> libdirsNames = getLibdirsNames(cmdLine);
@@ -176,6 +216,9 @@ public final class OUMExtractor {
                 createModelsFromJar(jarName, modelsDirName, libdirsNames,
                         libsNames);
             } else if (cmdLine.getFormatName().equals("createdir")) {
+                if (!readThreads(cmdLine)) {
+                    return;
+                }
                 String jarDirName = cmdLine.getDataValue(1);
                 String modelsDirName = cmdLine.getDataValue(2);
                 List<String> libdirsNames = getLibdirsNames(cmdLine);
@@ -183,6 +226,9 @@ public final class OUMExtractor {
                 createModelsFromDir(jarDirName, modelsDirName, libdirsNames,
                         libsNames);
             } else if (cmdLine.getFormatName().equals("createFiles")) {
+                if (!readThreads(cmdLine)) {
+                    return;
+                }
                 String classFiles = cmdLine.getDataValue(1);
                 String modelsDirName = cmdLine.getDataValue(2);
                 List<String> libdirsNames = getLibdirsNames(cmdLine);
@@ -197,6 +243,12 @@ public final class OUMExtractor {
                     modelsFilename = cmdLine.getDataValue(3);
                 }
                 outputModels(serDirName, outputDirName, modelsFilename);
+            } else if (cmdLine.getFormatName().equals("convert")) {
+                String modelsDirName = cmdLine.getDataValue(1);
+                convertModels(modelsDirName);
+            } else if (cmdLine.getFormatName().equals("pack")) {
+                String modelsDirName = cmdLine.getDataValue(1);
+                packModels(modelsDirName);
             } else {
                 cmdLine.processOtherFormats();
             }
@@ -206,46 +258,121 @@ public final class OUMExtractor {
         }
     }
 
+    /**
+     * Reads the number of threads to use from the given command line of one
+     * of the commands creating models.
+     *
+     * @param cmdLine Parsed command line of a command creating models.
+     * @return <code>true</code> if the number of threads is valid;
+     * <code>false</code> otherwise.
+     */
+    private boolean readThreads(CommandLine cmdLine) {
+        if (cmdLine.getSwitchCount("threads") > 0) {
+            try {
+                this.threads = Integer.parseInt(
+                        cmdLine.getSwitchValues("threads")[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("[ERROR] Number of threads must be " +
+                        "a number (given: " +
+                        cmdLine.getSwitchValues("threads")[0] + ")");
+                return false;
+            }
+            if (this.threads < 1) {
+                System.err.println("[ERROR] Number of threads must be " +
+                        ">= 1 (given: " + this.threads + ")");
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Performs static analysis for all given classes and saves
-     * object usage models in given directory.
+     * object usage models in given directory.  Classes are analyzed by
+     * as many workers at once as requested, each with its own analyzer;
+     * the models directory created is the same for any number of workers.
+     * If the models directory holds models created before, only classes that
+     * changed since then are analyzed.
      *
      * @param types     Fully qualified names of classes to be analyzed.
      * @param modelsDir Directory to save models into.
      */
     private void createClassesModels(Set<String> types, String modelsDir) {
         try {
-            // read the classes to memory
-            JavaClassPool pool = JavaClassPool.get();
-            System.out.print("Reading classes to memory...");
-            try {
-                for (String typeName : types) {
-                    pool.getType(typeName, true);
-                }
-            } catch (OutOfMemoryError e) {
+            // find classes that changed since the models were created
+            final JavaClassPool pool = JavaClassPool.get();
+            ModelsManifest manifest = new ModelsManifest();
+            for (String typeName : types) {
+                manifest.addType(typeName,
+                        ModelsManifest.getChecksum(pool.getClassBytes(typeName)));
+            }
+            final ModelsWriter writer =
+                    new ModelsWriter(modelsDir, manifest, 4 * this.threads);
+            final List<String> typesNames = writer.getTypesToAnalyze();
+            if (typesNames.size() < types.size()) {
+                System.out.println("Keeping models of " +
+                        (types.size() - typesNames.size()) +
+                        " unchanged classes");
             }
-            System.out.println("OK");
 
-            // perform the analysis
-            Analyzer analyzer = new Analyzer(modelsDir, types);
-            int typesProcessed = 0;
-            for (String typeName : types) {
-                typesProcessed++;
-                int percentProcessed =
-                        (100 * typesProcessed) / types.size();
-                System.out.println("Analyzing " + typesProcessed + "/" +
-                        types.size() + " (" + percentProcessed +
-                        "% done): " + typeName);
-                JavaType type = pool.getType(typeName, true);
-                if (type instanceof JavaClass) {
-                    OUMExtractor.newClassPresent();
-                    JavaClass clas = (JavaClass) type;
-                    clas.createCFGRepresentation();
-                    clas.analyzeDataFlow(analyzer);
-                    analyzer.serializeModels();
+            // perform the analysis (classes are read when they are needed)
+            final AtomicInteger typesTaken = new AtomicInteger();
+            final AtomicBoolean failed = new AtomicBoolean();
+            ExecutorService executor =
+                    Executors.newFixedThreadPool(this.threads);
+            CompletionService<Void> workers =
+                    new ExecutorCompletionService<Void>(executor);
+            for (int i = 0; i < this.threads; i++) {
+                workers.submit(new Callable<Void>() {
+                    public Void call() throws ClassNotFoundException {
+                        Analyzer analyzer = new Analyzer(writer);
+                        int sequence;
+                        while (!failed.get() && (sequence =
+                                typesTaken.getAndIncrement()) < typesNames.size()) {
+                            String typeName = typesNames.get(sequence);
+                            int typesProcessed = sequence + 1;
+                            int percentProcessed =
+                                    (100 * typesProcessed) / typesNames.size();
+                            System.out.println("Analyzing " + typesProcessed +
+                                    "/" + typesNames.size() + " (" +
+                                    percentProcessed + "% done): " + typeName);
+                            JavaType type = pool.getType(typeName, true);
+                            if (type instanceof JavaClass) {
+                                OUMExtractor.newClassPresent();
+                                JavaClass clas = (JavaClass) type;
+                                clas.createCFGRepresentation();
+                                clas.analyzeDataFlow(analyzer);
+                            }
+                            analyzer.serializeModels(sequence);
+                        }
+                        analyzer.shutdownAnalysis();
+                        return null;
+                    }
+                });
+            }
+            Throwable failure = null;
+            for (int i = 0; i < this.threads; i++) {
+                try {
+                    workers.take().get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                        failed.set(true);
+                        writer.close();
+                    }
                 }
             }
-            analyzer.shutdownAnalysis();
+            executor.shutdown();
+            writer.close();
+            if (failure instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+            writer.writeModelsData();
+            new ModelAnalyzer(new File(modelsDir), false).createModelPack();
             pool.outputMissingTypes();
             System.out.println("Classes present: " +
                     OUMExtractor.classesPresent);
@@ -254,6 +381,8 @@ public final class OUMExtractor {
                     OUMExtractor.methodsPresent);
         } catch (ClassNotFoundException e) {
             e.printStackTrace(System.err);
+        } catch (InterruptedException e) {
+            e.printStackTrace(System.err);
         }
     }
 
@@ -423,25 +552,69 @@ public final class OUMExtractor {
             file.delete();
         }
 
-        // output models
+        // output models (loading only the requested ones, if possible)
         ModelAnalyzer analyzer = new ModelAnalyzer(new File(serDirName));
+        if (!modelsToOutput.isEmpty() && analyzer.hasModelPack()) {
+            for (Integer id : modelsToOutput) {
+                Model model = analyzer.getModel(id);
+                if (model == null) {
+                    System.err.println("[WARNING] There is no model " + id);
+                } else {
+                    saveModel(outputDir, id, model);
+                }
+            }
+            return;
+        }
         analyzer.analyzeModels(new ModelVisitor() {
             public void visit(int id, Model model, ModelData data) {
                 if (!modelsToOutput.isEmpty() && !modelsToOutput.contains(id)) {
                     return;
                 }
-
-                String dotFilename = id + ".model.dot";
-                try {
-                    model.saveToDotFile(new File(outputDir, dotFilename));
-                } catch (FileNotFoundException e) {
-                    e.printStackTrace(System.err);
-                    throw new InternalError();
-                }
+                saveModel(outputDir, id, model);
             }
         });
     }
 
+    /**
+     * Saves given model as a .dot file in the given directory.
+     *
+     * @param outputDir Directory to put the .dot file into.
+     * @param id        Id of the model.
+     * @param model     Model to save.
+     */
+    private static void saveModel(File outputDir, int id, Model model) {
+        String dotFilename = id + ".model.dot";
+        try {
+            model.saveToDotFile(new File(outputDir, dotFilename));
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            throw new InternalError();
+        }
+    }
+
+    /**
+     * Converts all serialized object usage models from given directory into
+     * the binary models format.
+     *
+     * @param modelsDirName Directory with models to convert.
+     */
+    private void convertModels(String modelsDirName) {
+        ModelAnalyzer analyzer = new ModelAnalyzer(new File(modelsDirName));
+        int modelsConverted = analyzer.convertSerializedModels();
+        System.out.println(modelsConverted + " MODELS CONVERTED");
+    }
+
+    /**
+     * Creates the model pack of the given models directory.
+     *
+     * @param modelsDirName Directory with models to pack.
+     */
+    private void packModels(String modelsDirName) {
+        ModelAnalyzer analyzer = new ModelAnalyzer(new File(modelsDirName));
+        int modelsPacked = analyzer.createModelPack();
+        System.out.println(modelsPacked + " MODELS PACKED");
+    }
+
     /**
      * Returns all classes from given directory.
      *
@@ -5,10 +5,7 @@ import org.softevo.oumextractor.JavaMethod;
 import org.softevo.oumextractor.OUMExtractor;
 import org.softevo.oumextractor.controlflow.Node;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
+import java.util.*;
 
 /**
  * This class is used as a base class for data flow analyzers.
@@ -21,6 +18,10 @@ public abstract class Analyzer {
      * Queue of nodes to analyze.
      */
     private final Queue<Node> nodesToAnalyze;
+    /**
+     * Set of nodes in the queue of nodes to analyze.
+     */
+    private final Set<Node> nodesToAnalyzeSet;
     /**
      * Mapping node => return address value associated with this node.
      */
@@ -35,6 +36,7 @@ public abstract class Analyzer {
      */
     public Analyzer() {
         this.nodesToAnalyze = new LinkedList<Node>();
+        this.nodesToAnalyzeSet = new HashSet<Node>();
         this.nodesReturnAddresses = new HashMap<Node, ReturnAddressValue>();
     }
 
@@ -46,6 +48,7 @@ public abstract class Analyzer {
     public void startAnalysis(JavaMethod method) {
         this.javaMethod = method;
         this.nodesToAnalyze.clear();
+        this.nodesToAnalyzeSet.clear();
         this.nodesReturnAddresses.clear();
     }
 
@@ -56,9 +59,10 @@ public abstract class Analyzer {
      */
     public final void analyze(Node entry) {
         OUMExtractor.newMethodPresent();
-        this.nodesToAnalyze.offer(entry);
+        addNodeToAnalyze(entry);
         while (!this.nodesToAnalyze.isEmpty()) {
             Node nextNode = this.nodesToAnalyze.remove();
+            this.nodesToAnalyzeSet.remove(nextNode);
             try {
                 preAnalyzeNode(nextNode, nextNode.getIn());
                 nextNode.analyzeDataFlow(this);
@@ -130,6 +134,7 @@ public abstract class Analyzer {
      */
     public void rollbackAnalysis() {
         this.nodesToAnalyze.clear();
+        this.nodesToAnalyzeSet.clear();
         this.nodesReturnAddresses.clear();
     }
 
@@ -158,7 +163,7 @@ public abstract class Analyzer {
      * @param node Node that needs to be analyzed.
      */
     public final void addNodeToAnalyze(Node node) {
-        if (!this.nodesToAnalyze.contains(node)) {
+        if (this.nodesToAnalyzeSet.add(node)) {
             this.nodesToAnalyze.offer(node);
         }
     }
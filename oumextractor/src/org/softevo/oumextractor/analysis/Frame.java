@@ -10,19 +10,26 @@ import java.util.*;
 public final class Frame {
 
     /**
-     * Operands stack of this frame.
+     * Operands stack of this frame (only the first
+     * <code>operandsStackSize</code> elements are used).
      */
-    private final LinkedList<Value> operandsStack;
+    private Value[] operandsStack;
 
     /**
-     * List of local variables of this frame.
+     * Number of operands on the operands stack of this frame.
      */
-    private final List<Value> localVariables;
+    private int operandsStackSize;
 
     /**
-     * Set of values that were in the frame before the node was analyzed.
+     * Local variables of this frame.
      */
-    private final IdentityHashMap<Value, Value> enteringValues;
+    private final Value[] localVariables;
+
+    /**
+     * Set of values that were in the frame before the node was analyzed
+     * (<code>null</code> if there are none).
+     */
+    private IdentityHashMap<Value, Value> enteringValues;
 
     /**
      * Creates new empty frame with given number of slots for local variables.
@@ -30,10 +37,10 @@ public final class Frame {
      * @param numSlots Number of slots for local variables.
      */
     public Frame(int numSlots) {
-        this.operandsStack = new LinkedList<Value>();
-        this.localVariables = new ArrayList<Value>();
-        this.localVariables.addAll(Collections.nCopies(numSlots, (Value) null));
-        this.enteringValues = new IdentityHashMap<Value, Value>();
+        this.operandsStack = new Value[4];
+        this.operandsStackSize = 0;
+        this.localVariables = new Value[numSlots];
+        this.enteringValues = null;
     }
 
     /**
@@ -44,33 +51,31 @@ public final class Frame {
      * @param in Source frame.
      */
     public Frame(Frame in) {
-        // make a shallow copy
-        this.operandsStack = new LinkedList<Value>(in.operandsStack);
-        this.localVariables = new ArrayList<Value>(in.localVariables);
-        this.enteringValues = new IdentityHashMap<Value, Value>();
+        this.operandsStack = new Value[in.operandsStack.length];
+        this.operandsStackSize = in.operandsStackSize;
+        this.localVariables = new Value[in.localVariables.length];
+        this.enteringValues = null;
         ClonesCache clones = new ClonesCache();
 
         // clone values
         try {
-            for (int i = 0; i < in.operandsStack.size(); i++) {
-                if (in.operandsStack.get(i) == null) {
-                    this.operandsStack.set(i, null);
-                } else {
-                    this.operandsStack.set(i,
-                            in.operandsStack.get(i).clone(clones));
+            for (int i = 0; i < in.operandsStackSize; i++) {
+                if (in.operandsStack[i] != null) {
+                    this.operandsStack[i] = in.operandsStack[i].clone(clones);
                 }
             }
-            for (int i = 0; i < in.localVariables.size(); i++) {
-                if (in.localVariables.get(i) == null) {
-                    this.localVariables.set(i, null);
-                } else {
-                    this.localVariables.set(i,
-                            in.localVariables.get(i).clone(clones));
+            for (int i = 0; i < in.localVariables.length; i++) {
+                if (in.localVariables[i] != null) {
+                    this.localVariables[i] =
+                            in.localVariables[i].clone(clones);
                 }
             }
-            for (Value value : in.enteringValues.keySet()) {
-                Value clone = value.clone(clones);
-                this.enteringValues.put(clone, clone);
+            if (in.enteringValues != null) {
+                this.enteringValues = new IdentityHashMap<Value, Value>();
+                for (Value value : in.enteringValues.keySet()) {
+                    Value clone = value.clone(clones);
+                    this.enteringValues.put(clone, clone);
+                }
             }
         } catch (CloneNotSupportedException e) {
             System.err.println("[ERROR] This should never happen");
@@ -94,7 +99,13 @@ public final class Frame {
      * @return Operand at the top of the stack.
      */
     public Value popOperand() {
-        return this.operandsStack.removeLast();
+        if (this.operandsStackSize == 0) {
+            throw new NoSuchElementException();
+        }
+        this.operandsStackSize--;
+        Value result = this.operandsStack[this.operandsStackSize];
+        this.operandsStack[this.operandsStackSize] = null;
+        return result;
     }
 
     /**
@@ -103,27 +114,42 @@ public final class Frame {
      * @param value Operand to be pushed.
      */
     public void pushOperand(Value value) {
-        this.operandsStack.addLast(value);
+        if (this.operandsStackSize == this.operandsStack.length) {
+            Value[] operands = new Value[2 * this.operandsStack.length];
+            System.arraycopy(this.operandsStack, 0, operands, 0,
+                    this.operandsStackSize);
+            this.operandsStack = operands;
+        }
+        this.operandsStack[this.operandsStackSize] = value;
+        this.operandsStackSize++;
     }
 
     /**
      * Clears the operands' stack.
      */
     public void clearOperandsStack() {
-        this.operandsStack.clear();
+        for (int i = 0; i < this.operandsStackSize; i++) {
+            this.operandsStack[i] = null;
+        }
+        this.operandsStackSize = 0;
     }
 
     /**
      * Initializes the set of entering values.
      */
     public void initializeEnteringValues() {
-        this.enteringValues.clear();
+        if (this.enteringValues == null) {
+            this.enteringValues = new IdentityHashMap<Value, Value>();
+        } else {
+            this.enteringValues.clear();
+        }
         for (Value value : this.localVariables) {
             if (value != null) {
                 this.enteringValues.put(value, value);
             }
         }
-        for (Value value : this.operandsStack) {
+        for (int i = 0; i < this.operandsStackSize; i++) {
+            Value value = this.operandsStack[i];
             if (value != null) {
                 this.enteringValues.put(value, value);
             }
@@ -136,6 +162,9 @@ public final class Frame {
      * @return Values that entered the frame, but disappeared afterwards.
      */
     public Set<Value> getDisappearedValues() {
+        if (this.enteringValues == null) {
+            return Collections.emptySet();
+        }
         IdentityHashMap<Value, Value> disappeared =
                 new IdentityHashMap<Value, Value>(this.enteringValues);
         for (Value value : this.localVariables) {
@@ -143,7 +172,8 @@ public final class Frame {
                 disappeared.remove(value);
             }
         }
-        for (Value value : this.operandsStack) {
+        for (int i = 0; i < this.operandsStackSize; i++) {
+            Value value = this.operandsStack[i];
             if (value != null) {
                 disappeared.remove(value);
             }
@@ -156,10 +186,10 @@ public final class Frame {
      *
      * @param liveVariables Indices of variables to be retained.
      */
-    public void retainVariables(Set<Integer> liveVariables) {
-        for (int var = 0; var < this.localVariables.size(); var++) {
-            if (!liveVariables.contains(var)) {
-                setLocalVariable(var, null);
+    public void retainVariables(BitSet liveVariables) {
+        for (int var = 0; var < this.localVariables.length; var++) {
+            if (!liveVariables.get(var)) {
+                this.localVariables[var] = null;
             }
         }
     }
@@ -177,7 +207,8 @@ public final class Frame {
                 result.add(value);
             }
         }
-        for (Value value : this.operandsStack) {
+        for (int i = 0; i < this.operandsStackSize; i++) {
+            Value value = this.operandsStack[i];
             if (value != null) {
                 result.add(value);
             }
@@ -187,7 +218,9 @@ public final class Frame {
 
     /**
      * Merges two frames into one.  This method must return its argument if the
-     * result of the merging operation is equal to this argument.
+     * result of the merging operation is equal to this argument.  The
+     * argument is copied only if the result differs from it, so merging
+     * frames that are already merged creates no new frame.
      *
      * @param frame Frame to merge this frame with.
      * @return Result of merging this frame and the given one.
@@ -198,35 +231,45 @@ public final class Frame {
             return new Frame(this);
         }
 
-        // initialize merging
-        boolean changed = false;
-        Frame result = new Frame(frame);
-        MergesCache merges = new MergesCache();
-
         // make sure frames are size-identical
-        if (this.operandsStack.size() != frame.operandsStack.size() ||
-                this.localVariables.size() != frame.localVariables.size()) {
+        if (this.operandsStackSize != frame.operandsStackSize ||
+                this.localVariables.length != frame.localVariables.length) {
             System.err.println("[ERROR] This should never happen");
             throw new IllegalStateException();
         }
 
+        // initialize merging (merging values does not change them, so the
+        // result is created only when the first change is found)
+        Frame result = null;
+        MergesCache merges = null;
+
         // merge operands' stacks
-        for (int i = 0; i < this.operandsStack.size(); i++) {
-            Value thisArg = this.operandsStack.get(i);
-            Value arg = frame.operandsStack.get(i);
+        for (int i = 0; i < this.operandsStackSize; i++) {
+            Value thisArg = this.operandsStack[i];
+            Value arg = frame.operandsStack[i];
+            if (thisArg == arg) {
+                continue;
+            }
+            if (merges == null) {
+                merges = new MergesCache();
+            }
             Value merged = thisArg.merge(arg, merges);
             if (arg != merged) {
-                result.operandsStack.set(i, merged);
-                changed = true;
+                if (result == null) {
+                    result = new Frame(frame);
+                }
+                result.operandsStack[i] = merged;
             }
         }
 
         // merge local variables
-        for (int i = 0; i < this.localVariables.size(); i++) {
-            Value thisArg = this.localVariables.get(i);
-            Value arg = frame.localVariables.get(i);
+        for (int i = 0; i < this.localVariables.length; i++) {
+            Value thisArg = this.localVariables[i];
+            Value arg = frame.localVariables[i];
             Value merged;
-            if (arg == null) {
+            if (thisArg == arg) {
+                continue;
+            } else if (arg == null) {
                 merged = thisArg;
             } else if (thisArg == null) {
                 merged = arg;
@@ -235,16 +278,21 @@ public final class Frame {
                     !thisArg.getClass().equals(arg.getClass())) {
                 merged = null;
             } else {
+                if (merges == null) {
+                    merges = new MergesCache();
+                }
                 merged = thisArg.merge(arg, merges);
             }
             if (arg != merged) {
-                result.localVariables.set(i, merged);
-                changed = true;
+                if (result == null) {
+                    result = new Frame(frame);
+                }
+                result.localVariables[i] = merged;
             }
         }
 
         // return appropriate frame
-        if (changed) {
+        if (result != null) {
             return result;
         } else {
             return frame;
@@ -255,27 +303,27 @@ public final class Frame {
      * Updates structure of values in this frame.
      */
     public void updateValuesStructure() {
-        for (int i = 0; i < this.operandsStack.size(); i++) {
-            Value value = this.operandsStack.get(i);
+        for (int i = 0; i < this.operandsStackSize; i++) {
+            Value value = this.operandsStack[i];
             if (value != null) {
-                value = value.updateStructure();
+                this.operandsStack[i] = value.updateStructure();
             }
-            this.operandsStack.set(i, value);
         }
-        for (int i = 0; i < this.localVariables.size(); i++) {
-            Value value = this.localVariables.get(i);
+        for (int i = 0; i < this.localVariables.length; i++) {
+            Value value = this.localVariables[i];
             if (value != null) {
-                value = value.updateStructure();
+                this.localVariables[i] = value.updateStructure();
             }
-            this.localVariables.set(i, value);
         }
-        IdentityHashMap<Value, Value> updatedEnteringValues = new IdentityHashMap<Value, Value>();
-        for (Value value : this.enteringValues.keySet()) {
-            Value updated = value.updateStructure();
-            updatedEnteringValues.put(updated, updated);
+        if (this.enteringValues != null) {
+            IdentityHashMap<Value, Value> updatedEnteringValues =
+                    new IdentityHashMap<Value, Value>();
+            for (Value value : this.enteringValues.keySet()) {
+                Value updated = value.updateStructure();
+                updatedEnteringValues.put(updated, updated);
+            }
+            this.enteringValues = updatedEnteringValues;
         }
-        this.enteringValues.clear();
-        this.enteringValues.putAll(updatedEnteringValues);
     }
 
     /**
@@ -284,7 +332,7 @@ public final class Frame {
      * @return The number of local variables.
      */
     public int getNumLocalVariables() {
-        return this.localVariables.size();
+        return this.localVariables.length;
     }
 
     /**
@@ -294,7 +342,7 @@ public final class Frame {
      * @return Value of a local variable of specified index.
      */
     public Value getLocalVariable(int index) {
-        return this.localVariables.get(index);
+        return this.localVariables[index];
     }
 
     /**
@@ -304,7 +352,7 @@ public final class Frame {
      * @param value New value of a local variable.
      */
     public void setLocalVariable(int index, Value value) {
-        this.localVariables.set(index, value);
+        this.localVariables[index] = value;
     }
 
     /* (non-Javadoc)
@@ -317,18 +365,18 @@ public final class Frame {
         result.append("======================================================================\n");
         result.append("Local variables:\n");
         result.append("----------------------------------------\n");
-        for (int i = 0; i < this.localVariables.size(); i++) {
-            if (this.localVariables.get(i) == null) {
+        for (int i = 0; i < this.localVariables.length; i++) {
+            if (this.localVariables[i] == null) {
                 result.append(i + " : (uninitialized)");
             } else {
-                result.append(i + " : " + this.localVariables.get(i).toString());
+                result.append(i + " : " + this.localVariables[i].toString());
             }
             result.append('\n');
         }
         result.append("Operands stack:\n");
         result.append("----------------------------------------\n");
-        for (int i = 0; i < this.operandsStack.size(); i++) {
-            result.append(i + " : " + this.operandsStack.get(i).toString());
+        for (int i = 0; i < this.operandsStackSize; i++) {
+            result.append(i + " : " + this.operandsStack[i].toString());
             result.append('\n');
         }
         result.append("======================================================================");
@@ -155,7 +155,7 @@ public abstract class BytecodeNode extends Node {
      * @return All possible "exceptional" successors of this node.
      */
     protected Set<Node> getExceptionalSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         for (ExceptionHandler handler : this.handlers) {
             result.add(handler.getHandler());
         }
@@ -175,7 +175,7 @@ public abstract class BytecodeNode extends Node {
             throws AnalyzeErrorException {
         JavaClassPool pool = JavaClassPool.get();
         try {
-            HashSet<Node> result = new HashSet<Node>();
+            Set<Node> result = new LinkedHashSet<Node>();
             try {
                 JavaClass excClass = (JavaClass) pool.getType(excType, false);
                 for (ExceptionHandler handler : this.handlers) {
@@ -75,15 +75,22 @@ public final class ControlFlowGraph {
     }
 
     /**
-     * Performs liveness analysis of the bytecode variables.
+     * Performs liveness analysis of the bytecode variables.  Nodes of the
+     * graph are numbered in reverse postorder first (see
+     * <code>Node.getOrder()</code>).
      */
     public void analyzeVariablesLiveness() {
         // Convention used: gen = use, kill = def
 
         // initialize the dataflow analysis
-        initDataflowAnalysis();
-        Set<Node> nodes = getAllNodes();
+        List<Node> nodes = numberNodes();
+        BitSet[] gen = new BitSet[nodes.size()];
+        BitSet[] kill = new BitSet[nodes.size()];
         for (Node node : nodes) {
+            BitSet nodeGen = new BitSet();
+            BitSet nodeKill = new BitSet();
+            gen[node.getOrder()] = nodeGen;
+            kill[node.getOrder()] = nodeKill;
             if (node instanceof SimpleNode) {
                 SimpleNode simpleNode = (SimpleNode) node;
                 switch (simpleNode.instruction.getOpcode()) {
@@ -93,7 +100,7 @@ public final class ControlFlowGraph {
                     case Opcodes.ILOAD:
                     case Opcodes.LLOAD:
                         VarInsnNode varInsnNode = (VarInsnNode) simpleNode.instruction;
-                        node.addGenElement(varInsnNode.var);
+                        nodeGen.set(varInsnNode.var);
                         break;
 
                     case Opcodes.ASTORE:
@@ -102,129 +109,113 @@ public final class ControlFlowGraph {
                     case Opcodes.ISTORE:
                     case Opcodes.LSTORE:
                         varInsnNode = (VarInsnNode) simpleNode.instruction;
-                        node.addKillElement(varInsnNode.var);
+                        nodeKill.set(varInsnNode.var);
                         break;
 
                     case Opcodes.IINC:
                         IincInsnNode iincInsnNode = (IincInsnNode) simpleNode.instruction;
-                        node.addGenElement(iincInsnNode.var);
-                        node.addKillElement(iincInsnNode.var);
+                        nodeGen.set(iincInsnNode.var);
+                        nodeKill.set(iincInsnNode.var);
                         break;
                 }
             } else if (node instanceof RetNode) {
                 RetNode retNode = (RetNode) node;
                 VarInsnNode varInsnNode = (VarInsnNode) retNode.instruction;
-                node.addGenElement(varInsnNode.var);
+                nodeGen.set(varInsnNode.var);
             }
         }
 
-        // perform the dataflow analysis
-        backwardUnionDataflowAnalysis();
-
-        // set the results
+        // perform the dataflow analysis and set the results
+        BitSet[] in = backwardUnionDataflowAnalysis(nodes, gen, kill);
         for (Node node : nodes) {
-            node.setLiveVariables(node.getInSet());
+            node.setLiveVariables(in[node.getOrder()]);
         }
-
-        // shutdown the dataflow analysis
-        shutdownDataflowAnalysis();
     }
 
     /**
      * Performs a backward dataflow analysis with union as a confluence
-     * operator.  Dataflow analysis has to be initialized and the 'gen' and
-     * 'kill' sets have to be set appropriately.
+     * operator.  Nodes are visited in postorder, so that in a graph without
+     * loops each node is computed once, after all its successors.
+     *
+     * @param nodes Nodes of the graph in reverse postorder.
+     * @param gen   'gen' sets of the nodes, indexed by their numbers.
+     * @param kill  'kill' sets of the nodes, indexed by their numbers.
+     * @return 'in' sets of the nodes, indexed by their numbers.
      */
-    private void backwardUnionDataflowAnalysis() {
-        // calculate dataflow predecessors for each node
-        Map<Node, Set<Node>> node2pred = new HashMap<Node, Set<Node>>();
-        Set<Node> allNodes = getAllNodes();
-        for (Node node : allNodes) {
-            if (!node2pred.containsKey(node)) {
-                node2pred.put(node, new HashSet<Node>());
-            }
-            for (Node succ : node.getAllDataflowSuccessors()) {
-                if (!node2pred.containsKey(succ)) {
-                    node2pred.put(succ, new HashSet<Node>());
-                }
-                node2pred.get(succ).add(node);
+    private BitSet[] backwardUnionDataflowAnalysis(List<Node> nodes,
+                                                   BitSet[] gen,
+                                                   BitSet[] kill) {
+        // calculate dataflow successors for each node
+        int[][] successors = new int[nodes.size()][];
+        for (Node node : nodes) {
+            Set<Node> nodeSuccessors = node.getAllDataflowSuccessors();
+            int[] orders = new int[nodeSuccessors.size()];
+            int i = 0;
+            for (Node succ : nodeSuccessors) {
+                orders[i++] = succ.getOrder();
             }
+            successors[node.getOrder()] = orders;
         }
 
         // perform the analysis iteratively until fixed point is reached
-        Queue<Node> nodesToUpdate = new LinkedList<Node>();
-        Set<Node> nodesToUpdateSet = new HashSet<Node>();
-        nodesToUpdate.addAll(allNodes);
-        nodesToUpdateSet.addAll(nodesToUpdate);
-        while (!nodesToUpdate.isEmpty()) {
-            Node node = nodesToUpdate.poll();
-            nodesToUpdateSet.remove(node);
-            Set<Integer> newOut = new HashSet<Integer>();
-            for (Node succ : node.getAllDataflowSuccessors()) {
-                newOut.addAll(succ.getInSet());
-            }
-            Set<Integer> newIn = new HashSet<Integer>();
-            newIn.addAll(newOut);
-            newIn.removeAll(node.getKillSet());
-            newIn.addAll(node.getGenSet());
-            if (!newIn.equals(node.getInSet())) {
-                node.setInSet(newIn);
-                for (Node pred : node2pred.get(node)) {
-                    if (!nodesToUpdateSet.contains(pred)) {
-                        nodesToUpdate.add(pred);
-                        nodesToUpdateSet.add(pred);
-                    }
-                }
-            }
-            if (!newOut.equals(node.getOutSet())) {
-                node.setOutSet(newOut);
-            }
+        BitSet[] in = new BitSet[nodes.size()];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = new BitSet();
         }
-    }
-
-    @SuppressWarnings("unused")
-    private void oldAndSlowDataflowAnalysis() {
-        Set<Node> nodes = getAllNodes();
         boolean changed = true;
         while (changed) {
             changed = false;
-            for (Node node : nodes) {
-                Set<Integer> newIn = new HashSet<Integer>();
-                newIn.addAll(node.getOutSet());
-                newIn.removeAll(node.getKillSet());
-                newIn.addAll(node.getGenSet());
-                Set<Integer> newOut = new HashSet<Integer>();
-                for (Node succ : node.getAllDataflowSuccessors()) {
-                    newOut.addAll(succ.getInSet());
+            for (int i = in.length - 1; i >= 0; i--) {
+                BitSet newIn = new BitSet();
+                for (int succ : successors[i]) {
+                    newIn.or(in[succ]);
                 }
-                if (!newIn.equals(node.getInSet()) ||
-                        !newOut.equals(node.getOutSet())) {
-                    node.setInSet(newIn);
-                    node.setOutSet(newOut);
+                newIn.andNot(kill[i]);
+                newIn.or(gen[i]);
+                if (!newIn.equals(in[i])) {
+                    in[i] = newIn;
                     changed = true;
                 }
             }
         }
+        return in;
     }
 
     /**
-     * Initializes the dataflow analysis by cleaning up all the sets.
+     * Numbers all nodes in this control-flow graph in reverse postorder of a
+     * depth-first search starting at the entry node.  Successors of a node are
+     * visited in the order in which the node returns them, so that the nodes
+     * get the same numbers in every run.
+     *
+     * @return All nodes in this control-flow graph in reverse postorder.
      */
-    private void initDataflowAnalysis() {
-        Set<Node> nodes = getAllNodes();
-        for (Node node : nodes) {
-            node.clearDataflowSets();
+    private List<Node> numberNodes() {
+        List<Node> postorder = new ArrayList<Node>();
+        Set<Node> visited = new HashSet<Node>();
+        LinkedList<Node> path = new LinkedList<Node>();
+        LinkedList<Iterator<Node>> pathSuccessors =
+                new LinkedList<Iterator<Node>>();
+        visited.add(this.entryNode);
+        path.addLast(this.entryNode);
+        pathSuccessors.addLast(this.entryNode.getAllSuccessors().iterator());
+        while (!path.isEmpty()) {
+            Iterator<Node> successors = pathSuccessors.getLast();
+            if (successors.hasNext()) {
+                Node succ = successors.next();
+                if (visited.add(succ)) {
+                    path.addLast(succ);
+                    pathSuccessors.addLast(succ.getAllSuccessors().iterator());
+                }
+            } else {
+                postorder.add(path.removeLast());
+                pathSuccessors.removeLast();
+            }
         }
-    }
-
-    /**
-     * Shuts down the dataflow analysis by cleaning up all the sets.
-     */
-    private void shutdownDataflowAnalysis() {
-        Set<Node> nodes = getAllNodes();
-        for (Node node : nodes) {
-            node.clearDataflowSets();
+        Collections.reverse(postorder);
+        for (int i = 0; i < postorder.size(); i++) {
+            postorder.get(i).setOrder(i);
         }
+        return postorder;
     }
 
     /**
@@ -233,7 +224,7 @@ public final class ControlFlowGraph {
      * @return All nodes in this control-flow graph.
      */
     private Set<Node> getAllNodes() {
-        Set<Node> allNodes = new HashSet<Node>();
+        Set<Node> allNodes = new LinkedHashSet<Node>();
         Queue<Node> nodesToAnalyze = new LinkedList<Node>();
         nodesToAnalyze.add(this.entryNode);
         while (!nodesToAnalyze.isEmpty()) {
@@ -637,7 +628,7 @@ public final class ControlFlowGraph {
      */
     private void updateAfterJsrSuccessors() {
         // find all after-jsr nodes
-        Set<Node> afterJsrs = new HashSet<Node>();
+        Set<Node> afterJsrs = new LinkedHashSet<Node>();
         Set<Node> nodes = getAllNodes();
         for (Node node : nodes) {
             if (node instanceof JsrNode) {
@@ -5,7 +5,7 @@ import org.softevo.oumextractor.analysis.AnalyzeErrorException;
 import org.softevo.oumextractor.analysis.Analyzer;
 import org.softevo.oumextractor.analysis.Frame;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -117,7 +117,7 @@ public final class EmptyNode extends BytecodeNode {
      */
     @Override
     public Set<Node> getAllSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         result.add(this.successor);
         return result;
     }
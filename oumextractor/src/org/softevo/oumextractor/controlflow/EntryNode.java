@@ -3,7 +3,7 @@ package org.softevo.oumextractor.controlflow;
 import org.softevo.oumextractor.analysis.Analyzer;
 import org.softevo.oumextractor.analysis.Frame;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -81,7 +81,7 @@ public final class EntryNode extends Node {
      */
     @Override
     public Set<Node> getAllSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         result.add(this.successor);
         return result;
     }
@@ -6,7 +6,7 @@ import org.softevo.oumextractor.analysis.Analyzer;
 import org.softevo.oumextractor.analysis.Frame;
 import org.softevo.oumextractor.analysis.ReturnAddressValue;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -133,7 +133,7 @@ public final class JsrNode extends BytecodeNode {
      */
     @Override
     public Set<Node> getAllSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         result.add(this.jsrSuccessor);
         result.add(this.retSuccessor);
         result.addAll(this.getExceptionalSuccessors());
@@ -145,7 +145,7 @@ public final class JsrNode extends BytecodeNode {
      */
     @Override
     public Set<Node> getAllDataflowSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         result.add(this.jsrSuccessor);
         result.addAll(this.getExceptionalSuccessors());
         return result;
@@ -4,8 +4,9 @@ import org.softevo.oumextractor.analysis.AnalyzeErrorException;
 import org.softevo.oumextractor.analysis.Analyzer;
 import org.softevo.oumextractor.analysis.Frame;
 
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,42 +21,28 @@ public abstract class Node {
      * Predecessors of this node.
      */
     private final Set<Node> predecessors;
-    /**
-     * "in" set for dataflow analyses.
-     */
-    private final Set<Integer> dataflowIn;
-    /**
-     * "out" set for dataflow analyses.
-     */
-    private final Set<Integer> dataflowOut;
-    /**
-     * "gen" set for dataflow analyses.
-     */
-    private final Set<Integer> dataflowGen;
-    /**
-     * "kill" set for dataflow analyses.
-     */
-    private final Set<Integer> dataflowKill;
     /**
      * Frame at the entry to this node.
      */
     protected Frame in;
     /**
-     * Indices of live variables on the input to this node or <code>null</code>/
+     * Indices of live variables on the input to this node or <code>null</code>.
+     */
+    private BitSet liveVariables;
+    /**
+     * Number of this node in the reverse postorder of its control flow graph
+     * or -1, if the node was not numbered yet.
      */
-    private Set<Integer> liveVariables;
+    private int order;
 
     /**
      * Creates new abstract node with empty list of predecessors.
      */
     protected Node() {
         this.in = null;
-        this.predecessors = new HashSet<Node>();
-        this.dataflowIn = new HashSet<Integer>();
-        this.dataflowOut = new HashSet<Integer>();
-        this.dataflowGen = new HashSet<Integer>();
-        this.dataflowKill = new HashSet<Integer>();
+        this.predecessors = new LinkedHashSet<Node>();
         this.liveVariables = null;
+        this.order = -1;
     }
 
     /**
@@ -69,12 +56,9 @@ public abstract class Node {
         } else {
             this.in = null;
         }
-        this.predecessors = new HashSet<Node>();
-
-        this.dataflowIn = new HashSet<Integer>();
-        this.dataflowOut = new HashSet<Integer>();
-        this.dataflowGen = new HashSet<Integer>();
-        this.dataflowKill = new HashSet<Integer>();
+        this.predecessors = new LinkedHashSet<Node>();
+        this.liveVariables = null;
+        this.order = -1;
     }
 
     /**
@@ -88,109 +72,43 @@ public abstract class Node {
     public abstract Set<Node> getAllDataflowSuccessors();
 
     /**
-     * Clears all the dataflow sets.
-     */
-    void clearDataflowSets() {
-        this.dataflowIn.clear();
-        this.dataflowOut.clear();
-        this.dataflowGen.clear();
-        this.dataflowKill.clear();
-    }
-
-    /**
-     * Adds given element to the 'gen' dataflow set.
-     *
-     * @param id Element id.
-     */
-    void addGenElement(int id) {
-        this.dataflowGen.add(id);
-    }
-
-    /**
-     * Adds given element to the 'kill' dataflow set.
-     *
-     * @param id Element id.
-     */
-    void addKillElement(int id) {
-        this.dataflowKill.add(id);
-    }
-
-    /**
-     * Returns the 'in' dataflow set.
-     *
-     * @return The 'in' dataflow set.
-     */
-    Set<Integer> getInSet() {
-        return Collections.unmodifiableSet(this.dataflowIn);
-    }
-
-    /**
-     * Changes the 'in' dataflow set so that it contains the same elements as
-     * the set given.
-     *
-     * @param in Elements to be set as the new 'in' dataflow set.
-     */
-    void setInSet(Set<Integer> in) {
-        this.dataflowIn.clear();
-        this.dataflowIn.addAll(in);
-    }
-
-    /**
-     * Returns the 'out' dataflow set.
-     *
-     * @return The 'out' dataflow set.
-     */
-    Set<Integer> getOutSet() {
-        return Collections.unmodifiableSet(this.dataflowOut);
-    }
-
-    /**
-     * Changes the 'out' dataflow set so that it contains the same elements as
-     * the set given.
-     *
-     * @param in Elements to be set as the new 'out' dataflow set.
-     */
-    void setOutSet(Set<Integer> out) {
-        this.dataflowOut.clear();
-        this.dataflowOut.addAll(out);
-    }
-
-    /**
-     * Returns the 'gen' dataflow set.
+     * Returns set of indices of variables that are live at the entry to
+     * this node.  The set returned must not be changed.
      *
-     * @return The 'gen' dataflow set.
+     * @return Set of indices of live variables.
      */
-    Set<Integer> getGenSet() {
-        return Collections.unmodifiableSet(this.dataflowGen);
+    public BitSet getLiveVariables() {
+        return this.liveVariables;
     }
 
     /**
-     * Returns the 'gen' dataflow set.
+     * Sets the set of live variables indices at the input to this node to
+     * the given set.
      *
-     * @return The 'kill' dataflow set.
+     * @param live Set of live variables indices.
      */
-    Set<Integer> getKillSet() {
-        return Collections.unmodifiableSet(this.dataflowKill);
+    void setLiveVariables(BitSet live) {
+        this.liveVariables = live;
     }
 
     /**
-     * Returns set of indices of variables that are live at the entry to
-     * this node.
+     * Returns the number of this node in the reverse postorder of its control
+     * flow graph.  The liveness of variables is computed over these numbers.
      *
-     * @return Set of indices of live variables.
+     * @return Number of this node or -1, if it was not numbered yet.
      */
-    public Set<Integer> getLiveVariables() {
-        return Collections.unmodifiableSet(this.liveVariables);
+    public int getOrder() {
+        return this.order;
     }
 
     /**
-     * Sets the set of live variables indices at the input to this node to
-     * the given set.
+     * Sets the number of this node in the reverse postorder of its control
+     * flow graph.
      *
-     * @param live Set of live variables indices.
+     * @param order Number of this node.
      */
-    void setLiveVariables(Set<Integer> live) {
-        this.liveVariables = new HashSet<Integer>(live);
+    void setOrder(int order) {
+        this.order = order;
     }
 
     /**
@@ -7,7 +7,7 @@ import org.softevo.oumextractor.analysis.Analyzer;
 import org.softevo.oumextractor.analysis.Frame;
 import org.softevo.oumextractor.analysis.ReturnAddressValue;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -67,7 +67,7 @@ public final class RetNode extends BytecodeNode {
      */
     @Override
     public Set<Node> getAllSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         if (this.afterJsrSuccessors != null) {
             result.addAll(this.afterJsrSuccessors);
         }
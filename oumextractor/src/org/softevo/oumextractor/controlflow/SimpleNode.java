@@ -9,7 +9,7 @@ import org.softevo.oumextractor.analysis.Analyzer;
 import org.softevo.oumextractor.analysis.Frame;
 import org.softevo.oumextractor.analysis.Value;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -132,7 +132,7 @@ public final class SimpleNode extends BytecodeNode {
      */
     @Override
     public Set<Node> getAllSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         if (this.successor != null) {
             result.add(this.successor);
         }
@@ -7,7 +7,7 @@ import org.softevo.oumextractor.analysis.Analyzer;
 import org.softevo.oumextractor.analysis.Frame;
 
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -171,7 +171,7 @@ public final class SwitchNode extends BytecodeNode {
      */
     @Override
     public Set<Node> getAllSuccessors() {
-        Set<Node> result = new HashSet<Node>();
+        Set<Node> result = new LinkedHashSet<Node>();
         result.add(this.defaultSuccessor);
         result.addAll(this.keySuccessors.values());
         result.addAll(this.getExceptionalSuccessors());
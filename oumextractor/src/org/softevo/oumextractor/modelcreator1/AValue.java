@@ -4,7 +4,7 @@ import org.softevo.oumextractor.analysis.ClonesCache;
 import org.softevo.oumextractor.analysis.MergesCache;
 import org.softevo.oumextractor.analysis.Value;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -59,7 +59,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of ArrayValue.
      */
     public final Set<ArrayValue> getArrayValues(boolean recursive) {
-        Set<ArrayValue> result = new HashSet<ArrayValue>();
+        Set<ArrayValue> result = new LinkedHashSet<ArrayValue>();
         getArrayValues(recursive, result);
         return result;
     }
@@ -72,7 +72,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of DoubleValue.
      */
     public final Set<DoubleValue> getDoubleValues() {
-        Set<DoubleValue> result = new HashSet<DoubleValue>();
+        Set<DoubleValue> result = new LinkedHashSet<DoubleValue>();
         getDoubleValues(result);
         return result;
     }
@@ -85,7 +85,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of FloatValue.
      */
     public final Set<FloatValue> getFloatValues() {
-        Set<FloatValue> result = new HashSet<FloatValue>();
+        Set<FloatValue> result = new LinkedHashSet<FloatValue>();
         getFloatValues(result);
         return result;
     }
@@ -98,7 +98,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of IntegerValue.
      */
     public final Set<IntegerValue> getIntegerValues() {
-        Set<IntegerValue> result = new HashSet<IntegerValue>();
+        Set<IntegerValue> result = new LinkedHashSet<IntegerValue>();
         getIntegerValues(result);
         return result;
     }
@@ -111,7 +111,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of LongValue.
      */
     public final Set<LongValue> getLongValues() {
-        Set<LongValue> result = new HashSet<LongValue>();
+        Set<LongValue> result = new LinkedHashSet<LongValue>();
         getLongValues(result);
         return result;
     }
@@ -124,7 +124,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of ModelableAValue.
      */
     public final Set<ModelableAValue> getModelableValues() {
-        Set<ModelableAValue> result = new HashSet<ModelableAValue>();
+        Set<ModelableAValue> result = new LinkedHashSet<ModelableAValue>();
         getModelableValues(result);
         return result;
     }
@@ -137,7 +137,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of ModelableAValue.
      */
     public final Set<ModelableAValue> getModelableRepresentations() {
-        Set<ModelableAValue> result = new HashSet<ModelableAValue>();
+        Set<ModelableAValue> result = new LinkedHashSet<ModelableAValue>();
         getModelableRepresentations(result);
         return result;
     }
@@ -150,7 +150,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of ObjectValue.
      */
     public final Set<ObjectValue> getObjectValues() {
-        Set<ObjectValue> result = new HashSet<ObjectValue>();
+        Set<ObjectValue> result = new LinkedHashSet<ObjectValue>();
         getObjectValues(result);
         return result;
     }
@@ -163,7 +163,7 @@ public abstract class AValue extends org.softevo.oumextractor.analysis.Value {
      * of ObjectValue.
      */
     public final Set<ObjectValue> getObjectRepresentations() {
-        Set<ObjectValue> result = new HashSet<ObjectValue>();
+        Set<ObjectValue> result = new LinkedHashSet<ObjectValue>();
         getObjectRepresentations(result);
         return result;
     }
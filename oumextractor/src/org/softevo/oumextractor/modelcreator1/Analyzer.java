@@ -14,7 +14,6 @@ import org.softevo.oumextractor.analysis.Value;
 import org.softevo.oumextractor.controlflow.*;
 import org.softevo.oumextractor.modelcreator1.model.Model;
 
-import java.io.*;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -41,17 +40,9 @@ public final class Analyzer extends org.softevo.oumextractor.analysis.Analyzer {
      */
     private final NullValue nullValue;
     /**
-     * Directory to store the models into.
+     * Writer of the models created.
      */
-    private final String modelsDir;
-    /**
-     * Names of all types, that will be processed by this Analyzer.
-     */
-    private final Set<String> typesNames;
-    /**
-     * Mapping model id number => model data.
-     */
-    private final Map<Integer, ModelData> id2modelData;
+    private final ModelsWriter writer;
 
     /**
      * Mapping model name => model for models of the currently processed method.
@@ -59,51 +50,39 @@ public final class Analyzer extends org.softevo.oumextractor.analysis.Analyzer {
     private final Map<String, Model> currentModels;
 
     /**
-     * Models to serialize during next serialization.
+     * Models to serialize during next serialization, in the order of their
+     * creation.
      */
-    private final Set<Model> modelsToSerialize;
+    private final List<Model> modelsToSerialize;
 
     /**
-     * Mapping model => model id.
+     * Data of the models to serialize during next serialization.
      */
-    private final Map<Model, Integer> model2id;
+    private final List<ModelData> modelsData;
 
     /**
      * Mapping node => model name for object created at that node.
      */
     private final Map<Node, String> nodeModels;
-    /**
-     * Number of models created by this analyzer. Used to generate model id.
-     */
-    private int modelsCreated;
     /**
      * Node which is currently being analyzed.
      */
     private Node activeNode;
 
     /**
-     * Creates new instance of this analyzer.
+     * Creates new instance of this analyzer.  Many analyzers can work at once,
+     * each in its own thread, giving the models they create to the same
+     * writer.
      *
-     * @param modelsDir  Directory to hold the models.
-     * @param typesNames Names of all types that will be processed.
+     * @param writer Writer of the models created.
      */
-    public Analyzer(String modelsDir, Set<String> typesNames) {
+    public Analyzer(ModelsWriter writer) {
         this.nullValue = NullValue.getInstance();
-        this.modelsDir = modelsDir;
-        this.typesNames = new HashSet<String>(typesNames);
-        this.id2modelData = new HashMap<Integer, ModelData>();
+        this.writer = writer;
         this.nodeModels = new HashMap<Node, String>();
-        this.model2id = new HashMap<Model, Integer>();
-        this.currentModels = new HashMap<String, Model>();
-        this.modelsToSerialize = new HashSet<Model>();
-        this.modelsCreated = 0;
-
-        // empty models dir
-        File destDir = new File(this.modelsDir);
-        destDir.mkdirs();
-        for (File file : destDir.listFiles()) {
-            file.delete();
-        }
+        this.currentModels = new LinkedHashMap<String, Model>();
+        this.modelsToSerialize = new ArrayList<Model>();
+        this.modelsData = new ArrayList<ModelData>();
     }
 
     /* (non-Javadoc)
@@ -131,127 +110,40 @@ public final class Analyzer extends org.softevo.oumextractor.analysis.Analyzer {
         String className = this.javaMethod.getJavaType().getFullName();
         String methodName = this.javaMethod.getName();
 
-        // assign ids and data to models
+        // assign data to models (ids are assigned by the writer)
         for (String modelName : this.currentModels.keySet()) {
             Model model = this.currentModels.get(modelName);
-            this.modelsCreated++;
-            this.model2id.put(model, this.modelsCreated);
-            this.id2modelData.put(this.modelsCreated,
-                    new ModelData(className, methodName, modelName));
+            this.modelsToSerialize.add(model);
+            this.modelsData.add(new ModelData(className, methodName,
+                    modelName));
         }
     }
 
-    /* (non-Javadoc)
-     * @see org.softevo.oumextractor.analysis.Analyzer#shutdownAnalysis()
+    /**
+     * Gives models created since the last serialization (or since the
+     * beginning of the analysis, if this is the first serialization) until
+     * this point to the writer.  This must be called after finishing analysis
+     * of every type (also one without models), because models are serialized
+     * in files according to classes, from which they were created.
+     *
+     * @param sequence Sequence number of the type analyzed.
      */
-    @Override
-    public void shutdownAnalysis() {
-        super.shutdownAnalysis();
-
-        // serialize models info
-        File targetDirectory = new File(this.modelsDir);
-        targetDirectory.mkdirs();
-        try {
-            String fileName = "modelsdata.ser";
-            BufferedOutputStream fileOutput = new BufferedOutputStream(
-                    new FileOutputStream(new File(targetDirectory, fileName)));
-            ObjectOutputStream objectOutput =
-                    new ObjectOutputStream(fileOutput);
-            writeId2ModelData(objectOutput);
-            objectOutput.close();
-        } catch (IOException e) {
-            e.printStackTrace(System.err);
-            System.exit(0);
+    public void serializeModels(int sequence) {
+        for (Model model : this.modelsToSerialize) {
+            model.minimize();
         }
-
-        // serialize names of types investigated
         try {
-            String fileName = "typesnames.ser";
-            BufferedOutputStream fileOutput = new BufferedOutputStream(
-                    new FileOutputStream(new File(targetDirectory, fileName)));
-            ObjectOutputStream objectOutput =
-                    new ObjectOutputStream(fileOutput);
-            writeTypesNames(objectOutput);
-            objectOutput.close();
-        } catch (IOException e) {
+            this.writer.addBatch(sequence,
+                    new ArrayList<Model>(this.modelsToSerialize),
+                    new ArrayList<ModelData>(this.modelsData));
+        } catch (InterruptedException e) {
             e.printStackTrace(System.err);
-            System.exit(0);
-        }
-
-        // create index file
-        PrintStream ps = null;
-        try {
-            ps = new PrintStream(new File(targetDirectory, "index.txt"));
-        } catch (FileNotFoundException e) {
-            System.err.println("[ERROR]: Couldn't create index.txt in " +
-                    targetDirectory);
-            return;
-        }
-
-        // fill the index
-        List<Integer> ids =
-                new ArrayList<Integer>(this.id2modelData.keySet());
-        System.out.println(ids.size() + " MODELS EXTRACTED");
-        Collections.sort(ids);
-        for (Integer id : ids) {
-            ModelData modelData = this.id2modelData.get(id);
-
-            StringBuffer description = new StringBuffer();
-            description.append("INDEX:  ").append(id).append("\n");
-            description.append("MODEL:  ").append(modelData.getModelName());
-            description.append("\n");
-            description.append("CLASS:  ").append(modelData.getClassName());
-            description.append("\n");
-            description.append("METHOD: ").append(modelData.getMethodName());
-            description.append("\n");
-            ps.println("--------------------------------------------------");
-            ps.print(description);
-            ps.println("--------------------------------------------------");
-            ps.println();
-        }
-        ps.close();
-    }
-
-    /**
-     * Serializes models created since the last serialization (or since the
-     * beginning of the analysis, if this is the first serialization) until
-     * this point to a file.  This must be called after finishing analysis of
-     * every class, because models are serialized in files according to classes,
-     * from which they were created.
-     */
-    public void serializeModels() {
-        // serialize models if necessary
-        if (this.modelsToSerialize.size() > 0) {
-            File targetDirectory = new File(this.modelsDir);
-            try {
-                String fileName =
-                        this.javaMethod.getJavaType().getFullName() +
-                                ".models.ser";
-                BufferedOutputStream fileOutput = new BufferedOutputStream(
-                        new FileOutputStream(new File(targetDirectory, fileName),
-                                true));
-                ObjectOutputStream objectOutput =
-                        new ObjectOutputStream(fileOutput);
-                objectOutput.writeInt(this.modelsToSerialize.size());
-                for (Model model : this.modelsToSerialize) {
-                    model.minimize();
-                    objectOutput.writeInt(this.model2id.get(model));
-                    System.out.println(model);
-                    objectOutput.writeObject(model);
-                }
-                objectOutput.close();
-            } catch (FileNotFoundException e) {
-                e.printStackTrace(System.err);
-                System.exit(0);
-            } catch (IOException e) {
-                e.printStackTrace(System.err);
-                System.exit(0);
-            }
+            throw new InternalError();
         }
 
-        // empty the set of models to be serialized
+        // empty the list of models to be serialized
         this.modelsToSerialize.clear();
-        this.model2id.clear();
+        this.modelsData.clear();
     }
 
     /* (non-Javadoc)
@@ -333,9 +225,7 @@ public final class Analyzer extends org.softevo.oumextractor.analysis.Analyzer {
     public void rollbackAnalysis() {
         super.rollbackAnalysis();
 
-        this.modelsToSerialize.removeAll(this.currentModels.values());
         for (Model model : this.currentModels.values()) {
-            this.model2id.remove(model);
             model.clear();
         }
 
@@ -1727,7 +1617,7 @@ public final class Analyzer extends org.softevo.oumextractor.analysis.Analyzer {
     @Override
     public Map<Value, Boolean> getExactValues(Value in_value) {
         AValue value = (AValue) in_value;
-        Map<Value, Boolean> result = new HashMap<Value, Boolean>();
+        Map<Value, Boolean> result = new LinkedHashMap<Value, Boolean>();
 
         for (ObjectValue objectValue : value.getObjectValues()) {
             result.put(objectValue, objectValue.isTypeExact());
@@ -1787,9 +1677,7 @@ public final class Analyzer extends org.softevo.oumextractor.analysis.Analyzer {
      * @param model Model to be added.
      */
     private void addModel(String name, Model model) {
-        System.out.println("MODEL NAME " + name);
         this.currentModels.put(name, model);
-        this.modelsToSerialize.add(model);
     }
 
     /**
@@ -1827,32 +1715,4 @@ public final class Analyzer extends org.softevo.oumextractor.analysis.Analyzer {
         }
         return this.nodeModels.get(node);
     }
-
-    /**
-     * Serializes id2modelData field of the analyzer into given stream.
-     *
-     * @param out Stream to serialize the field to.
-     * @throws IOException
-     */
-    private void writeId2ModelData(ObjectOutputStream out) throws IOException {
-        out.writeInt(this.id2modelData.size());
-        for (Integer id : this.id2modelData.keySet()) {
-            ModelData modelData = this.id2modelData.get(id);
-            out.writeInt(id);
-            out.writeObject(modelData);
-        }
-    }
-
-    /**
-     * Serializes list of types analyzed by this Analyzer into given stream.
-     *
-     * @param out Stream to serialize the types' names to.
-     * @throws IOException
-     */
-    private void writeTypesNames(ObjectOutputStream out) throws IOException {
-        out.writeInt(this.typesNames.size());
-        for (String typeName : this.typesNames) {
-            out.writeObject(typeName);
-        }
-    }
 }
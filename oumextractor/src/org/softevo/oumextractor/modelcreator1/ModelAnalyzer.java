@@ -1,6 +1,10 @@
 package org.softevo.oumextractor.modelcreator1;
 
+import org.softevo.oumextractor.modelcreator1.model.BinaryModelReader;
+import org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter;
 import org.softevo.oumextractor.modelcreator1.model.Model;
+import org.softevo.oumextractor.modelcreator1.model.ModelPackReader;
+import org.softevo.oumextractor.modelcreator1.model.ModelPackWriter;
 
 import java.io.*;
 import java.util.HashMap;
@@ -15,6 +19,23 @@ import java.util.Set;
  */
 public class ModelAnalyzer {
 
+    /**
+     * Suffix of names of files holding models in the binary models format.
+     */
+    public static final String MODELS_FILE_SUFFIX = ".models.bin";
+
+    /**
+     * Suffix of names of files holding serialized models (the format used
+     * before the binary models format was introduced).
+     */
+    public static final String SERIALIZED_MODELS_FILE_SUFFIX = ".models.ser";
+
+    /**
+     * Name of the file holding the model pack, i.e. all models of the
+     * directory together with an index allowing to load any of them directly.
+     */
+    public static final String MODEL_PACK_FILE_NAME = "models.pack";
+
     /**
      * Directory with models to analyze.
      */
@@ -35,6 +56,12 @@ public class ModelAnalyzer {
      */
     private final boolean outputProgress;
 
+    /**
+     * Reader of the model pack of the directory (<code>null</code>, if it
+     * was not opened yet).
+     */
+    private ModelPackReader modelPack;
+
     /**
      * Creates a new model analyzer that will operate on a given directory
      * and output progress while working.
@@ -70,11 +97,146 @@ public class ModelAnalyzer {
      */
     public void analyzeModels(ModelVisitor visitor) {
         int modelsAnalyzed = 0;
+        ModelPackReader pack = getModelPack();
+        if (pack != null) {
+            try {
+                for (int id : pack.getModelsIds()) {
+                    Model model = pack.getModel(id);
+                    ModelData data = this.id2data.get(id);
+                    visitor.visit(id, model, data);
+                    modelsAnalyzed = modelAnalyzed(modelsAnalyzed);
+                }
+            } catch (IOException e) {
+                e.printStackTrace(System.err);
+                System.exit(0);
+            }
+            return;
+        }
         for (File file : getModelsFiles()) {
             modelsAnalyzed = analyzeModels(file, visitor, modelsAnalyzed);
         }
     }
 
+    /**
+     * Checks if the directory associated with this analyzer holds an up to
+     * date model pack, so that single models can be loaded quickly.
+     *
+     * @return <code>true</code> if there is an up to date model pack;
+     * <code>false</code> otherwise.
+     */
+    public boolean hasModelPack() {
+        return getModelPack() != null;
+    }
+
+    /**
+     * Returns the model with the given id.  If the directory holds an up to
+     * date model pack, the model is loaded directly from it; otherwise, the
+     * models' files are searched for the model.
+     *
+     * @param id Id of the model.
+     * @return Model with the given id or <code>null</code>, if there is no
+     * such model.
+     */
+    public Model getModel(final int id) {
+        ModelPackReader pack = getModelPack();
+        if (pack != null) {
+            try {
+                return pack.getModel(id);
+            } catch (IOException e) {
+                e.printStackTrace(System.err);
+                System.exit(0);
+            }
+        }
+        final Model[] result = new Model[1];
+        for (File file : getModelsFiles()) {
+            analyzeModels(file, new ModelVisitor() {
+                public void visit(int modelId, Model model, ModelData data) {
+                    if (modelId == id) {
+                        result[0] = model;
+                    }
+                }
+            }, 0);
+            if (result[0] != null) {
+                break;
+            }
+        }
+        return result[0];
+    }
+
+    /**
+     * Creates (or recreates) the model pack of the directory associated with
+     * this analyzer out of the models' files in that directory.
+     *
+     * @return Number of models in the model pack.
+     */
+    public int createModelPack() {
+        this.modelPack = null;
+        File packFile = new File(this.modelsDir, MODEL_PACK_FILE_NAME);
+        File tempFile = new File(this.modelsDir, MODEL_PACK_FILE_NAME + ".tmp");
+        final int[] modelsPacked = new int[1];
+        try {
+            final ModelPackWriter writer = new ModelPackWriter(tempFile);
+            final IOException[] exception = new IOException[1];
+            for (File file : getModelsFiles()) {
+                analyzeModels(file, new ModelVisitor() {
+                    public void visit(int id, Model model, ModelData data) {
+                        try {
+                            if (exception[0] == null) {
+                                writer.addModel(id, model);
+                                modelsPacked[0]++;
+                            }
+                        } catch (IOException e) {
+                            exception[0] = e;
+                        }
+                    }
+                }, 0);
+            }
+            if (exception[0] != null) {
+                throw exception[0];
+            }
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(0);
+        }
+        packFile.delete();
+        if (!tempFile.renameTo(packFile)) {
+            System.err.println("[ERROR] Couldn't create file " + packFile);
+            System.exit(0);
+        }
+        return modelsPacked[0];
+    }
+
+    /**
+     * Returns the reader of the model pack of the directory associated with
+     * this analyzer, if the pack exists and is up to date, i.e. is not older
+     * than any of the models' files.
+     *
+     * @return Reader of the model pack or <code>null</code>, if there is no
+     * up to date model pack.
+     */
+    private ModelPackReader getModelPack() {
+        if (this.modelPack == null) {
+            File packFile = new File(this.modelsDir, MODEL_PACK_FILE_NAME);
+            if (!packFile.isFile()) {
+                return null;
+            }
+            for (File file : getModelsFiles()) {
+                if (file.lastModified() > packFile.lastModified()) {
+                    return null;
+                }
+            }
+            try {
+                this.modelPack = new ModelPackReader(packFile);
+            } catch (IOException e) {
+                System.err.println("[WARNING] Ignoring model pack " +
+                        packFile + ": " + e.getMessage());
+                return null;
+            }
+        }
+        return this.modelPack;
+    }
+
     /**
      * Passes all models from the given file to the given visitor for analysis.
      *
@@ -84,6 +246,41 @@ public class ModelAnalyzer {
      * @returns Number of models that were so far analyzed.
      */
     private int analyzeModels(File file, ModelVisitor visitor, int modelsAnalyzed) {
+        if (file.getName().endsWith(SERIALIZED_MODELS_FILE_SUFFIX)) {
+            return analyzeSerializedModels(file, visitor, modelsAnalyzed);
+        }
+        try {
+            BinaryModelReader reader = new BinaryModelReader(
+                    new BufferedInputStream(new FileInputStream(file)));
+            while (reader.nextModel()) {
+                int id = reader.getModelId();
+                Model model = reader.getModel();
+                ModelData data = this.id2data.get(id);
+                visitor.visit(id, model, data);
+                modelsAnalyzed = modelAnalyzed(modelsAnalyzed);
+            }
+            reader.close();
+        } catch (FileNotFoundException e) {
+            System.err.println("[ERROR] File not found: " + file);
+            System.exit(0);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(0);
+        }
+        return modelsAnalyzed;
+    }
+
+    /**
+     * Passes all models from the given file with serialized models to the
+     * given visitor for analysis.
+     *
+     * @param file           File to analyze models from.
+     * @param visitor        Visitor to use for analyzing models.
+     * @param modelsAnalyzed Number of models that were so far analyzed.
+     * @returns Number of models that were so far analyzed.
+     */
+    private int analyzeSerializedModels(File file, ModelVisitor visitor,
+                                        int modelsAnalyzed) {
         try {
             BufferedInputStream fileInput = new BufferedInputStream(
                     new FileInputStream(file));
@@ -95,15 +292,7 @@ public class ModelAnalyzer {
                 Model model = (Model) objectInput.readObject();
                 ModelData data = this.id2data.get(id);
                 visitor.visit(id, model, data);
-                if (outputProgress) {
-                    int lastPercent = 100 * modelsAnalyzed / this.modelsNum;
-                    modelsAnalyzed++;
-                    int percent = 100 * modelsAnalyzed / this.modelsNum;
-                    if (percent != lastPercent) {
-                        System.out.println("Analyzed " + modelsAnalyzed + "/" +
-                                this.modelsNum + " models (" + percent + "%)");
-                    }
-                }
+                modelsAnalyzed = modelAnalyzed(modelsAnalyzed);
             }
             objectInput.close();
         } catch (ClassNotFoundException e) {
@@ -121,15 +310,134 @@ public class ModelAnalyzer {
     }
 
     /**
-     * Gets all files from the given directory that contain models.
+     * Notes that another model was analyzed and outputs progress, if
+     * necessary.
+     *
+     * @param modelsAnalyzed Number of models that were analyzed before.
+     * @return Number of models that were analyzed.
+     */
+    private int modelAnalyzed(int modelsAnalyzed) {
+        int lastPercent = 100 * modelsAnalyzed / this.modelsNum;
+        modelsAnalyzed++;
+        if (outputProgress) {
+            int percent = 100 * modelsAnalyzed / this.modelsNum;
+            if (percent != lastPercent) {
+                System.out.println("Analyzed " + modelsAnalyzed + "/" +
+                        this.modelsNum + " models (" + percent + "%)");
+            }
+        }
+        return modelsAnalyzed;
+    }
+
+    /**
+     * Converts all files with serialized models from the directory associated
+     * with this analyzer into the binary models format.  Each converted file
+     * is replaced by a file holding the same models in the binary models
+     * format.
+     *
+     * @return Number of models converted.
+     */
+    public int convertSerializedModels() {
+        int modelsConverted = 0;
+        for (File file : getModelsFiles()) {
+            String fileName = file.getName();
+            if (!fileName.endsWith(SERIALIZED_MODELS_FILE_SUFFIX)) {
+                continue;
+            }
+            final BinaryModelWriter writer = new BinaryModelWriter();
+            analyzeSerializedModels(file, new ModelVisitor() {
+                public void visit(int id, Model model, ModelData data) {
+                    writer.addModel(id, model);
+                }
+            }, 0);
+            modelsConverted += writer.getModelsNum();
+
+            String baseName = fileName.substring(0,
+                    fileName.length() - SERIALIZED_MODELS_FILE_SUFFIX.length());
+            File binaryFile = new File(this.modelsDir,
+                    baseName + MODELS_FILE_SUFFIX);
+            File tempFile = new File(this.modelsDir,
+                    baseName + MODELS_FILE_SUFFIX + ".tmp");
+            try {
+                OutputStream fileOutput = new BufferedOutputStream(
+                        new FileOutputStream(tempFile));
+                if (binaryFile.exists()) {
+                    copyFile(binaryFile, fileOutput);
+                }
+                writer.writeBlock(fileOutput);
+                fileOutput.close();
+            } catch (IOException e) {
+                e.printStackTrace(System.err);
+                System.exit(0);
+            }
+            binaryFile.delete();
+            if (!tempFile.renameTo(binaryFile)) {
+                System.err.println("[ERROR] Couldn't create file " + binaryFile);
+                System.exit(0);
+            }
+            file.delete();
+            if (this.outputProgress) {
+                System.out.println("Converted " + fileName);
+            }
+        }
+        return modelsConverted;
+    }
+
+    /**
+     * Copies the contents of the given file into the given stream.
+     *
+     * @param file File to copy.
+     * @param out  Stream to copy the file into.
+     * @throws IOException if copying fails.
+     */
+    private static void copyFile(File file, OutputStream out)
+            throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Passes all models from the given models' file to the given visitor for
+     * analysis.  The model pack is not used.
+     *
+     * @param file    One of the models' files of the directory associated
+     *                with this analyzer.
+     * @param visitor Visitor to use for analyzing models.
+     */
+    public void analyzeModels(File file, ModelVisitor visitor) {
+        analyzeModels(file, visitor, 0);
+    }
+
+    /**
+     * Returns data about the model with the given id.
+     *
+     * @param id Id of the model.
+     * @return Data about the model or <code>null</code>, if there is no such
+     * model.
+     */
+    public ModelData getModelData(int id) {
+        return this.id2data.get(id);
+    }
+
+    /**
+     * Gets all files from the directory associated with this analyzer that
+     * contain models (the model pack excluded).
      *
-     * @param dir Directory with models' files.
-     * @return Files from the given directory that contain models.
+     * @return Files from the directory that contain models.
      */
-    private Set<File> getModelsFiles() {
+    public Set<File> getModelsFiles() {
         Set<File> result = new HashSet<File>();
         for (File file : this.modelsDir.listFiles()) {
-            if (file.getName().endsWith(".models.ser")) {
+            if (file.getName().endsWith(MODELS_FILE_SUFFIX) ||
+                    file.getName().endsWith(SERIALIZED_MODELS_FILE_SUFFIX)) {
                 result.add(file);
             }
         }
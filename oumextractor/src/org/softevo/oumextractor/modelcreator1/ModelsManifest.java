@@ -0,0 +1,193 @@
+package org.softevo.oumextractor.modelcreator1;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * This class is used to represent manifests of models directories.  For each
+ * type analyzed, a manifest holds the checksum of the type's class file and
+ * ids of the models created from the type.  Thanks to this, a models
+ * directory can be updated by analyzing only the types that were added or
+ * changed since the directory was created.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public final class ModelsManifest {
+
+    /**
+     * Name of the file holding the manifest of a models directory.
+     */
+    public static final String FILE_NAME = "manifest.ser";
+
+    /**
+     * Magic number starting the manifest file ("OUMM").
+     */
+    private static final int MAGIC = 0x4F554D4D;
+
+    /**
+     * Version of the format of the manifest file.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Mapping type name => checksum of its class file.
+     */
+    private final Map<String, Long> type2checksum;
+
+    /**
+     * Mapping type name => ids of models created from the type.
+     */
+    private final Map<String, List<Integer>> type2ids;
+
+    /**
+     * Creates new, empty manifest.
+     */
+    public ModelsManifest() {
+        this.type2checksum = new HashMap<String, Long>();
+        this.type2ids = new HashMap<String, List<Integer>>();
+    }
+
+    /**
+     * Computes the checksum of the given class file.
+     *
+     * @param classBytes Contents of the class file.
+     * @return Checksum of the class file.
+     */
+    public static long getChecksum(byte[] classBytes) {
+        CRC32 crc = new CRC32();
+        crc.update(classBytes);
+        return crc.getValue();
+    }
+
+    /**
+     * Adds the given type with no models to the manifest.
+     *
+     * @param typeName Name of the type.
+     * @param checksum Checksum of the class file of the type.
+     */
+    public void addType(String typeName, long checksum) {
+        this.type2checksum.put(typeName, checksum);
+        this.type2ids.put(typeName, new ArrayList<Integer>());
+    }
+
+    /**
+     * Returns names of all types in the manifest.
+     *
+     * @return Names of all types in the manifest.
+     */
+    public Set<String> getTypesNames() {
+        return Collections.unmodifiableSet(this.type2checksum.keySet());
+    }
+
+    /**
+     * Checks if the given type is in the manifest with the given checksum,
+     * i.e. if its models in the directory are up to date.
+     *
+     * @param typeName Name of the type.
+     * @param checksum Checksum of the class file of the type.
+     * @return <code>true</code> if the type is in the manifest with the given
+     * checksum; <code>false</code> otherwise.
+     */
+    public boolean containsType(String typeName, long checksum) {
+        Long typeChecksum = this.type2checksum.get(typeName);
+        return typeChecksum != null && typeChecksum == checksum;
+    }
+
+    /**
+     * Returns the checksum of the class file of the given type.
+     *
+     * @param typeName Name of the type.
+     * @return Checksum of the class file of the type.
+     */
+    public long getChecksum(String typeName) {
+        return this.type2checksum.get(typeName);
+    }
+
+    /**
+     * Returns ids of the models created from the given type.
+     *
+     * @param typeName Name of the type.
+     * @return Ids of the models created from the type.
+     */
+    public List<Integer> getModelsIds(String typeName) {
+        return Collections.unmodifiableList(this.type2ids.get(typeName));
+    }
+
+    /**
+     * Notes that the model with the given id was created from the given type.
+     *
+     * @param typeName Name of the type.
+     * @param id       Id of the model.
+     */
+    public void addModelId(String typeName, int id) {
+        this.type2ids.get(typeName).add(id);
+    }
+
+    /**
+     * Reads the manifest of the given models directory.
+     *
+     * @param modelsDir Directory with object usage models.
+     * @return Manifest of the directory or <code>null</code>, if the
+     * directory has no (usable) manifest.
+     */
+    public static ModelsManifest readFromFile(File modelsDir) {
+        File file = new File(modelsDir, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Unknown format");
+                }
+                ModelsManifest manifest = new ModelsManifest();
+                int typesNum = in.readInt();
+                for (int i = 0; i < typesNum; i++) {
+                    String typeName = in.readUTF();
+                    manifest.addType(typeName, in.readLong());
+                    int idsNum = in.readInt();
+                    for (int j = 0; j < idsNum; j++) {
+                        manifest.addModelId(typeName, in.readInt());
+                    }
+                }
+                return manifest;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            System.err.println("[WARNING] Ignoring manifest " + file + ": " +
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes this manifest into the given models directory.
+     *
+     * @param modelsDir Directory with object usage models.
+     * @throws IOException if writing fails.
+     */
+    public void writeToFile(File modelsDir) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(new File(modelsDir, FILE_NAME))));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.type2checksum.size());
+            for (String typeName : this.type2checksum.keySet()) {
+                out.writeUTF(typeName);
+                out.writeLong(this.type2checksum.get(typeName));
+                List<Integer> ids = this.type2ids.get(typeName);
+                out.writeInt(ids.size());
+                for (Integer id : ids) {
+                    out.writeInt(id);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
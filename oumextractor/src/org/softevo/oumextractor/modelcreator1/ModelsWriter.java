@@ -0,0 +1,502 @@
+package org.softevo.oumextractor.modelcreator1;
+
+import org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter;
+import org.softevo.oumextractor.modelcreator1.model.Model;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class is used to write object usage models into the models directory.
+ * Models are given to the writer in batches, one batch for each analyzed
+ * type, together with the sequence number of the type.  Batches are written
+ * by a dedicated thread in the order of their sequence numbers and models get
+ * their ids in that order, no matter in which order the batches were given.
+ * Thanks to this, many analyzers working at once create the same models
+ * directory as a single analyzer does.
+ * <p>
+ * Models are collected into segments of consecutive models, each of which is
+ * written into its own models file at once.  If the
+ * <code>org.softevo.oumextractor.dumpmodels</code> property is
+ * <code>true</code>, models written are also printed to the standard output.
+ * <p>
+ * If the models directory holds a manifest (see {@link ModelsManifest}),
+ * models of the types, which did not change since the directory was created,
+ * are kept and only the remaining types need to be analyzed.  Models of the
+ * other types are dropped and new models get ids not used before.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public final class ModelsWriter {
+
+    /**
+     * Number of models written into one models file.
+     */
+    private static final int SEGMENT_SIZE = 2000;
+
+    /**
+     * Directory to store the models into.
+     */
+    private final File modelsDir;
+
+    /**
+     * Names of all types, models of which will be written.
+     */
+    private final Set<String> typesNames;
+
+    /**
+     * Manifest of the models directory being created.
+     */
+    private final ModelsManifest manifest;
+
+    /**
+     * Names of types to be analyzed, in the order of their sequence numbers.
+     */
+    private final List<String> typesToAnalyze;
+
+    /**
+     * Mapping model id number => model data.
+     */
+    private final Map<Integer, ModelData> id2modelData;
+
+    /**
+     * Mapping sequence number => batch given, but not written yet.
+     */
+    private final SortedMap<Integer, Batch> sequence2batch;
+
+    /**
+     * Maximum number of batches waiting to be written.
+     */
+    private final int maxPendingBatches;
+
+    /**
+     * Indicates if models written should be printed to the standard output.
+     */
+    private final boolean dumpModels;
+
+    /**
+     * Writer of the segment being collected.
+     */
+    private final BinaryModelWriter segmentWriter;
+
+    /**
+     * Thread writing the batches.
+     */
+    private final Thread thread;
+
+    /**
+     * Sequence number of the next batch to be written.
+     */
+    private int nextSequence;
+
+    /**
+     * Highest id of a model written so far.  Used to generate model id.
+     */
+    private int modelsWritten;
+
+    /**
+     * Number of segments written so far.  Used to generate file names.
+     */
+    private int segmentsWritten;
+
+    /**
+     * Indicates if no more batches will be given.
+     */
+    private boolean closed;
+
+    /**
+     * Creates new writer of models into the given directory.  If the
+     * directory holds a manifest, models of types that did not change are
+     * kept; otherwise, the directory is emptied.
+     *
+     * @param modelsDir         Directory to hold the models.
+     * @param manifest          Manifest holding all types that will be
+     *                          processed (with no models).
+     * @param maxPendingBatches Maximum number of batches waiting to be
+     *                          written; giving more batches blocks.
+     */
+    public ModelsWriter(String modelsDir, ModelsManifest manifest,
+                        int maxPendingBatches) {
+        this.modelsDir = new File(modelsDir);
+        this.typesNames = new HashSet<String>(manifest.getTypesNames());
+        this.manifest = manifest;
+        this.typesToAnalyze = new ArrayList<String>();
+        this.id2modelData = new HashMap<Integer, ModelData>();
+        this.sequence2batch = new TreeMap<Integer, Batch>();
+        this.maxPendingBatches = maxPendingBatches;
+        this.dumpModels = Boolean.parseBoolean(
+                System.getProperty("org.softevo.oumextractor.dumpmodels"));
+        this.segmentWriter = new BinaryModelWriter();
+        this.nextSequence = 0;
+        this.modelsWritten = 0;
+        this.segmentsWritten = 0;
+        this.closed = false;
+
+        // keep models of types that did not change or empty models dir
+        this.modelsDir.mkdirs();
+        ModelsManifest previousManifest =
+                ModelsManifest.readFromFile(this.modelsDir);
+        if (previousManifest != null) {
+            keepModels(previousManifest);
+        } else {
+            for (File file : this.modelsDir.listFiles()) {
+                file.delete();
+            }
+            this.typesToAnalyze.addAll(this.typesNames);
+        }
+
+        // start writing
+        this.thread = new Thread(new Runnable() {
+            public void run() {
+                writeBatches();
+            }
+        }, "models writer");
+        this.thread.start();
+    }
+
+    /**
+     * Returns names of the types that have to be analyzed, i.e. of those
+     * without up to date models in the models directory.  Sequence number of
+     * each type is its index in the list returned.
+     *
+     * @return Names of the types to analyze.
+     */
+    public List<String> getTypesToAnalyze() {
+        return Collections.unmodifiableList(this.typesToAnalyze);
+    }
+
+    /**
+     * Gives the models of the type with the given sequence number to the
+     * writer.  Sequence numbers must start with 0 and each of them must be
+     * given exactly once, also for types without models.  If too many
+     * batches are waiting to be written, this blocks until the writer catches
+     * up.
+     *
+     * @param sequence   Sequence number of the type.
+     * @param models     Models of the type, in the order of their ids.
+     * @param modelsData Data of the models.
+     * @throws InterruptedException if the thread was interrupted while
+     *                              waiting.
+     */
+    public synchronized void addBatch(int sequence, List<Model> models,
+                                      List<ModelData> modelsData)
+            throws InterruptedException {
+        while (!this.closed &&
+                sequence >= this.nextSequence + this.maxPendingBatches) {
+            wait();
+        }
+        if (this.closed) {
+            return;
+        }
+        this.sequence2batch.put(sequence, new Batch(models, modelsData));
+        notifyAll();
+    }
+
+    /**
+     * Waits until all batches given are written.  No more batches can be
+     * given afterwards.
+     *
+     * @throws InterruptedException if the thread was interrupted while
+     *                              waiting.
+     */
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            this.closed = true;
+            notifyAll();
+        }
+        this.thread.join();
+    }
+
+    /**
+     * Writes data of all models written, names of all types processed, the
+     * index of the models and the manifest into the models directory.  This
+     * must be called after the writer is closed.
+     */
+    public void writeModelsData() {
+        // serialize models info
+        try {
+            String fileName = "modelsdata.ser";
+            BufferedOutputStream fileOutput = new BufferedOutputStream(
+                    new FileOutputStream(new File(this.modelsDir, fileName)));
+            ObjectOutputStream objectOutput =
+                    new ObjectOutputStream(fileOutput);
+            writeId2ModelData(objectOutput);
+            objectOutput.close();
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(0);
+        }
+
+        // serialize names of types investigated
+        try {
+            String fileName = "typesnames.ser";
+            BufferedOutputStream fileOutput = new BufferedOutputStream(
+                    new FileOutputStream(new File(this.modelsDir, fileName)));
+            ObjectOutputStream objectOutput =
+                    new ObjectOutputStream(fileOutput);
+            writeTypesNames(objectOutput);
+            objectOutput.close();
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(0);
+        }
+
+        // create index file
+        PrintStream ps = null;
+        try {
+            ps = new PrintStream(new File(this.modelsDir, "index.txt"));
+        } catch (FileNotFoundException e) {
+            System.err.println("[ERROR]: Couldn't create index.txt in " +
+                    this.modelsDir);
+            return;
+        }
+
+        // fill the index
+        List<Integer> ids =
+                new ArrayList<Integer>(this.id2modelData.keySet());
+        System.out.println(ids.size() + " MODELS EXTRACTED");
+        Collections.sort(ids);
+        for (Integer id : ids) {
+            ModelData modelData = this.id2modelData.get(id);
+
+            StringBuffer description = new StringBuffer();
+            description.append("INDEX:  ").append(id).append("\n");
+            description.append("MODEL:  ").append(modelData.getModelName());
+            description.append("\n");
+            description.append("CLASS:  ").append(modelData.getClassName());
+            description.append("\n");
+            description.append("METHOD: ").append(modelData.getMethodName());
+            description.append("\n");
+            ps.println("--------------------------------------------------");
+            ps.print(description);
+            ps.println("--------------------------------------------------");
+            ps.println();
+        }
+        ps.close();
+
+        // write the manifest (the directory is consistent now)
+        try {
+            this.manifest.writeToFile(this.modelsDir);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Keeps in the models directory the models of all types, which are in the
+     * given manifest of the directory with the same checksum as now.  All
+     * other types are to be analyzed and their models are removed from the
+     * directory.  The manifest is removed, until the directory is consistent
+     * again.
+     *
+     * @param previousManifest Manifest of the models directory.
+     */
+    private void keepModels(ModelsManifest previousManifest) {
+        new File(this.modelsDir, ModelsManifest.FILE_NAME).delete();
+
+        // find types to analyze and models to keep
+        final Set<Integer> idsToDrop = new HashSet<Integer>();
+        for (String typeName : previousManifest.getTypesNames()) {
+            List<Integer> ids = previousManifest.getModelsIds(typeName);
+            for (Integer id : ids) {
+                this.modelsWritten = Math.max(this.modelsWritten, id);
+            }
+            if (!this.typesNames.contains(typeName) ||
+                    !previousManifest.containsType(typeName,
+                            this.manifest.getChecksum(typeName))) {
+                idsToDrop.addAll(ids);
+            }
+        }
+        ModelAnalyzer analyzer = new ModelAnalyzer(this.modelsDir, false);
+        for (String typeName : this.typesNames) {
+            if (previousManifest.containsType(typeName,
+                    this.manifest.getChecksum(typeName))) {
+                for (Integer id : previousManifest.getModelsIds(typeName)) {
+                    this.manifest.addModelId(typeName, id);
+                    this.id2modelData.put(id, analyzer.getModelData(id));
+                }
+            } else {
+                this.typesToAnalyze.add(typeName);
+            }
+        }
+
+        // move models kept out of files with models dropped
+        if (idsToDrop.isEmpty()) {
+            return;
+        }
+        for (File file : analyzer.getModelsFiles()) {
+            final List<Integer> ids = new ArrayList<Integer>();
+            final List<Model> models = new ArrayList<Model>();
+            final boolean[] modelsDropped = new boolean[1];
+            analyzer.analyzeModels(file, new ModelVisitor() {
+                public void visit(int id, Model model, ModelData data) {
+                    if (idsToDrop.contains(id)) {
+                        modelsDropped[0] = true;
+                    } else {
+                        ids.add(id);
+                        models.add(model);
+                    }
+                }
+            });
+            if (modelsDropped[0]) {
+                for (int i = 0; i < ids.size(); i++) {
+                    this.segmentWriter.addModel(ids.get(i), models.get(i));
+                    if (this.segmentWriter.getModelsNum() >= SEGMENT_SIZE) {
+                        writeSegment();
+                    }
+                }
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Writes the batches in the order of their sequence numbers, until the
+     * writer is closed and all batches given are written.  Afterwards, writes
+     * the last segment.
+     */
+    private void writeBatches() {
+        while (true) {
+            int sequence;
+            Batch batch;
+            synchronized (this) {
+                while (!this.sequence2batch.containsKey(this.nextSequence) &&
+                        !(this.closed && this.sequence2batch.isEmpty())) {
+                    if (this.closed) {
+                        // some sequence numbers were not given
+                        this.nextSequence = this.sequence2batch.firstKey();
+                    } else {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                if (this.sequence2batch.isEmpty()) {
+                    break;
+                }
+                sequence = this.nextSequence;
+                batch = this.sequence2batch.remove(sequence);
+                this.nextSequence++;
+                notifyAll();
+            }
+            writeBatch(sequence, batch);
+        }
+        writeSegment();
+    }
+
+    /**
+     * Assigns ids to the models of the given batch and adds them to the
+     * segment being collected.  Full segments are written.
+     *
+     * @param sequence Sequence number of the type of the batch.
+     * @param batch    Batch to write.
+     */
+    private void writeBatch(int sequence, Batch batch) {
+        String typeName = this.typesToAnalyze.get(sequence);
+        for (int i = 0; i < batch.models.size(); i++) {
+            this.modelsWritten++;
+            Model model = batch.models.get(i);
+            ModelData modelData = batch.modelsData.get(i);
+            this.id2modelData.put(this.modelsWritten, modelData);
+            this.manifest.addModelId(typeName, this.modelsWritten);
+            this.segmentWriter.addModel(this.modelsWritten, model);
+            if (this.dumpModels) {
+                System.out.println("MODEL " + this.modelsWritten + ": " +
+                        modelData.getModelName() + " (" +
+                        modelData.getClassName() + " " +
+                        modelData.getMethodName() + ")");
+                System.out.println(model);
+            }
+            if (this.segmentWriter.getModelsNum() >= SEGMENT_SIZE) {
+                writeSegment();
+            }
+        }
+    }
+
+    /**
+     * Writes the segment collected so far (if it is not empty) into a new
+     * models file.  Existing models files are not overwritten.
+     */
+    private void writeSegment() {
+        if (this.segmentWriter.getModelsNum() == 0) {
+            return;
+        }
+        try {
+            File file;
+            do {
+                this.segmentsWritten++;
+                file = new File(this.modelsDir, "segment" +
+                        this.segmentsWritten + ModelAnalyzer.MODELS_FILE_SUFFIX);
+            } while (file.exists());
+            BufferedOutputStream fileOutput = new BufferedOutputStream(
+                    new FileOutputStream(file));
+            this.segmentWriter.writeBlock(fileOutput);
+            fileOutput.close();
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            System.exit(0);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Serializes id2modelData field of the writer into given stream.
+     *
+     * @param out Stream to serialize the field to.
+     * @throws IOException
+     */
+    private void writeId2ModelData(ObjectOutputStream out) throws IOException {
+        out.writeInt(this.id2modelData.size());
+        for (Integer id : this.id2modelData.keySet()) {
+            ModelData modelData = this.id2modelData.get(id);
+            out.writeInt(id);
+            out.writeObject(modelData);
+        }
+    }
+
+    /**
+     * Serializes list of types processed into given stream.
+     *
+     * @param out Stream to serialize the types' names to.
+     * @throws IOException
+     */
+    private void writeTypesNames(ObjectOutputStream out) throws IOException {
+        out.writeInt(this.typesNames.size());
+        for (String typeName : this.typesNames) {
+            out.writeObject(typeName);
+        }
+    }
+
+    /**
+     * This class is used to represent models of one type waiting to be
+     * written.
+     */
+    private static final class Batch {
+
+        /**
+         * Models of the type, in the order of their ids.
+         */
+        private final List<Model> models;
+
+        /**
+         * Data of the models.
+         */
+        private final List<ModelData> modelsData;
+
+        /**
+         * Creates new batch of the given models.
+         *
+         * @param models     Models of the type, in the order of their ids.
+         * @param modelsData Data of the models.
+         */
+        Batch(List<Model> models, List<ModelData> modelsData) {
+            this.models = models;
+            this.modelsData = modelsData;
+        }
+    }
+}
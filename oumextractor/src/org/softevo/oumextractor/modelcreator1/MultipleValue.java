@@ -4,7 +4,7 @@ import org.softevo.oumextractor.analysis.ClonesCache;
 import org.softevo.oumextractor.analysis.MergesCache;
 import org.softevo.oumextractor.analysis.Value;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -38,7 +38,7 @@ final class MultipleValue extends AValue {
                 !(value1 instanceof ModelableAValue)) {
             throw new IllegalArgumentException();
         } else {
-            this.values = new HashSet<AValue>();
+            this.values = new LinkedHashSet<AValue>();
             this.values.add(value1);
             this.values.add(value2);
         }
@@ -51,7 +51,7 @@ final class MultipleValue extends AValue {
      * @param other Reference multiple value.
      */
     public MultipleValue(MultipleValue other) {
-        this.values = new HashSet<AValue>(other.values);
+        this.values = new LinkedHashSet<AValue>(other.values);
     }
 
     /* (non-Javadoc)
@@ -270,7 +270,7 @@ final class MultipleValue extends AValue {
             throws CloneNotSupportedException {
         if (clones.get(this) == null) {
             MultipleValue result = (MultipleValue) super.clone();
-            Set<AValue> newValues = new HashSet<AValue>();
+            Set<AValue> newValues = new LinkedHashSet<AValue>();
             for (AValue v : result.values) {
                 newValues.add(v.clone(clones));
             }
@@ -286,7 +286,7 @@ final class MultipleValue extends AValue {
     @Override
     public AValue updateStructure() {
         // update recursively, removing duplicates throughout
-        Set<AValue> oldValues = new HashSet<AValue>(this.values);
+        Set<AValue> oldValues = new LinkedHashSet<AValue>(this.values);
         this.values.clear();
         for (AValue value : oldValues) {
             this.values.add(value.updateStructure());
@@ -0,0 +1,243 @@
+package org.softevo.oumextractor.modelcreator1.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * This class is used to read object usage models written in the binary models
+ * format by the <code>BinaryModelWriter</code> class.  Models are read one by
+ * one; a model's record is decoded only when the model is requested, so
+ * skipping models is cheap.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public final class BinaryModelReader {
+
+    /**
+     * Stream to read the models from.
+     */
+    private final DataInputStream input;
+
+    /**
+     * String table of the block being currently read.
+     */
+    private String[] strings;
+
+    /**
+     * Number of models of the current block that were not read yet.
+     */
+    private int modelsLeft;
+
+    /**
+     * Id of the current model.
+     */
+    private int modelId;
+
+    /**
+     * Record of the current model.
+     */
+    private ByteBuffer record;
+
+    /**
+     * Creates new reader of models from the given stream.
+     *
+     * @param in Stream to read models from.
+     */
+    public BinaryModelReader(InputStream in) {
+        this.input = new DataInputStream(in);
+        this.strings = new String[0];
+        this.modelsLeft = 0;
+        this.modelId = 0;
+        this.record = null;
+    }
+
+    /**
+     * Creates new reader of the given record of a model.
+     *
+     * @param strings String table of the record.
+     * @param record  Record of a model.
+     */
+    private BinaryModelReader(String[] strings, ByteBuffer record) {
+        this.input = null;
+        this.strings = strings;
+        this.modelsLeft = 0;
+        this.modelId = 0;
+        this.record = record;
+    }
+
+    /**
+     * Decodes the model from the given record.
+     *
+     * @param strings String table of the record.
+     * @param record  Record of the model, positioned at its start.
+     * @return Model decoded.
+     * @throws IOException if the record is malformed.
+     */
+    static Model readModel(String[] strings, ByteBuffer record)
+            throws IOException {
+        return Model.readBinaryRepresentation(
+                new BinaryModelReader(strings, record));
+    }
+
+    /**
+     * Advances the reader to the next model.
+     *
+     * @return <code>true</code> if there is a next model; <code>false</code>
+     * if the end of the stream was reached.
+     * @throws IOException if reading fails or the stream is malformed.
+     */
+    public boolean nextModel() throws IOException {
+        while (this.modelsLeft == 0) {
+            if (!readBlockHeader()) {
+                this.record = null;
+                return false;
+            }
+        }
+        this.modelId = this.input.readInt();
+        byte[] bytes = new byte[this.input.readInt()];
+        this.input.readFully(bytes);
+        this.record = ByteBuffer.wrap(bytes);
+        this.modelsLeft--;
+        return true;
+    }
+
+    /**
+     * Returns the id of the current model.
+     *
+     * @return Id of the current model.
+     */
+    public int getModelId() {
+        return this.modelId;
+    }
+
+    /**
+     * Decodes and returns the current model.
+     *
+     * @return The current model.
+     * @throws IOException if the record of the model is malformed.
+     */
+    public Model getModel() throws IOException {
+        if (this.record == null) {
+            throw new IllegalStateException();
+        }
+        this.record.rewind();
+        return Model.readBinaryRepresentation(this);
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException if closing fails.
+     */
+    public void close() throws IOException {
+        this.input.close();
+    }
+
+    /**
+     * Reads the header and the string table of the next block.
+     *
+     * @return <code>true</code> if a block has been read; <code>false</code>
+     * if the end of the stream was reached.
+     * @throws IOException if reading fails or the stream is malformed.
+     */
+    private boolean readBlockHeader() throws IOException {
+        int magic;
+        try {
+            magic = this.input.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (magic != BinaryModelWriter.MAGIC) {
+            throw new IOException("Not a binary models stream");
+        }
+        int version = this.input.readUnsignedByte();
+        if (version != BinaryModelWriter.VERSION) {
+            throw new IOException("Unsupported binary models version: " +
+                    version);
+        }
+        this.strings = new String[readVarInt(this.input)];
+        for (int i = 0; i < this.strings.length; i++) {
+            this.strings[i] = this.input.readUTF();
+        }
+        this.modelsLeft = readVarInt(this.input);
+        return true;
+    }
+
+    /**
+     * Reads a string (coded as an index into the string table) from the
+     * record of the current model.
+     *
+     * @return String read.
+     * @throws IOException if the record is malformed.
+     */
+    String readString() throws IOException {
+        int index = readVarInt();
+        if (index >= this.strings.length) {
+            throw new IOException("Invalid string index: " + index);
+        }
+        return this.strings[index];
+    }
+
+    /**
+     * Reads a non-negative integer from the record of the current model.
+     *
+     * @return Integer read.
+     * @throws IOException if the record is malformed.
+     */
+    int readVarInt() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed integer");
+    }
+
+    /**
+     * Reads a (possibly negative) integer from the record of the current
+     * model.
+     *
+     * @return Integer read.
+     * @throws IOException if the record is malformed.
+     */
+    int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a byte from the record of the current model.
+     *
+     * @return Byte read (as an unsigned value).
+     * @throws IOException if the record is malformed.
+     */
+    int readByte() throws IOException {
+        if (!this.record.hasRemaining()) {
+            throw new EOFException("Unexpected end of a model's record");
+        }
+        return this.record.get() & 0xFF;
+    }
+
+    /**
+     * Reads a non-negative integer written using as few bytes as possible
+     * from the given stream.
+     *
+     * @param in Input to read from.
+     * @return Integer read.
+     * @throws IOException if reading fails or the input is malformed.
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed integer");
+    }
+}
@@ -0,0 +1,223 @@
+package org.softevo.oumextractor.modelcreator1.model;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is used to write object usage models in the binary models
+ * format.  Models are written in blocks.  Each block starts with a header
+ * (magic number and format version) followed by a table of all strings used
+ * by the models of the block (types' names, methods' names, etc.) and by the
+ * models themselves.  Each model is written as a length-prefixed record
+ * holding its id and its states and transitions coded as integers (strings
+ * are coded as indices into the string table).  Blocks can be appended to
+ * each other, so that a file may hold any number of them.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public final class BinaryModelWriter {
+
+    /**
+     * Magic number starting each block of models ("OUMB").
+     */
+    static final int MAGIC = 0x4F554D42;
+
+    /**
+     * Version of the format being written.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Mapping string => its index in the string table.
+     */
+    private final Map<String, Integer> string2index;
+
+    /**
+     * Strings of the string table, in the order of their indices.
+     */
+    private final List<String> strings;
+
+    /**
+     * Buffer holding records of the models added since the last block was
+     * written.
+     */
+    private final ByteArrayOutputStream records;
+
+    /**
+     * Buffer holding the record of the model being currently added.
+     */
+    private final ByteArrayOutputStream record;
+
+    /**
+     * Stream writing into the record of the model being currently added.
+     */
+    private final DataOutputStream recordOutput;
+
+    /**
+     * Number of models added since the last block was written.
+     */
+    private int modelsNum;
+
+    /**
+     * Creates new writer with no models added.
+     */
+    public BinaryModelWriter() {
+        this.string2index = new HashMap<String, Integer>();
+        this.strings = new ArrayList<String>();
+        this.records = new ByteArrayOutputStream();
+        this.record = new ByteArrayOutputStream();
+        this.recordOutput = new DataOutputStream(this.record);
+        this.modelsNum = 0;
+    }
+
+    /**
+     * Adds given model to the block to be written next.  The model is encoded
+     * immediately, so changes made to it afterwards will not be written.
+     *
+     * @param id    Id of the model.
+     * @param model Model to add.
+     */
+    public void addModel(int id, Model model) {
+        try {
+            byte[] bytes = encodeModel(model);
+            DataOutputStream out = new DataOutputStream(this.records);
+            out.writeInt(id);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+            this.modelsNum++;
+        } catch (IOException e) {
+            // writing into memory must not fail
+            e.printStackTrace(System.err);
+            throw new InternalError();
+        }
+    }
+
+    /**
+     * Encodes given model into a record, adding the strings it uses to the
+     * string table.
+     *
+     * @param model Model to encode.
+     * @return Record of the model.
+     * @throws IOException if encoding fails.
+     */
+    byte[] encodeModel(Model model) throws IOException {
+        this.record.reset();
+        model.writeBinaryRepresentation(this);
+        this.recordOutput.flush();
+        return this.record.toByteArray();
+    }
+
+    /**
+     * Returns the string table, i.e. all strings used by the models encoded
+     * since the last block was written, in the order of their indices.
+     *
+     * @return The string table.
+     */
+    List<String> getStrings() {
+        return this.strings;
+    }
+
+    /**
+     * Returns the number of models added since the last block was written.
+     *
+     * @return Number of models to be written in the next block.
+     */
+    public int getModelsNum() {
+        return this.modelsNum;
+    }
+
+    /**
+     * Writes all models added since the last block was written as a new block
+     * into the given stream.  Afterwards, the writer is empty again.
+     *
+     * @param stream Stream to write the block into.
+     * @throws IOException if writing fails.
+     */
+    public void writeBlock(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, this.strings.size());
+        for (String string : this.strings) {
+            out.writeUTF(string);
+        }
+        writeVarInt(out, this.modelsNum);
+        this.records.writeTo(out);
+        out.flush();
+
+        this.string2index.clear();
+        this.strings.clear();
+        this.records.reset();
+        this.modelsNum = 0;
+    }
+
+    /**
+     * Writes given string into the record of the model being added as an
+     * index into the string table.
+     *
+     * @param string String to write.
+     * @throws IOException if writing fails.
+     */
+    void writeString(String string) throws IOException {
+        Integer index = this.string2index.get(string);
+        if (index == null) {
+            index = this.strings.size();
+            this.strings.add(string);
+            this.string2index.put(string, index);
+        }
+        writeVarInt(index);
+    }
+
+    /**
+     * Writes given non-negative integer into the record of the model being
+     * added.
+     *
+     * @param value Integer to write.
+     * @throws IOException if writing fails.
+     */
+    void writeVarInt(int value) throws IOException {
+        writeVarInt(this.recordOutput, value);
+    }
+
+    /**
+     * Writes given (possibly negative) integer into the record of the model
+     * being added.
+     *
+     * @param value Integer to write.
+     * @throws IOException if writing fails.
+     */
+    void writeSignedVarInt(int value) throws IOException {
+        writeVarInt(this.recordOutput, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes given byte into the record of the model being added.
+     *
+     * @param value Byte to write.
+     * @throws IOException if writing fails.
+     */
+    void writeByte(int value) throws IOException {
+        this.recordOutput.writeByte(value);
+    }
+
+    /**
+     * Writes given integer into given stream using as few bytes as possible
+     * (7 bits per byte; the highest bit indicates if more bytes follow).
+     *
+     * @param out   Output to write to.
+     * @param value Integer to write.
+     * @throws IOException if writing fails.
+     */
+    static void writeVarInt(DataOutput out, int value)
+            throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
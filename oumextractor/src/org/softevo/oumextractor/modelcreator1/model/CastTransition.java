@@ -5,6 +5,11 @@ import org.softevo.jutil.JavaUtil;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
 /**
  * This class is used to represent transitions in a model caused by casting
  * the object.
@@ -72,6 +77,23 @@ public final class CastTransition extends Transition {
         return get(type);
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static CastTransition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("cast_transition");
+        String type = reader.getAttributeValue(null, "type");
+        boolean hasChildren = nextChildElement(reader);
+        assert !hasChildren;
+        return get(type);
+    }
+
     /**
      * Returns the fully qualified name of the type, to which the object
      * was cast.
@@ -131,6 +153,39 @@ public final class CastTransition extends Transition {
         return castElement;
     }
 
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeXMLRepresentation(javax.xml.stream.XMLStreamWriter)
+     */
+    @Override
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeEmptyElement("cast_transition");
+        xml.writeAttribute("type", this.type);
+    }
+
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeBinaryRepresentation(org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter)
+     */
+    @Override
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeByte(CAST_TRANSITION);
+        out.writeString(this.type);
+    }
+
+    /**
+     * Returns (creating it, if necessary) the transition written in the binary
+     * models format at the current position of the given reader (just after
+     * the transition's tag).
+     *
+     * @param in Reader positioned at the transition.
+     * @return Transition read.
+     * @throws IOException if the transition is malformed.
+     */
+    static CastTransition readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        return get(in.readString());
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#getLongEventString()
      */
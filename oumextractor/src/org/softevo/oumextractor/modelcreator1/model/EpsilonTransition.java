@@ -3,6 +3,11 @@ package org.softevo.oumextractor.modelcreator1.model;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
 /**
  * This class is used to represent "epsilon transitions" in a model.  It can
  * only be used as a singleton.
@@ -43,6 +48,22 @@ public final class EpsilonTransition extends Transition {
         return get();
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static EpsilonTransition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("epsilon_transition");
+        boolean hasChildren = nextChildElement(reader);
+        assert !hasChildren;
+        return get();
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -79,6 +100,23 @@ public final class EpsilonTransition extends Transition {
         return epsilonElement;
     }
 
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeXMLRepresentation(javax.xml.stream.XMLStreamWriter)
+     */
+    @Override
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeEmptyElement("epsilon_transition");
+    }
+
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeBinaryRepresentation(org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter)
+     */
+    @Override
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeByte(EPSILON_TRANSITION);
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#getLongEventString()
      */
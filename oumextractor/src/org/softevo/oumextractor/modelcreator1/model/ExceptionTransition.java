@@ -6,6 +6,11 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
 /**
  * This class is used to represent transitions ending with an exception being thrown.
  *
@@ -94,6 +99,26 @@ public final class ExceptionTransition extends Transition {
         return get(transition, excType);
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static ExceptionTransition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("exception_transition");
+        String excType = reader.getAttributeValue(null, "exc_type");
+        Transition transition = null;
+        while (nextChildElement(reader)) {
+            assert transition == null;
+            transition = Transition.getFromXMLRepresentation(reader);
+        }
+        return get(transition, excType);
+    }
+
     /**
      * Returns encapsulated transition.
      *
@@ -162,6 +187,44 @@ public final class ExceptionTransition extends Transition {
         return exceptionElement;
     }
 
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeXMLRepresentation(javax.xml.stream.XMLStreamWriter)
+     */
+    @Override
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeStartElement("exception_transition");
+        xml.writeAttribute("exc_type", this.excType);
+        this.transition.writeXMLRepresentation(xml);
+        xml.writeEndElement();
+    }
+
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeBinaryRepresentation(org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter)
+     */
+    @Override
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeByte(EXCEPTION_TRANSITION);
+        out.writeString(this.excType);
+        this.transition.writeBinaryRepresentation(out);
+    }
+
+    /**
+     * Returns (creating it, if necessary) the transition written in the binary
+     * models format at the current position of the given reader (just after
+     * the transition's tag).
+     *
+     * @param in Reader positioned at the transition.
+     * @return Transition read.
+     * @throws IOException if the transition is malformed.
+     */
+    static ExceptionTransition readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        String excType = in.readString();
+        Transition transition = Transition.readBinaryRepresentation(in);
+        return get(transition, excType);
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#getLongEventString()
      */
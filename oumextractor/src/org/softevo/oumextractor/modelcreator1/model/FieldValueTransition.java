@@ -6,6 +6,11 @@ import org.softevo.jutil.JavaUtil;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
 /**
  * Instances of this class are used to represent transitions stemming from a
  * value being read from a field.
@@ -82,6 +87,24 @@ public class FieldValueTransition extends Transition {
         return get(fieldName, fieldType);
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static FieldValueTransition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("field_value_transition");
+        String fieldType = reader.getAttributeValue(null, "field_type");
+        String fieldName = reader.getAttributeValue(null, "field_name");
+        boolean hasChildren = nextChildElement(reader);
+        assert !hasChildren;
+        return get(fieldName, fieldType);
+    }
+
     /**
      * Returns the name of the type of the field, from which the value was read.
      *
@@ -156,6 +179,43 @@ public class FieldValueTransition extends Transition {
         return fieldValueElement;
     }
 
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeXMLRepresentation(javax.xml.stream.XMLStreamWriter)
+     */
+    @Override
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeEmptyElement("field_value_transition");
+        xml.writeAttribute("field_type", this.fieldType);
+        xml.writeAttribute("field_name", this.fieldName);
+    }
+
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeBinaryRepresentation(org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter)
+     */
+    @Override
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeByte(FIELD_VALUE_TRANSITION);
+        out.writeString(this.fieldName);
+        out.writeString(this.fieldType);
+    }
+
+    /**
+     * Returns (creating it, if necessary) the transition written in the binary
+     * models format at the current position of the given reader (just after
+     * the transition's tag).
+     *
+     * @param in Reader positioned at the transition.
+     * @return Transition read.
+     * @throws IOException if the transition is malformed.
+     */
+    static FieldValueTransition readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        String fieldName = in.readString();
+        String fieldType = in.readString();
+        return get(fieldName, fieldType);
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#getLongEventString()
      */
@@ -5,6 +5,10 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -105,6 +109,35 @@ public final class InvokeMethodTransition extends Transition {
         return get(methodCall, parameterIndices);
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static InvokeMethodTransition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("invoke_method_transition");
+        MethodCall methodCall = null;
+        List<Integer> parameterIndices = new ArrayList<Integer>();
+        while (nextChildElement(reader)) {
+            if (reader.getLocalName().equals("parameter")) {
+                Integer index = Integer.valueOf(
+                        reader.getAttributeValue(null, "index"));
+                parameterIndices.add(index);
+                boolean hasChildren = nextChildElement(reader);
+                assert !hasChildren;
+            } else {
+                assert methodCall == null;
+                methodCall = MethodCall.getFromXMLRepresentation(reader);
+            }
+        }
+        assert methodCall != null;
+        return get(methodCall, parameterIndices);
+    }
+
     /**
      * Returns the method call represent by this transition.
      *
@@ -177,6 +210,54 @@ public final class InvokeMethodTransition extends Transition {
         return invokeMethodElement;
     }
 
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeXMLRepresentation(javax.xml.stream.XMLStreamWriter)
+     */
+    @Override
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeStartElement("invoke_method_transition");
+        this.methodCall.writeXMLRepresentation(xml);
+        for (Integer index : this.parameterIndices) {
+            xml.writeEmptyElement("parameter");
+            xml.writeAttribute("index", index.toString());
+        }
+        xml.writeEndElement();
+    }
+
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeBinaryRepresentation(org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter)
+     */
+    @Override
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeByte(INVOKE_METHOD_TRANSITION);
+        this.methodCall.writeBinaryRepresentation(out);
+        out.writeVarInt(this.parameterIndices.size());
+        for (Integer index : this.parameterIndices) {
+            out.writeSignedVarInt(index);
+        }
+    }
+
+    /**
+     * Returns (creating it, if necessary) the transition written in the binary
+     * models format at the current position of the given reader (just after
+     * the transition's tag).
+     *
+     * @param in Reader positioned at the transition.
+     * @return Transition read.
+     * @throws IOException if the transition is malformed.
+     */
+    static InvokeMethodTransition readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        MethodCall methodCall = MethodCall.readBinaryRepresentation(in);
+        int parametersNum = in.readVarInt();
+        List<Integer> parameterIndices = new ArrayList<Integer>(parametersNum);
+        for (int i = 0; i < parametersNum; i++) {
+            parameterIndices.add(in.readSignedVarInt());
+        }
+        return get(methodCall, parameterIndices);
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#getLongEventString()
      */
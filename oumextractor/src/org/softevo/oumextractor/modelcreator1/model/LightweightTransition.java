@@ -5,6 +5,10 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -92,6 +96,27 @@ public class LightweightTransition extends Transition {
         return get(functionName + "(" + parametersNum + ")@" + parameter);
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static LightweightTransition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("lightweight_transition");
+        String functionName = reader.getAttributeValue(null, "function_name");
+        int parametersNum = Integer.valueOf(
+                reader.getAttributeValue(null, "parameters_num"));
+        int parameter = Integer.valueOf(
+                reader.getAttributeValue(null, "parameter"));
+        boolean hasChildren = nextChildElement(reader);
+        assert !hasChildren;
+        return get(functionName + "(" + parametersNum + ")@" + parameter);
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#equals(java.lang.Object)
      */
@@ -164,6 +189,47 @@ public class LightweightTransition extends Transition {
         return transitionElement;
     }
 
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeXMLRepresentation(javax.xml.stream.XMLStreamWriter)
+     */
+    @Override
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeEmptyElement("lightweight_transition");
+        xml.writeAttribute("function_name", this.functionName);
+        xml.writeAttribute("parameters_num",
+                String.valueOf(this.parametersNum));
+        xml.writeAttribute("parameter", String.valueOf(this.parameter));
+    }
+
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeBinaryRepresentation(org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter)
+     */
+    @Override
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeByte(LIGHTWEIGHT_TRANSITION);
+        out.writeString(this.functionName);
+        out.writeVarInt(this.parametersNum);
+        out.writeSignedVarInt(this.parameter);
+    }
+
+    /**
+     * Returns (creating it, if necessary) the transition written in the binary
+     * models format at the current position of the given reader (just after
+     * the transition's tag).
+     *
+     * @param in Reader positioned at the transition.
+     * @return Transition read.
+     * @throws IOException if the transition is malformed.
+     */
+    static LightweightTransition readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        String functionName = in.readString();
+        int parametersNum = in.readVarInt();
+        int parameter = in.readSignedVarInt();
+        return get(functionName + "(" + parametersNum + ")@" + parameter);
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#hashCode()
      */
@@ -3,6 +3,10 @@ package org.softevo.oumextractor.modelcreator1.model;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -52,6 +56,24 @@ public final class MethodCall implements Serializable {
         return new MethodCall(typeName, methodName);
     }
 
+    /**
+     * Returns the method call represented by the XML element the given reader
+     * is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the method call.
+     * @return Method call, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static MethodCall getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("method_call");
+        String typeName = reader.getAttributeValue(null, "type_name");
+        String methodName = reader.getAttributeValue(null, "method_name");
+        boolean hasChildren = Transition.nextChildElement(reader);
+        assert !hasChildren;
+        return new MethodCall(typeName, methodName);
+    }
+
     /**
      * Returns fully qualified name of the type declaring the called method.
      *
@@ -109,4 +131,43 @@ public final class MethodCall implements Serializable {
         element.setAttribute("method_name", this.methodName);
         return element;
     }
+
+    /**
+     * Writes the XML representation of this method call into the given stream.
+     *
+     * @param xml XML stream to write to.
+     * @throws XMLStreamException if the XML stream could not be written.
+     */
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeEmptyElement("method_call");
+        xml.writeAttribute("type_name", this.typeName);
+        xml.writeAttribute("method_name", this.methodName);
+    }
+
+    /**
+     * Writes this method call in the binary models format.
+     *
+     * @param out Writer to write this method call to.
+     * @throws IOException if writing fails.
+     */
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeString(this.typeName);
+        out.writeString(this.methodName);
+    }
+
+    /**
+     * Returns the method call written in the binary models format at the
+     * current position of the given reader.
+     *
+     * @param in Reader positioned at the method call.
+     * @return Method call read.
+     * @throws IOException if the method call is malformed.
+     */
+    static MethodCall readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        String typeName = in.readString();
+        String methodName = in.readString();
+        return new MethodCall(typeName, methodName);
+    }
 }
@@ -6,8 +6,10 @@ import org.softevo.oumextractor.controlflow.BytecodeNode;
 import org.softevo.oumextractor.controlflow.Node;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -28,6 +30,16 @@ public final class Model implements Serializable {
      */
     private static final long serialVersionUID = -6804663525245561751L;
 
+    /**
+     * Binary format flag of states that are abnormal exit states.
+     */
+    private static final int STATE_ABNORMAL_EXIT = 0x01;
+
+    /**
+     * Binary format flag of states that are not part of the model's graph.
+     */
+    private static final int STATE_NOT_IN_GRAPH = 0x02;
+
     /**
      * Entry state of the model.
      */
@@ -81,6 +93,20 @@ public final class Model implements Serializable {
         this.exitState = null;
     }
 
+    /**
+     * Creates new model having no states and no transitions.  Used when
+     * reading models.
+     *
+     * @param lastUsedStateId Last used state id.
+     */
+    private Model(int lastUsedStateId) {
+        this.model = new Graph<State, Transition>();
+        this.lastUsedStateId = lastUsedStateId;
+        this.abnormalExitStates = new HashMap<String, AbnormalExitState>();
+        this.node2state = new HashMap<Node, State>();
+        this.state2followup = new HashMap<State, Map<Transition, State>>();
+    }
+
     /**
      * Creates new model equal to given model.
      *
@@ -460,49 +486,6 @@ public final class Model implements Serializable {
         return changed;
     }
 
-    /* (non-Javadoc)
-     * @see java.lang.Object#toString()
-     */
-    @Override
-    public String toString() {
-        StringBuffer result = new StringBuffer();
-
-        // list states
-        Set<State> listedStates = new HashSet<State>();
-        result.append("States:\n");
-        result.append("==================================================\n");
-        for (State from : this.model.getVertices()) {
-            if (!listedStates.contains(from)) {
-                result.append(getStringRepresentation(from)).append('\n');
-                listedStates.add(from);
-            }
-        }
-
-        // list transitions
-        Set<Triple<State, State, Transition>> listedTransitions =
-                new HashSet<Triple<State, State, Transition>>();
-        result.append("Transitions:\n");
-        result.append("==================================================\n");
-        for (State from : this.model.getVertices()) {
-            for (State to : this.model.getSuccessors(from)) {
-                for (Transition transition : this.model.getEdges(from, to)) {
-                    Triple<State, State, Transition> triple =
-                            new Triple<State, State, Transition>(from, to, transition);
-                    if (!listedTransitions.contains(triple)) {
-                        result.append(getStringRepresentation(from));
-                        result.append(" --");
-                        result.append(transition.getVeryShortEventString());
-                        result.append("--> ");
-                        result.append(getStringRepresentation(to));
-                        result.append('\n');
-                        listedTransitions.add(triple);
-                    }
-                }
-            }
-        }
-        return result.toString();
-    }
-
     /**
      * Returns representation of given state as a string.
      *
@@ -535,6 +518,174 @@ public final class Model implements Serializable {
         return ++this.lastUsedStateId;
     }
 
+    /**
+     * Writes this model in the binary models format.  States are coded as
+     * indices into the table of states and transitions as indices into the
+     * table of transitions of this model.
+     *
+     * @param out Writer to write this model to.
+     * @throws IOException if writing fails.
+     */
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        // collect states
+        Map<State, Integer> state2index = new HashMap<State, Integer>();
+        List<State> states = new ArrayList<State>(this.model.getVertices());
+        for (State state : states) {
+            state2index.put(state, state2index.size());
+        }
+        List<State> extraStates = new ArrayList<State>();
+        extraStates.add(this.entryState);
+        extraStates.add(this.exitState);
+        extraStates.addAll(this.abnormalExitStates.values());
+        for (State state : extraStates) {
+            if (state != null && !state2index.containsKey(state)) {
+                state2index.put(state, state2index.size());
+                states.add(state);
+            }
+        }
+
+        // collect transitions and edges
+        Map<Transition, Integer> transition2index =
+                new HashMap<Transition, Integer>();
+        List<Transition> transitions = new ArrayList<Transition>();
+        List<Integer> edges = new ArrayList<Integer>();
+        for (State from : this.model.getVertices()) {
+            for (State to : this.model.getSuccessors(from)) {
+                for (Transition transition : this.model.getEdges(from, to)) {
+                    Integer index = transition2index.get(transition);
+                    if (index == null) {
+                        index = transitions.size();
+                        transitions.add(transition);
+                        transition2index.put(transition, index);
+                    }
+                    edges.add(state2index.get(from));
+                    edges.add(state2index.get(to));
+                    edges.add(index);
+                }
+            }
+        }
+
+        // write states
+        out.writeVarInt(this.lastUsedStateId);
+        out.writeVarInt(states.size());
+        int verticesNum = this.model.getVertices().size();
+        for (int i = 0; i < states.size(); i++) {
+            State state = states.get(i);
+            int flags = (i < verticesNum) ? 0 : STATE_NOT_IN_GRAPH;
+            if (state instanceof AbnormalExitState) {
+                flags |= STATE_ABNORMAL_EXIT;
+            }
+            out.writeByte(flags);
+            out.writeSignedVarInt(state.getId());
+            if (state instanceof AbnormalExitState) {
+                out.writeString(((AbnormalExitState) state).getExceptionType());
+            }
+        }
+        out.writeVarInt(state2index.get(this.entryState));
+        out.writeVarInt(this.exitState == null ? 0 :
+                state2index.get(this.exitState) + 1);
+        out.writeVarInt(this.abnormalExitStates.size());
+        for (Map.Entry<String, AbnormalExitState> entry :
+                this.abnormalExitStates.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeVarInt(state2index.get(entry.getValue()));
+        }
+
+        // write transitions and edges
+        out.writeVarInt(transitions.size());
+        for (Transition transition : transitions) {
+            transition.writeBinaryRepresentation(out);
+        }
+        out.writeVarInt(edges.size() / 3);
+        for (Integer index : edges) {
+            out.writeVarInt(index);
+        }
+    }
+
+    /**
+     * Reads a model written in the binary models format.
+     *
+     * @param in Reader positioned at the record of the model.
+     * @return Model read.
+     * @throws IOException if the record of the model is malformed.
+     */
+    static Model readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        Model result = new Model(in.readVarInt());
+
+        // read states
+        State[] states = new State[in.readVarInt()];
+        for (int i = 0; i < states.length; i++) {
+            int flags = in.readByte();
+            int id = in.readSignedVarInt();
+            if ((flags & STATE_ABNORMAL_EXIT) != 0) {
+                states[i] = new AbnormalExitState(id, in.readString());
+            } else {
+                states[i] = new AnonymousState(id);
+            }
+            if ((flags & STATE_NOT_IN_GRAPH) == 0) {
+                result.addState(states[i]);
+            }
+        }
+        result.entryState = states[readIndex(in, states.length)];
+        int exitIndex = in.readVarInt();
+        if (exitIndex > 0) {
+            result.exitState = states[readIndex(exitIndex - 1, states.length)];
+        }
+        int abnormalExitStatesNum = in.readVarInt();
+        for (int i = 0; i < abnormalExitStatesNum; i++) {
+            String excType = in.readString();
+            State state = states[readIndex(in, states.length)];
+            if (!(state instanceof AbnormalExitState)) {
+                throw new IOException("Invalid abnormal exit state");
+            }
+            result.abnormalExitStates.put(excType, (AbnormalExitState) state);
+        }
+
+        // read transitions and edges
+        Transition[] transitions = new Transition[in.readVarInt()];
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] = Transition.readBinaryRepresentation(in);
+        }
+        int edgesNum = in.readVarInt();
+        for (int i = 0; i < edgesNum; i++) {
+            State from = states[readIndex(in, states.length)];
+            State to = states[readIndex(in, states.length)];
+            Transition transition =
+                    transitions[readIndex(in, transitions.length)];
+            result.addTransition(from, to, transition);
+        }
+        return result;
+    }
+
+    /**
+     * Reads an index into a table of the given size.
+     *
+     * @param in   Reader to read the index from.
+     * @param size Size of the table.
+     * @return Index read.
+     * @throws IOException if the index is out of the table's bounds.
+     */
+    private static int readIndex(BinaryModelReader in, int size)
+            throws IOException {
+        return readIndex(in.readVarInt(), size);
+    }
+
+    /**
+     * Checks that the given index lies within a table of the given size.
+     *
+     * @param index Index to check.
+     * @param size  Size of the table.
+     * @return The given index.
+     * @throws IOException if the index is out of the table's bounds.
+     */
+    private static int readIndex(int index, int size) throws IOException {
+        if (index < 0 || index >= size) {
+            throw new IOException("Invalid index: " + index);
+        }
+        return index;
+    }
+
     /**
      * Serializes this model into given stream.
      *
@@ -579,4 +730,47 @@ public final class Model implements Serializable {
         // set state2followup
         this.state2followup = new HashMap<State, Map<Transition, State>>();
     }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuffer result = new StringBuffer();
+
+        // list states
+        Set<State> listedStates = new HashSet<State>();
+        result.append("States:\n");
+        result.append("==================================================\n");
+        for (State from : this.model.getVertices()) {
+            if (!listedStates.contains(from)) {
+                result.append(getStringRepresentation(from)).append('\n');
+                listedStates.add(from);
+            }
+        }
+
+        // list transitions
+        Set<Triple<State, State, Transition>> listedTransitions =
+                new HashSet<Triple<State, State, Transition>>();
+        result.append("Transitions:\n");
+        result.append("==================================================\n");
+        for (State from : this.model.getVertices()) {
+            for (State to : this.model.getSuccessors(from)) {
+                for (Transition transition : this.model.getEdges(from, to)) {
+                    Triple<State, State, Transition> triple =
+                            new Triple<State, State, Transition>(from, to, transition);
+                    if (!listedTransitions.contains(triple)) {
+                        result.append(getStringRepresentation(from));
+                        result.append(" --");
+                        result.append(transition.getVeryShortEventString());
+                        result.append("--> ");
+                        result.append(getStringRepresentation(to));
+                        result.append('\n');
+                        listedTransitions.add(triple);
+                    }
+                }
+            }
+        }
+        return result.toString();
+    }
 }
@@ -0,0 +1,237 @@
+package org.softevo.oumextractor.modelcreator1.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class is used to read model packs written by the
+ * <code>ModelPackWriter</code> class.  The pack is memory-mapped, so loading
+ * a model requires only a lookup in the index and decoding of the model's
+ * record directly from the mapped memory.  Instances of this class can be
+ * used by many threads at once.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public final class ModelPackReader {
+
+    /**
+     * Memory-mapped contents of the pack.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * String table of the pack.
+     */
+    private final String[] strings;
+
+    /**
+     * Smallest id of a model in the pack.
+     */
+    private final int minId;
+
+    /**
+     * Number of slots in the index.
+     */
+    private final int slotsNum;
+
+    /**
+     * Offset of the first slot of the index.
+     */
+    private final int slotsOffset;
+
+    /**
+     * Number of models in the pack.
+     */
+    private final int modelsNum;
+
+    /**
+     * Opens the model pack stored in the given file.
+     *
+     * @param file File with the model pack.
+     * @throws IOException if the file could not be read or is not a valid
+     *                     model pack.
+     */
+    public ModelPackReader(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Model pack too large: " + file);
+            }
+            if (size < ModelPackWriter.HEADER_SIZE +
+                    ModelPackWriter.TRAILER_SIZE) {
+                throw new IOException("Not a model pack: " + file);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            input.close();
+        }
+
+        // check the header and the trailer
+        int trailerOffset = this.buffer.limit() - ModelPackWriter.TRAILER_SIZE;
+        if (this.buffer.getInt(0) != ModelPackWriter.MAGIC ||
+                this.buffer.getInt(trailerOffset + 16) !=
+                        ModelPackWriter.MAGIC) {
+            throw new IOException("Not a model pack: " + file);
+        }
+        int version = this.buffer.get(4) & 0xFF;
+        if (version != ModelPackWriter.VERSION) {
+            throw new IOException("Unsupported model pack version: " +
+                    version);
+        }
+        long stringsOffset = this.buffer.getLong(trailerOffset);
+        long indexOffset = this.buffer.getLong(trailerOffset + 8);
+        if (stringsOffset < ModelPackWriter.HEADER_SIZE ||
+                indexOffset < stringsOffset ||
+                indexOffset + 8 > trailerOffset) {
+            throw new IOException("Corrupted model pack: " + file);
+        }
+
+        // read the string table
+        ByteBuffer stringsBuffer = this.buffer.duplicate();
+        stringsBuffer.position((int) stringsOffset);
+        stringsBuffer.limit((int) indexOffset);
+        DataInputStream stringsInput = new DataInputStream(
+                new ByteBufferInputStream(stringsBuffer));
+        this.strings = new String[BinaryModelReader.readVarInt(stringsInput)];
+        for (int i = 0; i < this.strings.length; i++) {
+            this.strings[i] = stringsInput.readUTF();
+        }
+
+        // read the index header and count the models
+        this.minId = this.buffer.getInt((int) indexOffset);
+        this.slotsNum = this.buffer.getInt((int) indexOffset + 4);
+        this.slotsOffset = (int) indexOffset + 8;
+        if (this.slotsNum < 0 || (long) this.slotsOffset +
+                (long) this.slotsNum * ModelPackWriter.SLOT_SIZE !=
+                trailerOffset) {
+            throw new IOException("Corrupted model pack: " + file);
+        }
+        int modelsNum = 0;
+        for (int i = 0; i < this.slotsNum; i++) {
+            if (getRecordOffset(i) != 0) {
+                modelsNum++;
+            }
+        }
+        this.modelsNum = modelsNum;
+    }
+
+    /**
+     * Returns the number of models in the pack.
+     *
+     * @return Number of models in the pack.
+     */
+    public int getModelsNum() {
+        return this.modelsNum;
+    }
+
+    /**
+     * Returns ids of all models in the pack, in ascending order.
+     *
+     * @return Ids of all models in the pack.
+     */
+    public int[] getModelsIds() {
+        int[] result = new int[this.modelsNum];
+        int index = 0;
+        for (int i = 0; i < this.slotsNum; i++) {
+            if (getRecordOffset(i) != 0) {
+                result[index++] = this.minId + i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the pack contains a model with the given id.
+     *
+     * @param id Id of the model.
+     * @return <code>true</code> if the pack contains the model;
+     * <code>false</code> otherwise.
+     */
+    public boolean containsModel(int id) {
+        long slot = (long) id - this.minId;
+        return slot >= 0 && slot < this.slotsNum &&
+                getRecordOffset((int) slot) != 0;
+    }
+
+    /**
+     * Loads the model with the given id.
+     *
+     * @param id Id of the model.
+     * @return Model with the given id or <code>null</code>, if the pack does
+     * not contain such a model.
+     * @throws IOException if the record of the model is malformed.
+     */
+    public Model getModel(int id) throws IOException {
+        if (!containsModel(id)) {
+            return null;
+        }
+        int slot = id - this.minId;
+        long offset = getRecordOffset(slot);
+        int length = this.buffer.getInt(this.slotsOffset +
+                slot * ModelPackWriter.SLOT_SIZE + 8);
+        if (offset < ModelPackWriter.HEADER_SIZE || length < 0 ||
+                offset + length > this.buffer.limit()) {
+            throw new IOException("Invalid record of model " + id);
+        }
+        ByteBuffer record = this.buffer.duplicate();
+        record.position((int) offset);
+        record.limit((int) offset + length);
+        return BinaryModelReader.readModel(this.strings, record.slice());
+    }
+
+    /**
+     * Returns the offset of the record stored in the given index slot.
+     *
+     * @param slot Index slot.
+     * @return Offset of the record or 0, if the slot is empty.
+     */
+    private long getRecordOffset(int slot) {
+        return this.buffer.getLong(this.slotsOffset +
+                slot * ModelPackWriter.SLOT_SIZE);
+    }
+
+    /**
+     * Instances of this class are streams reading from a byte buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        /**
+         * Buffer to read from.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Creates new stream reading from the given buffer.
+         *
+         * @param buffer Buffer to read from.
+         */
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /* (non-Javadoc)
+         * @see java.io.InputStream#read()
+         */
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        /* (non-Javadoc)
+         * @see java.io.InputStream#read(byte[], int, int)
+         */
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, len);
+            return len;
+        }
+    }
+}
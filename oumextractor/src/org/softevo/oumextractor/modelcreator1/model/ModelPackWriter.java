@@ -0,0 +1,149 @@
+package org.softevo.oumextractor.modelcreator1.model;
+
+import java.io.*;
+import java.util.TreeMap;
+
+/**
+ * This class is used to write model packs.  A model pack is a single file
+ * holding object usage models together with an index, which allows any model
+ * to be loaded without reading the other ones.  The file consists of:
+ * <ul>
+ * <li>a header (magic number and format version),</li>
+ * <li>records of the models, encoded as in the binary models format,</li>
+ * <li>the string table shared by all the records,</li>
+ * <li>the index: the smallest model id, the number of index slots and, for
+ * each slot (i.e. for each id starting with the smallest one), the offset and
+ * the length of the record of the model with that id (offset 0 indicates
+ * that there is no model with that id),</li>
+ * <li>a trailer holding offsets of the string table and of the index.</li>
+ * </ul>
+ *
+ * @author Andrzej Wasylkowski
+ */
+public final class ModelPackWriter {
+
+    /**
+     * Magic number starting and ending each model pack ("OUMP").
+     */
+    static final int MAGIC = 0x4F554D50;
+
+    /**
+     * Version of the format being written.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 5;
+
+    /**
+     * Size of the trailer in bytes.
+     */
+    static final int TRAILER_SIZE = 20;
+
+    /**
+     * Size of one index slot in bytes.
+     */
+    static final int SLOT_SIZE = 12;
+
+    /**
+     * Stream to write the pack to.
+     */
+    private final DataOutputStream output;
+
+    /**
+     * Writer used to encode models (and to collect the string table).
+     */
+    private final BinaryModelWriter encoder;
+
+    /**
+     * Mapping model id => (offset of the model's record, its length).
+     */
+    private final TreeMap<Integer, long[]> id2record;
+
+    /**
+     * Number of bytes written so far.
+     */
+    private long offset;
+
+    /**
+     * Creates new writer of a model pack into the given file.
+     *
+     * @param file File to write the model pack to.
+     * @throws IOException if the file could not be created.
+     */
+    public ModelPackWriter(File file) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file)));
+        this.encoder = new BinaryModelWriter();
+        this.id2record = new TreeMap<Integer, long[]>();
+        this.output.writeInt(MAGIC);
+        this.output.writeByte(VERSION);
+        this.offset = HEADER_SIZE;
+    }
+
+    /**
+     * Writes given model into the pack.
+     *
+     * @param id    Id of the model.
+     * @param model Model to write.
+     * @throws IOException if writing fails or a model with the same id was
+     *                     already written.
+     */
+    public void addModel(int id, Model model) throws IOException {
+        if (this.id2record.containsKey(id)) {
+            throw new IOException("Duplicate model id: " + id);
+        }
+        byte[] record = this.encoder.encodeModel(model);
+        this.id2record.put(id, new long[]{this.offset, record.length});
+        this.output.write(record);
+        this.offset += record.length;
+    }
+
+    /**
+     * Writes the string table, the index and the trailer and closes the pack.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void close() throws IOException {
+        // write the string table
+        long stringsOffset = this.offset;
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringsOutput = new DataOutputStream(strings);
+        BinaryModelWriter.writeVarInt(stringsOutput,
+                this.encoder.getStrings().size());
+        for (String string : this.encoder.getStrings()) {
+            stringsOutput.writeUTF(string);
+        }
+        stringsOutput.flush();
+        strings.writeTo(this.output);
+
+        // write the index
+        long indexOffset = stringsOffset + strings.size();
+        int minId = 0;
+        int slotsNum = 0;
+        if (!this.id2record.isEmpty()) {
+            minId = this.id2record.firstKey();
+            slotsNum = this.id2record.lastKey() - minId + 1;
+        }
+        this.output.writeInt(minId);
+        this.output.writeInt(slotsNum);
+        for (int i = 0; i < slotsNum; i++) {
+            long[] record = this.id2record.get(minId + i);
+            if (record == null) {
+                this.output.writeLong(0);
+                this.output.writeInt(0);
+            } else {
+                this.output.writeLong(record[0]);
+                this.output.writeInt((int) record[1]);
+            }
+        }
+
+        // write the trailer
+        this.output.writeLong(stringsOffset);
+        this.output.writeLong(indexOffset);
+        this.output.writeInt(MAGIC);
+        this.output.close();
+    }
+}
@@ -6,6 +6,11 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
 /**
  * This class is used to represent transitions in a model caused by the object
  * being modeled being a return value of a method invocation.
@@ -87,6 +92,25 @@ public final class ReturnValueOfMethodTransition extends Transition {
         return get(methodCall);
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static ReturnValueOfMethodTransition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        assert reader.getLocalName().equals("return_value_of_method_transition");
+        MethodCall methodCall = null;
+        while (nextChildElement(reader)) {
+            assert methodCall == null;
+            methodCall = MethodCall.getFromXMLRepresentation(reader);
+        }
+        return get(methodCall);
+    }
+
     /**
      * Returns the method call encapsulated in this transition.
      *
@@ -148,6 +172,40 @@ public final class ReturnValueOfMethodTransition extends Transition {
         return returnValueOfMethodElement;
     }
 
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeXMLRepresentation(javax.xml.stream.XMLStreamWriter)
+     */
+    @Override
+    public void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException {
+        xml.writeStartElement("return_value_of_method_transition");
+        this.methodCall.writeXMLRepresentation(xml);
+        xml.writeEndElement();
+    }
+
+    /* (non-Javadoc)
+     * @see org.softevo.oumextractor.modelcreator1.model.Transition#writeBinaryRepresentation(org.softevo.oumextractor.modelcreator1.model.BinaryModelWriter)
+     */
+    @Override
+    void writeBinaryRepresentation(BinaryModelWriter out) throws IOException {
+        out.writeByte(RETURN_VALUE_OF_METHOD_TRANSITION);
+        this.methodCall.writeBinaryRepresentation(out);
+    }
+
+    /**
+     * Returns (creating it, if necessary) the transition written in the binary
+     * models format at the current position of the given reader (just after
+     * the transition's tag).
+     *
+     * @param in Reader positioned at the transition.
+     * @return Transition read.
+     * @throws IOException if the transition is malformed.
+     */
+    static ReturnValueOfMethodTransition readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        return get(MethodCall.readBinaryRepresentation(in));
+    }
+
     /* (non-Javadoc)
      * @see org.softevo.oumextractor.modelcreator1.model.Transition#getLongEventString()
      */
@@ -3,9 +3,11 @@ package org.softevo.oumextractor.modelcreator1.model;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * This class is used to represent transitions between states in a model.
@@ -20,30 +22,58 @@ public abstract class Transition implements Serializable {
     private static final long serialVersionUID = -7751229707515748158L;
 
     /**
-     * Set of all transitions (this is an identity mapping).
+     * Binary format tag of cast transitions.
      */
-    private static transient final Map<Transition, Transition> transitions =
-            new HashMap<Transition, Transition>();
+    static final int CAST_TRANSITION = 1;
+
+    /**
+     * Binary format tag of epsilon transitions.
+     */
+    static final int EPSILON_TRANSITION = 2;
+
+    /**
+     * Binary format tag of exception transitions.
+     */
+    static final int EXCEPTION_TRANSITION = 3;
+
+    /**
+     * Binary format tag of field value transitions.
+     */
+    static final int FIELD_VALUE_TRANSITION = 4;
+
+    /**
+     * Binary format tag of invoke method transitions.
+     */
+    static final int INVOKE_METHOD_TRANSITION = 5;
+
+    /**
+     * Binary format tag of return value of method transitions.
+     */
+    static final int RETURN_VALUE_OF_METHOD_TRANSITION = 6;
+
+    /**
+     * Binary format tag of lightweight transitions.
+     */
+    static final int LIGHTWEIGHT_TRANSITION = 7;
 
     /**
      * Returns transition that is equivalent to the given transition and
-     * should be used instead of it.
+     * should be used instead of it.  Transitions are shared through the pool
+     * of the current thread.
      *
      * @param t Transition, whose equivalent is to be found.
      * @return Transition equivalent to the given transition;
+     * @see TransitionsPool#getCurrent()
      */
     public static Transition getTransition(Transition t) {
-        if (!transitions.containsKey(t)) {
-            transitions.put(t, t);
-        }
-        return transitions.get(t);
+        return TransitionsPool.getCurrent().intern(t);
     }
 
     /**
-     * Clears the pool of transitions.
+     * Clears the pool of transitions of the current thread.
      */
     public static void clearPool() {
-        transitions.clear();
+        TransitionsPool.getCurrent().clear();
     }
 
     /**
@@ -74,6 +104,101 @@ public abstract class Transition implements Serializable {
         }
     }
 
+    /**
+     * Returns (creating it, if necessary) the transition represented by the
+     * XML element the given reader is positioned at.  After returning, the
+     * reader is positioned at the end of that element.
+     *
+     * @param reader XML stream positioned at the start of the transition.
+     * @return Transition, as represented by the current XML element, or
+     * <code>null</code>, if the element was not recognized.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    public static Transition getFromXMLRepresentation(XMLStreamReader reader)
+            throws XMLStreamException {
+        String name = reader.getLocalName();
+        if (name.equals("cast_transition")) {
+            return CastTransition.getFromXMLRepresentation(reader);
+        } else if (name.equals("epsilon_transition")) {
+            return EpsilonTransition.getFromXMLRepresentation(reader);
+        } else if (name.equals("exception_transition")) {
+            return ExceptionTransition.getFromXMLRepresentation(reader);
+        } else if (name.equals("field_value_transition")) {
+            return FieldValueTransition.getFromXMLRepresentation(reader);
+        } else if (name.equals("invoke_method_transition")) {
+            return InvokeMethodTransition.getFromXMLRepresentation(reader);
+        } else if (name.equals("return_value_of_method_transition")) {
+            return ReturnValueOfMethodTransition.getFromXMLRepresentation(reader);
+        } else if (name.equals("lightweight_transition")) {
+            return LightweightTransition.getFromXMLRepresentation(reader);
+        } else {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamReader.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns (creating it, if necessary) the transition written in the binary
+     * models format at the current position of the given reader.
+     *
+     * @param in Reader positioned at the transition.
+     * @return Transition read.
+     * @throws IOException if the transition is malformed.
+     */
+    static Transition readBinaryRepresentation(BinaryModelReader in)
+            throws IOException {
+        int tag = in.readByte();
+        switch (tag) {
+            case CAST_TRANSITION:
+                return CastTransition.readBinaryRepresentation(in);
+            case EPSILON_TRANSITION:
+                return EpsilonTransition.get();
+            case EXCEPTION_TRANSITION:
+                return ExceptionTransition.readBinaryRepresentation(in);
+            case FIELD_VALUE_TRANSITION:
+                return FieldValueTransition.readBinaryRepresentation(in);
+            case INVOKE_METHOD_TRANSITION:
+                return InvokeMethodTransition.readBinaryRepresentation(in);
+            case RETURN_VALUE_OF_METHOD_TRANSITION:
+                return ReturnValueOfMethodTransition.readBinaryRepresentation(in);
+            case LIGHTWEIGHT_TRANSITION:
+                return LightweightTransition.readBinaryRepresentation(in);
+            default:
+                throw new IOException("Unknown transition tag: " + tag);
+        }
+    }
+
+    /**
+     * Advances the given reader to the start of the next child element of the
+     * element it is currently in.  Text and comments are skipped.
+     *
+     * @param reader XML stream to advance.
+     * @return <code>true</code>, if the reader is positioned at the start of
+     * a child element, <code>false</code> if it is positioned at the end of
+     * the enclosing element.
+     * @throws XMLStreamException if the XML stream could not be read.
+     */
+    static boolean nextChildElement(XMLStreamReader reader)
+            throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                return false;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of the XML stream");
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -101,6 +226,25 @@ public abstract class Transition implements Serializable {
      */
     public abstract Element getXMLRepresentation(Document xml);
 
+    /**
+     * Writes the XML representation of this transition into the given stream.
+     *
+     * @param xml XML stream to write to.
+     * @throws XMLStreamException if the XML stream could not be written.
+     */
+    public abstract void writeXMLRepresentation(XMLStreamWriter xml)
+            throws XMLStreamException;
+
+    /**
+     * Writes this transition (starting with its tag) in the binary models
+     * format.
+     *
+     * @param out Writer to write this transition to.
+     * @throws IOException if writing fails.
+     */
+    abstract void writeBinaryRepresentation(BinaryModelWriter out)
+            throws IOException;
+
     /**
      * Returns string that fully represents the event denoted by this
      * transition in a human-readable way. This string should uniquely identify
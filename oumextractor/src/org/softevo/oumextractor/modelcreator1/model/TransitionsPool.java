@@ -0,0 +1,107 @@
+package org.softevo.oumextractor.modelcreator1.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class is used to represent pools of transitions.  Equal transitions
+ * are shared through a pool, so that each of them is kept in memory only
+ * once.  Pools can be used by many threads at once.  Each thread uses the
+ * pool it was given by <code>setCurrent()</code> or, if it was given none,
+ * the global pool.  Giving a separate pool to each run done in one process
+ * keeps their transitions apart and allows them to be released when the run
+ * is over.
+ *
+ * @author Andrzej Wasylkowski
+ */
+public final class TransitionsPool {
+
+    /**
+     * Pool used by threads that were not given any pool.
+     */
+    private static final TransitionsPool GLOBAL = new TransitionsPool();
+
+    /**
+     * Pool used by the current thread (<code>null</code> for the global
+     * pool).
+     */
+    private static final ThreadLocal<TransitionsPool> current =
+            new ThreadLocal<TransitionsPool>();
+
+    /**
+     * Set of all transitions in the pool (this is an identity mapping).
+     */
+    private final ConcurrentMap<Transition, Transition> transitions;
+
+    /**
+     * Creates a new, empty pool.
+     */
+    public TransitionsPool() {
+        this.transitions = new ConcurrentHashMap<Transition, Transition>();
+    }
+
+    /**
+     * Returns the pool used by threads that were not given any pool.
+     *
+     * @return Global pool.
+     */
+    public static TransitionsPool getGlobal() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the pool used by the current thread.
+     *
+     * @return Pool used by the current thread.
+     */
+    public static TransitionsPool getCurrent() {
+        TransitionsPool pool = current.get();
+        return pool == null ? GLOBAL : pool;
+    }
+
+    /**
+     * Makes the current thread use the given pool.
+     *
+     * @param pool Pool to use or <code>null</code>, if the global pool should
+     *             be used.
+     * @return Pool used by the current thread before or <code>null</code>, if
+     * it was the global pool.
+     */
+    public static TransitionsPool setCurrent(TransitionsPool pool) {
+        TransitionsPool previous = current.get();
+        if (pool == null || pool == GLOBAL) {
+            current.remove();
+        } else {
+            current.set(pool);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns transition that is equivalent to the given transition and
+     * should be used instead of it.
+     *
+     * @param t Transition, whose equivalent is to be found.
+     * @return Transition equivalent to the given transition.
+     */
+    public Transition intern(Transition t) {
+        Transition result = this.transitions.putIfAbsent(t, t);
+        return result == null ? t : result;
+    }
+
+    /**
+     * Returns the number of transitions in the pool.
+     *
+     * @return Number of transitions in the pool.
+     */
+    public int size() {
+        return this.transitions.size();
+    }
+
+    /**
+     * Removes all transitions from the pool.
+     */
+    public void clear() {
+        this.transitions.clear();
+    }
+}